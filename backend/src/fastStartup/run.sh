@@ -0,0 +1,7 @@
+#!/bin/sh
+# 快速啟動模式：載入 CDS 封存檔、使用 AOT 產生的 Bean 定義與 fast-startup profile
+# 其餘參數 (例如 --spring.datasource.url=...) 原樣傳給應用程式
+cd "$(dirname "$0")" || exit 1
+exec java -XX:SharedArchiveFile=app.jsa \
+    -Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup \
+    @classpath.args com.example.dynamicsurvey.DynamicSurveyApplication "$@"
@@ -0,0 +1,173 @@
+package com.example.dynamicsurvey.benchmark;
+
+import com.example.dynamicsurvey.dto.*;
+import com.example.dynamicsurvey.entity.*;
+import com.example.dynamicsurvey.service.SurveyStatsAggregator;
+import com.example.dynamicsurvey.vo.AppResponse;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * [效能基準] 基準測試用的合成資料
+ * -----------------------------------------------------------------------------
+ * 依題數、選項數與作答筆數產生與正式 API 相同結構的回應內容。
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 問卷詳情 (GET /api/surveys/{id}/details)
+     */
+    public static AppResponse<SurveyDTO> survey(int questions, int options) {
+        SurveyDTO dto = new SurveyDTO();
+        dto.setId(1L);
+        dto.setTitle("2026 年度顧客滿意度調查");
+        dto.setDescription("感謝您撥冗填寫本問卷，您的意見將協助我們改善服務品質。");
+        dto.setStartDate(LocalDate.of(2026, 1, 1));
+        dto.setEndDate(LocalDate.of(2026, 12, 31));
+        dto.setStatus("PUBLISHED");
+        List<QuestionDTO> qs = new ArrayList<>();
+        for (int q = 0; q < questions; q++) {
+            QuestionDTO qDto = new QuestionDTO();
+            qDto.setId((long) q + 1);
+            qDto.setTitle("第 " + (q + 1) + " 題：您對本次服務的整體感受為何？");
+            qDto.setType(q % 3 == 2 ? "TEXT" : (q % 3 == 1 ? "MULTI" : "SINGLE"));
+            qDto.setRequired(q % 2 == 0);
+            qDto.setOrderIndex(q);
+            List<OptionDTO> os = new ArrayList<>();
+            if (!"TEXT".equals(qDto.getType())) {
+                for (int o = 0; o < options; o++) {
+                    OptionDTO oDto = new OptionDTO();
+                    oDto.setId((long) q * options + o + 1);
+                    oDto.setOptionText("選項 " + (char) ('A' + o));
+                    oDto.setOrderIndex(o);
+                    os.add(oDto);
+                }
+            }
+            qDto.setOptions(os);
+            qs.add(qDto);
+        }
+        dto.setQuestions(qs);
+        return AppResponse.success(dto);
+    }
+
+    /**
+     * 統計結果 (GET /api/admin/surveys/{id}/stats)，由 SurveyStatsAggregator 實際彙總產生
+     */
+    public static AppResponse<SurveyStatsDTO> stats(int questions, int options, int responses) {
+        Survey survey = surveyEntity(questions, options);
+        return AppResponse.success(SurveyStatsAggregator.aggregate(survey, responseEntities(survey, responses)));
+    }
+
+    /**
+     * 問卷實體圖 (Survey -> Question -> Option)，ID 依序指派
+     */
+    public static Survey surveyEntity(int questions, int options) {
+        Survey survey = new Survey();
+        survey.setId(1L);
+        survey.setTitle("2026 年度顧客滿意度調查");
+        survey.setDescription("感謝您撥冗填寫本問卷，您的意見將協助我們改善服務品質。");
+        survey.setStartDate(LocalDate.of(2026, 1, 1));
+        survey.setEndDate(LocalDate.of(2026, 12, 31));
+        survey.setStatus("PUBLISHED");
+        long optionId = 1;
+        for (int q = 0; q < questions; q++) {
+            Question question = new Question();
+            question.setId((long) q + 1);
+            question.setSurvey(survey);
+            question.setTitle("第 " + (q + 1) + " 題：您對本次服務的整體感受為何？");
+            question.setType(q % 3 == 2 ? "TEXT" : (q % 3 == 1 ? "MULTI" : "SINGLE"));
+            question.setRequired(q % 2 == 0);
+            question.setOrderIndex(q);
+            if (!"TEXT".equals(question.getType())) {
+                for (int o = 0; o < options; o++) {
+                    Option option = new Option();
+                    option.setId(optionId++);
+                    option.setQuestion(question);
+                    option.setOptionText("選項 " + (char) ('A' + o));
+                    option.setOrderIndex(o);
+                    question.getOptions().add(option);
+                }
+            }
+            survey.getQuestions().add(question);
+        }
+        return survey;
+    }
+
+    /**
+     * 針對問卷實體產生作答 (單選一項、多選兩項、簡答固定文字)，以固定亂數種子確保可重現
+     */
+    public static List<SurveyResponse> responseEntities(Survey survey, int responses) {
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2026, 3, 1, 9, 0);
+        List<SurveyResponse> list = new ArrayList<>(responses);
+        for (int r = 0; r < responses; r++) {
+            SurveyResponse response = new SurveyResponse();
+            response.setId((long) r + 1);
+            response.setSurvey(survey);
+            response.setName("填答者" + r);
+            response.setPhone("0912345678");
+            response.setEmail("user" + r + "@example.com");
+            response.setAge(20 + r % 50);
+            response.setSubmittedAt(base.plusMinutes(r));
+            for (Question q : survey.getQuestions()) {
+                ResponseAnswer answer = new ResponseAnswer();
+                answer.setSurveyResponse(response);
+                answer.setQuestion(q);
+                if ("TEXT".equals(q.getType())) {
+                    answer.setAnswerText("整體而言相當滿意，希望能持續改進 #" + r);
+                } else {
+                    int picks = "MULTI".equals(q.getType()) ? 2 : 1;
+                    for (int p = 0; p < picks; p++) {
+                        answer.getSelectedOptions().add(q.getOptions().get(random.nextInt(q.getOptions().size())));
+                    }
+                }
+                response.getAnswers().add(answer);
+            }
+            list.add(response);
+        }
+        return list;
+    }
+
+    /**
+     * 作答列表 (GET /api/admin/surveys/{id}/responses)
+     */
+    public static AppResponse<List<ResponseSummaryDTO>> responses(int responses) {
+        List<ResponseSummaryDTO> list = new ArrayList<>(responses);
+        LocalDateTime base = LocalDateTime.of(2026, 3, 1, 9, 0);
+        for (int r = 0; r < responses; r++) {
+            list.add(new ResponseSummaryDTO((long) responses - r, "填答者" + r, "user" + r + "@example.com", base.plusMinutes(r)));
+        }
+        return AppResponse.success(list);
+    }
+
+    /**
+     * 問卷提交內容 (POST /api/surveys/{id}/submit 的 ResponseDTO)
+     */
+    public static ResponseDTO submission(int questions, int options) {
+        ResponseDTO dto = new ResponseDTO();
+        dto.setSurveyId(1L);
+        dto.setName("王小明");
+        dto.setPhone("0912345678");
+        dto.setEmail("ming@example.com");
+        dto.setAge(30);
+        List<AnswerDTO> answers = new ArrayList<>();
+        for (int q = 0; q < questions; q++) {
+            AnswerDTO a = new AnswerDTO();
+            a.setQuestionId((long) q + 1);
+            if (q % 3 == 2) {
+                a.setAnswerText("整體而言相當滿意");
+                a.setOptionIds(List.of());
+            } else {
+                a.setOptionIds(List.of((long) q * options + 1));
+            }
+            answers.add(a);
+        }
+        dto.setAnswers(answers);
+        return dto;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.dynamicsurvey.benchmark;
+
+import com.example.dynamicsurvey.analytics.ColumnarSnapshotReader;
+import com.example.dynamicsurvey.analytics.ColumnarSnapshotWriter;
+import com.example.dynamicsurvey.analytics.ColumnarSnapshotWriter.QuestionSchema;
+import com.example.dynamicsurvey.analytics.ColumnarSnapshotWriter.SurveySchema;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * [效能基準] 欄式快照的讀取
+ * -----------------------------------------------------------------------------
+ * 以 ColumnarSnapshotWriter 產生一份 10 題選擇題的快照 (單選 / 多選交錯、每題 5 個選項)，
+ * choiceCounts 量測「開啟檔案 + 統計全部選項」，對照線上統計需先從資料庫載入全部作答。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ColumnarSnapshotBenchmark {
+
+    private static final int QUESTIONS = 10;
+    private static final int OPTIONS = 5;
+
+    @Param({"100000", "1000000"})
+    int responses;
+
+    private Path root;
+    private List<QuestionSchema> questions;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("columnar-bench");
+        questions = new ArrayList<>();
+        long optionId = 1;
+        for (int q = 0; q < QUESTIONS; q++) {
+            List<Long> ids = new ArrayList<>();
+            List<String> texts = new ArrayList<>();
+            for (int o = 0; o < OPTIONS; o++) {
+                ids.add(optionId++);
+                texts.add("選項 " + (char) ('A' + o));
+            }
+            questions.add(new QuestionSchema(q + 1, "第 " + (q + 1) + " 題", q % 2 == 0 ? "SINGLE" : "MULTI", ids, texts,
+                    null, null));
+        }
+        ColumnarSnapshotWriter writer = new ColumnarSnapshotWriter(new SurveySchema(1L, "基準問卷", questions));
+        Random random = new Random(42);
+        long base = 1_772_326_800_000L;
+        for (int r = 0; r < responses; r++) {
+            writer.addResponse(r + 1, base + r * 60_000L, 20 + r % 50);
+            for (QuestionSchema q : questions) {
+                int picks = "MULTI".equals(q.type()) ? 2 : 1;
+                List<Long> selected = new ArrayList<>(picks);
+                for (int p = 0; p < picks; p++) selected.add(q.optionIds().get(random.nextInt(OPTIONS)));
+                writer.addAnswer(q.id(), null, selected);
+            }
+        }
+        Path dir = ColumnarSnapshotReader.surveyDir(root, 1L);
+        Files.createDirectories(dir);
+        writer.writeTo(dir.resolve("part-1.col"));
+        Files.writeString(dir.resolve(ColumnarSnapshotReader.MANIFEST), "part-1.col\n");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+
+    @Benchmark
+    public long choiceCounts() throws IOException {
+        ColumnarSnapshotReader reader = ColumnarSnapshotReader.open(root, 1L).orElseThrow();
+        long total = 0;
+        for (QuestionSchema q : questions) {
+            for (Map.Entry<Long, Integer> e : reader.optionCounts(q.id()).entrySet()) total += e.getValue();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Object stats() throws IOException {
+        return ColumnarSnapshotReader.open(root, 1L).orElseThrow().stats();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.dynamicsurvey.benchmark;
+
+import com.example.dynamicsurvey.security.JwtUtils;
+import com.example.dynamicsurvey.security.UserDetailsImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * [效能基準] JWT 驗證與解析
+ * -----------------------------------------------------------------------------
+ * - verifyCached : AuthTokenFilter 的一般情況，同一 Token 第二次之後命中已驗證快取
+ * - parseSubject : getUserNameFromJwtToken，每次都完整解析並驗章 (等同快取未命中的成本)
+ * JwtUtils 的設定以 @Value 注入，這裡以反射填入與 application.properties 相同的值。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+
+    private static final String SECRET = "vW9mK2v6yB?E(G+KbPeShVmYq3t6w9z$C&E)H@McQfTjWnZr4u7x!A%D*G-KaPdS";
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        jwtUtils = newJwtUtils();
+        UserDetailsImpl user = UserDetailsImpl.fromClaims(1L, "ming@example.com", "王小明", "USER");
+        token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        jwtUtils.verifyToken(token);
+    }
+
+    @Benchmark
+    public Object verifyCached() {
+        return jwtUtils.verifyToken(token);
+    }
+
+    @Benchmark
+    public String parseSubject() {
+        return jwtUtils.getUserNameFromJwtToken(token);
+    }
+
+    private static JwtUtils newJwtUtils() throws Exception {
+        JwtUtils utils = new JwtUtils();
+        set(utils, "jwtSecret", SECRET);
+        set(utils, "jwtExpirationMs", 86_400_000);
+        set(utils, "verifiedCacheTtlSeconds", 60L);
+        set(utils, "verifiedCacheMaxSize", 10_000L);
+        Method init = JwtUtils.class.getDeclaredMethod("init");
+        init.setAccessible(true);
+        init.invoke(utils);
+        return utils;
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.dynamicsurvey.benchmark;
+
+import com.example.dynamicsurvey.config.BinaryCodecConfig;
+import com.example.dynamicsurvey.dto.ResponseDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * [效能基準] JSON / CBOR / Smile 編碼比較
+ * -----------------------------------------------------------------------------
+ * 以與正式環境相同的 Jackson 設定，比較三種格式的序列化、解析時間與傳輸大小：
+ * 以 application.properties 啟動只含 Jackson 與 HttpMessageConverters 的 Spring 容器，
+ * 取出 MVC 內容協商會選中的轉換器 (含 BinaryCodecConfig) 所用的 ObjectMapper。
+ * 每組參數的編碼後位元組數會在 Setup 階段輸出 (bytes-on-wire)。
+ * 解析端以 JsonNode 模擬通用消費端 (瀏覽器 / ETL)；提交內容則解析回 ResponseDTO。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PayloadCodecBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    @Param({"survey", "stats", "responses", "submission"})
+    String payload;
+
+    private ObjectMapper mapper;
+    private Object value;
+    private byte[] encoded;
+
+    private ConfigurableApplicationContext context;
+
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({JacksonAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class})
+    @Import(BinaryCodecConfig.class)
+    static class Codecs {
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        context = new SpringApplicationBuilder(Codecs.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run("--logging.level.root=WARN");
+        MediaType mediaType = switch (format) {
+            case "cbor" -> MediaType.parseMediaType("application/cbor");
+            case "smile" -> MediaType.parseMediaType("application/x-jackson-smile");
+            default -> MediaType.APPLICATION_JSON;
+        };
+        // 與 MVC 相同：清單中第一個能寫出該格式的轉換器
+        mapper = context.getBean(HttpMessageConverters.class).getConverters().stream()
+                .filter(c -> c.canWrite(ResponseDTO.class, mediaType))
+                .map(c -> ((AbstractJackson2HttpMessageConverter) c).getObjectMapper())
+                .findFirst().orElseThrow();
+        value = switch (payload) {
+            case "survey" -> BenchmarkFixtures.survey(50, 5);
+            case "stats" -> BenchmarkFixtures.stats(50, 5, 1000);
+            case "responses" -> BenchmarkFixtures.responses(1000);
+            default -> BenchmarkFixtures.submission(50, 5);
+        };
+        encoded = mapper.writeValueAsBytes(value);
+        System.out.printf("%n[bytes-on-wire] payload=%s format=%s bytes=%d%n", payload, format, encoded.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return mapper.writeValueAsBytes(value);
+    }
+
+    @Benchmark
+    public Object parse() throws Exception {
+        if ("submission".equals(payload)) return mapper.readValue(encoded, ResponseDTO.class);
+        return mapper.readValue(encoded, JsonNode.class);
+    }
+}
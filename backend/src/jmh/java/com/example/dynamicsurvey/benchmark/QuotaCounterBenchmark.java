@@ -0,0 +1,46 @@
+package com.example.dynamicsurvey.benchmark;
+
+import com.example.dynamicsurvey.service.QuotaCounter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * [效能基準] 作答名額的預留 / 確認 (多執行緒同時提交同一份問卷)
+ * -----------------------------------------------------------------------------
+ * - striped      : QuotaCounter，各執行緒從自己的分段扣除
+ * - singleAtomic : 對照組，所有執行緒對同一個 AtomicLong 做 CAS 扣除
+ * 名額設為極大值，量測的是「尚有名額」時的熱路徑。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class QuotaCounterBenchmark {
+
+    private QuotaCounter striped;
+    private AtomicLong single;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        striped = new QuotaCounter(Long.MAX_VALUE / 2, 0, Runtime.getRuntime().availableProcessors());
+        single = new AtomicLong(Long.MAX_VALUE / 2);
+    }
+
+    @Benchmark
+    public boolean striped() {
+        boolean reserved = striped.tryReserve();
+        if (reserved) striped.commit();
+        return reserved;
+    }
+
+    @Benchmark
+    public boolean singleAtomic() {
+        long v;
+        while ((v = single.get()) > 0) {
+            if (single.compareAndSet(v, v - 1)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.dynamicsurvey.benchmark;
+
+import com.example.dynamicsurvey.repository.RespondentRepository.Respondent;
+import com.example.dynamicsurvey.service.RespondentIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * [效能基準] 後台作答者搜尋
+ * -----------------------------------------------------------------------------
+ * 問卷有 respondents 位作答者 (隨機姓名、Email、手機)，另有一段尚未合併的新提交 (尾段)。
+ * - firstPage   : 常見的短前綴 (姓氏)，取第一頁 20 筆
+ * - phonePrefix : 手機號碼前綴，需先略過姓名 / Email 欄位
+ * - deepPage    : 略過 5000 筆後取 100 筆 (接近分頁上限的最壞情況)
+ * - add         : 新提交加入索引 (插入尾段，偶爾與主段合併)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RespondentIndexBenchmark {
+
+    private static final String[] SURNAMES = {"王", "李", "張", "劉", "陳", "楊", "黃", "趙", "吳", "周"};
+
+    @Param({"100000", "1000000"})
+    int respondents;
+
+    private RespondentIndex index;
+    private long nextId;
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        index = new RespondentIndex();
+        index.load(after -> {
+            if (after >= respondents) return List.of();
+            List<Respondent> batch = new ArrayList<>(5000);
+            for (long id = after + 1; id <= Math.min(respondents, after + 5000); id++) {
+                batch.add(respondent(id, random));
+            }
+            return batch;
+        });
+        nextId = respondents + 1;
+        for (int i = 0; i < 500; i++) index.add(respondent(nextId++, random));
+    }
+
+    private Respondent respondent(long id, Random random) {
+        String name = SURNAMES[random.nextInt(SURNAMES.length)]
+                + (char) ('一' + random.nextInt(2000)) + (char) ('一' + random.nextInt(2000));
+        return new Respondent(id, name, "user" + Long.toString(random.nextLong() & 0xffffffffL, 36) + "@example.com",
+                "09" + (10_000_000 + random.nextInt(90_000_000)), now);
+    }
+
+    @Benchmark
+    public Object firstPage() {
+        return index.search("王", 0, 20);
+    }
+
+    @Benchmark
+    public Object phonePrefix() {
+        return index.search("0912-3", 0, 20);
+    }
+
+    @Benchmark
+    public Object deepPage() {
+        return index.search("user1", 5000, 100);
+    }
+
+    @Benchmark
+    public boolean add() {
+        return index.add(new Respondent(nextId++, "林小華", "lin" + nextId + "@example.com", "0912000000", now));
+    }
+}
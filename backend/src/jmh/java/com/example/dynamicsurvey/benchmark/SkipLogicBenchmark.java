@@ -0,0 +1,59 @@
+package com.example.dynamicsurvey.benchmark;
+
+import com.example.dynamicsurvey.dto.AnswerDTO;
+import com.example.dynamicsurvey.entity.Question;
+import com.example.dynamicsurvey.entity.Survey;
+import com.example.dynamicsurvey.service.SkipLogicPlan;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * [效能基準] 題目顯示條件
+ * -----------------------------------------------------------------------------
+ * 問卷中每題 (第一組除外) 都依前面的單選題設定顯示條件，形成多層的依賴鏈。
+ * - compile  : SkipLogicPlan.compile，每個已凍結版本只執行一次 (之後由快取取得)
+ * - evaluate : 每次暫存 / 提交作答都會執行，重複使用同一個 state 陣列
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SkipLogicBenchmark {
+
+    @Param({"10", "50", "200"})
+    int questions;
+
+    @Param({"5"})
+    int options;
+
+    private Survey survey;
+    private SkipLogicPlan plan;
+    private List<AnswerDTO> answers;
+    private long[] state;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        survey = BenchmarkFixtures.surveyEntity(questions, options);
+        for (Question q : survey.getQuestions()) {
+            int i = q.getOrderIndex();
+            if (i < 3) continue;
+            // 每三題的第一題為單選：同組其他題依它顯示，它本身依前一組的單選題顯示
+            int source = i % 3 == 0 ? i - 3 : i - i % 3;
+            q.setShowIf(source + ":0,1,2");
+        }
+        plan = SkipLogicPlan.compile(survey);
+        answers = BenchmarkFixtures.submission(questions, options).getAnswers();
+        state = new long[plan.stateLength()];
+    }
+
+    @Benchmark
+    public Object compile() {
+        return SkipLogicPlan.compile(survey);
+    }
+
+    @Benchmark
+    public String evaluate() {
+        return plan.evaluate(answers, state);
+    }
+}
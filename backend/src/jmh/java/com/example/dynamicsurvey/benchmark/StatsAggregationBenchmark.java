@@ -0,0 +1,96 @@
+package com.example.dynamicsurvey.benchmark;
+
+import com.example.dynamicsurvey.entity.*;
+import com.example.dynamicsurvey.service.SurveyStatsAggregator;
+import com.example.dynamicsurvey.vo.AppResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * [效能基準] 問卷統計彙總
+ * -----------------------------------------------------------------------------
+ * legacyMaps 保留舊版 getSurveyStats 的 HashMap + 裝箱計數寫法作為對照，
+ * typedRecords 為目前的 SurveyStatsAggregator；statsJson 再加上 AppResponse 的 JSON 序列化。
+ * 以 gc profiler (gradle jmh 已預設開啟) 比較 gc.alloc.rate.norm (每次操作配置的位元組)。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatsAggregationBenchmark {
+
+    @Param({"10", "50"})
+    int questions;
+
+    @Param({"100", "1000"})
+    int responses;
+
+    private Survey survey;
+    private List<SurveyResponse> responseList;
+    private ObjectMapper mapper;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        survey = BenchmarkFixtures.surveyEntity(questions, 5);
+        responseList = BenchmarkFixtures.responseEntities(survey, responses);
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public Object typedRecords() {
+        return SurveyStatsAggregator.aggregate(survey, responseList);
+    }
+
+    @Benchmark
+    public byte[] statsJson() throws Exception {
+        return mapper.writeValueAsBytes(AppResponse.success(SurveyStatsAggregator.aggregate(survey, responseList)));
+    }
+
+    @Benchmark
+    public Object legacyMaps() {
+        int totalResponses = responseList.size();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("surveyId", survey.getId());
+        stats.put("surveyTitle", survey.getTitle());
+        stats.put("totalResponses", totalResponses);
+        List<Map<String, Object>> qStatsList = new ArrayList<>();
+        for (Question q : survey.getQuestions()) {
+            Map<String, Object> qMap = new HashMap<>();
+            qMap.put("questionId", q.getId());
+            qMap.put("questionTitle", q.getTitle());
+            qMap.put("type", q.getType());
+            if (q.getType().equals("TEXT")) {
+                qMap.put("textAnswers", responseList.stream().flatMap(r -> r.getAnswers().stream())
+                        .filter(a -> a.getQuestion().getId().equals(q.getId())).map(ResponseAnswer::getAnswerText)
+                        .filter(Objects::nonNull).collect(Collectors.toList()));
+            } else {
+                Map<Long, Map<String, Object>> optMap = new HashMap<>();
+                for (Option o : q.getOptions()) {
+                    Map<String, Object> oData = new HashMap<>();
+                    oData.put("optionText", o.getOptionText());
+                    oData.put("count", 0);
+                    optMap.put(o.getId(), oData);
+                }
+                responseList.stream().flatMap(r -> r.getAnswers().stream())
+                        .filter(a -> a.getQuestion().getId().equals(q.getId()))
+                        .flatMap(a -> a.getSelectedOptions().stream())
+                        .forEach(o -> {
+                            Map<String, Object> oData = optMap.get(o.getId());
+                            if (oData != null) oData.put("count", (int) oData.get("count") + 1);
+                        });
+                for (Map<String, Object> oData : optMap.values()) {
+                    double pct = totalResponses > 0 ? ((int) oData.get("count") * 100.0 / totalResponses) : 0;
+                    oData.put("percentage", Math.round(pct * 10.0) / 10.0);
+                }
+                qMap.put("optionStats", optMap);
+            }
+            qStatsList.add(qMap);
+        }
+        stats.put("questionStats", qStatsList);
+        return stats;
+    }
+}
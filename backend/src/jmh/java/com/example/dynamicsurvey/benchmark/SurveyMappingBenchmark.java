@@ -0,0 +1,86 @@
+package com.example.dynamicsurvey.benchmark;
+
+import com.example.dynamicsurvey.dto.AnswerDTO;
+import com.example.dynamicsurvey.dto.ResponseDTO;
+import com.example.dynamicsurvey.entity.*;
+import com.example.dynamicsurvey.service.SurveyMapper;
+import com.example.dynamicsurvey.vo.AppResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * [效能基準] 問卷詳情轉換與作答對應
+ * -----------------------------------------------------------------------------
+ * - convertToDTO   : SurveyMapper.toDTO (GET /api/surveys/{id}/details)
+ * - detailsJson    : 轉換後包成 AppResponse 並序列化為 JSON (完整的詳情回應)
+ * - matchAnswers   : SurveyMapper.addAnswers，以題目 ID 索引對應答案
+ * - legacyMatching : 保留舊版 submitResponse 每個答案都以 stream 掃描全部題目的寫法作為對照
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SurveyMappingBenchmark {
+
+    @Param({"10", "50", "200"})
+    int questions;
+
+    @Param({"5"})
+    int options;
+
+    private Survey survey;
+    private ResponseDTO submission;
+    private ObjectMapper mapper;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        survey = BenchmarkFixtures.surveyEntity(questions, options);
+        submission = BenchmarkFixtures.submission(questions, options);
+        mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @Benchmark
+    public Object convertToDTO() {
+        return SurveyMapper.toDTO(survey);
+    }
+
+    @Benchmark
+    public byte[] detailsJson() throws Exception {
+        return mapper.writeValueAsBytes(AppResponse.success(SurveyMapper.toDTO(survey)));
+    }
+
+    @Benchmark
+    public Object matchAnswers() {
+        SurveyResponse response = new SurveyResponse();
+        SurveyMapper.addAnswers(response, survey, submission.getAnswers());
+        return response;
+    }
+
+    @Benchmark
+    public Object legacyMatching() {
+        SurveyResponse response = new SurveyResponse();
+        for (AnswerDTO aDto : submission.getAnswers()) {
+            ResponseAnswer answer = new ResponseAnswer();
+            answer.setSurveyResponse(response);
+            Question question = survey.getQuestions().stream().filter(q -> q.getId().equals(aDto.getQuestionId())).findFirst().orElse(null);
+            if (question == null) continue;
+            answer.setQuestion(question);
+            if (question.getType().equals("TEXT")) {
+                answer.setAnswerText(aDto.getAnswerText());
+            } else {
+                List<Option> selected = question.getOptions().stream().filter(o -> aDto.getOptionIds().contains(o.getId())).collect(Collectors.toList());
+                answer.setSelectedOptions(selected);
+                answer.setAnswerText(selected.stream().map(Option::getOptionText).collect(Collectors.joining(";")));
+            }
+            response.getAnswers().add(answer);
+        }
+        return response;
+    }
+}
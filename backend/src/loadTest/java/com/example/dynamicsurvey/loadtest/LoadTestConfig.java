@@ -0,0 +1,106 @@
+package com.example.dynamicsurvey.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * [壓力測試] 設定值
+ * -----------------------------------------------------------------------------
+ * 預設值放在 classpath 的 loadtest.properties，可用系統屬性覆寫
+ * (gradle loadTest -Ploadtest.duration=120s 會轉成 -Dloadtest.duration=120s)。
+ *
+ * 【流量模型】開放模型 (open model)：每種情境依固定到達率 (每秒次數) 發起，
+ * 不因伺服器變慢而降低送出速度；同時進行中的請求超過 concurrency 時記為 dropped。
+ *
+ * 【SLO】loadtest.slo.<端點>.p50-ms / p99-ms / p999-ms / min-rps，
+ * 以及全域的 loadtest.slo.max-error-rate。
+ */
+public record LoadTestConfig(
+        Duration warmup,
+        Duration duration,
+        int concurrency,
+        int surveys,
+        int questionsPerSurvey,
+        Map<Scenario, Double> arrivalRates,
+        Map<String, Slo> slos,
+        double maxErrorRate,
+        String reportFile) {
+
+    /**
+     * 流量情境與其對應的設定名稱
+     */
+    public enum Scenario {
+        PUBLIC_FLOW("public-flow"),
+        DIRECT_SUBMIT("direct-submit"),
+        ADMIN_STATS("admin-stats"),
+        HISTORY("history");
+
+        final String key;
+
+        Scenario(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * 單一端點的延遲與吞吐量門檻 (未設定的欄位為 null)
+     */
+    public record Slo(Double p50Ms, Double p99Ms, Double p999Ms, Double minRps) {
+    }
+
+    public static LoadTestConfig load() throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = LoadTestConfig.class.getResourceAsStream("/loadtest.properties")) {
+            if (in != null) props.load(in);
+        }
+        // 系統屬性優先
+        System.getProperties().forEach((k, v) -> {
+            if (k.toString().startsWith("loadtest.")) props.setProperty(k.toString(), v.toString());
+        });
+
+        Map<Scenario, Double> rates = new EnumMap<>(Scenario.class);
+        for (Scenario s : Scenario.values()) {
+            rates.put(s, Double.parseDouble(props.getProperty("loadtest.rate." + s.key, "0")));
+        }
+
+        Map<String, Slo> slos = new TreeMap<>();
+        for (String name : props.stringPropertyNames()) {
+            if (!name.startsWith("loadtest.slo.") || name.equals("loadtest.slo.max-error-rate")) continue;
+            String endpoint = name.substring("loadtest.slo.".length(), name.lastIndexOf('.'));
+            slos.computeIfAbsent(endpoint, e -> new Slo(
+                    number(props, "loadtest.slo." + e + ".p50-ms"),
+                    number(props, "loadtest.slo." + e + ".p99-ms"),
+                    number(props, "loadtest.slo." + e + ".p999-ms"),
+                    number(props, "loadtest.slo." + e + ".min-rps")));
+        }
+
+        return new LoadTestConfig(
+                duration(props.getProperty("loadtest.warmup", "10s")),
+                duration(props.getProperty("loadtest.duration", "60s")),
+                Integer.parseInt(props.getProperty("loadtest.concurrency", "200")),
+                Integer.parseInt(props.getProperty("loadtest.surveys", "20")),
+                Integer.parseInt(props.getProperty("loadtest.questions-per-survey", "10")),
+                rates,
+                slos,
+                Double.parseDouble(props.getProperty("loadtest.slo.max-error-rate", "0.01")),
+                props.getProperty("loadtest.report", "build/reports/loadtest/summary.json"));
+    }
+
+    private static Double number(Properties props, String key) {
+        String v = props.getProperty(key);
+        return v == null || v.isBlank() ? null : Double.valueOf(v.trim());
+    }
+
+    /**
+     * 支援 500ms / 30s / 2m 三種寫法
+     */
+    static Duration duration(String text) {
+        String t = text.trim().toLowerCase(Locale.ROOT);
+        if (t.endsWith("ms")) return Duration.ofMillis(Long.parseLong(t.substring(0, t.length() - 2)));
+        if (t.endsWith("s")) return Duration.ofSeconds(Long.parseLong(t.substring(0, t.length() - 1)));
+        if (t.endsWith("m")) return Duration.ofMinutes(Long.parseLong(t.substring(0, t.length() - 1)));
+        return Duration.ofSeconds(Long.parseLong(t));
+    }
+}
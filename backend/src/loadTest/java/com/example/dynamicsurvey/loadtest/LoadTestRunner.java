@@ -0,0 +1,169 @@
+package com.example.dynamicsurvey.loadtest;
+
+import com.example.dynamicsurvey.DynamicSurveyApplication;
+import com.example.dynamicsurvey.loadtest.LoadTestConfig.Scenario;
+import com.example.dynamicsurvey.loadtest.LoadTestConfig.Slo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * [壓力測試] 端對端負載測試 (執行：gradle loadTest)
+ * -----------------------------------------------------------------------------
+ * 【流程】
+ * 1. 以 loadtest profile 啟動完整應用程式 (H2 記憶體資料庫、隨機埠號)；
+ *    -Ploadtest.profiles=loadtest,loadtest-sharded 可改測作答分片 (兩個 H2 分片)。
+ * 2. 透過 API 建立帳號與問卷。
+ * 3. 依各情境的到達率持續送出請求：先暖身 (不計入)，再正式量測 duration。
+ * 4. 輸出各端點的吞吐量與 p50 / p99 / p999 延遲，並寫出 JSON 報表。
+ * 5. 任何 SLO 未達標時以非零狀態碼結束，讓 CI 建置失敗。
+ *
+ * 請求在虛擬執行緒上送出；同時進行中的流程數以 Semaphore 限制，
+ * 超過上限時不排隊等待，而是記為 dropped (代表系統已跟不上設定的到達率)。
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.load();
+        int exitCode;
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(DynamicSurveyApplication.class)
+                .profiles(System.getProperty("loadtest.profiles", "loadtest").split(","))
+                .run("--server.port=0");
+        try {
+            String baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            exitCode = new LoadTestRunner().run(config, baseUrl);
+        } finally {
+            app.close();
+        }
+        System.exit(exitCode);
+    }
+
+    int run(LoadTestConfig config, String baseUrl) throws Exception {
+        EndpointStats stats = new EndpointStats();
+        LongAdder dropped = new LongAdder();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(workers)
+                    .build();
+            SurveyTraffic traffic = new SurveyTraffic(client, baseUrl, stats);
+            traffic.seed(config.surveys(), config.questionsPerSurvey());
+
+            Semaphore inFlight = new Semaphore(config.concurrency());
+            ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(Scenario.values().length);
+            for (Map.Entry<Scenario, Double> e : config.arrivalRates().entrySet()) {
+                if (e.getValue() <= 0) continue;
+                long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / e.getValue());
+                Callable<?> action = action(traffic, e.getKey());
+                scheduler.scheduleAtFixedRate(() -> {
+                    if (!inFlight.tryAcquire()) {
+                        dropped.increment();
+                        return;
+                    }
+                    workers.submit(() -> {
+                        try {
+                            return action.call();
+                        } catch (Exception ignored) {
+                            return null; // 已由 EndpointStats 計入錯誤
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }, 0, periodNanos, TimeUnit.NANOSECONDS);
+            }
+
+            Thread.sleep(config.warmup().toMillis());
+            stats.startRecording();
+            dropped.reset();
+            long start = System.nanoTime();
+            Thread.sleep(config.duration().toMillis());
+            scheduler.shutdownNow();
+            // 等待進行中的請求結束後再計算秒數，避免吞吐量被高估
+            inFlight.acquire(config.concurrency());
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return report(config, stats, dropped.sum(), seconds);
+        }
+    }
+
+    private static Callable<?> action(SurveyTraffic traffic, Scenario scenario) {
+        return switch (scenario) {
+            case PUBLIC_FLOW -> () -> { traffic.publicFlow(); return null; };
+            case DIRECT_SUBMIT -> () -> { traffic.directSubmit(); return null; };
+            case ADMIN_STATS -> () -> { traffic.adminStats(); return null; };
+            case HISTORY -> () -> { traffic.history(); return null; };
+        };
+    }
+
+    /**
+     * 輸出結果並檢查 SLO，回傳程式結束碼
+     */
+    private static int report(LoadTestConfig config, EndpointStats stats, long dropped, double seconds) throws Exception {
+        List<String> violations = new ArrayList<>();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        long total = 0, errors = 0;
+
+        System.out.printf("%n%-14s %9s %7s %9s %9s %9s %9s%n", "endpoint", "count", "errors", "rps", "p50(ms)", "p99(ms)", "p999(ms)");
+        for (Map.Entry<String, EndpointStats.Entry> e : new TreeMap<>(stats.snapshot()).entrySet()) {
+            EndpointStats.Entry s = e.getValue();
+            double rps = s.count() / seconds;
+            double p50 = s.percentileMs(50), p99 = s.percentileMs(99), p999 = s.percentileMs(99.9);
+            System.out.printf("%-14s %9d %7d %9.1f %9.2f %9.2f %9.2f%n", e.getKey(), s.count(), s.errors(), rps, p50, p99, p999);
+            summary.put(e.getKey(), Map.of("count", s.count(), "errors", s.errors(), "rps", rps,
+                    "p50Ms", p50, "p99Ms", p99, "p999Ms", p999));
+            total += s.count();
+            errors += s.errors();
+
+            Slo slo = config.slos().get(e.getKey());
+            if (slo == null) continue;
+            check(violations, e.getKey(), "p50", p50, slo.p50Ms());
+            check(violations, e.getKey(), "p99", p99, slo.p99Ms());
+            check(violations, e.getKey(), "p999", p999, slo.p999Ms());
+            if (slo.minRps() != null && rps < slo.minRps()) {
+                violations.add(String.format("%s 吞吐量 %.1f rps 低於下限 %.1f", e.getKey(), rps, slo.minRps()));
+            }
+        }
+        // 有設定 SLO 卻完全沒有量測到的端點也算失敗 (例如流程在前一步就出錯)
+        for (String endpoint : config.slos().keySet()) {
+            if (!stats.snapshot().containsKey(endpoint)) violations.add(endpoint + " 沒有任何成功送出的請求");
+        }
+
+        double errorRate = total > 0 ? (double) errors / total : 1.0;
+        if (errorRate > config.maxErrorRate()) {
+            violations.add(String.format("錯誤率 %.2f%% 超過上限 %.2f%%", errorRate * 100, config.maxErrorRate() * 100));
+        }
+        if (dropped > 0) {
+            violations.add("同時進行的請求達到上限，共略過 " + dropped + " 次 (到達率超出系統處理能力)");
+        }
+        System.out.printf("%ntotal=%d errors=%d (%.2f%%) dropped=%d duration=%.1fs%n", total, errors, errorRate * 100, dropped, seconds);
+
+        summary.put("_total", Map.of("count", total, "errors", errors, "dropped", dropped, "seconds", seconds,
+                "violations", violations));
+        File file = new File(config.reportFile());
+        if (file.getParentFile() != null) file.getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, summary);
+        System.out.println("報表：" + file.getAbsolutePath());
+
+        if (violations.isEmpty()) {
+            System.out.println("SLO 全部達標");
+            return 0;
+        }
+        System.out.println("SLO 未達標：");
+        violations.forEach(v -> System.out.println("  - " + v));
+        return 1;
+    }
+
+    private static void check(List<String> violations, String endpoint, String name, double actualMs, Double limitMs) {
+        if (limitMs != null && actualMs > limitMs) {
+            violations.add(String.format("%s %s %.2fms 超過上限 %.2fms", endpoint, name, actualMs, limitMs));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.dynamicsurvey.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * [啟動基準] 量測 time-to-first-request (執行：gradle startupBenchmark)
+ * -----------------------------------------------------------------------------
+ * 以獨立行程啟動應用程式 (包含 JVM 本身的啟動成本)，從行程建立開始計時，
+ * 持續輪詢 GET /api/surveys，直到收到第一個 HTTP 回應為止。
+ * 每種模式重複 startup.runs 次，輸出中位數 / 最小 / 最大值：
+ *   - default : 一般啟動 (無 AOT、無 AppCDS、預設 profile)
+ *   - fast    : run.sh 相同的參數 (AppCDS + AOT + fast-startup profile)
+ * 兩種模式使用同一份 classpath (build/fast-startup/lib)，只差在啟動參數。
+ * 設定 startup.max-ms 時，fast 模式中位數超過上限即以非零狀態碼結束。
+ * 應用程式需要可連線的資料庫，可用 startup.app-args 傳入 (例如 --spring.datasource.url=...)。
+ */
+public class StartupBenchmark {
+
+    private static final String MAIN_CLASS = "com.example.dynamicsurvey.DynamicSurveyApplication";
+
+    public static void main(String[] args) throws Exception {
+        File dist = new File(System.getProperty("startup.dist", "build/fast-startup"));
+        String java = System.getProperty("startup.java", "java");
+        int runs = Integer.parseInt(System.getProperty("startup.runs", "5"));
+        Duration timeout = LoadTestConfig.duration(System.getProperty("startup.timeout", "120s"));
+        String maxMs = System.getProperty("startup.max-ms");
+        List<String> appArgs = split(System.getProperty("startup.app-args", ""));
+
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("default", List.of(java, "@classpath.args", MAIN_CLASS));
+        modes.put("fast", List.of(java, "-XX:SharedArchiveFile=app.jsa",
+                "-Dspring.aot.enabled=true", "-Dspring.profiles.active=fast-startup",
+                "@classpath.args", MAIN_CLASS));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        Map<String, Long> medians = new HashMap<>();
+        System.out.printf("%n%-8s %10s %10s %10s%n", "mode", "median(ms)", "min(ms)", "max(ms)");
+        for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+            long[] samples = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                samples[i] = timeToFirstRequest(client, dist, mode.getValue(), appArgs, timeout);
+            }
+            Arrays.sort(samples);
+            long median = samples[runs / 2];
+            medians.put(mode.getKey(), median);
+            System.out.printf("%-8s %10d %10d %10d%n", mode.getKey(), median, samples[0], samples[runs - 1]);
+            summary.put(mode.getKey(), Map.of("medianMs", median, "minMs", samples[0], "maxMs", samples[runs - 1],
+                    "samplesMs", samples));
+        }
+
+        File report = new File(System.getProperty("startup.report", "build/reports/startup/summary.json"));
+        if (report.getParentFile() != null) report.getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report, summary);
+        System.out.println("報表：" + report.getAbsolutePath());
+
+        if (maxMs != null) {
+            long fastMedian = medians.get("fast");
+            if (fastMedian > Long.parseLong(maxMs)) {
+                System.out.printf("快速啟動中位數 %dms 超過上限 %sms%n", fastMedian, maxMs);
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * 啟動一次應用程式並回傳收到第一個 HTTP 回應所需的毫秒數
+     */
+    private static long timeToFirstRequest(HttpClient client, File dist, List<String> command, List<String> appArgs,
+                                           Duration timeout) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> cmd = new ArrayList<>(command);
+        cmd.add("--server.port=" + port);
+        cmd.addAll(appArgs);
+        HttpRequest probe = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/surveys"))
+                .timeout(Duration.ofSeconds(5)).GET().build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(cmd).directory(dist)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            long deadline = start + timeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("應用程式啟動失敗，結束碼 " + process.exitValue() + "：" + String.join(" ", cmd));
+                }
+                try {
+                    client.send(probe, HttpResponse.BodyHandlers.discarding());
+                    return (System.nanoTime() - start) / 1_000_000;
+                } catch (IOException notYet) {
+                    Thread.sleep(10);
+                }
+            }
+            throw new IllegalStateException("等待第一個回應逾時 (" + timeout + ")");
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static List<String> split(String text) {
+        return text.isBlank() ? List.of() : Arrays.asList(text.trim().split("\\s+"));
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.dynamicsurvey.loadtest;
+
+import com.example.dynamicsurvey.dto.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * [壓力測試] 以 HTTP 模擬真實使用者的操作
+ * -----------------------------------------------------------------------------
+ * 全部經由公開 API 進行 (與前端相同)，不直接呼叫 Service：
+ *   - 公開作答流程：列表 -> 詳情 -> session-store -> session-get -> confirm (同一個 Session Cookie)
+ *   - 直接提交：POST /{id}/submit (帶 JWT，讓歷史紀錄有資料)
+ *   - 後台統計輪詢：GET /api/admin/surveys/{id}/stats
+ *   - 作答歷史：GET /api/surveys/history (帶 JWT)
+ * 每個請求以端點名稱記入 EndpointStats；HTTP 非 2xx 或 AppResponse.code != 200 皆視為錯誤。
+ */
+public class SurveyTraffic {
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final EndpointStats stats;
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    // 每次作答使用不同 Email，避免被「重複填寫」規則擋下
+    private final AtomicLong respondentSeq = new AtomicLong();
+
+    private final List<SurveyDTO> surveys = new ArrayList<>();
+    private String adminToken;
+    private String userToken;
+
+    public SurveyTraffic(HttpClient client, String baseUrl, EndpointStats stats) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.stats = stats;
+    }
+
+    // =========================================================================
+    // 準備資料 (不列入統計)
+    // =========================================================================
+
+    public void seed(int surveyCount, int questionsPerSurvey) throws IOException, InterruptedException {
+        adminToken = register("loadtest-admin@example.com");
+        userToken = register("loadtest-user@example.com");
+        for (int i = 0; i < surveyCount; i++) {
+            JsonNode body = send(post("/api/admin/surveys", survey(i, questionsPerSurvey)).header("Authorization", "Bearer " + adminToken), null);
+            surveys.add(mapper.treeToValue(body.get("data"), SurveyDTO.class));
+        }
+    }
+
+    private String register(String email) throws IOException, InterruptedException {
+        RegisterRequest req = new RegisterRequest();
+        req.setName("壓測帳號");
+        req.setEmail(email);
+        req.setPassword("loadtest-password");
+        return send(post("/api/auth/register", req), null).get("data").get("token").asText();
+    }
+
+    private static SurveyDTO survey(int index, int questions) {
+        SurveyDTO dto = new SurveyDTO();
+        dto.setTitle("壓力測試問卷 " + index);
+        dto.setDescription("自動產生的問卷，用於量測作答流程延遲");
+        dto.setStartDate(LocalDate.now().minusDays(1));
+        dto.setEndDate(LocalDate.now().plusDays(30));
+        dto.setStatus("PUBLISHED");
+        List<QuestionDTO> qs = new ArrayList<>();
+        for (int q = 0; q < questions; q++) {
+            QuestionDTO qDto = new QuestionDTO();
+            qDto.setTitle("第 " + (q + 1) + " 題");
+            qDto.setType(q % 3 == 2 ? "TEXT" : (q % 3 == 1 ? "MULTI" : "SINGLE"));
+            qDto.setRequired(true);
+            qDto.setOrderIndex(q);
+            List<OptionDTO> os = new ArrayList<>();
+            if (!"TEXT".equals(qDto.getType())) {
+                for (int o = 0; o < 4; o++) {
+                    OptionDTO oDto = new OptionDTO();
+                    oDto.setOptionText("選項 " + (char) ('A' + o));
+                    oDto.setOrderIndex(o);
+                    os.add(oDto);
+                }
+            }
+            qDto.setOptions(os);
+            qs.add(qDto);
+        }
+        dto.setQuestions(qs);
+        return dto;
+    }
+
+    // =========================================================================
+    // 情境
+    // =========================================================================
+
+    public void publicFlow() throws IOException, InterruptedException {
+        timed("list", get("/api/surveys"), null);
+        SurveyDTO survey = randomSurvey();
+        timed("details", get("/api/surveys/" + survey.getId() + "/details"), null);
+        Session session = new Session();
+        timed("session-store", post("/api/surveys/session-store", submission(survey)), session);
+        timed("session-get", get("/api/surveys/session-get"), session);
+        timed("confirm", post("/api/surveys/confirm", null), session);
+    }
+
+    public void directSubmit() throws IOException, InterruptedException {
+        SurveyDTO survey = randomSurvey();
+        timed("submit", post("/api/surveys/" + survey.getId() + "/submit", submission(survey))
+                .header("Authorization", "Bearer " + userToken), null);
+    }
+
+    public void adminStats() throws IOException, InterruptedException {
+        timed("admin-stats", get("/api/admin/surveys/" + randomSurvey().getId() + "/stats")
+                .header("Authorization", "Bearer " + adminToken), null);
+    }
+
+    public void history() throws IOException, InterruptedException {
+        timed("history", get("/api/surveys/history?size=20").header("Authorization", "Bearer " + userToken), null);
+    }
+
+    private SurveyDTO randomSurvey() {
+        return surveys.get(ThreadLocalRandom.current().nextInt(surveys.size()));
+    }
+
+    private ResponseDTO submission(SurveyDTO survey) {
+        long seq = respondentSeq.incrementAndGet();
+        ResponseDTO dto = new ResponseDTO();
+        dto.setSurveyId(survey.getId());
+        dto.setName("填答者" + seq);
+        dto.setPhone("0912345678");
+        dto.setEmail("respondent" + seq + "@example.com");
+        dto.setAge(20 + (int) (seq % 50));
+        List<AnswerDTO> answers = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (QuestionDTO q : survey.getQuestions()) {
+            AnswerDTO a = new AnswerDTO();
+            a.setQuestionId(q.getId());
+            if ("TEXT".equals(q.getType())) {
+                a.setAnswerText("整體而言相當滿意");
+                a.setOptionIds(List.of());
+            } else {
+                a.setOptionIds(List.of(q.getOptions().get(random.nextInt(q.getOptions().size())).getId()));
+            }
+            answers.add(a);
+        }
+        dto.setAnswers(answers);
+        return dto;
+    }
+
+    // =========================================================================
+    // HTTP
+    // =========================================================================
+
+    /**
+     * 同一個作答流程共用的 Session Cookie
+     */
+    private static final class Session {
+        String cookie;
+    }
+
+    private void timed(String endpoint, HttpRequest.Builder request, Session session) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            send(request, session);
+            ok = true;
+        } finally {
+            // 失敗時例外會往上拋，中斷同一流程的後續步驟
+            stats.record(endpoint, System.nanoTime() - start, ok);
+        }
+    }
+
+    private JsonNode send(HttpRequest.Builder request, Session session) throws IOException, InterruptedException {
+        if (session != null && session.cookie != null) request.header("Cookie", session.cookie);
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (session != null && session.cookie == null) {
+            response.headers().firstValue("Set-Cookie").ifPresent(c -> session.cookie = c.split(";", 2)[0]);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new RequestFailedException(request.build().uri() + " -> HTTP " + response.statusCode());
+        }
+        JsonNode body = mapper.readTree(response.body());
+        if (body.path("code").asInt() != 200) {
+            throw new RequestFailedException(request.build().uri() + " -> " + body.path("code").asInt() + " " + body.path("message").asText());
+        }
+        return body;
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, Object body) throws IOException {
+        HttpRequest.BodyPublisher publisher = body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body));
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(publisher);
+    }
+
+    /**
+     * 請求失敗 (HTTP 錯誤或業務錯誤碼)
+     */
+    public static class RequestFailedException extends IOException {
+        public RequestFailedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+-- 負載測試用：與 V3__response_archive.sql (及 V4、V10 的索引) 相同的封存區資料表 (H2 語法)
+
+CREATE TABLE archived_survey_responses (
+    id           BIGINT       NOT NULL PRIMARY KEY,
+    survey_id    BIGINT       NOT NULL,
+    name         VARCHAR(255) NOT NULL,
+    phone        VARCHAR(255) NOT NULL,
+    email        VARCHAR(255) NOT NULL,
+    age          INTEGER,
+    submitted_at TIMESTAMP(6) NOT NULL,
+    user_id      BIGINT
+);
+CREATE INDEX idx_archived_response_survey ON archived_survey_responses (survey_id, id);
+CREATE INDEX idx_archived_response_user_submitted ON archived_survey_responses (user_id, submitted_at);
+
+CREATE TABLE archived_response_answers (
+    id          BIGINT NOT NULL PRIMARY KEY,
+    response_id BIGINT NOT NULL,
+    question_id BIGINT NOT NULL,
+    answer_text CLOB
+);
+CREATE INDEX idx_archived_answer_response ON archived_response_answers (response_id);
+
+CREATE TABLE archived_answer_selected_options (
+    answer_id BIGINT NOT NULL,
+    option_id BIGINT NOT NULL
+);
+CREATE INDEX idx_archived_selected_answer ON archived_answer_selected_options (answer_id);
+
+CREATE TABLE survey_stats_snapshots (
+    survey_id       BIGINT       NOT NULL PRIMARY KEY,
+    total_responses INTEGER      NOT NULL,
+    stats_json      CLOB         NOT NULL,
+    archived_at     TIMESTAMP(6) NOT NULL,
+    completed       BOOLEAN      NOT NULL DEFAULT FALSE
+);
+
+-- V4__archive_reference_indexes.sql
+CREATE INDEX idx_archived_answer_question ON archived_response_answers (question_id);
+CREATE INDEX idx_archived_selected_option ON archived_answer_selected_options (option_id);
+
+-- V6__response_sharding.sql (loadtest-sharded profile 使用)
+CREATE TABLE response_placements (
+    survey_id BIGINT       NOT NULL PRIMARY KEY,
+    shard     VARCHAR(64)  NOT NULL,
+    placed_at TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX idx_placement_shard ON response_placements (shard);
+
+CREATE TABLE response_id_blocks (
+    name    VARCHAR(32) NOT NULL PRIMARY KEY,
+    next_id BIGINT      NOT NULL
+);
+INSERT INTO response_id_blocks (name, next_id) VALUES ('response', 1), ('answer', 1);
@@ -0,0 +1,62 @@
+-- 負載測試用：與 db/shard 各版本遷移合併後相同的分片資料表 (H2 語法)
+
+CREATE TABLE survey_responses (
+    id           BIGINT       NOT NULL PRIMARY KEY,
+    survey_id    BIGINT       NOT NULL,
+    name         VARCHAR(255) NOT NULL,
+    phone        VARCHAR(255) NOT NULL,
+    email        VARCHAR(255) NOT NULL,
+    age          INTEGER,
+    submitted_at TIMESTAMP(6) NOT NULL,
+    user_id      BIGINT
+);
+CREATE INDEX idx_response_survey_email ON survey_responses (survey_id, email);
+CREATE INDEX idx_response_survey_list ON survey_responses (survey_id, id, submitted_at, email, name);
+CREATE INDEX idx_response_user_submitted ON survey_responses (user_id, submitted_at);
+
+CREATE TABLE response_answers (
+    id          BIGINT NOT NULL PRIMARY KEY,
+    response_id BIGINT NOT NULL,
+    question_id BIGINT NOT NULL,
+    answer_text CLOB,
+    CONSTRAINT fk_answers_response FOREIGN KEY (response_id) REFERENCES survey_responses (id)
+);
+CREATE INDEX idx_answer_response ON response_answers (response_id, question_id);
+CREATE INDEX idx_answer_question ON response_answers (question_id);
+
+CREATE TABLE answer_selected_options (
+    answer_id BIGINT NOT NULL,
+    option_id BIGINT NOT NULL,
+    CONSTRAINT fk_selected_answer FOREIGN KEY (answer_id) REFERENCES response_answers (id)
+);
+CREATE INDEX idx_selected_answer_option ON answer_selected_options (answer_id, option_id);
+CREATE INDEX idx_selected_option ON answer_selected_options (option_id);
+
+CREATE TABLE archived_survey_responses (
+    id           BIGINT       NOT NULL PRIMARY KEY,
+    survey_id    BIGINT       NOT NULL,
+    name         VARCHAR(255) NOT NULL,
+    phone        VARCHAR(255) NOT NULL,
+    email        VARCHAR(255) NOT NULL,
+    age          INTEGER,
+    submitted_at TIMESTAMP(6) NOT NULL,
+    user_id      BIGINT
+);
+CREATE INDEX idx_archived_response_survey ON archived_survey_responses (survey_id, id);
+CREATE INDEX idx_archived_response_user_submitted ON archived_survey_responses (user_id, submitted_at);
+
+CREATE TABLE archived_response_answers (
+    id          BIGINT NOT NULL PRIMARY KEY,
+    response_id BIGINT NOT NULL,
+    question_id BIGINT NOT NULL,
+    answer_text CLOB
+);
+CREATE INDEX idx_archived_answer_response ON archived_response_answers (response_id);
+CREATE INDEX idx_archived_answer_question ON archived_response_answers (question_id);
+
+CREATE TABLE archived_answer_selected_options (
+    answer_id BIGINT NOT NULL,
+    option_id BIGINT NOT NULL
+);
+CREATE INDEX idx_archived_selected_answer ON archived_answer_selected_options (answer_id);
+CREATE INDEX idx_archived_selected_option ON archived_answer_selected_options (option_id);
@@ -2,8 +2,10 @@ package com.example.dynamicsurvey;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DynamicSurveyApplication {
     public static void main(String[] args) {
         SpringApplication.run(DynamicSurveyApplication.class, args);
@@ -0,0 +1,66 @@
+package com.example.dynamicsurvey;
+
+import com.example.dynamicsurvey.service.ResponseReshardService;
+import com.example.dynamicsurvey.service.ResponseReshardService.Move;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+
+/**
+ * [維運工具] 作答重新分片 (執行：gradle reshard -Preshard.args="plan")
+ * -----------------------------------------------------------------------------
+ * 以與線上服務相同的設定啟動 (不開 HTTP 埠、不執行排程)，線上服務不需停機：
+ *   plan                     列出位置與雜湊環不一致的問卷
+ *   rebalance                依 plan 全部搬移 (新增分片後執行)
+ *   move <surveyId> <shard>  將單一問卷搬到指定分片
+ * 其餘 --key=value 參數照常傳給 Spring (例如 --spring.profiles.active=prod)。
+ */
+public class ReshardTool {
+
+    public static void main(String[] args) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DynamicSurveyApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("survey.archive.cron=-", "survey.columnar.cron=-")
+                .run(args);
+        int exitCode;
+        try {
+            List<String> command = context.getBean(ApplicationArguments.class).getNonOptionArgs();
+            exitCode = run(context.getBean(ResponseReshardService.class), command);
+        } catch (NoSuchBeanDefinitionException e) {
+            System.err.println("未啟用作答分片 (app.datasource.shards.enabled=false)");
+            exitCode = 2;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    private static int run(ResponseReshardService reshard, List<String> command) {
+        String action = command.isEmpty() ? "plan" : command.get(0);
+        switch (action) {
+            case "plan" -> {
+                List<Move> moves = reshard.plan();
+                moves.forEach(m -> System.out.printf("survey %d: %s -> %s%n", m.surveyId(), m.from(), m.to()));
+                System.out.printf("共 %d 份問卷需要搬移%n", moves.size());
+                return 0;
+            }
+            case "rebalance" -> {
+                System.out.printf("已搬移 %d 筆作答%n", reshard.rebalance());
+                return 0;
+            }
+            case "move" -> {
+                if (command.size() != 3) break;
+                System.out.printf("已搬移 %d 筆作答%n", reshard.move(Long.parseLong(command.get(1)), command.get(2)));
+                return 0;
+            }
+            default -> {
+            }
+        }
+        System.err.println("用法: plan | rebalance | move <surveyId> <shard>");
+        return 2;
+    }
+}
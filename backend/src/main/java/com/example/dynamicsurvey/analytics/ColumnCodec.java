@@ -0,0 +1,208 @@
+package com.example.dynamicsurvey.analytics;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * [教學說明] 整數欄位的編碼 (Frame-of-Reference + Bit-Packing / Run-Length)
+ * -----------------------------------------------------------------------------
+ * 每個整數欄位先減去欄位最小值 (frame of reference)，再依資料挑選較小的編碼：
+ * - BIT_PACKED : 每列固定 width 個位元，緊密排列在 long 中 (選項序號通常只需 2 ~ 4 位元)
+ * - RUN_LENGTH : (列數 int, 值 long) 的連續區段，適合大量重複 (例如多選題某選項幾乎沒人選)
+ * 可為 null 的欄位以 0 代表 null，其餘值整體 +1。
+ * 讀取端直接在 memory-mapped 的 ByteBuffer 上解碼，不建立中間物件。
+ */
+final class ColumnCodec {
+
+    static final byte BIT_PACKED = 1;
+    static final byte RUN_LENGTH = 2;
+
+    private static final int RUN_BYTES = Integer.BYTES + Long.BYTES;
+
+    private ColumnCodec() {
+    }
+
+    /**
+     * 欄位描述 (寫在檔尾 footer)；min / max 為非 null 值的範圍 (全部為 null 時皆為 0)
+     */
+    record Column(byte encoding, boolean nullable, long min, long max, int nullCount, int width, int offset, int length) {
+    }
+
+    // =========================================================================
+    // 寫入
+    // =========================================================================
+
+    /**
+     * 編碼前 rows 列並寫入 out；nulls 為 null 代表欄位不可為 null
+     */
+    static Column write(DataOutputStream out, long[] values, boolean[] nulls, int rows) throws IOException {
+        boolean nullable = nulls != null;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        int nullCount = 0;
+        for (int i = 0; i < rows; i++) {
+            if (nullable && nulls[i]) {
+                nullCount++;
+            } else {
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+        }
+        if (nullCount == rows) min = max = 0;
+
+        long[] stored = new long[rows];
+        long maxStored = 0;
+        int runs = 0;
+        for (int i = 0; i < rows; i++) {
+            long s = (nullable && nulls[i]) ? 0 : values[i] - min + (nullable ? 1 : 0);
+            stored[i] = s;
+            maxStored = Math.max(maxStored, s);
+            if (i == 0 || s != stored[i - 1]) runs++;
+        }
+        int width = 64 - Long.numberOfLeadingZeros(maxStored);
+        long packedBytes = ((long) rows * width + 63) / 64 * Long.BYTES;
+
+        int offset = out.size();
+        if ((long) runs * RUN_BYTES < packedBytes) {
+            int start = 0;
+            for (int i = 1; i <= rows; i++) {
+                if (i == rows || stored[i] != stored[start]) {
+                    out.writeInt(i - start);
+                    out.writeLong(stored[start]);
+                    start = i;
+                }
+            }
+            return new Column(RUN_LENGTH, nullable, min, max, nullCount, width, offset, out.size() - offset);
+        }
+        long[] words = new long[(int) (packedBytes / Long.BYTES)];
+        if (width > 0) {
+            for (int i = 0; i < rows; i++) {
+                long bit = (long) i * width;
+                int w = (int) (bit >>> 6);
+                int shift = (int) (bit & 63);
+                words[w] |= stored[i] << shift;
+                if (shift + width > 64) words[w + 1] |= stored[i] >>> (64 - shift);
+            }
+        }
+        for (long word : words) out.writeLong(word);
+        return new Column(BIT_PACKED, nullable, min, max, nullCount, width, offset, out.size() - offset);
+    }
+
+    static void writeColumn(DataOutputStream out, Column c) throws IOException {
+        out.writeByte(c.encoding());
+        out.writeBoolean(c.nullable());
+        out.writeLong(c.min());
+        out.writeLong(c.max());
+        out.writeInt(c.nullCount());
+        out.writeInt(c.width());
+        out.writeInt(c.offset());
+        out.writeInt(c.length());
+    }
+
+    static Column readColumn(ByteBuffer in) {
+        return new Column(in.get(), in.get() != 0, in.getLong(), in.getLong(), in.getInt(), in.getInt(), in.getInt(), in.getInt());
+    }
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // =========================================================================
+    // 讀取 (buf 為整個檔案，位置以絕對 offset 存取)
+    // =========================================================================
+
+    /**
+     * 統計各值出現次數：counts[值]++ (略過 null)，用於單選題的選項序號欄位
+     */
+    static void countInto(ByteBuffer buf, Column c, int rows, int[] counts) {
+        int bias = c.nullable() ? 1 : 0;
+        if (c.encoding() == RUN_LENGTH) {
+            for (int pos = c.offset(), end = c.offset() + c.length(); pos < end; pos += RUN_BYTES) {
+                long s = buf.getLong(pos + Integer.BYTES);
+                if (bias == 0 || s != 0) counts[(int) (s - bias + c.min())] += buf.getInt(pos);
+            }
+            return;
+        }
+        for (int i = 0; i < rows; i++) {
+            long s = unpack(buf, c, i);
+            if (bias == 0 || s != 0) counts[(int) (s - bias + c.min())]++;
+        }
+    }
+
+    /**
+     * 非 null 值的總和；0/1 欄位 (多選題的單一選項) 即為被選次數
+     */
+    static long sum(ByteBuffer buf, Column c, int rows) {
+        int bias = c.nullable() ? 1 : 0;
+        long total = 0;
+        if (c.encoding() == RUN_LENGTH) {
+            for (int pos = c.offset(), end = c.offset() + c.length(); pos < end; pos += RUN_BYTES) {
+                long s = buf.getLong(pos + Integer.BYTES);
+                if (bias == 0 || s != 0) total += (s - bias + c.min()) * buf.getInt(pos);
+            }
+            return total;
+        }
+        if (c.width() == 1 && bias == 0 && c.min() == 0) {
+            // 位元欄位：直接對每個 long 做 popcount，未使用的尾端位元寫入時為 0
+            for (int pos = c.offset(), end = c.offset() + c.length(); pos < end; pos += Long.BYTES) {
+                total += Long.bitCount(buf.getLong(pos));
+            }
+            return total;
+        }
+        for (int i = 0; i < rows; i++) {
+            long s = unpack(buf, c, i);
+            if (bias == 0 || s != 0) total += s - bias + c.min();
+        }
+        return total;
+    }
+
+    /**
+     * 解碼為原始值陣列，null 以 nullValue 表示
+     */
+    static long[] decode(ByteBuffer buf, Column c, int rows, long nullValue) {
+        int bias = c.nullable() ? 1 : 0;
+        long[] values = new long[rows];
+        if (c.encoding() == RUN_LENGTH) {
+            int row = 0;
+            for (int pos = c.offset(), end = c.offset() + c.length(); pos < end; pos += RUN_BYTES) {
+                long s = buf.getLong(pos + Integer.BYTES);
+                long v = (bias == 1 && s == 0) ? nullValue : s - bias + c.min();
+                int runEnd = row + buf.getInt(pos);
+                while (row < runEnd) values[row++] = v;
+            }
+            return values;
+        }
+        for (int i = 0; i < rows; i++) {
+            long s = unpack(buf, c, i);
+            values[i] = (bias == 1 && s == 0) ? nullValue : s - bias + c.min();
+        }
+        return values;
+    }
+
+    private static long unpack(ByteBuffer buf, Column c, int row) {
+        int width = c.width();
+        if (width == 0) return 0;
+        long bit = (long) row * width;
+        int pos = c.offset() + (int) (bit >>> 6) * Long.BYTES;
+        int shift = (int) (bit & 63);
+        long v = buf.getLong(pos) >>> shift;
+        if (shift + width > 64) v |= buf.getLong(pos + Long.BYTES) << (64 - shift);
+        return width == 64 ? v : v & ((1L << width) - 1);
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.dynamicsurvey.analytics;
+
+import com.example.dynamicsurvey.analytics.ColumnCodec.Column;
+import com.example.dynamicsurvey.dto.NumericStatsDTO;
+import com.example.dynamicsurvey.dto.OptionStatsDTO;
+import com.example.dynamicsurvey.dto.QuestionStatsDTO;
+import com.example.dynamicsurvey.dto.SurveyStatsDTO;
+import com.example.dynamicsurvey.service.NumericSketch;
+import com.example.dynamicsurvey.service.QuestionTypes;
+import com.example.dynamicsurvey.service.SurveyStatsAggregator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * [教學說明] 欄式快照的讀取 API (給離線分析使用，不連線資料庫)
+ * -----------------------------------------------------------------------------
+ * 目錄結構 (由 SurveySnapshotExportService 產生)：
+ *   {root}/survey-{id}/manifest        目前有效的檔案清單 (一行一個，依回覆 ID 由舊到新)
+ *   {root}/survey-{id}/part-*.col      欄式檔案 (格式見 ColumnarSnapshotWriter)
+ * 檔案以 memory-mapped 方式開啟，統計時只解碼需要的欄位：
+ * 單選題為一次直方圖計數，多選題為每個選項一次 popcount，不建立任何作答物件。
+ * 數值題與年齡每個檔案各自建立一個 NumericSketch，再合併為整體的統計。
+ *
+ * 用法：
+ *   ColumnarSnapshotReader.open(Path.of("data/columnar"), 42L).map(ColumnarSnapshotReader::stats)
+ */
+public final class ColumnarSnapshotReader {
+
+    public static final String MANIFEST = "manifest";
+
+    private final List<Part> parts;
+
+    private ColumnarSnapshotReader(List<Part> parts) {
+        this.parts = parts;
+    }
+
+    public static Path surveyDir(Path root, long surveyId) {
+        return root.resolve("survey-" + surveyId);
+    }
+
+    /**
+     * 開啟問卷的欄式快照；尚未匯出時回傳 empty
+     */
+    public static Optional<ColumnarSnapshotReader> open(Path root, long surveyId) throws IOException {
+        Path dir = surveyDir(root, surveyId);
+        Path manifest = dir.resolve(MANIFEST);
+        for (int attempt = 1; ; attempt++) {
+            if (!Files.exists(manifest)) return Optional.empty();
+            List<Part> parts = new ArrayList<>();
+            try {
+                for (String name : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                    if (!name.isBlank()) parts.add(Part.map(dir.resolve(name.trim())));
+                }
+                return Optional.of(new ColumnarSnapshotReader(parts));
+            } catch (NoSuchFileException e) {
+                // 匯出作業剛好重建並刪除了舊檔案：重新讀取 manifest
+                if (attempt == 3) throw e;
+            }
+        }
+    }
+
+    public int rowCount() {
+        int total = 0;
+        for (Part p : parts) total += p.rows;
+        return total;
+    }
+
+    /**
+     * 已匯出的最大回覆 ID (匯出作業的水位線)
+     */
+    public long maxResponseId() {
+        long max = 0;
+        for (Part p : parts) max = Math.max(max, p.columns.get(0).max());
+        return max;
+    }
+
+    public List<String> partFiles() {
+        return parts.stream().map(p -> p.fileName).toList();
+    }
+
+    /**
+     * 與 SurveyService.getSurveyStats 相同的統計結果；題目與選項文字取自最新的檔案
+     */
+    public SurveyStatsDTO stats() {
+        if (parts.isEmpty()) throw new IllegalStateException("快照沒有任何檔案");
+        Part latest = parts.get(parts.size() - 1);
+        int totalResponses = rowCount();
+
+        List<QuestionStatsDTO> qStatsList = new ArrayList<>(latest.questions.size());
+        for (QuestionMeta q : latest.questions) {
+            if (q.kind == ColumnarSnapshotWriter.KIND_TEXT) {
+                List<String> texts = new ArrayList<>();
+                for (Part p : parts) {
+                    QuestionMeta pq = p.question(q.id);
+                    if (pq != null && pq.kind == ColumnarSnapshotWriter.KIND_TEXT) p.readTexts(pq, texts);
+                }
+                qStatsList.add(new QuestionStatsDTO(q.id, q.title, q.type, null, List.copyOf(texts), null));
+                continue;
+            }
+            if (q.kind == ColumnarSnapshotWriter.KIND_NUMBER) {
+                qStatsList.add(new QuestionStatsDTO(q.id, q.title, q.type, null, null, numericStats(q.id)));
+                continue;
+            }
+            Map<Long, Integer> counts = optionCounts(q.id);
+            Map<Long, OptionStatsDTO> optMap = new LinkedHashMap<>(q.optionIds.length * 2);
+            for (int k = 0; k < q.optionIds.length; k++) {
+                int count = counts.getOrDefault(q.optionIds[k], 0);
+                optMap.put(q.optionIds[k], new OptionStatsDTO(q.optionTexts[k], count,
+                        SurveyStatsAggregator.percentage(count, totalResponses)));
+            }
+            qStatsList.add(new QuestionStatsDTO(q.id, q.title, q.type, Collections.unmodifiableMap(optMap), null, null));
+        }
+        return new SurveyStatsDTO(latest.surveyId, latest.surveyTitle, totalResponses, List.copyOf(qStatsList),
+                ageStats());
+    }
+
+    /**
+     * 數值題的統計；題目設定 (類型與範圍) 取自最新的檔案，只解碼該題的欄位
+     */
+    public NumericStatsDTO numericStats(long questionId) {
+        QuestionMeta latest = parts.get(parts.size() - 1).question(questionId);
+        if (latest == null || latest.kind != ColumnarSnapshotWriter.KIND_NUMBER) {
+            throw new IllegalArgumentException("不是數值題: " + questionId);
+        }
+        NumericSketch total = QuestionTypes.newSketch(latest.type, latest.minValue, latest.maxValue);
+        for (Part p : parts) {
+            QuestionMeta pq = p.question(questionId);
+            if (pq == null || pq.kind != ColumnarSnapshotWriter.KIND_NUMBER) continue;
+            NumericSketch sketch = QuestionTypes.newSketch(latest.type, latest.minValue, latest.maxValue);
+            p.readNumbers(pq, sketch);
+            total.merge(sketch);
+        }
+        return total.summarize();
+    }
+
+    /**
+     * 作答者年齡的統計 (第 2 欄)
+     */
+    public NumericStatsDTO ageStats() {
+        NumericSketch total = QuestionTypes.newAgeSketch();
+        for (Part p : parts) {
+            NumericSketch sketch = QuestionTypes.newAgeSketch();
+            for (long age : ColumnCodec.decode(p.buf, p.columns.get(2), p.rows, Long.MIN_VALUE)) {
+                if (age != Long.MIN_VALUE) sketch.update(age);
+            }
+            total.merge(sketch);
+        }
+        return total.summarize();
+    }
+
+    /**
+     * 選擇題各選項的被選次數 (選項 ID -> 次數)；只解碼該題的欄位
+     */
+    public Map<Long, Integer> optionCounts(long questionId) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Part p : parts) {
+            QuestionMeta pq = p.question(questionId);
+            if (pq != null && (pq.kind == ColumnarSnapshotWriter.KIND_SINGLE || pq.kind == ColumnarSnapshotWriter.KIND_MULTI)) {
+                p.countOptions(pq, counts);
+            }
+        }
+        return counts;
+    }
+
+    // =========================================================================
+    // 單一檔案
+    // =========================================================================
+
+    private record QuestionMeta(long id, String title, String type, long[] optionIds, String[] optionTexts,
+                                byte kind, int firstColumn, int blobOffset, int blobLength,
+                                Double minValue, Double maxValue, byte decimals) {
+    }
+
+    private static final class Part {
+        // 2^53：不超過此值的 long 可以精確轉為 double
+        private static final long MAX_EXACT_LONG = 1L << 53;
+
+        final String fileName;
+        final ByteBuffer buf;
+        final long surveyId;
+        final String surveyTitle;
+        final int rows;
+        final List<Column> columns;
+        final List<QuestionMeta> questions;
+
+        private Part(String fileName, ByteBuffer buf) {
+            this.fileName = fileName;
+            this.buf = buf;
+            int size = buf.capacity();
+            byte[] magic = new byte[ColumnarSnapshotWriter.MAGIC.length];
+            buf.get(size - magic.length, magic);
+            if (!Arrays.equals(magic, ColumnarSnapshotWriter.MAGIC)) {
+                throw new IllegalStateException("不是欄式快照檔案: " + fileName);
+            }
+            int footerLength = buf.getInt(size - magic.length - Integer.BYTES);
+            ByteBuffer footer = buf.duplicate().position(size - magic.length - Integer.BYTES - footerLength);
+            short version = footer.getShort();
+            if (version < 1 || version > ColumnarSnapshotWriter.VERSION) {
+                throw new IllegalStateException("不支援的欄式快照版本 " + version + ": " + fileName);
+            }
+            surveyId = footer.getLong();
+            surveyTitle = ColumnCodec.readString(footer);
+            rows = footer.getInt();
+            int columnCount = footer.getInt();
+            columns = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) columns.add(ColumnCodec.readColumn(footer));
+            int questionCount = footer.getInt();
+            questions = new ArrayList<>(questionCount);
+            for (int i = 0; i < questionCount; i++) {
+                long id = footer.getLong();
+                String title = ColumnCodec.readString(footer);
+                String type = ColumnCodec.readString(footer);
+                int optionCount = footer.getInt();
+                long[] optionIds = new long[optionCount];
+                String[] optionTexts = new String[optionCount];
+                for (int k = 0; k < optionCount; k++) {
+                    optionIds[k] = footer.getLong();
+                    optionTexts[k] = ColumnCodec.readString(footer);
+                }
+                int firstColumn = footer.getInt();
+                byte kind = footer.get();
+                int blobOffset = 0;
+                int blobLength = 0;
+                Double minValue = null;
+                Double maxValue = null;
+                byte decimals = 0;
+                if (kind == ColumnarSnapshotWriter.KIND_NUMBER) {
+                    minValue = readNullableDouble(footer);
+                    maxValue = readNullableDouble(footer);
+                    decimals = footer.get();
+                }
+                if (kind == ColumnarSnapshotWriter.KIND_TEXT || decimals == ColumnarSnapshotWriter.DECIMALS_AS_TEXT) {
+                    blobOffset = footer.getInt();
+                    blobLength = footer.getInt();
+                }
+                questions.add(new QuestionMeta(id, title, type, optionIds, optionTexts, kind, firstColumn, blobOffset, blobLength,
+                        minValue, maxValue, decimals));
+            }
+        }
+
+        private static Double readNullableDouble(ByteBuffer in) {
+            boolean present = in.get() != 0;
+            double value = in.getDouble();
+            return present ? value : null;
+        }
+
+        static Part map(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                // 對應完成後即可關閉 channel，映射在 GC 回收 buffer 前都有效
+                return new Part(file.getFileName().toString(), channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        QuestionMeta question(long id) {
+            for (QuestionMeta q : questions) {
+                if (q.id == id) return q;
+            }
+            return null;
+        }
+
+        void countOptions(QuestionMeta q, Map<Long, Integer> counts) {
+            if (q.kind == ColumnarSnapshotWriter.KIND_SINGLE) {
+                int[] local = new int[q.optionIds.length];
+                ColumnCodec.countInto(buf, columns.get(q.firstColumn), rows, local);
+                for (int k = 0; k < local.length; k++) counts.merge(q.optionIds[k], local[k], Integer::sum);
+            } else {
+                for (int k = 0; k < q.optionIds.length; k++) {
+                    int count = (int) ColumnCodec.sum(buf, columns.get(q.firstColumn + k), rows);
+                    counts.merge(q.optionIds[k], count, Integer::sum);
+                }
+            }
+        }
+
+        void readNumbers(QuestionMeta q, NumericSketch sketch) {
+            if (q.decimals == ColumnarSnapshotWriter.DECIMALS_AS_TEXT) {
+                List<String> texts = new ArrayList<>();
+                readTexts(q, texts);
+                for (String text : texts) SurveyStatsAggregator.updateNumeric(sketch, text);
+                return;
+            }
+            Column c = columns.get(q.firstColumn);
+            if (c.nullCount() == rows) return;
+            // 定點數與 10^decimals 都能以 double 精確表示時，一次除法即為最接近的 double
+            // (與 Double.parseDouble 相同)；否則改用 BigDecimal 換算
+            double scale = Math.pow(10, q.decimals);
+            boolean exactScale = q.decimals <= 22;
+            for (long v : ColumnCodec.decode(buf, c, rows, Long.MIN_VALUE)) {
+                if (v == Long.MIN_VALUE) continue;
+                if (exactScale && Math.abs(v) <= MAX_EXACT_LONG) sketch.update(v / scale);
+                else sketch.update(BigDecimal.valueOf(v, q.decimals).doubleValue());
+            }
+        }
+
+        void readTexts(QuestionMeta q, List<String> out) {
+            long[] lengths = ColumnCodec.decode(buf, columns.get(q.firstColumn), rows, -1);
+            byte[] blob = new byte[q.blobLength];
+            buf.get(q.blobOffset, blob);
+            int pos = 0;
+            for (long length : lengths) {
+                if (length < 0) continue;
+                out.add(new String(blob, pos, (int) length, StandardCharsets.UTF_8));
+                pos += (int) length;
+            }
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.dynamicsurvey.analytics;
+
+import com.example.dynamicsurvey.analytics.ColumnCodec.Column;
+import com.example.dynamicsurvey.entity.Option;
+import com.example.dynamicsurvey.entity.Question;
+import com.example.dynamicsurvey.entity.Survey;
+import com.example.dynamicsurvey.service.QuestionTypes;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * [教學說明] 欄式快照檔的寫入 (一個檔案 = 一份問卷的一段作答)
+ * -----------------------------------------------------------------------------
+ * 依序加入作答 (回覆 ID 遞增)，最後一次寫出。檔案結構：
+ *   MAGIC | 各欄資料 | footer | footer 長度 (int) | MAGIC
+ * 欄位：
+ *   0 回覆 ID、1 作答時間 (epoch 毫秒)、2 年齡 (可為 null)，之後每題依類型：
+ *   - 單選：一欄選項序號 (字典為 footer 中的選項 ID 清單，依問卷中的順序)
+ *   - 多選 (或任何一列選了兩個以上選項)：每個選項一欄 0/1
+ *   - 簡答：一欄 UTF-8 位元組長度 (null 代表未作答) + 一段連續的文字資料
+ *   - 數值 (NUMBER / RATING / NPS)：一欄定點數 (數值 x 10^decimals，decimals 為該檔案中最多的小數位數)；
+ *     超出 long 範圍時 (極少見) 改以簡答的格式存放正規化後的文字
+ * footer 記錄問卷 / 題目 / 選項的 ID 與文字，以及每欄的 min / max / null 數，
+ * 讀取端不需連線資料庫即可產生與 getSurveyStats 相同的結果。
+ */
+public final class ColumnarSnapshotWriter {
+
+    static final byte[] MAGIC = "SVYCOL01".getBytes(StandardCharsets.US_ASCII);
+    // 2：新增 KIND_NUMBER (版本 1 的檔案格式相同，只是沒有數值題)
+    static final short VERSION = 2;
+
+    static final byte KIND_SINGLE = 0;
+    static final byte KIND_MULTI = 1;
+    static final byte KIND_TEXT = 2;
+    static final byte KIND_NUMBER = 3;
+
+    // 數值欄以文字存放時的 decimals
+    static final byte DECIMALS_AS_TEXT = -1;
+    // 定點數的絕對值上限 (保留位元，讓欄位編碼的 max - min 不會溢位)
+    private static final long MAX_FIXED_POINT = 1L << 62;
+
+    /**
+     * 問卷定義的快照 (脫離 JPA Session 後仍可使用)
+     */
+    public record SurveySchema(long surveyId, String title, List<QuestionSchema> questions) {
+
+        /**
+         * 需在交易內呼叫 (題目與選項為延遲載入)
+         */
+        public static SurveySchema of(Survey survey) {
+            List<QuestionSchema> questions = new ArrayList<>(survey.getQuestions().size());
+            for (Question q : survey.getQuestions()) {
+                List<Long> optionIds = new ArrayList<>(q.getOptions().size());
+                List<String> optionTexts = new ArrayList<>(q.getOptions().size());
+                for (Option o : q.getOptions()) {
+                    optionIds.add(o.getId());
+                    optionTexts.add(o.getOptionText());
+                }
+                questions.add(new QuestionSchema(q.getId(), q.getTitle(), q.getType(), optionIds, optionTexts,
+                        q.getMinValue(), q.getMaxValue()));
+            }
+            return new SurveySchema(survey.getId(), survey.getTitle(), questions);
+        }
+    }
+
+    public record QuestionSchema(long id, String title, String type, List<Long> optionIds, List<String> optionTexts,
+                                 Double minValue, Double maxValue) {
+
+        boolean isText() {
+            return "TEXT".equals(type);
+        }
+
+        boolean isNumeric() {
+            return QuestionTypes.isNumeric(type);
+        }
+    }
+
+    private final SurveySchema schema;
+    private final Map<Long, QuestionBuffer> questions = new HashMap<>();
+    private long[] ids = new long[1024];
+    private long[] submittedAt = new long[1024];
+    private long[] ages = new long[1024];
+    private boolean[] ageNulls = new boolean[1024];
+    private int rows;
+
+    public ColumnarSnapshotWriter(SurveySchema schema) {
+        this.schema = schema;
+        for (QuestionSchema q : schema.questions()) questions.put(q.id(), new QuestionBuffer(q));
+    }
+
+    public int rowCount() {
+        return rows;
+    }
+
+    public long maxResponseId() {
+        return rows == 0 ? 0 : ids[rows - 1];
+    }
+
+    /**
+     * 加入一筆回覆；之後的 addAnswer 都屬於這筆回覆
+     */
+    public void addResponse(long id, long submittedAtMillis, Integer age) {
+        if (rows > 0 && id <= ids[rows - 1]) throw new IllegalArgumentException("回覆 ID 必須遞增: " + id);
+        if (rows == ids.length) {
+            int capacity = rows * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            submittedAt = Arrays.copyOf(submittedAt, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            ageNulls = Arrays.copyOf(ageNulls, capacity);
+        }
+        ids[rows] = id;
+        submittedAt[rows] = submittedAtMillis;
+        ages[rows] = age == null ? 0 : age;
+        ageNulls[rows] = age == null;
+        rows++;
+    }
+
+    /**
+     * 加入最後一筆回覆的一題作答；與 SurveyStatsAggregator 相同，忽略不在問卷定義中的題目與選項
+     */
+    public void addAnswer(long questionId, String text, Collection<Long> optionIds) {
+        QuestionBuffer q = questions.get(questionId);
+        if (q == null || rows == 0) return;
+        if (q.schema.isText() || q.schema.isNumeric()) {
+            q.addText(rows - 1, text);
+        } else {
+            for (Long optionId : optionIds) q.select(rows - 1, optionId);
+        }
+    }
+
+    /**
+     * 寫出檔案 (呼叫端負責以暫存檔 + 原子更名的方式發布)
+     */
+    public void writeTo(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.write(MAGIC);
+            List<Column> columns = new ArrayList<>();
+            columns.add(ColumnCodec.write(out, ids, null, rows));
+            columns.add(ColumnCodec.write(out, submittedAt, null, rows));
+            columns.add(ColumnCodec.write(out, ages, ageNulls, rows));
+
+            ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+            DataOutputStream footer = new DataOutputStream(footerBytes);
+            footer.writeInt(schema.questions().size());
+            for (QuestionSchema qs : schema.questions()) {
+                QuestionBuffer q = questions.get(qs.id());
+                footer.writeLong(qs.id());
+                ColumnCodec.writeString(footer, qs.title());
+                ColumnCodec.writeString(footer, qs.type());
+                footer.writeInt(qs.optionIds().size());
+                for (int i = 0; i < qs.optionIds().size(); i++) {
+                    footer.writeLong(qs.optionIds().get(i));
+                    ColumnCodec.writeString(footer, qs.optionTexts().get(i));
+                }
+                footer.writeInt(columns.size());
+                if (qs.isNumeric()) {
+                    footer.writeByte(KIND_NUMBER);
+                    writeNullableDouble(footer, qs.minValue());
+                    writeNullableDouble(footer, qs.maxValue());
+                    FixedPoint fixed = q.fixedPoint(rows);
+                    if (fixed != null) {
+                        footer.writeByte(fixed.decimals());
+                        columns.add(ColumnCodec.write(out, fixed.values(), fixed.nulls(), rows));
+                    } else {
+                        footer.writeByte(DECIMALS_AS_TEXT);
+                        writeTexts(out, footer, columns, q);
+                    }
+                } else if (qs.isText()) {
+                    footer.writeByte(KIND_TEXT);
+                    writeTexts(out, footer, columns, q);
+                } else if (!q.multi) {
+                    footer.writeByte(KIND_SINGLE);
+                    columns.add(ColumnCodec.write(out, q.ordinals(rows), q.ordinalNulls(rows), rows));
+                } else {
+                    footer.writeByte(KIND_MULTI);
+                    for (int k = 0; k < qs.optionIds().size(); k++) {
+                        columns.add(ColumnCodec.write(out, q.optionBits(k, rows), null, rows));
+                    }
+                }
+            }
+
+            // footer：整體資訊與欄位描述在前，題目在後 (題目中的欄位序號指向前面的欄位清單)
+            int footerStart = out.size();
+            out.writeShort(VERSION);
+            out.writeLong(schema.surveyId());
+            ColumnCodec.writeString(out, schema.title());
+            out.writeInt(rows);
+            out.writeInt(columns.size());
+            for (Column c : columns) ColumnCodec.writeColumn(out, c);
+            footer.flush();
+            footerBytes.writeTo(out);
+            out.writeInt(out.size() - footerStart);
+            out.write(MAGIC);
+        }
+    }
+
+    private void writeTexts(DataOutputStream out, DataOutputStream footer, List<Column> columns, QuestionBuffer q)
+            throws IOException {
+        columns.add(ColumnCodec.write(out, q.textLengths(rows), q.textNulls(rows), rows));
+        int blobOffset = out.size();
+        for (int i = 0; i < rows && i < q.texts.length; i++) {
+            if (q.texts[i] != null) out.write(q.texts[i]);
+        }
+        footer.writeInt(blobOffset);
+        footer.writeInt(out.size() - blobOffset);
+    }
+
+    private static void writeNullableDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        out.writeDouble(value != null ? value : 0);
+    }
+
+    /**
+     * 數值欄的定點數表示：values[i] / 10^decimals 即為原始數值
+     */
+    private record FixedPoint(byte decimals, long[] values, boolean[] nulls) {
+    }
+
+    /**
+     * 單一題目在寫入期間的暫存資料
+     */
+    private static final class QuestionBuffer {
+        final QuestionSchema schema;
+        final Map<Long, Integer> ordinalOf = new HashMap<>();
+        final BitSet[] selected;
+        int[] selectedCount = new int[1024];
+        boolean multi;
+        byte[][] texts = new byte[1024][];
+
+        QuestionBuffer(QuestionSchema schema) {
+            this.schema = schema;
+            for (int i = 0; i < schema.optionIds().size(); i++) ordinalOf.put(schema.optionIds().get(i), i);
+            selected = new BitSet[schema.optionIds().size()];
+            for (int i = 0; i < selected.length; i++) selected[i] = new BitSet();
+            if ("MULTI".equals(schema.type())) multi = true;
+        }
+
+        void select(int row, Long optionId) {
+            Integer ordinal = ordinalOf.get(optionId);
+            if (ordinal == null || selected[ordinal].get(row)) return;
+            selected[ordinal].set(row);
+            if (row >= selectedCount.length) selectedCount = Arrays.copyOf(selectedCount, Math.max(row + 1, selectedCount.length * 2));
+            if (++selectedCount[row] > 1) multi = true;
+        }
+
+        void addText(int row, String text) {
+            if (text == null) return;
+            if (row >= texts.length) texts = Arrays.copyOf(texts, Math.max(row + 1, texts.length * 2));
+            // 同一題只會有一筆作答；萬一重複，保留第一筆
+            if (texts[row] == null) texts[row] = text.getBytes(StandardCharsets.UTF_8);
+        }
+
+        long[] ordinals(int rows) {
+            long[] values = new long[rows];
+            for (int k = 0; k < selected.length; k++) {
+                for (int row = selected[k].nextSetBit(0); row >= 0 && row < rows; row = selected[k].nextSetBit(row + 1)) {
+                    values[row] = k;
+                }
+            }
+            return values;
+        }
+
+        boolean[] ordinalNulls(int rows) {
+            boolean[] nulls = new boolean[rows];
+            for (int i = 0; i < rows; i++) nulls[i] = i >= selectedCount.length || selectedCount[i] == 0;
+            return nulls;
+        }
+
+        long[] optionBits(int ordinal, int rows) {
+            long[] values = new long[rows];
+            BitSet bits = selected[ordinal];
+            for (int row = bits.nextSetBit(0); row >= 0 && row < rows; row = bits.nextSetBit(row + 1)) values[row] = 1;
+            return values;
+        }
+
+        long[] textLengths(int rows) {
+            long[] values = new long[rows];
+            for (int i = 0; i < rows && i < texts.length; i++) {
+                if (texts[i] != null) values[i] = texts[i].length;
+            }
+            return values;
+        }
+
+        boolean[] textNulls(int rows) {
+            boolean[] nulls = new boolean[rows];
+            for (int i = 0; i < rows; i++) nulls[i] = i >= texts.length || texts[i] == null;
+            return nulls;
+        }
+
+        /**
+         * 數值題的答案轉為定點數；無法解析的答案視為未作答 (與 SurveyStatsAggregator 相同)，
+         * 超出範圍時回傳 null (改以文字存放)
+         */
+        FixedPoint fixedPoint(int rows) {
+            BigDecimal[] parsed = new BigDecimal[rows];
+            boolean[] nulls = new boolean[rows];
+            int decimals = 0;
+            for (int i = 0; i < rows; i++) {
+                if (i < texts.length && texts[i] != null) {
+                    try {
+                        parsed[i] = new BigDecimal(new String(texts[i], StandardCharsets.UTF_8));
+                        decimals = Math.max(decimals, parsed[i].stripTrailingZeros().scale());
+                    } catch (NumberFormatException ignored) {
+                        // 非數字的舊資料不列入統計
+                    }
+                }
+                nulls[i] = parsed[i] == null;
+            }
+            if (decimals > Byte.MAX_VALUE) return null;
+            long[] values = new long[rows];
+            for (int i = 0; i < rows; i++) {
+                if (parsed[i] == null) continue;
+                BigDecimal scaled = parsed[i].movePointRight(decimals);
+                if (scaled.abs().compareTo(BigDecimal.valueOf(MAX_FIXED_POINT)) >= 0) return null;
+                values[i] = scaled.longValueExact();
+            }
+            return new FixedPoint((byte) decimals, values, nulls);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.dynamicsurvey.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * [教學說明] 二進位格式內容協商 (Binary Content Negotiation)
+ * -----------------------------------------------------------------------------
+ * 【設計意圖】
+ * 預設所有 API 都以 JSON 回傳 AppResponse。統計與作答列表資料量大，
+ * 對瀏覽器與內部 ETL 而言解析成本偏高。
+ * 這裡額外提供 CBOR 與 Smile 兩種二進位編碼，結構與 JSON 完全相同：
+ *   - Accept: application/cbor            -> 回傳 CBOR
+ *   - Accept: application/x-jackson-smile -> 回傳 Smile
+ *   - 未指定或 application/json            -> 維持 JSON (轉換器排在 JSON 之後)
+ * 請求內容 (例如提交問卷的 ResponseDTO) 也可用相同的 Content-Type 送出。
+ *
+ * 【註冊方式】
+ * 以 Bean 宣告轉換器：Spring Boot 的 HttpMessageConverters 會用它們「就地取代」
+ * Spring MVC 預設的同類型轉換器 (預設版本不套用 spring.jackson.*，日期會輸出成數字陣列)。
+ * 若改用 WebMvcConfigurer.extendMessageConverters 附加在清單尾端，永遠輪不到。
+ * ObjectMapper 由 Spring Boot 設定好的 Jackson2ObjectMapperBuilder 建立，
+ * 確保日期格式等序列化設定與 JSON 一致 (PayloadCodecBenchmark 也取用這兩個 Bean)。
+ */
+@Configuration
+public class BinaryCodecConfig {
+
+    // Jackson2ObjectMapperBuilder 為 prototype，每種格式各取一份避免互相影響
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
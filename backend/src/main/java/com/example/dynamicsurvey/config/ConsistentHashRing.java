@@ -0,0 +1,79 @@
+package com.example.dynamicsurvey.config;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * [教學說明] 一致性雜湊環 (Consistent Hash Ring)
+ * -----------------------------------------------------------------------------
+ * 每個分片依權重在環上放置多個虛擬節點，key (問卷 ID) 順時針找到的第一個節點即為所屬分片。
+ * 新增或移除一個分片時，只有約 1/N 的 key 會換到別的分片，其餘位置不變，
+ * 因此擴充分片時只需搬移少量問卷的作答。
+ *
+ * 雜湊使用 FNV-1a + 64 位元 finalizer，不依賴 String.hashCode 或 JVM 版本，
+ * 所有節點 (以及重新分片工具) 對同一份設定一定算出相同的位置。
+ * 建立後不可變，查詢為陣列二分搜尋，不需加鎖。
+ */
+public final class ConsistentHashRing {
+
+    private final long[] points;
+    private final String[] owners;
+
+    /**
+     * @param weights      分片名稱 -> 權重 (虛擬節點倍數，0 代表不分配新問卷)
+     * @param virtualNodes 權重 1 的分片在環上的虛擬節點數
+     */
+    public ConsistentHashRing(Map<String, Integer> weights, int virtualNodes) {
+        record Point(long hash, String owner) {
+        }
+        List<Point> list = new ArrayList<>();
+        weights.forEach((name, weight) -> {
+            for (int i = 0; i < weight * virtualNodes; i++) list.add(new Point(hash(name + "#" + i), name));
+        });
+        if (list.isEmpty()) throw new IllegalArgumentException("雜湊環至少需要一個權重大於 0 的分片");
+        // 雜湊值相同時以名稱排序，確保各節點建出的環完全一致
+        list.sort(Comparator.comparingLong(Point::hash).thenComparing(Point::owner));
+        points = new long[list.size()];
+        owners = new String[list.size()];
+        for (int i = 0; i < list.size(); i++) {
+            points[i] = list.get(i).hash();
+            owners[i] = list.get(i).owner();
+        }
+    }
+
+    /**
+     * [功能] 取得 key 所屬的分片名稱
+     */
+    public String shardFor(long key) {
+        long h = mix(key);
+        int lo = 0, hi = points.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (points[mid] < h) lo = mid + 1;
+            else hi = mid;
+        }
+        return owners[lo == points.length ? 0 : lo];
+    }
+
+    private static long hash(String text) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    // MurmurHash3 fmix64：讓相鄰的 ID 均勻散布在環上
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.dynamicsurvey.config;
 
+import com.example.dynamicsurvey.security.PasswordWorkExecutor;
 import com.example.dynamicsurvey.vo.AppResponse;
 import com.example.dynamicsurvey.vo.RspCode;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -29,6 +31,14 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(AppResponse.error(RspCode.PARAM_ERROR, firstMsg));
     }
 
+    /**
+     * 密碼雜湊執行緒池已滿：快速拒絕並請前端稍後重試
+     */
+    @ExceptionHandler(PasswordWorkExecutor.PasswordWorkRejectedException.class)
+    public ResponseEntity<AppResponse<String>> handlePasswordWorkRejected(PasswordWorkExecutor.PasswordWorkRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(AppResponse.error(RspCode.TOO_MANY_REQUESTS, ex.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<AppResponse<String>> handleAllExceptions(Exception ex) {
         return ResponseEntity.internalServerError().body(AppResponse.error(RspCode.INTERNAL_SERVER_ERROR, ex.getMessage()));
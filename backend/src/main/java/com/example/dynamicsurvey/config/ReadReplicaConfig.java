@@ -0,0 +1,68 @@
+package com.example.dynamicsurvey.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * [教學說明] 讀寫分離設定 (Read Replica Configuration)
+ * -----------------------------------------------------------------------------
+ * 【設計意圖】
+ * 後台統計、作答列表與使用者歷史等重度查詢，會和前台問卷提交搶同一個主庫與連線池。
+ * 啟用 app.datasource.replica.enabled=true 後：
+ * - 主庫沿用 spring.datasource.* / spring.datasource.hikari.*
+ * - Replica 使用 app.datasource.replica.* (jdbc-url、username、password、maximum-pool-size…)
+ *   兩個連線池各自設定大小，重度查詢不會耗盡寫入端的連線。
+ * - SurveyService 中標記 @Transactional(readOnly = true) 的方法會自動走 replica。
+ * 未啟用時不建立任何 bean，維持 Spring Boot 預設的單一資料來源。
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setPoolName("primary");
+        return ds;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName("replica");
+        ds.setReadOnly(true);
+        return ds;
+    }
+
+    @Bean
+    public ReplicaHealthMonitor replicaHealthMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                                     @Value("${app.datasource.replica.lag-query:}") String lagQuery,
+                                                     @Value("${app.datasource.replica.max-lag-seconds:10}") long maxLagSeconds,
+                                                     MeterRegistry meterRegistry) {
+        ReplicaHealthMonitor monitor = new ReplicaHealthMonitor(replica, lagQuery, maxLagSeconds);
+        Gauge.builder("datasource.replica.healthy", monitor, m -> m.isHealthy() ? 1 : 0).register(meterRegistry);
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaHealthMonitor healthMonitor) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica, healthMonitor));
+    }
+}
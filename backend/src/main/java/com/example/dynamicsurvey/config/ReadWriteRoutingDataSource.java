@@ -0,0 +1,66 @@
+package com.example.dynamicsurvey.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * [教學說明] 讀寫分離路由資料來源 (Read/Write Routing DataSource)
+ * -----------------------------------------------------------------------------
+ * 【路由規則】
+ * - 目前交易為 @Transactional(readOnly = true) 且 replica 健康 -> 從 replica 取得連線
+ * - 其餘情況 (寫入、無交易、replica 異常或延遲過大)      -> 主庫 (primary)
+ * 若向 replica 取得連線失敗，會立即標記為不健康並改用主庫，請求不會因此失敗。
+ *
+ * 必須外包一層 LazyConnectionDataSourceProxy：交易開始時 Spring 尚未設定 readOnly 旗標，
+ * 延遲到第一個 SQL 執行時才真正取得連線，路由判斷才會正確。
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaHealthMonitor healthMonitor;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaHealthMonitor healthMonitor) {
+        this.primary = primary;
+        this.replica = replica;
+        this.healthMonitor = healthMonitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (routeToReplica()) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                logger.warn("Replica 連線失敗，改用主庫: {}", e.getMessage());
+                healthMonitor.markDown(e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (routeToReplica()) {
+            try {
+                return replica.getConnection(username, password);
+            } catch (SQLException e) {
+                logger.warn("Replica 連線失敗，改用主庫: {}", e.getMessage());
+                healthMonitor.markDown(e.getMessage());
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    private boolean routeToReplica() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && healthMonitor.isHealthy();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.dynamicsurvey.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * [教學說明] Replica 健康與延遲檢查
+ * -----------------------------------------------------------------------------
+ * 定期對 replica 執行：
+ * 1. 連線有效性檢查 (Connection.isValid)。
+ * 2. (選用) 延遲查詢 lag-query，回傳落後主庫的秒數；超過 max-lag-seconds 或查無數值時視為不健康。
+ *    MySQL 範例：SELECT TIMESTAMPDIFF(SECOND, MAX(ts), NOW()) FROM heartbeat
+ * 不健康期間所有唯讀交易都會回到主庫，恢復後自動切回。
+ */
+public class ReplicaHealthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaHealthMonitor.class);
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final AtomicBoolean healthy = new AtomicBoolean(true);
+
+    public ReplicaHealthMonitor(DataSource replica, String lagQuery, long maxLagSeconds) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    public boolean isHealthy() {
+        return healthy.get();
+    }
+
+    /**
+     * 連線失敗時由路由資料來源立即呼叫，不必等下一次排程檢查
+     */
+    public void markDown(String reason) {
+        if (healthy.compareAndSet(true, false)) {
+            logger.warn("Replica 標記為不健康: {}", reason);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.health-check-interval-ms:5000}")
+    public void check() {
+        try (Connection con = replica.getConnection()) {
+            if (!con.isValid(2)) {
+                markDown("連線無效");
+                return;
+            }
+            if (StringUtils.hasText(lagQuery)) {
+                Long lag = null;
+                try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery(lagQuery)) {
+                    // 沒有資料列或值為 NULL (例如 heartbeat 尚未複寫到 replica) 都視為延遲未知
+                    if (rs.next()) {
+                        long value = rs.getLong(1);
+                        if (!rs.wasNull()) lag = value;
+                    }
+                }
+                if (lag == null || lag > maxLagSeconds) {
+                    markDown("複寫延遲 " + (lag == null ? "未知" : lag + " 秒"));
+                    return;
+                }
+            }
+            if (healthy.compareAndSet(false, true)) {
+                logger.info("Replica 已恢復，唯讀查詢改回 replica");
+            }
+        } catch (Exception e) {
+            markDown(e.getMessage());
+        }
+    }
+}
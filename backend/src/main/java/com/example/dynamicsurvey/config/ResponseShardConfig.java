@@ -0,0 +1,79 @@
+package com.example.dynamicsurvey.config;
+
+import com.example.dynamicsurvey.config.ResponseShardRouter.Shard;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * [教學說明] 作答分片設定 (Response Sharding Configuration)
+ * -----------------------------------------------------------------------------
+ * 【設計意圖】
+ * 所有問卷的作答 (survey_responses / response_answers / answer_selected_options 與封存區)
+ * 都在同一個 MySQL，寫入量成長後會成為瓶頸。啟用 app.datasource.shards.enabled=true 後：
+ * - 問卷、題目、使用者、統計快照等仍在主資料庫 (catalog)；
+ * - 作答依問卷 ID 分散到 app.datasource.shards.nodes.* 的多個資料庫 (見 ResponseShardRouter)；
+ * - 每個分片啟動時以 Flyway 套用 schema-locations 的分片資料表結構 (不含對 catalog 的外鍵)。
+ * 未啟用時只有 catalog 一個分片，行為與原本相同。
+ * 已上線的作答可用重新分片工具 (ReshardTool) 在服務不中斷的情況下搬移。
+ */
+@Configuration
+@EnableConfigurationProperties(ResponseShardProperties.class)
+public class ResponseShardConfig {
+
+    @Bean
+    public ResponseShardRouter responseShardRouter(ResponseShardProperties properties,
+                                                   NamedParameterJdbcTemplate jdbc,
+                                                   PlatformTransactionManager transactionManager,
+                                                   MeterRegistry meterRegistry) {
+        Shard catalog = new Shard(ResponseShardRouter.CATALOG, jdbc, new TransactionTemplate(transactionManager));
+        if (!properties.isEnabled()) return ResponseShardRouter.single(catalog);
+        if (properties.getNodes().isEmpty()) {
+            throw new IllegalStateException("app.datasource.shards.enabled=true 但未設定任何 app.datasource.shards.nodes");
+        }
+
+        Map<String, Shard> shards = new LinkedHashMap<>();
+        List<DataSource> owned = new ArrayList<>();
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        shards.put(ResponseShardRouter.CATALOG, catalog);
+        properties.getNodes().forEach((name, node) -> {
+            weights.put(name, node.getWeight());
+            if (node.getJdbcUrl() == null) {
+                if (!ResponseShardRouter.CATALOG.equals(name)) {
+                    throw new IllegalStateException("作答分片 " + name + " 未設定 jdbc-url");
+                }
+                return;
+            }
+            HikariDataSource ds = new HikariDataSource();
+            ds.setPoolName("shard-" + name);
+            ds.setJdbcUrl(node.getJdbcUrl());
+            ds.setUsername(node.getUsername());
+            ds.setPassword(node.getPassword());
+            ds.setMaximumPoolSize(node.getMaximumPoolSize());
+            ds.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            owned.add(ds);
+            Flyway.configure().dataSource(ds).locations(properties.getSchemaLocations())
+                    .baselineOnMigrate(true).load().migrate();
+            shards.put(name, new Shard(name, new NamedParameterJdbcTemplate(ds),
+                    new TransactionTemplate(new JdbcTransactionManager(ds))));
+        });
+
+        TransactionTemplate placementTx = new TransactionTemplate(transactionManager);
+        placementTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return new ResponseShardRouter(shards, owned, new ConsistentHashRing(weights, properties.getVirtualNodes()),
+                jdbc, placementTx, Duration.ofSeconds(properties.getPlacementCacheSeconds()));
+    }
+}
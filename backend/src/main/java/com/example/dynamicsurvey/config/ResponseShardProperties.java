@@ -0,0 +1,50 @@
+package com.example.dynamicsurvey.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * [教學說明] 作答分片設定 (app.datasource.shards.*)
+ * -----------------------------------------------------------------------------
+ * nodes 的 key 為分片名稱。名稱為 catalog 且未設定 jdbc-url 的節點代表主資料庫 (問卷與使用者所在)，
+ * 讓主資料庫也能參與分配；其餘節點必須設定各自的連線資訊。
+ */
+@Data
+@ConfigurationProperties("app.datasource.shards")
+public class ResponseShardProperties {
+
+    private boolean enabled;
+
+    // 權重 1 的分片在雜湊環上的虛擬節點數
+    private int virtualNodes = 128;
+
+    // 問卷所在分片的快取秒數；重新分片切換後，其他節點最多延遲這麼久才會改寫到新分片
+    private int placementCacheSeconds = 5;
+
+    // 每次向主資料庫預留的作答 ID 數量
+    private int idBlockSize = 1000;
+
+    // 分片資料表結構的 Flyway 遷移位置
+    private String schemaLocations = "classpath:db/shard";
+
+    // 重新分片：每批複製 / 刪除的回覆筆數
+    private int reshardBatchSize = 500;
+
+    // 重新分片：切換位置後，除了位置快取秒數之外再多等待的秒數 (涵蓋進行中的交易)
+    private int cutoverMarginSeconds = 5;
+
+    private Map<String, Node> nodes = new LinkedHashMap<>();
+
+    @Data
+    public static class Node {
+        private String jdbcUrl;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+        // 0 代表不再分配新問卷 (例如準備下線的分片)，既有問卷仍可讀寫
+        private int weight = 1;
+    }
+}
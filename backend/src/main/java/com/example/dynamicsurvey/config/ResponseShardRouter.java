@@ -0,0 +1,222 @@
+package com.example.dynamicsurvey.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * [教學說明] 作答分片路由 (Response Shard Router)
+ * -----------------------------------------------------------------------------
+ * 【路由規則】
+ * 1. response_placements (主資料庫) 有紀錄 -> 該分片。第一次寫入時建立紀錄，之後即固定，
+ *    雜湊環變動 (新增分片) 不會讓既有問卷的作答「消失」，只需由重新分片工具搬移。
+ * 2. 沒有紀錄、但主資料庫仍有分片啟用前的作答 -> catalog。
+ * 3. 其餘 -> 一致性雜湊環決定的分片。
+ * 結果快取 placementCacheSeconds 秒；重新分片工具切換位置後，所有節點在這段時間內都會改用新分片。
+ *
+ * 未啟用分片時只有 catalog 一個分片，路由不查任何資料表。
+ */
+public class ResponseShardRouter implements AutoCloseable {
+
+    public static final String CATALOG = "catalog";
+
+    /**
+     * 單一分片：查詢用的 JdbcTemplate 與該分片自己的交易
+     */
+    public record Shard(String name, NamedParameterJdbcTemplate jdbc, TransactionTemplate tx) {
+    }
+
+    private record Placement(String shard, boolean persisted) {
+    }
+
+    private final Map<String, Shard> shards;
+    private final List<DataSource> owned;
+    private final ConsistentHashRing ring;
+    private final NamedParameterJdbcTemplate catalog;
+    private final TransactionTemplate placementTx;
+    private final Duration placementTtl;
+    private final Cache<Long, Placement> placements;
+
+    /**
+     * 未啟用分片：所有作答都在主資料庫
+     */
+    public static ResponseShardRouter single(Shard catalog) {
+        return new ResponseShardRouter(Map.of(CATALOG, catalog), List.of(), null, catalog.jdbc(), null, Duration.ZERO);
+    }
+
+    /**
+     * @param shards       全部分片 (必須包含 catalog)
+     * @param owned        由路由建立、關閉時需一併關閉的連線池
+     * @param ring         分配新問卷用的雜湊環
+     * @param placementTx  寫入位置紀錄用的獨立交易 (REQUIRES_NEW)
+     */
+    public ResponseShardRouter(Map<String, Shard> shards, List<DataSource> owned, ConsistentHashRing ring,
+                               NamedParameterJdbcTemplate catalog, TransactionTemplate placementTx, Duration placementTtl) {
+        this.shards = Map.copyOf(shards);
+        this.owned = List.copyOf(owned);
+        this.ring = ring;
+        this.catalog = catalog;
+        this.placementTx = placementTx;
+        this.placementTtl = placementTtl;
+        this.placements = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(placementTtl)
+                .build();
+    }
+
+    public boolean isSharded() {
+        return ring != null;
+    }
+
+    public Duration placementTtl() {
+        return placementTtl;
+    }
+
+    /**
+     * [功能] 讀取問卷作答時使用的分片
+     */
+    public Shard forRead(Long surveyId) {
+        if (!isSharded()) return shards.get(CATALOG);
+        return shard(placements.get(surveyId, this::resolve).shard());
+    }
+
+    /**
+     * [功能] 寫入問卷作答時使用的分片 (第一次寫入時記錄位置)
+     */
+    public Shard forWrite(Long surveyId) {
+        if (!isSharded()) return shards.get(CATALOG);
+        Placement p = placements.get(surveyId, this::resolve);
+        if (!p.persisted()) {
+            p = persist(surveyId, p.shard());
+            placements.put(surveyId, p);
+        }
+        return shard(p.shard());
+    }
+
+    /**
+     * [功能] 全部分片 (依 ID 查詢單筆作答、使用者歷史等無法依問卷路由的查詢)
+     */
+    public Collection<Shard> all() {
+        return shards.values();
+    }
+
+    public Shard shard(String name) {
+        Shard shard = shards.get(name);
+        if (shard == null) throw new IllegalStateException("未設定的作答分片: " + name);
+        return shard;
+    }
+
+    /**
+     * [功能] 雜湊環為此問卷分配的分片 (重新分片工具據此判斷是否需要搬移)
+     */
+    public String ringShardFor(Long surveyId) {
+        return isSharded() ? ring.shardFor(surveyId) : CATALOG;
+    }
+
+    /**
+     * [功能] 直接查詢資料庫 (不經快取) 取得問卷目前的分片
+     */
+    public String currentShard(Long surveyId) {
+        return resolve(surveyId).shard();
+    }
+
+    /**
+     * [功能] 設定問卷的分片位置 (重新分片工具使用)，本節點立即生效，其他節點在快取到期後生效
+     */
+    public void place(Long surveyId, String shardName) {
+        shard(shardName);
+        placementTx.executeWithoutResult(status -> {
+            MapSqlParameterSource params = params(surveyId, shardName);
+            if (catalog.update("UPDATE response_placements SET shard = :shard, placed_at = :now WHERE survey_id = :surveyId", params) == 0) {
+                catalog.update("INSERT INTO response_placements (survey_id, shard, placed_at) VALUES (:surveyId, :shard, :now)", params);
+            }
+        });
+        placements.invalidate(surveyId);
+    }
+
+    /**
+     * [功能] 刪除問卷後移除位置紀錄
+     */
+    public void forget(Long surveyId) {
+        if (!isSharded()) return;
+        catalog.update("DELETE FROM response_placements WHERE survey_id = :surveyId", new MapSqlParameterSource("surveyId", surveyId));
+        placements.invalidate(surveyId);
+    }
+
+    /**
+     * [功能] 已記錄位置的全部問卷 (問卷 ID -> 分片)
+     */
+    public Map<Long, String> placements() {
+        Map<Long, String> result = new LinkedHashMap<>();
+        catalog.query("SELECT survey_id, shard FROM response_placements ORDER BY survey_id", new MapSqlParameterSource(),
+                rs -> { result.put(rs.getLong("survey_id"), rs.getString("shard")); });
+        return result;
+    }
+
+    /**
+     * [功能] 分片中是否有此問卷的作答 (含封存區)
+     */
+    public static boolean hasResponses(Shard shard, Long surveyId) {
+        return !shard.jdbc().queryForList("SELECT 1 FROM survey_responses WHERE survey_id = :surveyId " +
+                        "UNION ALL SELECT 1 FROM archived_survey_responses WHERE survey_id = :surveyId LIMIT 1",
+                new MapSqlParameterSource("surveyId", surveyId), Integer.class).isEmpty();
+    }
+
+    private Placement resolve(Long surveyId) {
+        List<String> rows = catalog.queryForList("SELECT shard FROM response_placements WHERE survey_id = :surveyId",
+                new MapSqlParameterSource("surveyId", surveyId), String.class);
+        if (!rows.isEmpty()) return new Placement(rows.get(0), true);
+        // 分片啟用前寫入主資料庫的作答，在搬移之前都留在 catalog
+        if (hasResponses(shards.get(CATALOG), surveyId)) return new Placement(CATALOG, false);
+        return new Placement(ring.shardFor(surveyId), false);
+    }
+
+    /**
+     * 以獨立交易寫入位置紀錄，確保作答寫入分片之前位置已確定 (外層交易回滾也不影響)
+     */
+    private Placement persist(Long surveyId, String shardName) {
+        try {
+            placementTx.executeWithoutResult(status -> catalog.update(
+                    "INSERT INTO response_placements (survey_id, shard, placed_at) VALUES (:surveyId, :shard, :now)",
+                    params(surveyId, shardName)));
+            return new Placement(shardName, true);
+        } catch (DuplicateKeyException e) {
+            // 其他節點同時寫入第一筆作答，以先寫入的位置為準
+            return resolve(surveyId);
+        }
+    }
+
+    private static MapSqlParameterSource params(Long surveyId, String shardName) {
+        return new MapSqlParameterSource("surveyId", surveyId)
+                .addValue("shard", shardName)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * 關閉由路由建立的連線池；其中一個失敗時仍會關閉其餘的連線池，最後再拋出第一個錯誤
+     */
+    @Override
+    public void close() {
+        RuntimeException failure = null;
+        for (DataSource ds : owned) {
+            if (!(ds instanceof AutoCloseable closeable)) continue;
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+                if (failure == null) failure = new IllegalStateException("關閉分片連線池失敗", e);
+                else failure.addSuppressed(e);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+}
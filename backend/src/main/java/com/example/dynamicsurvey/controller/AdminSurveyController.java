@@ -6,6 +6,7 @@ import com.example.dynamicsurvey.vo.AppResponse;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,7 +14,9 @@ import java.time.LocalDate;
 
 /**
  * [教學說明] 後台問卷管理控制器 (Admin Survey Controller)
+ * 只有管理員會使用，標記 @Lazy 延後到第一次呼叫後台 API 時才建立，縮短啟動時間。
  */
+@Lazy
 @RestController
 @RequestMapping("/api/admin/surveys")
 public class AdminSurveyController {
@@ -21,12 +24,18 @@ public class AdminSurveyController {
     @Autowired
     SurveyService surveyService;
 
+    /**
+     * [功能] 後台問卷列表與搜尋
+     * prefix=true 時僅比對標題開頭 (適合搜尋框即時提示)，limit 限制回傳筆數。
+     */
     @GetMapping
     public AppResponse<?> getSurveys(
             @RequestParam(name = "title", required = false) String title,
             @RequestParam(name = "startDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false, name = "endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        return surveyService.getSurveysByAdmin(title, startDate, endDate);
+            @RequestParam(required = false, name = "endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(name = "prefix", defaultValue = "false") boolean prefix,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        return surveyService.getSurveysByAdmin(title, startDate, endDate, prefix, limit);
     }
 
     @GetMapping("/{id}")
@@ -87,6 +96,18 @@ public class AdminSurveyController {
         return surveyService.getSurveyResponses(id);
     }
 
+    /**
+     * [功能] 依姓名、Email 或電話開頭搜尋作答者 (page 由 0 開始)
+     */
+    @GetMapping("/{id}/responses/search")
+    public AppResponse<?> searchResponses(
+            @PathVariable("id") Long id,
+            @RequestParam(name = "q") String query,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "20") int size) {
+        return surveyService.searchRespondents(id, query, page, size);
+    }
+
     @GetMapping("/response-detail/{responseId}")
     public AppResponse<?> getResponseDetail(@PathVariable("responseId") Long responseId) {
         return surveyService.getResponseDetail(responseId);
@@ -1,12 +1,19 @@
 package com.example.dynamicsurvey.controller;
 
 import com.example.dynamicsurvey.dto.ResponseDTO;
+import com.example.dynamicsurvey.dto.SurveyDTO;
 import com.example.dynamicsurvey.service.SurveyService;
 import com.example.dynamicsurvey.vo.AppResponse;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
 /**
  * [教學說明] 前台問卷流程控制器 (Public Survey Controller)
  * -----------------------------------------------------------------------------
@@ -36,6 +43,19 @@ public class SurveyController {
         return surveyService.getSurveyDetails(id);
     }
 
+    /**
+     * [功能] 取得已發佈過的問卷版本 (內容不可變)
+     * 以 Cache-Control: immutable 回應，瀏覽器與 CDN 可長期快取，不需再向伺服器驗證。
+     */
+    @GetMapping("/versions/{id}")
+    public ResponseEntity<AppResponse<SurveyDTO>> getSurveyVersion(@PathVariable("id") Long id) {
+        AppResponse<SurveyDTO> response = surveyService.getSurveyVersion(id);
+        if (response.getCode() != 200) return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .body(response);
+    }
+
     /**
      * [功能] 1. 暫存作答資料至 Session (進入確認頁前呼叫)
      */
@@ -71,9 +91,13 @@ public class SurveyController {
 
     /**
      * [功能] 取得當前登入使用者的作答紀錄歷史
+     * 以 beforeAt / beforeId 帶入上一頁回傳的游標取得下一頁。
      */
     @GetMapping("/history")
-    public AppResponse<?> getUserHistory() {
-        return surveyService.getUserHistory();
+    public AppResponse<?> getUserHistory(
+            @RequestParam(name = "beforeAt", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeAt,
+            @RequestParam(name = "beforeId", required = false) Long beforeId,
+            @RequestParam(name = "size", defaultValue = "20") int size) {
+        return surveyService.getUserHistory(beforeAt, beforeId, size);
     }
 }
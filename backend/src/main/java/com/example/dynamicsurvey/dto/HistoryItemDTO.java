@@ -0,0 +1,26 @@
+package com.example.dynamicsurvey.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * [教學說明] 作答歷史投影 (History Projection)
+ * -----------------------------------------------------------------------------
+ * 由 JPQL 建構子運算式直接產生，只帶出列表需要的欄位，不載入完整的回覆實體。
+ * responseId 作為同一時間點多筆紀錄的排序依據 (keyset 分頁游標)。
+ */
+@Data
+@AllArgsConstructor
+public class HistoryItemDTO {
+
+    // 歷史列表與 keyset 游標的排序：submittedAt、responseId 由新到舊 (合併多個來源時使用)
+    public static final Comparator<HistoryItemDTO> NEWEST_FIRST =
+            Comparator.comparing(HistoryItemDTO::getSubmittedAt).thenComparing(HistoryItemDTO::getResponseId).reversed();
+
+    private Long responseId;
+    private Long surveyId;
+    private String surveyTitle;
+    private LocalDateTime submittedAt;
+}
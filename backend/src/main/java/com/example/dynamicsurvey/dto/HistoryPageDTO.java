@@ -0,0 +1,21 @@
+package com.example.dynamicsurvey.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * [教學說明] 作答歷史分頁結果 (Keyset Pagination)
+ * -----------------------------------------------------------------------------
+ * 不使用 OFFSET，而是以「上一頁最後一筆」的 (submittedAt, responseId) 作為下一頁的起點，
+ * 即使紀錄上千筆，每頁查詢成本也維持固定。
+ */
+@Data
+@AllArgsConstructor
+public class HistoryPageDTO {
+    private List<HistoryItemDTO> items;
+    private boolean hasMore;
+    private LocalDateTime nextBeforeAt; // 下一頁請求帶入的 beforeAt
+    private Long nextBeforeId;          // 下一頁請求帶入的 beforeId
+}
@@ -0,0 +1,21 @@
+package com.example.dynamicsurvey.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * [教學說明] 數值題 (NUMBER / RATING / NPS) 與作答者年齡的統計
+ * -----------------------------------------------------------------------------
+ * 由 NumericSketch 產生：variance 為樣本變異數；p25 ~ p90 為 nearest-rank 分位數
+ * (評分、NPS、年齡為精確值，其他數值為近似值)。
+ * histogram 每格涵蓋 [from, to)；npsScore 只有 NPS 題才有 (推薦者 % - 批評者 %)。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record NumericStatsDTO(long count, Double mean, Double variance, Double min, Double max,
+                              Double p25, Double p50, Double p75, Double p90,
+                              List<Bucket> histogram, Double npsScore) {
+
+    public record Bucket(double from, double to, long count) {
+    }
+}
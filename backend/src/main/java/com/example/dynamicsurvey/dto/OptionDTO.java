@@ -1,5 +1,6 @@
 package com.example.dynamicsurvey.dto;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
@@ -11,4 +12,7 @@ public class OptionDTO {
     private String optionText;
 
     private int orderIndex;
+
+    @Min(value = 1, message = "選項名額至少為 1")
+    private Integer quota; // 選取此選項的作答名額 (null 代表不限)
 }
@@ -0,0 +1,7 @@
+package com.example.dynamicsurvey.dto;
+
+/**
+ * [教學說明] 單一選項的統計 (被選次數與百分比)
+ */
+public record OptionStatsDTO(String optionText, int count, double percentage) {
+}
@@ -15,11 +15,17 @@ public class QuestionDTO {
     private String title;
 
     @NotBlank(message = "題目類型不可為空")
-    private String type; // SINGLE, MULTI, TEXT
+    private String type; // SINGLE, MULTI, TEXT, NUMBER, RATING, NPS (見 QuestionTypes)
+
+    private Double minValue; // 數值題下限 / 評分題最低分
+
+    private Double maxValue; // 數值題上限 / 評分題最高分
 
     private boolean required;
 
     private int orderIndex;
 
     private List<OptionDTO> options;
+
+    private List<ShowConditionDTO> showIf; // 顯示條件 (全部成立才顯示)，見 SkipLogicPlan
 }
@@ -0,0 +1,17 @@
+package com.example.dynamicsurvey.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * [教學說明] 單一題目的統計
+ * 選擇題只有 optionStats (選項 ID -> 統計)，簡答題只有 textAnswers，
+ * 數值題 (NUMBER / RATING / NPS) 只有 numericStats；未使用的欄位不輸出。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record QuestionStatsDTO(Long questionId, String questionTitle, String type,
+                               Map<Long, OptionStatsDTO> optionStats, List<String> textAnswers,
+                               NumericStatsDTO numericStats) {
+}
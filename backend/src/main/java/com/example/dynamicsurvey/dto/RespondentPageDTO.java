@@ -0,0 +1,17 @@
+package com.example.dynamicsurvey.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * [教學說明] 後台作答者搜尋的分頁結果
+ * 依比對到的欄位排列：姓名開頭相符者在前，其次 Email、電話，各組內依該欄位排序。
+ * 同一位作答者只出現一次；不回傳總筆數 (計算需掃描全部相符的作答)，以 hasMore 判斷是否有下一頁。
+ */
+@Data
+@AllArgsConstructor
+public class RespondentPageDTO {
+    private List<ResponseSummaryDTO> items;
+    private boolean hasMore;
+}
@@ -0,0 +1,17 @@
+package com.example.dynamicsurvey.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * [教學說明] 單筆作答詳情
+ */
+public record ResponseDetailDTO(Long responseId, String userName, LocalDateTime submittedAt, String surveyTitle,
+                                List<Detail> details) {
+
+    /**
+     * 每一題的作答內容
+     */
+    public record Detail(String questionTitle, String type, String answer) {
+    }
+}
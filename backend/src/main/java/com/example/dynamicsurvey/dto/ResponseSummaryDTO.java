@@ -0,0 +1,10 @@
+package com.example.dynamicsurvey.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * [教學說明] 後台作答列表的單筆摘要
+ * 由 JPQL 建構子投影直接產生，不載入完整的回覆實體。
+ */
+public record ResponseSummaryDTO(Long responseId, String userName, String userEmail, LocalDateTime submittedAt) {
+}
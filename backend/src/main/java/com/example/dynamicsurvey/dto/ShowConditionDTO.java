@@ -0,0 +1,21 @@
+package com.example.dynamicsurvey.dto;
+
+import lombok.Data;
+import java.util.List;
+
+/**
+ * [教學說明] 題目的顯示條件 (一條)
+ * -----------------------------------------------------------------------------
+ * 「第 questionOrderIndex 題選了 optionOrderIndexes 其中任一個選項」時成立；
+ * 一題的多條條件須全部成立才顯示 (AND)，沒有條件的題目一律顯示。
+ * 以題目與選項的 orderIndex 指定來源，編輯器中尚未儲存的新題目也能引用，另建新版本時規則不必改寫。
+ * questionId / optionIds 只在讀取問卷時由後端填入，供前台直接比對作答。
+ */
+@Data
+public class ShowConditionDTO {
+    private int questionOrderIndex;
+    private List<Integer> optionOrderIndexes;
+
+    private Long questionId;
+    private List<Long> optionIds;
+}
@@ -1,6 +1,9 @@
 package com.example.dynamicsurvey.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -25,11 +28,26 @@ public class SurveyDTO {
     @NotNull(message = "結束日期不可為空")
     private LocalDate endDate;
 
+    // SurveyRepository.findByDateRange 依此以開始日期的索引範圍篩選結束日期
+    @JsonIgnore
+    @AssertTrue(message = "結束日期不可早於開始日期")
+    public boolean isDateRangeValid() {
+        return startDate == null || endDate == null || !endDate.isBefore(startDate);
+    }
+
     @NotBlank(message = "狀態不可為空")
     private String status;
     
     private boolean hasResponses;
 
+    // 作答名額上限 (null 代表不限)；不屬於凍結內容，已發佈的版本也可直接調整
+    @Min(value = 1, message = "名額上限至少為 1")
+    private Integer maxResponses;
+
+    // 版本資訊 (由伺服器填入，前端送出的值會被忽略)
+    private Long rootId;
+    private int versionNo;
+
     @Valid
     @NotNull(message = "題目列表不可為空")
     @Size(min = 1, message = "至少需包含一個題目")
@@ -0,0 +1,13 @@
+package com.example.dynamicsurvey.dto;
+
+import java.util.List;
+
+/**
+ * [教學說明] 問卷統計結果 (不可變 record)
+ * -----------------------------------------------------------------------------
+ * 取代原本層層巢狀的 HashMap<String, Object>，JSON 欄位名稱與結構維持不變。
+ * ageStats 為作答者年齡的統計 (與數值題相同的摘要)。
+ */
+public record SurveyStatsDTO(Long surveyId, String surveyTitle, int totalResponses,
+                             List<QuestionStatsDTO> questionStats, NumericStatsDTO ageStats) {
+}
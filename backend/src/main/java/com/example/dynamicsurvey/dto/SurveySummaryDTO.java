@@ -0,0 +1,43 @@
+package com.example.dynamicsurvey.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+
+/**
+ * [教學說明] 問卷列表摘要 (Survey Summary)
+ * -----------------------------------------------------------------------------
+ * 列表頁只需要標題、日期、狀態與是否已有作答，不需要題目與選項。
+ * 由 JPQL 建構子運算式直接查出純量欄位，完全不會觸及 questions / options 資料表；
+ * 完整的題目結構只在詳情 API (SurveyDTO) 中載入。
+ * 同一份問卷的多個版本各自是一筆摘要，以 versionNo 區分；lineageId (第一版的 ID) 相同者屬於同一份問卷，
+ * 後台列表依此分組並提供版本選單 (已被取代的版本仍可查看作答與統計)。
+ */
+@Data
+@NoArgsConstructor
+public class SurveySummaryDTO {
+    private Long id;
+    private String title;
+    private String description;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String status;
+    private boolean hasResponses;
+    private int versionNo;
+    private Long lineageId;
+
+    /**
+     * 供 JPQL 建構子投影使用 (hasResponses 另以分組查詢補上)
+     */
+    public SurveySummaryDTO(Long id, String title, String description, LocalDate startDate, LocalDate endDate, String status,
+                            int versionNo, Long lineageId) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.status = status;
+        this.versionNo = versionNo;
+        this.lineageId = lineageId;
+    }
+}
@@ -2,6 +2,8 @@ package com.example.dynamicsurvey.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * [教學說明] 選項實體類別 (Option Entity)
@@ -10,6 +12,8 @@ import lombok.Data;
  */
 @Entity
 @Table(name = "options")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 public class Option {
     @Id
@@ -28,4 +32,7 @@ public class Option {
 
     @Column(nullable = false)
     private int orderIndex; // 選項順序
+
+    @Column(name = "quota")
+    private Integer quota; // 選取此選項的作答名額 (null 代表不限)，例如每個年齡層 500 人
 }
@@ -2,6 +2,9 @@ package com.example.dynamicsurvey.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,9 +12,12 @@ import java.util.List;
  * [教學說明] 題目實體類別 (Question Entity)
  * -----------------------------------------------------------------------------
  * 目的：對應資料庫中的 questions 資料表。
+ * 與 Survey 一同放入二級快取，作答與統計時不必重新查詢題目與選項。
  */
 @Entity
 @Table(name = "questions")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 public class Question {
     @Id
@@ -30,7 +36,16 @@ public class Question {
     private String title; // 題目內容
 
     @Column(nullable = false)
-    private String type; // 類型：SINGLE (單選), MULTI (多選), TEXT (簡答)
+    private String type; // 類型：SINGLE (單選), MULTI (多選), TEXT (簡答), NUMBER (數值), RATING (評分), NPS
+
+    /**
+     * 數值題的範圍 (見 QuestionTypes)：NUMBER 的上下限 (皆可為 NULL)、RATING 的評分等級 (預設 1 ~ 5)
+     */
+    @Column(name = "min_value")
+    private Double minValue;
+
+    @Column(name = "max_value")
+    private Double maxValue;
 
     @Column(nullable = false)
     private boolean required; // 是否必填
@@ -38,11 +53,22 @@ public class Question {
     @Column(nullable = false)
     private int orderIndex; // 在問卷中的排列順序
 
+    /**
+     * [教學重點] 顯示條件 (Skip Logic)
+     * 以精簡字串保存，例如 "1:0,2;3:1" 代表「第 1 題選了選項 0 或 2，且第 3 題選了選項 1」才顯示；
+     * 數字為題目與選項的 orderIndex。NULL 代表一律顯示。解析與編譯見 SkipLogicPlan。
+     */
+    @Column(name = "show_if", length = 1000)
+    private String showIf;
+
     /**
      * [教學重點] 巢狀關聯 (Question -> Option)
      * 題目底下還有選項，同樣使用 CascadeType.ALL 實作連動儲存。
+     * 選項以 BatchSize 批次載入，一次 IN 查詢即可帶出多個題目的選項。
      */
     @OneToMany(mappedBy = "question", cascade = CascadeType.ALL, orphanRemoval = true)
     @OrderBy("orderIndex ASC")
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Option> options = new ArrayList<>();
 }
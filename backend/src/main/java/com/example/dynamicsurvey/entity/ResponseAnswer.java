@@ -2,6 +2,7 @@ package com.example.dynamicsurvey.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,6 +25,7 @@ public class ResponseAnswer {
     // 針對單選/多選：規格提到的 option_id 
     // 在 JPA 中，多選題通常透過 JoinTable 實作，這會產生 answer_options 資料表
     @ManyToMany
+    @BatchSize(size = 100)
     @JoinTable(
         name = "answer_selected_options",
         joinColumns = @JoinColumn(name = "answer_id"),
@@ -2,7 +2,11 @@ package com.example.dynamicsurvey.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -11,9 +15,15 @@ import java.util.List;
  * -----------------------------------------------------------------------------
  * 目的：對應資料庫中的 surveys 資料表。
  * 亮點：使用 JPA 的關聯映射處理「一對多」關係。
+ * 版本：每筆資料列就是一個版本。發佈後內容 (標題、說明、日期、題目、選項) 即凍結，
+ *       之後的編輯會另建新版本 (copy-on-write)，既有作答永遠指向當時的題目。
+ * 快取：問卷結構讀多寫少，實體與題目集合放入 Hibernate 二級快取 (READ_WRITE)，
+ *       透過 Hibernate 儲存或刪除時會自動失效，其他節點不共享 (本機快取)。
  */
 @Entity
 @Table(name = "surveys")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 public class Survey {
     @Id
@@ -33,15 +43,54 @@ public class Survey {
     private LocalDate endDate; // 結束日期
 
     @Column(nullable = false)
-    private String status; // 狀態：DRAFT (草稿), PUBLISHED (已發佈)
+    private String status; // 狀態：DRAFT (草稿), PUBLISHED (已發佈), SUPERSEDED (已被新版本取代)
+
+    @Column(name = "root_id")
+    private Long rootId; // 同一份問卷各版本共用的識別；第一版為 null (代表自己)
+
+    @Column(name = "version_no", nullable = false)
+    private int versionNo = 1; // 版本序號
+
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt; // 第一次發佈時間；有值代表內容已凍結
+
+    @Column(name = "max_responses")
+    private Integer maxResponses; // 作答名額上限 (null 代表不限)；額滿後自動停止收件，見 ResponseQuotaService
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt; // 最後修改時間；其他節點的搜尋索引依此補入變更，見 SurveySearchIndex
 
     /**
      * [教學重點] 一對多關聯映射 (Survey -> Question)
      * - mappedBy: 指向 Question 類別中的 survey 屬性
      * - cascade = ALL: 當儲存 Survey 時，底下的 Questions 也會一併儲存
      * - orphanRemoval = true: 當題目從清單中移除時，資料庫也會自動刪除該筆資料
+     * - BatchSize: 列表頁載入多份問卷時，以 IN 查詢一次帶出多份問卷的題目，避免 N+1
+     * - Cache: 集合快取只存題目 ID，題目內容由 Question 的實體快取提供
      */
     @OneToMany(mappedBy = "survey", cascade = CascadeType.ALL, orphanRemoval = true)
     @OrderBy("orderIndex ASC") // 查詢時根據 orderIndex 排序
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Question> questions = new ArrayList<>();
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 版本系列的識別 (第一版的 ID)
+     */
+    public Long lineageId() {
+        return rootId != null ? rootId : id;
+    }
+
+    /**
+     * 是否已凍結 (曾經發佈過)；凍結後只能變更狀態，內容需透過新版本修改
+     */
+    public boolean isFrozen() {
+        return publishedAt != null;
+    }
 }
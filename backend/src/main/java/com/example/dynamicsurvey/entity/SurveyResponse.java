@@ -2,6 +2,7 @@ package com.example.dynamicsurvey.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -13,7 +14,10 @@ import java.util.List;
  * 為了支援「匿名/免登入作答」，我們將作答者的基本資訊直接儲存在回覆表中。
  */
 @Entity
-@Table(name = "survey_responses")
+@Table(name = "survey_responses", indexes = {
+        // 作答歷史依使用者查詢並依時間倒序排列
+        @Index(name = "idx_response_user_submitted", columnList = "user_id, submitted_at")
+})
 @Data
 public class SurveyResponse {
     @Id
@@ -48,6 +52,8 @@ public class SurveyResponse {
     @JoinColumn(name = "user_id", nullable = true)
     private User user;
 
+    // 統計時需走訪大量回覆的作答，以批次方式載入避免逐筆查詢
     @OneToMany(mappedBy = "surveyResponse", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<ResponseAnswer> answers = new ArrayList<>();
 }
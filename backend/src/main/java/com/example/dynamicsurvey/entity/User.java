@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name = "users")
 @Data
@@ -28,4 +30,13 @@ public class User {
 
     @Column(nullable = false)
     private String role; // "USER" or "ADMIN"
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt; // 最後修改時間；簽發時間較早的 JWT 不再採信 claims，見 UserDetailsServiceImpl.claimsCurrent
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = LocalDateTime.now();
+    }
 }
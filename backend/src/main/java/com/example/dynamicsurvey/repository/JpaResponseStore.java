@@ -0,0 +1,122 @@
+package com.example.dynamicsurvey.repository;
+
+import com.example.dynamicsurvey.dto.HistoryItemDTO;
+import com.example.dynamicsurvey.dto.ResponseDetailDTO;
+import com.example.dynamicsurvey.dto.ResponseSummaryDTO;
+import com.example.dynamicsurvey.entity.ResponseAnswer;
+import com.example.dynamicsurvey.entity.SurveyResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * [教學說明] 未啟用分片時的作答存取 (JPA)
+ * 作答與問卷在同一個資料庫，直接委派給 SurveyResponseRepository 的既有查詢。
+ */
+@Repository
+@ConditionalOnProperty(name = "app.datasource.shards.enabled", havingValue = "false", matchIfMissing = true)
+public class JpaResponseStore implements ResponseStore {
+
+    @Autowired
+    SurveyResponseRepository responseRepository;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public void save(SurveyResponse response) {
+        responseRepository.save(response);
+    }
+
+    @Override
+    public boolean existsBySurveyId(Long surveyId) {
+        return responseRepository.existsBySurveyId(surveyId);
+    }
+
+    @Override
+    public boolean existsByEmail(Collection<Long> surveyIds, String email) {
+        return responseRepository.existsBySurveyIdInAndEmail(surveyIds, email);
+    }
+
+    @Override
+    public List<Long> findSurveyIdsWithResponses(Collection<Long> surveyIds) {
+        return responseRepository.findSurveyIdsWithResponses(surveyIds);
+    }
+
+    @Override
+    public boolean existsAnswerForQuestions(Long surveyId, Collection<Long> questionIds) {
+        return responseRepository.existsAnswerForQuestions(questionIds);
+    }
+
+    @Override
+    public boolean existsAnswerForOptions(Long surveyId, Collection<Long> optionIds) {
+        return responseRepository.existsAnswerForOptions(optionIds);
+    }
+
+    @Override
+    public long countBySurveyId(Long surveyId) {
+        return responseRepository.countBySurveyId(surveyId);
+    }
+
+    @Override
+    public Map<Long, Long> countSelectionsByOption(Long surveyId, Collection<Long> optionIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : responseRepository.countSelectionsByOption(optionIds)) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    /**
+     * 先初始化選項集合再把作答移出持久化內容 (answers 為 CascadeType.ALL，一併移出)，
+     * 同一個交易中讀下一批時，前幾批的實體即可被回收
+     */
+    @Override
+    public List<SurveyResponse> findBySurveyIdAfter(Long surveyId, long afterId, int limit) {
+        List<Long> ids = responseRepository.findIdsBySurveyIdAfter(surveyId, afterId, PageRequest.of(0, limit));
+        if (ids.isEmpty()) return List.of();
+        List<SurveyResponse> responses = responseRepository.findWithAnswersByIdIn(ids);
+        for (SurveyResponse r : responses) {
+            r.getAnswers().forEach(a -> Hibernate.initialize(a.getSelectedOptions()));
+        }
+        responses.forEach(entityManager::detach);
+        return responses;
+    }
+
+    @Override
+    public List<ResponseSummaryDTO> findSummariesBySurveyId(Long surveyId) {
+        return responseRepository.findSummariesBySurveyId(surveyId);
+    }
+
+    @Override
+    public Optional<ResponseDetailDTO> findDetailById(Long responseId) {
+        return responseRepository.findDetailById(responseId).map(response -> {
+            List<ResponseDetailDTO.Detail> details = new ArrayList<>(response.getAnswers().size());
+            for (ResponseAnswer a : response.getAnswers()) {
+                details.add(new ResponseDetailDTO.Detail(a.getQuestion().getTitle(), a.getQuestion().getType(), a.getAnswerText()));
+            }
+            return new ResponseDetailDTO(response.getId(), response.getName(), response.getSubmittedAt(),
+                    response.getSurvey().getTitle(), details);
+        });
+    }
+
+    @Override
+    public List<HistoryItemDTO> findHistory(Long userId, LocalDateTime beforeAt, Long beforeId, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        return (beforeAt != null && beforeId != null)
+                ? responseRepository.findHistoryByUserIdBefore(userId, beforeAt, beforeId, page)
+                : responseRepository.findHistoryByUserId(userId, page);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.dynamicsurvey.repository;
+
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.config.ResponseShardRouter.Shard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * [教學說明] 作答者聯絡資料的讀取 (Respondent Repository)
+ * -----------------------------------------------------------------------------
+ * 後台作答者搜尋 (RespondentSearchService) 建立索引與增量補入時，依回覆 ID 分批讀取「線上 + 封存區」
+ * 的姓名、Email、電話，直接以 JDBC 讀取，不建立 JPA 實體也不載入答案。
+ * 每批在所在分片的讀寫交易 (REQUIRES_NEW) 中執行：唯讀交易可能被路由到有延遲的 replica，
+ * 漏掉剛提交的作答後，增量補入已越過該 ID，索引在重建前都不會再補上。
+ */
+@Repository
+public class RespondentRepository {
+
+    @Autowired
+    ResponseShardRouter router;
+
+    public record Respondent(long id, String name, String email, String phone, LocalDateTime submittedAt) {
+    }
+
+    /**
+     * 回覆 ID 大於 afterId 的下一批作答者 (依 ID 遞增)
+     */
+    public List<Respondent> findAfter(Long surveyId, long afterId, int limit) {
+        Shard shard = router.forRead(surveyId);
+        TransactionTemplate tx = new TransactionTemplate(shard.tx().getTransactionManager());
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return tx.execute(status -> {
+            List<Respondent> batch = new ArrayList<>(limit);
+            shard.jdbc().query("(SELECT id, name, email, phone, submitted_at FROM survey_responses " +
+                            "WHERE survey_id = :surveyId AND id > :after ORDER BY id LIMIT :limit) " +
+                            "UNION ALL (SELECT id, name, email, phone, submitted_at FROM archived_survey_responses " +
+                            "WHERE survey_id = :surveyId AND id > :after ORDER BY id LIMIT :limit) " +
+                            "ORDER BY id LIMIT :limit",
+                    new MapSqlParameterSource("surveyId", surveyId).addValue("after", afterId).addValue("limit", limit),
+                    rs -> {
+                        batch.add(new Respondent(rs.getLong("id"), rs.getString("name"), rs.getString("email"),
+                                rs.getString("phone"), rs.getTimestamp("submitted_at").toLocalDateTime()));
+                    });
+            return batch;
+        });
+    }
+}
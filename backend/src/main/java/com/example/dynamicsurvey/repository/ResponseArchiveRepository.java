@@ -0,0 +1,199 @@
+package com.example.dynamicsurvey.repository;
+
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.config.ResponseShardRouter.Shard;
+import com.example.dynamicsurvey.dto.HistoryItemDTO;
+import com.example.dynamicsurvey.dto.ResponseDetailDTO;
+import com.example.dynamicsurvey.dto.ResponseSummaryDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * [教學說明] 作答封存區儲存庫 (Response Archive Repository)
+ * -----------------------------------------------------------------------------
+ * 封存資料表沒有對應的 JPA 實體，搬移需要的是整批 INSERT ... SELECT / DELETE，
+ * 因此直接使用 NamedParameterJdbcTemplate 撰寫 SQL。
+ * 讀取端回傳與線上查詢相同的 DTO，讓 SurveyService 可以透明合併兩邊的資料。
+ *
+ * 封存資料表與線上作答位於同一個分片 (搬移仍是同一資料庫內的 INSERT ... SELECT)；
+ * 統計快照與問卷、題目等定義資料則在主資料庫 (catalog)，兩者不做跨資料庫 JOIN。
+ */
+@Repository
+public class ResponseArchiveRepository {
+
+    // 主資料庫 (問卷定義與統計快照)
+    @Autowired
+    NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    ResponseShardRouter router;
+
+    // =========================================================================
+    // 封存作業
+    // =========================================================================
+
+    /**
+     * 結束日期早於 cutoff，且尚未封存 (或上次封存中斷、搬移尚未完成) 的問卷
+     * 以快照的 completed 旗標判斷，不需查詢各分片的線上資料表。
+     */
+    public List<Long> findSurveysToArchive(LocalDate cutoff) {
+        return jdbc.queryForList("SELECT s.id FROM surveys s " +
+                        "LEFT JOIN survey_stats_snapshots x ON x.survey_id = s.id " +
+                        "WHERE s.end_date < :cutoff AND (x.survey_id IS NULL OR x.completed = FALSE)",
+                new MapSqlParameterSource("cutoff", cutoff), Long.class);
+    }
+
+    public void saveSnapshot(Long surveyId, int totalResponses, String statsJson) {
+        jdbc.update("INSERT INTO survey_stats_snapshots (survey_id, total_responses, stats_json, archived_at) " +
+                        "VALUES (:surveyId, :total, :json, :now)",
+                new MapSqlParameterSource("surveyId", surveyId)
+                        .addValue("total", totalResponses)
+                        .addValue("json", statsJson)
+                        .addValue("now", Timestamp.valueOf(LocalDateTime.now())));
+    }
+
+    /**
+     * 全部作答都已搬入封存區
+     */
+    public void markCompleted(Long surveyId) {
+        jdbc.update("UPDATE survey_stats_snapshots SET completed = TRUE WHERE survey_id = :surveyId",
+                new MapSqlParameterSource("surveyId", surveyId));
+    }
+
+    /**
+     * 取出下一批仍在線上資料表的回覆 ID
+     */
+    public List<Long> findLiveResponseIds(Shard shard, Long surveyId, int batchSize) {
+        return shard.jdbc().queryForList("SELECT id FROM survey_responses WHERE survey_id = :surveyId ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource("surveyId", surveyId).addValue("limit", batchSize), Long.class);
+    }
+
+    /**
+     * 將一批回覆 (含作答與選項) 複製到封存表後自線上表刪除；呼叫端負責 (該分片的) 交易
+     */
+    public void moveBatch(Shard shard, Collection<Long> responseIds) {
+        NamedParameterJdbcTemplate jdbc = shard.jdbc();
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", responseIds);
+        jdbc.update("INSERT INTO archived_survey_responses (id, survey_id, name, phone, email, age, submitted_at, user_id) " +
+                "SELECT id, survey_id, name, phone, email, age, submitted_at, user_id FROM survey_responses WHERE id IN (:ids)", ids);
+        jdbc.update("INSERT INTO archived_response_answers (id, response_id, question_id, answer_text) " +
+                "SELECT id, response_id, question_id, answer_text FROM response_answers WHERE response_id IN (:ids)", ids);
+        jdbc.update("INSERT INTO archived_answer_selected_options (answer_id, option_id) " +
+                "SELECT o.answer_id, o.option_id FROM answer_selected_options o " +
+                "JOIN response_answers a ON a.id = o.answer_id WHERE a.response_id IN (:ids)", ids);
+        jdbc.update("DELETE o FROM answer_selected_options o " +
+                "JOIN response_answers a ON a.id = o.answer_id WHERE a.response_id IN (:ids)", ids);
+        jdbc.update("DELETE FROM response_answers WHERE response_id IN (:ids)", ids);
+        jdbc.update("DELETE FROM survey_responses WHERE id IN (:ids)", ids);
+    }
+
+    // =========================================================================
+    // 讀取 (與線上資料合併)
+    // =========================================================================
+
+    public Optional<String> findSnapshotJson(Long surveyId) {
+        return jdbc.queryForList("SELECT stats_json FROM survey_stats_snapshots WHERE survey_id = :surveyId",
+                new MapSqlParameterSource("surveyId", surveyId), String.class).stream().findFirst();
+    }
+
+    /**
+     * 清單中已有封存作答的問卷 ID
+     */
+    public List<Long> findSurveyIdsWithArchivedResponses(Collection<Long> surveyIds) {
+        return jdbc.queryForList("SELECT survey_id FROM survey_stats_snapshots " +
+                        "WHERE survey_id IN (:ids) AND total_responses > 0",
+                new MapSqlParameterSource("ids", surveyIds), Long.class);
+    }
+
+    /**
+     * 封存作答是否引用了清單中的題目或選項 (封存表沒有外鍵，刪除後詳情會缺少題目)
+     */
+    public boolean referencesQuestionsOrOptions(Long surveyId, Collection<Long> questionIds, Collection<Long> optionIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource("questionIds", questionIds.isEmpty() ? List.of(-1L) : questionIds)
+                .addValue("optionIds", optionIds.isEmpty() ? List.of(-1L) : optionIds);
+        return !router.forRead(surveyId).jdbc().queryForList("SELECT 1 FROM archived_response_answers WHERE question_id IN (:questionIds) " +
+                "UNION ALL SELECT 1 FROM archived_answer_selected_options WHERE option_id IN (:optionIds) LIMIT 1",
+                params, Integer.class).isEmpty();
+    }
+
+    public List<ResponseSummaryDTO> findSummariesBySurveyId(Long surveyId) {
+        return router.forRead(surveyId).jdbc().query("SELECT id, name, email, submitted_at FROM archived_survey_responses " +
+                        "WHERE survey_id = :surveyId ORDER BY id DESC",
+                new MapSqlParameterSource("surveyId", surveyId),
+                (rs, i) -> new ResponseSummaryDTO(rs.getLong("id"), rs.getString("name"), rs.getString("email"),
+                        rs.getTimestamp("submitted_at").toLocalDateTime()));
+    }
+
+    /**
+     * 使用者的封存作答歷史，排序與 keyset 條件和 ResponseStore.findHistory 相同 (submittedAt、id 由新到舊)
+     * 使用者的作答可能分散在各分片：各取 limit 筆合併排序後再取前 limit 筆；問卷標題再向主資料庫查詢。
+     */
+    public List<HistoryItemDTO> findHistory(Long userId, LocalDateTime beforeAt, Long beforeId, int limit) {
+        boolean after = beforeAt != null && beforeId != null;
+        String sql = "SELECT id, survey_id, submitted_at FROM archived_survey_responses WHERE user_id = :userId " +
+                (after ? "AND (submitted_at < :beforeAt OR (submitted_at = :beforeAt AND id < :beforeId)) " : "") +
+                "ORDER BY submitted_at DESC, id DESC LIMIT :limit";
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", userId)
+                .addValue("beforeAt", after ? Timestamp.valueOf(beforeAt) : null)
+                .addValue("beforeId", beforeId)
+                .addValue("limit", limit);
+        List<HistoryItemDTO> merged = new ArrayList<>();
+        for (Shard shard : router.all()) {
+            merged.addAll(shard.jdbc().query(sql, params, (rs, i) -> new HistoryItemDTO(rs.getLong("id"), rs.getLong("survey_id"),
+                    null, rs.getTimestamp("submitted_at").toLocalDateTime())));
+        }
+        merged.sort(HistoryItemDTO.NEWEST_FIRST);
+        List<HistoryItemDTO> page = merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+        if (page.isEmpty()) return page;
+
+        Map<Long, String> titles = new HashMap<>();
+        jdbc.query("SELECT id, title FROM surveys WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", page.stream().map(HistoryItemDTO::getSurveyId).distinct().toList()),
+                rs -> { titles.put(rs.getLong("id"), rs.getString("title")); });
+        page.forEach(h -> h.setSurveyTitle(titles.get(h.getSurveyId())));
+        return page;
+    }
+
+    /**
+     * 依回覆 ID 查詢 (不知道所屬問卷，逐一查詢各分片)；題目與問卷標題再向主資料庫查詢
+     */
+    public Optional<ResponseDetailDTO> findDetailById(Long responseId) {
+        record Head(Long surveyId, String name, LocalDateTime submittedAt) {
+        }
+        record Answer(Long questionId, String text) {
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("id", responseId);
+        for (Shard shard : router.all()) {
+            List<Head> heads = shard.jdbc().query("SELECT survey_id, name, submitted_at FROM archived_survey_responses WHERE id = :id",
+                    params, (rs, i) -> new Head(rs.getLong("survey_id"), rs.getString("name"), rs.getTimestamp("submitted_at").toLocalDateTime()));
+            if (heads.isEmpty()) continue;
+            Head head = heads.get(0);
+            List<Answer> answers = shard.jdbc().query("SELECT question_id, answer_text FROM archived_response_answers " +
+                    "WHERE response_id = :id ORDER BY id", params, (rs, i) -> new Answer(rs.getLong("question_id"), rs.getString("answer_text")));
+
+            // 題目可能已被刪除 (封存表沒有外鍵)，找不到時標題與題型為 null
+            Map<Long, String[]> questions = new HashMap<>();
+            if (!answers.isEmpty()) {
+                jdbc.query("SELECT id, title, type FROM questions WHERE id IN (:ids)",
+                        new MapSqlParameterSource("ids", answers.stream().map(Answer::questionId).distinct().toList()),
+                        rs -> { questions.put(rs.getLong("id"), new String[]{rs.getString("title"), rs.getString("type")}); });
+            }
+            List<ResponseDetailDTO.Detail> details = new ArrayList<>(answers.size());
+            for (Answer a : answers) {
+                String[] q = questions.getOrDefault(a.questionId(), new String[2]);
+                details.add(new ResponseDetailDTO.Detail(q[0], q[1], a.text()));
+            }
+            String title = jdbc.queryForList("SELECT title FROM surveys WHERE id = :id",
+                    new MapSqlParameterSource("id", head.surveyId()), String.class).stream().findFirst().orElse(null);
+            return Optional.of(new ResponseDetailDTO(responseId, head.name(), head.submittedAt(), title, details));
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.dynamicsurvey.repository;
+
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.config.ResponseShardRouter.Shard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * [教學說明] 欄式快照匯出用的作答讀取 (Response Export Repository)
+ * -----------------------------------------------------------------------------
+ * 匯出需要依回覆 ID 分批讀取「線上 + 封存區」的全部作答：封存作業只是把資料搬到
+ * 同一分片的 archived_* 資料表，ID 不變，因此兩邊合併後水位線 (已匯出的最大 ID) 仍然有效。
+ * 只取統計需要的欄位 (不含姓名、電話、Email)，直接以 JDBC 讀取，不建立 JPA 實體。
+ * 每批在所在分片的唯讀交易中執行，避免封存作業同時搬移造成同一筆讀到兩次或漏讀。
+ */
+@Repository
+public class ResponseExportRepository {
+
+    private static final List<String> TABLE_PREFIXES = List.of("", "archived_");
+
+    @Autowired
+    ResponseShardRouter router;
+
+    public record ExportedResponse(long id, long submittedAtMillis, Integer age, List<ExportedAnswer> answers) {
+    }
+
+    public record ExportedAnswer(long questionId, String text, List<Long> optionIds) {
+    }
+
+    /**
+     * 所有分片中有作答 (含封存區) 的問卷 ID
+     */
+    public SortedSet<Long> findSurveyIdsWithResponses() {
+        SortedSet<Long> ids = new TreeSet<>();
+        for (Shard shard : router.all()) {
+            ids.addAll(shard.jdbc().queryForList("SELECT survey_id FROM survey_responses GROUP BY survey_id " +
+                    "UNION SELECT survey_id FROM archived_survey_responses GROUP BY survey_id",
+                    new MapSqlParameterSource(), Long.class));
+        }
+        return ids;
+    }
+
+    /**
+     * 回覆 ID 不大於 maxId 的作答筆數 (用來檢查已匯出的範圍是否有晚到的作答)
+     */
+    public int countUpTo(Long surveyId, long maxId) {
+        Integer count = router.forRead(surveyId).jdbc().queryForObject(
+                "SELECT (SELECT COUNT(*) FROM survey_responses WHERE survey_id = :surveyId AND id <= :maxId) + " +
+                "(SELECT COUNT(*) FROM archived_survey_responses WHERE survey_id = :surveyId AND id <= :maxId)",
+                new MapSqlParameterSource("surveyId", surveyId).addValue("maxId", maxId), Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 回覆 ID 大於 afterId 的下一批作答 (依 ID 遞增，含答案與選取的選項)
+     */
+    public List<ExportedResponse> findAfter(Long surveyId, long afterId, int limit) {
+        Shard shard = router.forRead(surveyId);
+        TransactionTemplate tx = new TransactionTemplate(shard.tx().getTransactionManager());
+        tx.setReadOnly(true);
+        return tx.execute(status -> {
+            MapSqlParameterSource params = new MapSqlParameterSource("surveyId", surveyId)
+                    .addValue("after", afterId).addValue("limit", limit);
+            Map<Long, ExportedResponse> responses = new LinkedHashMap<>();
+            shard.jdbc().query("(SELECT id, submitted_at, age FROM survey_responses " +
+                            "WHERE survey_id = :surveyId AND id > :after ORDER BY id LIMIT :limit) " +
+                            "UNION ALL (SELECT id, submitted_at, age FROM archived_survey_responses " +
+                            "WHERE survey_id = :surveyId AND id > :after ORDER BY id LIMIT :limit) " +
+                            "ORDER BY id LIMIT :limit", params,
+                    rs -> {
+                        long id = rs.getLong("id");
+                        responses.put(id, new ExportedResponse(id, rs.getTimestamp("submitted_at").getTime(),
+                                rs.getObject("age", Integer.class), new ArrayList<>()));
+                    });
+            if (responses.isEmpty()) return List.of();
+
+            List<Long> ids = new ArrayList<>(responses.keySet());
+            params.addValue("first", ids.get(0)).addValue("last", ids.get(ids.size() - 1));
+            for (String p : TABLE_PREFIXES) {
+                Map<Long, ExportedAnswer> answers = new LinkedHashMap<>();
+                shard.jdbc().query("SELECT a.id, a.response_id, a.question_id, a.answer_text, o.option_id " +
+                                "FROM " + p + "response_answers a JOIN " + p + "survey_responses r ON r.id = a.response_id " +
+                                "LEFT JOIN " + p + "answer_selected_options o ON o.answer_id = a.id " +
+                                "WHERE r.survey_id = :surveyId AND r.id BETWEEN :first AND :last ORDER BY a.id", params,
+                        rs -> {
+                            ExportedResponse r = responses.get(rs.getLong("response_id"));
+                            if (r == null) return;
+                            long answerId = rs.getLong("id");
+                            ExportedAnswer a = answers.get(answerId);
+                            if (a == null) {
+                                a = new ExportedAnswer(rs.getLong("question_id"), rs.getString("answer_text"), new ArrayList<>());
+                                answers.put(answerId, a);
+                                r.answers().add(a);
+                            }
+                            long optionId = rs.getLong("option_id");
+                            if (!rs.wasNull()) a.optionIds().add(optionId);
+                        });
+            }
+            return new ArrayList<>(responses.values());
+        });
+    }
+}
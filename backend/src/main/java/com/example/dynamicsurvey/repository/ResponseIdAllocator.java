@@ -0,0 +1,73 @@
+package com.example.dynamicsurvey.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * [教學說明] 跨分片唯一的作答 ID (區段配號)
+ * -----------------------------------------------------------------------------
+ * 各分片各自 AUTO_INCREMENT 會產生重複 ID，而作答詳情 API 只帶回覆 ID、
+ * 重新分片時也需保留原 ID，因此改由主資料庫的 response_id_blocks 統一配號：
+ * 每次以獨立交易 (SELECT ... FOR UPDATE) 預留 blockSize 個號碼，之後在記憶體中遞增，
+ * 平均每 blockSize 筆作答才存取一次主資料庫。
+ * 不同節點各自持有不同區段，ID 全域唯一但不保證依時間遞增。
+ */
+class ResponseIdAllocator {
+
+    static final String RESPONSE = "response";
+    static final String ANSWER = "answer";
+
+    private final NamedParameterJdbcTemplate catalog;
+    private final TransactionTemplate tx;
+    private final int blockSize;
+    private final Map<String, long[]> blocks = new HashMap<>(); // name -> {next, end (不含)}
+
+    /**
+     * @param tx 必須為 REQUIRES_NEW，預留的號碼不因外層交易回滾而重複配發
+     */
+    ResponseIdAllocator(NamedParameterJdbcTemplate catalog, TransactionTemplate tx, int blockSize) {
+        this.catalog = catalog;
+        this.tx = tx;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * 啟用分片前由 JPA (AUTO_INCREMENT) 寫入主資料庫的作答 ID 不可再被配發，將序號推進到其後
+     */
+    void catchUp() {
+        tx.executeWithoutResult(status -> {
+            catalog.update("UPDATE response_id_blocks SET next_id = GREATEST(next_id, " +
+                    "(SELECT COALESCE(MAX(id), 0) + 1 FROM survey_responses), " +
+                    "(SELECT COALESCE(MAX(id), 0) + 1 FROM archived_survey_responses)) WHERE name = 'response'",
+                    new MapSqlParameterSource());
+            catalog.update("UPDATE response_id_blocks SET next_id = GREATEST(next_id, " +
+                    "(SELECT COALESCE(MAX(id), 0) + 1 FROM response_answers), " +
+                    "(SELECT COALESCE(MAX(id), 0) + 1 FROM archived_response_answers)) WHERE name = 'answer'",
+                    new MapSqlParameterSource());
+        });
+    }
+
+    synchronized long next(String name) {
+        long[] block = blocks.get(name);
+        if (block == null || block[0] >= block[1]) {
+            block = reserve(name);
+            blocks.put(name, block);
+        }
+        return block[0]++;
+    }
+
+    private long[] reserve(String name) {
+        return tx.execute(status -> {
+            MapSqlParameterSource params = new MapSqlParameterSource("name", name);
+            long start = catalog.queryForObject("SELECT next_id FROM response_id_blocks WHERE name = :name FOR UPDATE",
+                    params, Long.class);
+            catalog.update("UPDATE response_id_blocks SET next_id = :end WHERE name = :name",
+                    params.addValue("end", start + blockSize));
+            return new long[]{start, start + blockSize};
+        });
+    }
+}
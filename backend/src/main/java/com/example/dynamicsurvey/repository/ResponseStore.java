@@ -0,0 +1,95 @@
+package com.example.dynamicsurvey.repository;
+
+import com.example.dynamicsurvey.dto.HistoryItemDTO;
+import com.example.dynamicsurvey.dto.ResponseDetailDTO;
+import com.example.dynamicsurvey.dto.ResponseSummaryDTO;
+import com.example.dynamicsurvey.entity.SurveyResponse;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * [教學說明] 線上作答的存取介面 (Response Store)
+ * -----------------------------------------------------------------------------
+ * SurveyService 與 SurveyArchiveService 只透過此介面讀寫作答，不直接依賴儲存方式：
+ * - JpaResponseStore     : 未啟用分片 (預設)，作答與問卷在同一個資料庫，沿用 JPA 查詢
+ * - ShardedResponseStore : 啟用分片，依問卷 ID 路由到各分片資料庫 (JDBC)
+ * 封存區 (archived_*) 仍由 ResponseArchiveRepository 處理。
+ */
+public interface ResponseStore {
+
+    /**
+     * 儲存一筆作答 (含答案與選取的選項)；完成後 response.getId() 為新的回覆 ID
+     */
+    void save(SurveyResponse response);
+
+    boolean existsBySurveyId(Long surveyId);
+
+    /**
+     * 清單中任一問卷是否已有此 Email 的作答
+     */
+    boolean existsByEmail(Collection<Long> surveyIds, String email);
+
+    /**
+     * 清單中「已有作答紀錄」的問卷 ID
+     */
+    List<Long> findSurveyIdsWithResponses(Collection<Long> surveyIds);
+
+    /**
+     * 問卷中清單內的題目是否已有作答
+     */
+    boolean existsAnswerForQuestions(Long surveyId, Collection<Long> questionIds);
+
+    /**
+     * 問卷中清單內的選項是否已被選取過
+     */
+    boolean existsAnswerForOptions(Long surveyId, Collection<Long> optionIds);
+
+    /**
+     * 名額對帳用：問卷的作答筆數
+     */
+    long countBySurveyId(Long surveyId);
+
+    /**
+     * 名額對帳用：問卷中清單內每個選項被選取的作答筆數 (沒人選的選項不在結果中)
+     */
+    Map<Long, Long> countSelectionsByOption(Long surveyId, Collection<Long> optionIds);
+
+    /**
+     * 統計用：回覆 ID 大於 afterId 的下一批作答 (依 ID 遞增，含答案與選項)。
+     * 回傳的物件不留在持久化內容 (persistence context) 中，逐批讀取時記憶體只與批次大小有關
+     */
+    List<SurveyResponse> findBySurveyIdAfter(Long surveyId, long afterId, int limit);
+
+    /**
+     * 統計用：依回覆 ID 分批走訪問卷的全部作答，每批最多 batchSize 筆
+     */
+    default void forEachBySurveyId(Long surveyId, int batchSize, Consumer<SurveyResponse> action) {
+        long afterId = 0;
+        while (true) {
+            List<SurveyResponse> batch = findBySurveyIdAfter(surveyId, afterId, batchSize);
+            batch.forEach(action);
+            if (batch.size() < batchSize) return;
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    /**
+     * 後台作答列表 (依 ID 由新到舊)
+     */
+    List<ResponseSummaryDTO> findSummariesBySurveyId(Long surveyId);
+
+    /**
+     * 單筆作答詳情；不在線上資料表時回傳 empty (呼叫端再查封存區)
+     */
+    Optional<ResponseDetailDTO> findDetailById(Long responseId);
+
+    /**
+     * 使用者作答歷史 (submittedAt、id 由新到舊)，beforeAt / beforeId 為 null 時從第一筆開始
+     */
+    List<HistoryItemDTO> findHistory(Long userId, LocalDateTime beforeAt, Long beforeId, int limit);
+}
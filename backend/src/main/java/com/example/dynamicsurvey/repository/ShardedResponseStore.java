@@ -0,0 +1,368 @@
+package com.example.dynamicsurvey.repository;
+
+import com.example.dynamicsurvey.config.ResponseShardProperties;
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.config.ResponseShardRouter.Shard;
+import com.example.dynamicsurvey.dto.HistoryItemDTO;
+import com.example.dynamicsurvey.dto.ResponseDetailDTO;
+import com.example.dynamicsurvey.dto.ResponseSummaryDTO;
+import com.example.dynamicsurvey.entity.*;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * [教學說明] 啟用分片時的作答存取 (JDBC)
+ * -----------------------------------------------------------------------------
+ * 作答與問卷位於不同資料庫，無法 JOIN 也無法使用 JPA 關聯，因此：
+ * - 寫入：依問卷 ID 取得分片，在該分片自己的交易中寫入三張資料表；ID 由 ResponseIdAllocator 配發。
+ *   分片寫入延到外層交易提交前，外層未提交時再補償刪除 (見 save)。
+ * - 依問卷查詢 (統計、列表、重複 Email)：只查該問卷所在的分片；多份問卷時依分片分組，各查一次。
+ * - 無法依問卷路由的查詢 (依回覆 ID 查詳情、使用者歷史)：查詢全部分片後合併。
+ * 題目標題、問卷標題等定義資料一律由 SurveyRepository 取得 (二級快取)，不複製到分片。
+ * 統計所需的 SurveyResponse / ResponseAnswer 為未受管理的物件，只用來交給 SurveyStatsAggregator。
+ */
+@Repository
+@ConditionalOnProperty(name = "app.datasource.shards.enabled", havingValue = "true")
+public class ShardedResponseStore implements ResponseStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedResponseStore.class);
+
+    @Autowired
+    ResponseShardRouter router;
+
+    @Autowired
+    SurveyRepository surveyRepository;
+
+    @Autowired
+    NamedParameterJdbcTemplate catalog;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ResponseShardProperties properties;
+
+    private ResponseIdAllocator ids;
+
+    @PostConstruct
+    void init() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        ids = new ResponseIdAllocator(catalog, tx, properties.getIdBlockSize());
+        ids.catchUp();
+    }
+
+    // =========================================================================
+    // 寫入
+    // =========================================================================
+
+    /**
+     * 分片寫入無法加入主資料庫的交易，因此在外層交易中分兩階段處理：
+     * 1. 外層交易提交前 (beforeCommit) 才寫入分片：提交前任何錯誤 (含分片寫入失敗) 都讓外層回滾、名額歸還，
+     *    分片上不會留下作答。
+     * 2. 分片已寫入、但外層交易最後仍未提交 (主資料庫 commit 失敗) 時，以補償交易刪除剛寫入的作答。
+     * 補償也失敗 (例如分片同時斷線) 時只記錄錯誤：該筆作答會留在分片，
+     * 名額由 ResponseQuotaService 的對帳依實際作答數補回。
+     * 回覆 ID 先行配發，呼叫端在提交前即可取得；沒有外層交易時直接寫入。
+     */
+    @Override
+    public void save(SurveyResponse response) {
+        Long surveyId = response.getSurvey().getId();
+        long responseId = ids.next(ResponseIdAllocator.RESPONSE);
+        MapSqlParameterSource row = new MapSqlParameterSource("id", responseId)
+                .addValue("surveyId", surveyId)
+                .addValue("name", response.getName())
+                .addValue("phone", response.getPhone())
+                .addValue("email", response.getEmail())
+                .addValue("age", response.getAge())
+                .addValue("submittedAt", Timestamp.valueOf(response.getSubmittedAt()))
+                .addValue("userId", response.getUser() != null ? response.getUser().getId() : null);
+        List<MapSqlParameterSource> answers = new ArrayList<>(response.getAnswers().size());
+        List<MapSqlParameterSource> selected = new ArrayList<>();
+        for (ResponseAnswer a : response.getAnswers()) {
+            long answerId = ids.next(ResponseIdAllocator.ANSWER);
+            a.setId(answerId);
+            answers.add(new MapSqlParameterSource("id", answerId)
+                    .addValue("responseId", responseId)
+                    .addValue("questionId", a.getQuestion().getId())
+                    .addValue("answerText", a.getAnswerText()));
+            for (Option o : a.getSelectedOptions()) {
+                selected.add(new MapSqlParameterSource("answerId", answerId).addValue("optionId", o.getId()));
+            }
+        }
+        response.setId(responseId);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insert(router.forWrite(surveyId), row, answers, selected);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private Shard written;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // 提交前才取得分片，搬移切換期間也會寫入最新的位置
+                Shard shard = router.forWrite(surveyId);
+                insert(shard, row, answers, selected);
+                written = shard;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (written == null || status == STATUS_COMMITTED) return;
+                try {
+                    delete(written, responseId);
+                    logger.warn("主資料庫交易未提交，已自分片 {} 移除作答 {}", written.name(), responseId);
+                } catch (RuntimeException e) {
+                    logger.error("主資料庫交易未提交，但無法自分片 {} 移除作答 {}", written.name(), responseId, e);
+                }
+            }
+        });
+    }
+
+    private static void insert(Shard shard, MapSqlParameterSource row,
+                               List<MapSqlParameterSource> answers, List<MapSqlParameterSource> selected) {
+        shard.tx().executeWithoutResult(status -> {
+            shard.jdbc().update("INSERT INTO survey_responses (id, survey_id, name, phone, email, age, submitted_at, user_id) " +
+                    "VALUES (:id, :surveyId, :name, :phone, :email, :age, :submittedAt, :userId)", row);
+            if (!answers.isEmpty()) {
+                shard.jdbc().batchUpdate("INSERT INTO response_answers (id, response_id, question_id, answer_text) " +
+                        "VALUES (:id, :responseId, :questionId, :answerText)", answers.toArray(MapSqlParameterSource[]::new));
+            }
+            if (!selected.isEmpty()) {
+                shard.jdbc().batchUpdate("INSERT INTO answer_selected_options (answer_id, option_id) VALUES (:answerId, :optionId)",
+                        selected.toArray(MapSqlParameterSource[]::new));
+            }
+        });
+    }
+
+    private static void delete(Shard shard, long responseId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("id", responseId);
+        shard.tx().executeWithoutResult(status -> {
+            shard.jdbc().update("DELETE FROM answer_selected_options WHERE answer_id IN " +
+                    "(SELECT id FROM response_answers WHERE response_id = :id)", params);
+            shard.jdbc().update("DELETE FROM response_answers WHERE response_id = :id", params);
+            shard.jdbc().update("DELETE FROM survey_responses WHERE id = :id", params);
+        });
+    }
+
+    // =========================================================================
+    // 依問卷查詢 (單一分片)
+    // =========================================================================
+
+    @Override
+    public boolean existsBySurveyId(Long surveyId) {
+        return !router.forRead(surveyId).jdbc().queryForList("SELECT 1 FROM survey_responses WHERE survey_id = :surveyId LIMIT 1",
+                new MapSqlParameterSource("surveyId", surveyId), Integer.class).isEmpty();
+    }
+
+    @Override
+    public boolean existsByEmail(Collection<Long> surveyIds, String email) {
+        for (Map.Entry<Shard, List<Long>> e : byShard(surveyIds).entrySet()) {
+            boolean found = !e.getKey().jdbc().queryForList("SELECT 1 FROM survey_responses " +
+                            "WHERE survey_id IN (:surveyIds) AND email = :email LIMIT 1",
+                    new MapSqlParameterSource("surveyIds", e.getValue()).addValue("email", email), Integer.class).isEmpty();
+            if (found) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public List<Long> findSurveyIdsWithResponses(Collection<Long> surveyIds) {
+        List<Long> result = new ArrayList<>();
+        byShard(surveyIds).forEach((shard, idsOnShard) -> result.addAll(shard.jdbc().queryForList(
+                "SELECT survey_id FROM survey_responses WHERE survey_id IN (:surveyIds) GROUP BY survey_id",
+                new MapSqlParameterSource("surveyIds", idsOnShard), Long.class)));
+        return result;
+    }
+
+    @Override
+    public boolean existsAnswerForQuestions(Long surveyId, Collection<Long> questionIds) {
+        return !router.forRead(surveyId).jdbc().queryForList("SELECT 1 FROM response_answers WHERE question_id IN (:ids) LIMIT 1",
+                new MapSqlParameterSource("ids", questionIds), Integer.class).isEmpty();
+    }
+
+    @Override
+    public boolean existsAnswerForOptions(Long surveyId, Collection<Long> optionIds) {
+        return !router.forRead(surveyId).jdbc().queryForList("SELECT 1 FROM answer_selected_options WHERE option_id IN (:ids) LIMIT 1",
+                new MapSqlParameterSource("ids", optionIds), Integer.class).isEmpty();
+    }
+
+    @Override
+    public long countBySurveyId(Long surveyId) {
+        Long count = router.forRead(surveyId).jdbc().queryForObject("SELECT COUNT(*) FROM survey_responses WHERE survey_id = :surveyId",
+                new MapSqlParameterSource("surveyId", surveyId), Long.class);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public Map<Long, Long> countSelectionsByOption(Long surveyId, Collection<Long> optionIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        router.forRead(surveyId).jdbc().query("SELECT option_id, COUNT(*) AS cnt FROM answer_selected_options " +
+                        "WHERE option_id IN (:ids) GROUP BY option_id",
+                new MapSqlParameterSource("ids", optionIds), rs -> {
+                    counts.put(rs.getLong("option_id"), rs.getLong("cnt"));
+                });
+        return counts;
+    }
+
+    @Override
+    public List<SurveyResponse> findBySurveyIdAfter(Long surveyId, long afterId, int limit) {
+        Survey survey = surveyRepository.findById(surveyId).orElse(null);
+        Map<Long, Question> questions = new HashMap<>();
+        Map<Long, Option> options = new HashMap<>();
+        if (survey != null) {
+            for (Question q : survey.getQuestions()) {
+                questions.put(q.getId(), q);
+                for (Option o : q.getOptions()) options.put(o.getId(), o);
+            }
+        }
+        NamedParameterJdbcTemplate jdbc = router.forRead(surveyId).jdbc();
+        MapSqlParameterSource params = new MapSqlParameterSource("surveyId", surveyId)
+                .addValue("after", afterId).addValue("limit", limit);
+
+        Map<Long, SurveyResponse> responses = new LinkedHashMap<>();
+        jdbc.query("SELECT id, name, phone, email, age, submitted_at FROM survey_responses " +
+                "WHERE survey_id = :surveyId AND id > :after ORDER BY id LIMIT :limit", params, rs -> {
+            SurveyResponse r = new SurveyResponse();
+            r.setId(rs.getLong("id"));
+            r.setSurvey(survey);
+            r.setName(rs.getString("name"));
+            r.setPhone(rs.getString("phone"));
+            r.setEmail(rs.getString("email"));
+            r.setAge(rs.getObject("age", Integer.class));
+            r.setSubmittedAt(rs.getTimestamp("submitted_at").toLocalDateTime());
+            responses.put(r.getId(), r);
+        });
+        if (responses.isEmpty()) return List.of();
+        // 答案與選項只讀這一批的 ID 範圍
+        List<Long> ids = new ArrayList<>(responses.keySet());
+        params.addValue("first", ids.get(0)).addValue("last", ids.get(ids.size() - 1));
+        Map<Long, ResponseAnswer> answers = new HashMap<>();
+        jdbc.query("SELECT a.id, a.response_id, a.question_id, a.answer_text FROM response_answers a " +
+                "JOIN survey_responses r ON r.id = a.response_id " +
+                "WHERE r.survey_id = :surveyId AND r.id BETWEEN :first AND :last", params, rs -> {
+            SurveyResponse r = responses.get(rs.getLong("response_id"));
+            if (r == null) return; // 查詢之間新寫入的作答，本次統計不列入
+            ResponseAnswer a = new ResponseAnswer();
+            a.setId(rs.getLong("id"));
+            a.setSurveyResponse(r);
+            a.setQuestion(questions.computeIfAbsent(rs.getLong("question_id"), ShardedResponseStore::detachedQuestion));
+            a.setAnswerText(rs.getString("answer_text"));
+            r.getAnswers().add(a);
+            answers.put(a.getId(), a);
+        });
+        jdbc.query("SELECT o.answer_id, o.option_id FROM answer_selected_options o " +
+                "JOIN response_answers a ON a.id = o.answer_id " +
+                "JOIN survey_responses r ON r.id = a.response_id " +
+                "WHERE r.survey_id = :surveyId AND r.id BETWEEN :first AND :last", params, rs -> {
+            ResponseAnswer a = answers.get(rs.getLong("answer_id"));
+            if (a != null) a.getSelectedOptions().add(options.computeIfAbsent(rs.getLong("option_id"), ShardedResponseStore::detachedOption));
+        });
+        return new ArrayList<>(responses.values());
+    }
+
+    @Override
+    public List<ResponseSummaryDTO> findSummariesBySurveyId(Long surveyId) {
+        return router.forRead(surveyId).jdbc().query("SELECT id, name, email, submitted_at FROM survey_responses " +
+                        "WHERE survey_id = :surveyId ORDER BY id DESC",
+                new MapSqlParameterSource("surveyId", surveyId),
+                (rs, i) -> new ResponseSummaryDTO(rs.getLong("id"), rs.getString("name"), rs.getString("email"),
+                        rs.getTimestamp("submitted_at").toLocalDateTime()));
+    }
+
+    // =========================================================================
+    // 無法依問卷路由的查詢 (全部分片)
+    // =========================================================================
+
+    @Override
+    public Optional<ResponseDetailDTO> findDetailById(Long responseId) {
+        record Head(Long surveyId, String name, LocalDateTime submittedAt) {
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("id", responseId);
+        for (Shard shard : router.all()) {
+            List<Head> heads = shard.jdbc().query("SELECT survey_id, name, submitted_at FROM survey_responses WHERE id = :id", params,
+                    (rs, i) -> new Head(rs.getLong("survey_id"), rs.getString("name"), rs.getTimestamp("submitted_at").toLocalDateTime()));
+            if (heads.isEmpty()) continue;
+            Head head = heads.get(0);
+            Survey survey = surveyRepository.findById(head.surveyId()).orElse(null);
+            Map<Long, Question> questions = new HashMap<>();
+            if (survey != null) survey.getQuestions().forEach(q -> questions.put(q.getId(), q));
+            List<ResponseDetailDTO.Detail> details = shard.jdbc().query("SELECT question_id, answer_text FROM response_answers " +
+                    "WHERE response_id = :id ORDER BY id", params, (rs, i) -> {
+                Question q = questions.get(rs.getLong("question_id"));
+                return new ResponseDetailDTO.Detail(q != null ? q.getTitle() : null, q != null ? q.getType() : null,
+                        rs.getString("answer_text"));
+            });
+            return Optional.of(new ResponseDetailDTO(responseId, head.name(), head.submittedAt(),
+                    survey != null ? survey.getTitle() : null, details));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 各分片各取 limit 筆 (同樣的 keyset 條件)，合併排序後再取前 limit 筆，結果與單一資料庫相同
+     */
+    @Override
+    public List<HistoryItemDTO> findHistory(Long userId, LocalDateTime beforeAt, Long beforeId, int limit) {
+        boolean after = beforeAt != null && beforeId != null;
+        String sql = "SELECT id, survey_id, submitted_at FROM survey_responses WHERE user_id = :userId " +
+                (after ? "AND (submitted_at < :beforeAt OR (submitted_at = :beforeAt AND id < :beforeId)) " : "") +
+                "ORDER BY submitted_at DESC, id DESC LIMIT :limit";
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", userId)
+                .addValue("beforeAt", after ? Timestamp.valueOf(beforeAt) : null)
+                .addValue("beforeId", beforeId)
+                .addValue("limit", limit);
+        List<HistoryItemDTO> merged = new ArrayList<>();
+        for (Shard shard : router.all()) {
+            merged.addAll(shard.jdbc().query(sql, params, (rs, i) -> new HistoryItemDTO(rs.getLong("id"), rs.getLong("survey_id"),
+                    null, rs.getTimestamp("submitted_at").toLocalDateTime())));
+        }
+        merged.sort(HistoryItemDTO.NEWEST_FIRST);
+        List<HistoryItemDTO> page = merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+
+        Map<Long, String> titles = new HashMap<>();
+        surveyRepository.findAllById(page.stream().map(HistoryItemDTO::getSurveyId).distinct().toList())
+                .forEach(s -> titles.put(s.getId(), s.getTitle()));
+        page.forEach(h -> h.setSurveyTitle(titles.get(h.getSurveyId())));
+        return page;
+    }
+
+    // =========================================================================
+    // 輔助工具
+    // =========================================================================
+
+    private Map<Shard, List<Long>> byShard(Collection<Long> surveyIds) {
+        Map<Shard, List<Long>> grouped = new LinkedHashMap<>();
+        for (Long id : surveyIds) grouped.computeIfAbsent(router.forRead(id), k -> new ArrayList<>()).add(id);
+        return grouped;
+    }
+
+    // 題目或選項已不在問卷定義中 (理論上不會發生：已被作答者不可刪除)，以只有 ID 的物件代替
+    private static Question detachedQuestion(Long id) {
+        Question q = new Question();
+        q.setId(id);
+        return q;
+    }
+
+    private static Option detachedOption(Long id) {
+        Option o = new Option();
+        o.setId(id);
+        return o;
+    }
+}
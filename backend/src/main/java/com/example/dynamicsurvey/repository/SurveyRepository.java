@@ -1,10 +1,16 @@
 package com.example.dynamicsurvey.repository;
 
+import com.example.dynamicsurvey.dto.SurveySummaryDTO;
 import com.example.dynamicsurvey.entity.Survey;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,23 +20,72 @@ import java.util.List;
  * 亮點：繼承 JpaRepository 即可自動獲得基本的 CRUD (新增、查詢、修改、刪除) 功能。
  */
 public interface SurveyRepository extends JpaRepository<Survey, Long> {
+
+    String SUMMARY_SELECT = "SELECT new com.example.dynamicsurvey.dto.SurveySummaryDTO(" +
+            "s.id, s.title, s.description, s.startDate, s.endDate, s.status, s.versionNo, COALESCE(s.rootId, s.id)) FROM Survey s ";
     
     /**
      * [教學重點] 自定義查詢 (Query Method)
-     * 使用資料庫內建的 CURRENT_DATE 確保比對的是當下時間。
+     * 列表頁只查摘要欄位，不載入題目與選項。
+     * 結果放入 Hibernate 查詢快取；surveys 資料表有異動時自動失效。
+     * 日期以參數傳入 (而非 CURRENT_DATE)，快取 key 會隨日期改變，跨日不會讀到前一天的結果。
      */
-    @Query("SELECT s FROM Survey s WHERE s.status = 'PUBLISHED' AND s.startDate <= CURRENT_DATE AND s.endDate >= CURRENT_DATE")
-    List<Survey> findActiveSurveys();
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query(SUMMARY_SELECT + "WHERE s.status = 'PUBLISHED' AND s.startDate <= :today AND s.endDate >= :today")
+    List<SurveySummaryDTO> findActiveSurveys(@Param("today") LocalDate today);
 
     /**
-     * [教學重點] 多條件動態篩選
-     * 支援管理員根據標題關鍵字、日期區間進行搜尋。
+     * [教學重點] 日期區間篩選
+     * 標題關鍵字改由記憶體中的 SurveySearchIndex 處理，避免 LIKE '%...%' 全表掃描。
+     * 已被新版本取代 (SUPERSEDED) 的舊版本照常列出 (前端依 lineageId 分組)，其作答與統計仍需查得到。
+     * 結束日期不早於開始日期 (SurveyDTO 驗證)，因此結束日期上限同時是開始日期的上限：
+     * 加上 s.startDate <= :endDate 後兩端都落在 idx_survey_dates 的範圍內，區間在中段時不必全表掃描。
      */
-    @Query("SELECT s FROM Survey s WHERE " +
-           "(:title IS NULL OR s.title LIKE %:title%) AND " +
+    @Query(SUMMARY_SELECT + "WHERE " +
            "(:startDate IS NULL OR s.startDate >= :startDate) AND " +
-           "(:endDate IS NULL OR s.endDate <= :endDate)")
-    List<Survey> findByFilters(@Param("title") String title, 
-                               @Param("startDate") LocalDate startDate, 
-                               @Param("endDate") LocalDate endDate);
+           "(:endDate IS NULL OR (s.endDate <= :endDate AND s.startDate <= :endDate))")
+    List<SurveySummaryDTO> findByDateRange(@Param("startDate") LocalDate startDate,
+                                           @Param("endDate") LocalDate endDate);
+
+    /**
+     * [教學重點] 依搜尋索引的結果批次查出摘要
+     */
+    @Query(SUMMARY_SELECT + "WHERE s.id IN :ids")
+    List<SurveySummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // =========================================================================
+    // 版本 (同一份問卷的各版本以第一版的 ID 串連：第一版 rootId 為 null，其餘為第一版 ID)
+    // =========================================================================
+
+    @Query("SELECT MAX(s.versionNo) FROM Survey s WHERE s.id = :rootId OR s.rootId = :rootId")
+    int findMaxVersionNo(@Param("rootId") Long rootId);
+
+    @Query("SELECT s.id FROM Survey s WHERE s.id = :rootId OR s.rootId = :rootId")
+    List<Long> findIdsInLineage(@Param("rootId") Long rootId);
+
+    /**
+     * 發佈過且尚未被取代的版本 (包含之後下架、但內容已凍結的版本)；新版本發佈時這些版本改為 SUPERSEDED
+     */
+    @Query("SELECT s FROM Survey s WHERE (s.id = :rootId OR s.rootId = :rootId) " +
+           "AND s.publishedAt IS NOT NULL AND s.status <> 'SUPERSEDED'")
+    List<Survey> findReplaceableInLineage(@Param("rootId") Long rootId);
+
+    /**
+     * 尚未發佈過的新版本草稿 (編輯已發佈的問卷時沿用，避免產生多份草稿)
+     */
+    @Query("SELECT s FROM Survey s WHERE (s.id = :rootId OR s.rootId = :rootId) " +
+           "AND s.publishedAt IS NULL AND s.status <> 'SUPERSEDED' ORDER BY s.versionNo DESC")
+    List<Survey> findPendingDraftsInLineage(@Param("rootId") Long rootId);
+
+    /**
+     * 修改時間晚於 since 的問卷 (標題搜尋索引補入其他節點的編輯，見 SurveySearchIndex.catchUp)
+     */
+    @Query("SELECT s FROM Survey s WHERE s.updatedAt > :since")
+    List<Survey> findUpdatedAfter(@Param("since") LocalDateTime since);
+
+    /**
+     * 全部問卷 ID (只讀主鍵；標題搜尋索引確認其他節點刪除了哪些問卷)
+     */
+    @Query("SELECT s.id FROM Survey s")
+    List<Long> findAllIds();
 }
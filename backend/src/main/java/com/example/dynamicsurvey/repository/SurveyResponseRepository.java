@@ -1,22 +1,90 @@
 package com.example.dynamicsurvey.repository;
 
+import com.example.dynamicsurvey.dto.HistoryItemDTO;
+import com.example.dynamicsurvey.dto.ResponseSummaryDTO;
 import com.example.dynamicsurvey.entity.SurveyResponse;
-import com.example.dynamicsurvey.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * [教學說明] 問卷回覆儲存庫
  */
 public interface SurveyResponseRepository extends JpaRepository<SurveyResponse, Long> {
-    List<SurveyResponse> findByUserOrderBySubmittedAtDesc(User user);
+    /**
+     * [效能] 作答歷史第一頁：以建構子投影一次 JOIN 帶出問卷標題
+     */
+    @Query("SELECT new com.example.dynamicsurvey.dto.HistoryItemDTO(r.id, s.id, s.title, r.submittedAt) " +
+           "FROM SurveyResponse r JOIN r.survey s WHERE r.user.id = :userId " +
+           "ORDER BY r.submittedAt DESC, r.id DESC")
+    List<HistoryItemDTO> findHistoryByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * [效能] 作答歷史後續頁：從游標 (beforeAt, beforeId) 之後繼續往舊的方向讀取
+     */
+    @Query("SELECT new com.example.dynamicsurvey.dto.HistoryItemDTO(r.id, s.id, s.title, r.submittedAt) " +
+           "FROM SurveyResponse r JOIN r.survey s WHERE r.user.id = :userId " +
+           "AND (r.submittedAt < :beforeAt OR (r.submittedAt = :beforeAt AND r.id < :beforeId)) " +
+           "ORDER BY r.submittedAt DESC, r.id DESC")
+    List<HistoryItemDTO> findHistoryByUserIdBefore(@Param("userId") Long userId,
+                                                   @Param("beforeAt") LocalDateTime beforeAt,
+                                                   @Param("beforeId") Long beforeId,
+                                                   Pageable pageable);
     
-    // 用於統計，不需特定排序
-    List<SurveyResponse> findBySurveyId(Long surveyId);
+    // 用於統計：依回覆 ID 分批，先取一批 ID (分頁不能與集合抓取並用)
+    @Query("SELECT r.id FROM SurveyResponse r WHERE r.survey.id = :surveyId AND r.id > :afterId ORDER BY r.id")
+    List<Long> findIdsBySurveyIdAfter(@Param("surveyId") Long surveyId, @Param("afterId") long afterId, Pageable pageable);
+
+    // 再一併抓取這批的作答，選項交由 @BatchSize 批次載入
+    @EntityGraph(attributePaths = "answers")
+    @Query("SELECT DISTINCT r FROM SurveyResponse r WHERE r.id IN :ids ORDER BY r.id")
+    List<SurveyResponse> findWithAnswersByIdIn(@Param("ids") Collection<Long> ids);
     
-    // 【修正】用於列表顯示，依 ID 逆序排序 (最新在最前)
-    List<SurveyResponse> findBySurveyIdOrderByIdDesc(Long surveyId);
+    // 【修正】用於列表顯示，依 ID 逆序排序 (最新在最前)；只投影列表需要的欄位
+    @Query("SELECT new com.example.dynamicsurvey.dto.ResponseSummaryDTO(r.id, r.name, r.email, r.submittedAt) " +
+           "FROM SurveyResponse r WHERE r.survey.id = :surveyId ORDER BY r.id DESC")
+    List<ResponseSummaryDTO> findSummariesBySurveyId(@Param("surveyId") Long surveyId);
     
     boolean existsBySurveyId(Long surveyId);
+    long countBySurveyId(Long surveyId);
     boolean existsBySurveyIdAndEmail(Long surveyId, String email);
+    // 同一份問卷的所有版本共用「每個 Email 只能填一次」的規則
+    boolean existsBySurveyIdInAndEmail(Collection<Long> surveyIds, String email);
+
+    /**
+     * [效能] 一次查出清單中「已有作答紀錄」的問卷 ID，取代逐筆 existsBySurveyId
+     */
+    @Query("SELECT r.survey.id FROM SurveyResponse r WHERE r.survey.id IN :surveyIds GROUP BY r.survey.id")
+    List<Long> findSurveyIdsWithResponses(@Param("surveyIds") Collection<Long> surveyIds);
+
+    /**
+     * 清單中的題目是否已有作答 (編輯問卷時，已被作答的題目不可刪除)
+     */
+    @Query("SELECT COUNT(a) > 0 FROM ResponseAnswer a WHERE a.question.id IN :questionIds")
+    boolean existsAnswerForQuestions(@Param("questionIds") Collection<Long> questionIds);
+
+    /**
+     * 清單中的選項是否已被選取過
+     */
+    @Query("SELECT COUNT(a) > 0 FROM ResponseAnswer a JOIN a.selectedOptions o WHERE o.id IN :optionIds")
+    boolean existsAnswerForOptions(@Param("optionIds") Collection<Long> optionIds);
+
+    /**
+     * 名額對帳：每個選項被選取的次數 (同一題每筆作答只有一個答案，即為作答筆數)，結果為 [選項 ID, 次數]
+     */
+    @Query("SELECT o.id, COUNT(a) FROM ResponseAnswer a JOIN a.selectedOptions o WHERE o.id IN :optionIds GROUP BY o.id")
+    List<Object[]> countSelectionsByOption(@Param("optionIds") Collection<Long> optionIds);
+
+    /**
+     * [效能] 作答詳情：一次抓取問卷、作答與對應題目
+     */
+    @Query("SELECT DISTINCT r FROM SurveyResponse r JOIN FETCH r.survey " +
+           "LEFT JOIN FETCH r.answers a LEFT JOIN FETCH a.question WHERE r.id = :id")
+    Optional<SurveyResponse> findDetailById(@Param("id") Long id);
 }
@@ -2,9 +2,26 @@ package com.example.dynamicsurvey.repository;
 
 import com.example.dynamicsurvey.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    /**
+     * 使用者最後修改時間 (判斷 JWT claims 是否仍可採信，見 UserDetailsServiceImpl.claimsCurrent)
+     */
+    @Query("SELECT u.updatedAt FROM User u WHERE u.email = :email")
+    Optional<LocalDateTime> findUpdatedAtByEmail(@Param("email") String email);
+
+    /**
+     * 修改時間晚於 since 的使用者，結果為 [Email, 修改時間] (清除其他節點異動過的快取，見 UserDetailsServiceImpl.catchUp)
+     */
+    @Query("SELECT u.email, u.updatedAt FROM User u WHERE u.updatedAt > :since")
+    List<Object[]> findChangedAfter(@Param("since") LocalDateTime since);
 }
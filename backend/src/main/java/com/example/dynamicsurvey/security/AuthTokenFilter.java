@@ -1,5 +1,7 @@
 package com.example.dynamicsurvey.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,6 +17,9 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * [教學說明] 身份驗證攔截器 (Auth Token Filter)
@@ -25,9 +30,15 @@ import java.io.IOException;
  *
  * 【運作流程】
  * 1. 抓取 Header 中的 "Authorization" 內容。
- * 2. 如果發現 "Bearer <TOKEN>"，則調用 JwtUtils 驗證。
- * 3. 驗證成功後，從資料庫載入用戶詳細資料 (UserDetails)。
+ * 2. 如果發現 "Bearer <TOKEN>"，則調用 JwtUtils 驗證 (只解析一次)。
+ * 3. 驗證成功後，直接由 Token 內的 claims (uid / name / role) 組出 UserDetails；
+ *    舊版沒有這些 claims 的 Token，或簽發後使用者資料已異動 (例如角色調整) 的 Token，
+ *    才回頭從資料庫載入 (以快取的使用者修改時間比對，見 UserDetailsServiceImpl.claimsCurrent)。
  * 4. 將身分資訊存入「Security 上下文」，讓後續的 Controller 知道是誰在發送請求。
+ *
+ * 【監控】驗證耗時記錄於 auth.jwt.filter，outcome 標籤：
+ *   none (未帶 Token) / claims (由 Token 組出身分) / database (舊版 Token 查庫) /
+ *   stale (簽發後使用者有異動，查庫) / invalid / error
  */
 public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
@@ -36,22 +47,34 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
+    // 每個 outcome 的 Timer 只建立一次，每個請求不重複查找 registry
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        long start = System.nanoTime();
+        String outcome = "none";
         try {
             // Step 1: 從請求中提取 JWT
             String jwt = parseJwt(request);
             
-            // Step 2: 驗證 Token 是否存在且合法
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                // Step 3: 從 Token 中解出用戶帳號 (Email)
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                // Step 4: 根據帳號載入使用者詳細資訊與權限
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // Step 2: 驗證 Token 是否存在且合法 (單次解析，已驗證的 Token 會短暫快取)
+            JwtUtils.VerifiedToken verified = jwt != null ? jwtUtils.verifyToken(jwt) : null;
+            if (jwt != null && verified == null) outcome = "invalid";
+            if (verified != null) {
+                boolean current = verified.principal() != null
+                        && userDetailsService.claimsCurrent(verified.subject(), verified.issuedAtMillis());
+                outcome = current ? "claims" : verified.principal() != null ? "stale" : "database";
+                // Step 3 + 4: 優先使用 Token claims 內的身分；舊版或已過時的 Token 才依帳號 (Email) 查詢資料庫
+                UserDetails userDetails = current
+                        ? verified.principal()
+                        : userDetailsService.loadUserByUsername(verified.subject());
                 
                 // Step 5: 封裝成認證成功的 Token 物件
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -65,8 +88,12 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         } catch (Exception e) {
+            outcome = "error";
             logger.error("無法設定使用者認證資訊: {}", e.getMessage());
         }
+        // 只量測驗證本身，不含後續過濾器與 Controller 的處理時間
+        timers.computeIfAbsent(outcome, o -> meterRegistry.timer("auth.jwt.filter", "outcome", o))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
         // 繼續執行後續的過濾器鏈 (安檢完畢，放行)
         filterChain.doFilter(request, response);
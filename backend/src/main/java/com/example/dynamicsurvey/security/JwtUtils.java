@@ -1,16 +1,24 @@
 package com.example.dynamicsurvey.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * [教學說明] JWT 工具類別 (JWT Utilities)
@@ -18,22 +26,77 @@ import java.util.Date;
  * 【設計意圖】
  * 本類別封裝了所有關於 JSON Web Token 的邏輯：產生、解析與驗證。
  * JWT 是無狀態認證的核心，讓我們不需在伺服器存 Session 也能辨識用戶。
+ *
+ * 【效能設計】
+ * - 簽章金鑰與 JwtParser 只在啟動時建立一次 (兩者皆為執行緒安全)。
+ * - 每個 Token 只解析、驗章一次，並將使用者 ID、姓名、角色放在 claims 中，
+ *   攔截器可直接組出身分，不必每個請求都查詢資料庫 (簽發後使用者有異動時除外，見 AuthTokenFilter)。
+ * - 已驗證的 Token 會短暫快取，重複的請求可略過 HMAC 驗章。
  */
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    // 自訂 claims 名稱
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_NAME = "name";
+    private static final String CLAIM_ROLE = "role";
+
     @Value("${jwt.secret}") // 從 application.properties 讀取密鑰
     private String jwtSecret;
 
     @Value("${jwt.expiration}") // 從 application.properties 讀取過期時間 (毫秒)
     private int jwtExpirationMs;
 
+    @Value("${jwt.verified-cache.ttl-seconds:60}") // 已驗證 Token 的快取時間 (秒)
+    private long verifiedCacheTtlSeconds;
+
+    @Value("${jwt.verified-cache.max-size:10000}") // 已驗證 Token 的快取筆數上限
+    private long verifiedCacheMaxSize;
+
+    private Key signingKey;
+
+    private JwtParser parser;
+
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    /**
+     * 驗證成功的 Token 內容
+     * @param subject   使用者帳號 (Email)
+     * @param principal 由 claims 組出的身分；舊版 Token 沒有 uid 時為 null，需改由資料庫載入
+     * @param issuedAtMillis 簽發時間 (秒為單位)；使用前需以 UserDetailsServiceImpl.claimsCurrent 確認 claims 未過時
+     */
+    public record VerifiedToken(String subject, UserDetailsImpl principal, Long issuedAtMillis, long expiresAtMillis) {
+    }
+
     /**
-     * [工具] 產生簽名所需的金鑰 (Key)
+     * [初始化] 預先建立金鑰、解析器與驗證快取
      */
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    // 快取時間取「設定的 TTL」與「Token 剩餘效期」較短者，過期的 Token 不會被快取放行
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        long remainingMs = Math.max(0, value.expiresAtMillis() - System.currentTimeMillis());
+                        return Math.min(TimeUnit.SECONDS.toNanos(verifiedCacheTtlSeconds), TimeUnit.MILLISECONDS.toNanos(remainingMs));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     /**
@@ -45,32 +108,64 @@ public class JwtUtils {
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
 
         // 建立 JWT
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(userPrincipal.getUsername()) // 設定主題 (即 Email)
                 .setIssuedAt(new Date())                // 設定簽發時間
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs)) // 設定過期時間
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512) // 使用 HS512 演算法與密鑰簽名
+                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs)); // 設定過期時間
+
+        // 將身分資訊寫入 claims，驗證時即可免查資料庫
+        if (userPrincipal instanceof UserDetailsImpl details) {
+            builder.claim(CLAIM_USER_ID, details.getId())
+                    .claim(CLAIM_NAME, details.getName())
+                    .claim(CLAIM_ROLE, roleOf(details));
+        }
+
+        return builder
+                .signWith(signingKey, SignatureAlgorithm.HS512) // 使用 HS512 演算法與密鑰簽名
                 .compact(); // 壓縮成最終的 Base64 字串
     }
 
+    /**
+     * [功能] 驗證並解析 Token (單次解析)
+     * 呼叫時機：攔截器攔截到請求時。
+     * 檢查點：格式是否正確、是否被竄改過、是否已過期。
+     * @return 驗證成功的內容；Token 不合法時回傳 null
+     */
+    public VerifiedToken verifyToken(String authToken) {
+        VerifiedToken cached = verifiedTokens.getIfPresent(authToken);
+        if (cached != null) return cached;
+
+        Claims claims = parseClaims(authToken);
+        if (claims == null) return null;
+
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), principalFromClaims(claims),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : null,
+                claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE);
+        verifiedTokens.put(authToken, verified);
+        return verified;
+    }
+
     /**
      * [功能] 從 Token 中提取使用者帳號 (Email)
      * 呼叫時機：驗證 Token 成功後，需要知道這個 Token 是誰的。
      */
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSigningKey()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return parser.parseClaimsJws(token).getBody().getSubject();
     }
 
     /**
      * [功能] 驗證 JWT Token 的合法性
-     * 呼叫時機：攔截器攔截到請求時。
-     * 檢查點：格式是否正確、是否被竄改過、是否已過期。
      */
     public boolean validateJwtToken(String authToken) {
+        return verifyToken(authToken) != null;
+    }
+
+    /**
+     * [工具] 解析並驗章，失敗時記錄原因並回傳 null
+     */
+    private Claims parseClaims(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(authToken);
-            return true;
+            return parser.parseClaimsJws(authToken).getBody();
         } catch (SecurityException e) {
             logger.error("無效的 JWT 簽名: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -82,6 +177,23 @@ public class JwtUtils {
         } catch (IllegalArgumentException e) {
             logger.error("JWT 聲明字串為空: {}", e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    /**
+     * [工具] 由 claims 組出身分；舊版 Token 缺少 uid / role 時回傳 null
+     */
+    private UserDetailsImpl principalFromClaims(Claims claims) {
+        Number uid = claims.get(CLAIM_USER_ID, Number.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        if (uid == null || role == null) return null;
+        return UserDetailsImpl.fromClaims(uid.longValue(), claims.getSubject(), claims.get(CLAIM_NAME, String.class), role);
+    }
+
+    private static String roleOf(UserDetailsImpl details) {
+        return details.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .map(a -> a.startsWith("ROLE_") ? a.substring(5) : a)
+                .findFirst().orElse(null);
     }
 }
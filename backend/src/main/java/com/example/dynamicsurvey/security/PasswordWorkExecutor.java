@@ -0,0 +1,113 @@
+package com.example.dynamicsurvey.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * [教學說明] 密碼雜湊專用執行緒池 (Password Work Executor)
+ * -----------------------------------------------------------------------------
+ * 【設計意圖】
+ * BCrypt 刻意設計得很耗 CPU。若直接在 Tomcat 請求執行緒上執行，
+ * 登入尖峰時會吃光 CPU 與執行緒，連帶拖慢問卷提交等其他 API。
+ * 這裡把所有 BCrypt 運算 (登入驗證、註冊、修改密碼) 集中到固定大小的執行緒池：
+ *   - 執行緒數與佇列長度皆有上限；
+ *   - 佇列已滿或等待逾時時立即拒絕 (PasswordWorkRejectedException -> 429)，不讓請求無限堆積；
+ *   - 每次運算以 auth.password.hash 計時，可依實測登入延遲調整 BCrypt cost。
+ */
+@Component
+public class PasswordWorkExecutor {
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${auth.password-executor.threads:0}") // 0 表示使用 CPU 核心數的一半
+    private int threads;
+
+    @Value("${auth.password-executor.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${auth.password-executor.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    // 每種運算的指標只建立一次，每次登入不重複查找 registry
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    /**
+     * 雜湊工作被拒絕 (佇列已滿或等待逾時)
+     */
+    public static class PasswordWorkRejectedException extends RuntimeException {
+        public PasswordWorkRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "passwordHashing", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * [功能] 在專用執行緒池上執行密碼運算並等待結果
+     * @param operation 運算類型 (verify / encode)，作為計時指標的標籤
+     * 工作本身拋出的 RuntimeException (例如 BadCredentialsException) 會原樣拋回呼叫端。
+     */
+    public <T> T execute(String operation, Supplier<T> work) {
+        Timer timer = timers.computeIfAbsent(operation, o -> meterRegistry.timer("auth.password.hash", "operation", o));
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.record(work));
+        } catch (RejectedExecutionException e) {
+            rejected(operation);
+            throw new PasswordWorkRejectedException("系統忙碌中，請稍後再試");
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected(operation);
+            throw new PasswordWorkRejectedException("系統忙碌中，請稍後再試");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new PasswordWorkRejectedException("請求已中斷");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void rejected(String operation) {
+        rejected.computeIfAbsent(operation, o -> meterRegistry.counter("auth.password.rejected", "operation", o)).increment();
+    }
+}
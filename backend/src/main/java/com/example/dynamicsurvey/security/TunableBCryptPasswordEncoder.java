@@ -0,0 +1,32 @@
+package com.example.dynamicsurvey.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * [教學說明] 可調整 cost 的 BCrypt 編碼器
+ * -----------------------------------------------------------------------------
+ * Spring 內建的 upgradeEncoding 只在「設定的 cost 高於既有雜湊」時才重新雜湊。
+ * 這裡改為只要 cost 與設定值不同 (調高或調低) 就在下次登入成功時重新雜湊，
+ * 讓 auth.bcrypt.strength 可以依實測登入延遲雙向調整。
+ * 實際的重新雜湊由 DaoAuthenticationProvider 呼叫 UserDetailsPasswordService 完成。
+ */
+public class TunableBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private final int strength;
+
+    public TunableBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // 格式：$2a$10$<salt+hash>，第 4~5 字元為 cost
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(6) != '$') return false;
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -50,6 +50,20 @@ public class UserDetailsImpl implements UserDetails {
         );
     }
 
+    /**
+     * [靜態工廠] 由 JWT 內的聲明 (claims) 直接建立身分，不需查詢資料庫
+     * 此時沒有密碼雜湊，僅供已驗證的請求使用。
+     */
+    public static UserDetailsImpl fromClaims(Long id, String email, String name, String role) {
+        return new UserDetailsImpl(
+                id,
+                email,
+                name,
+                null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + role))
+        );
+    }
+
     @Override
     public String getUsername() { return email; } // 我們使用 Email 作為登入帳號
 
@@ -2,12 +2,27 @@ package com.example.dynamicsurvey.security;
 
 import com.example.dynamicsurvey.entity.User;
 import com.example.dynamicsurvey.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * [教學說明] 使用者詳情服務 (User Details Service)
@@ -15,21 +30,149 @@ import org.springframework.transaction.annotation.Transactional;
  * 【設計意圖】
  * 這是 Spring Security 要求的核心介面。它的唯一任務就是「根據帳號 (Email) 找到使用者」。
  * 它充當了資料庫 (JPA) 與 Security 認證機制之間的橋樑。
+ *
+ * 【快取】
+ * 以 Email 為 key 快取 UserDetails，有筆數與時效上限，避免每個請求都查一次 users。
+ * 使用者資料異動 (註冊、修改個人資料) 時由 AuthService 呼叫 evict 精準清除該筆。
+ * 其他節點的異動由 catchUp 定期清除：讀取 updated_at 晚於「已讀到的最大修改時間 - overlap」的使用者
+ * (overlap 涵蓋較晚提交的交易與節點間的時鐘誤差)，因此快取最晚在 auth.user-cache.catch-up-ms 後反映異動；
+ * ttl-seconds 只是補入失敗時的上限。
+ * 命中 / 未命中次數透過 Micrometer 以 cache.gets{cache="userDetails"} 指標公開。
+ *
+ * 【Token claims 的時效】
+ * JWT 內的姓名與角色在簽發後不會改變，因此另以 Email 快取使用者的最後修改時間 (users.updated_at)，
+ * 時效較短 (auth.user-stamp.ttl-seconds)。攔截器以 claimsCurrent 比對 Token 簽發時間：
+ * 簽發後使用者資料有異動 (例如角色調整) 時不採信 claims，改由 loadUserByUsername 載入目前的身分。
+ * 本節點的異動由 evict 立即清除，其他節點的異動由 catchUp 一併清除 (補入失敗時最晚在此時效後生效)。
+ * 同時實作 UserDetailsPasswordService，讓 BCrypt cost 調整後可於登入時自動重新雜湊。
  */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
-    
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
+
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${auth.user-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${auth.user-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${auth.user-stamp.ttl-seconds:30}")
+    private long stampTtlSeconds;
+
+    @Value("${auth.user-cache.catch-up-overlap-seconds:60}")
+    private long overlapSeconds;
+
+    private Cache<String, UserDetails> cache;
+
+    // Email -> 最後修改時間 (epoch 毫秒)；查無帳號時為 Long.MAX_VALUE，任何 claims 都不採信
+    private Cache<String, Long> stamps;
+
+    // 已讀到的最大修改時間
+    private volatile LocalDateTime watermark;
+
+    // overlap 期間已清除過的異動 (Email -> 修改時間)，重複讀到時不再清除；只在排程執行緒使用
+    private final Map<String, LocalDateTime> evicted = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+        stamps = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(stampTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, stamps, "userStamps");
+        // 啟動時快取是空的，從現在開始補入 (時鐘誤差由 overlap 涵蓋)
+        watermark = LocalDateTime.now();
+    }
+
+    /**
+     * [排程] 清除其他節點異動過的使用者 (快取與修改時間)；失敗時保留目前的快取，下次再試
+     */
+    @Scheduled(fixedDelayString = "${auth.user-cache.catch-up-ms:5000}",
+            initialDelayString = "${auth.user-cache.catch-up-ms:5000}")
+    public void catchUp() {
+        LocalDateTime since = watermark;
+        LocalDateTime from = since.minusSeconds(overlapSeconds);
+        try {
+            LocalDateTime latest = since;
+            for (Object[] row : userRepository.findChangedAfter(from)) {
+                String email = (String) row[0];
+                LocalDateTime updatedAt = (LocalDateTime) row[1];
+                if (!updatedAt.equals(evicted.put(email, updatedAt))) {
+                    cache.invalidate(email);
+                    stamps.invalidate(email);
+                }
+                if (updatedAt.isAfter(latest)) latest = updatedAt;
+            }
+            LocalDateTime next = latest;
+            evicted.values().removeIf(t -> !t.isAfter(next.minusSeconds(overlapSeconds)));
+            watermark = next;
+        } catch (RuntimeException e) {
+            logger.warn("使用者快取補入失敗: {}", e.getMessage());
+        }
+    }
+
     /**
      * [功能] 載入使用者資料
      * @param email 使用者輸入的帳號
      * @return 封裝好的 UserDetails 物件
      */
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        // 快取未命中時才查詢資料庫；查無帳號會拋出例外，不會被快取
+        return cache.get(email, this::loadFromDatabase);
+    }
+
+    /**
+     * [功能] Token 內的 claims 是否仍可採信：簽發時間不早於使用者最後一次異動
+     * JWT 的簽發時間只到秒，與簽發同一秒內的異動視為簽發前 (例如註冊後立即簽發的 Token)
+     * @param issuedAtMillis Token 的簽發時間；沒有簽發時間時一律不採信
+     */
+    public boolean claimsCurrent(String email, Long issuedAtMillis) {
+        if (email == null || issuedAtMillis == null) return false;
+        long changedAt = stamps.get(email, e -> userRepository.findUpdatedAtByEmail(e)
+                .map(t -> t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .orElse(Long.MAX_VALUE));
+        return issuedAtMillis / 1000 >= changedAt / 1000;
+    }
+
+    /**
+     * [功能] 清除單一使用者的快取 (資料異動後呼叫)
+     */
+    public void evict(String email) {
+        if (email == null) return;
+        cache.invalidate(email);
+        stamps.invalidate(email);
+    }
+
+    /**
+     * [功能] 登入成功後的透明重新雜湊
+     * 當 BCrypt cost 設定變更時，DaoAuthenticationProvider 會以新 cost 重新編碼密碼並呼叫此方法寫回。
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("找不到該帳號: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        userRepository.save(user);
+        evict(user.getEmail());
+        return UserDetailsImpl.build(user);
+    }
+
+    private UserDetails loadFromDatabase(String email) {
         // 1. 從資料庫中搜尋使用者
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("找不到該帳號: " + email));
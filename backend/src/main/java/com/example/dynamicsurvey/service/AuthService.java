@@ -5,7 +5,9 @@ import com.example.dynamicsurvey.dto.RegisterRequest;
 import com.example.dynamicsurvey.entity.User;
 import com.example.dynamicsurvey.repository.UserRepository;
 import com.example.dynamicsurvey.security.JwtUtils;
+import com.example.dynamicsurvey.security.PasswordWorkExecutor;
 import com.example.dynamicsurvey.security.UserDetailsImpl;
+import com.example.dynamicsurvey.security.UserDetailsServiceImpl;
 import com.example.dynamicsurvey.vo.AppResponse;
 import com.example.dynamicsurvey.vo.RspCode;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,24 +39,21 @@ public class AuthService {
     @Autowired
     JwtUtils jwtUtils;
 
+    @Autowired
+    UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    PasswordWorkExecutor passwordWorkExecutor;
+
     /**
      * [功能] 使用者登入驗證
      */
     public AppResponse<?> authenticateUser(LoginRequest loginRequest) {
-        // 1. 執行身分驗證
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
+        // 1. 執行身分驗證 (BCrypt 比對在專用執行緒池上進行，不佔用請求執行緒的 CPU)
+        Authentication authentication = passwordWorkExecutor.execute("verify", () -> authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword())));
 
-        // 2. 登記在案
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        
-        // 3. 簽發 JWT
-        String jwt = jwtUtils.generateJwtToken(authentication);
-
-        Map<String, String> response = new HashMap<>();
-        response.put("token", jwt);
-
-        return AppResponse.success(response);
+        return issueToken(authentication);
     }
 
     /**
@@ -68,18 +67,16 @@ public class AuthService {
         User user = new User();
         user.setEmail(signUpRequest.getEmail());
         user.setName(signUpRequest.getName());
-        user.setPassword(encoder.encode(signUpRequest.getPassword()));
+        user.setPassword(passwordWorkExecutor.execute("encode", () -> encoder.encode(signUpRequest.getPassword())));
         user.setPhone(signUpRequest.getPhone());
         user.setRole("ADMIN"); // 預設註冊為管理員
 
         userRepository.save(user);
+        userDetailsService.evict(user.getEmail());
         
-        // 修正：使用更標準的初始化方式
-        LoginRequest loginReq = new LoginRequest();
-        loginReq.setEmail(signUpRequest.getEmail());
-        loginReq.setPassword(signUpRequest.getPassword());
-        
-        return authenticateUser(loginReq);
+        // 剛完成雜湊的密碼不需再以 BCrypt 驗證一次，直接以新帳號身分簽發 Token
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        return issueToken(new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
     }
 
     public AppResponse<?> getCurrentUser() {
@@ -105,13 +102,31 @@ public class AuthService {
         if (updates.containsKey("name")) user.setName(updates.get("name"));
         if (updates.containsKey("phone")) user.setPhone(updates.get("phone"));
         if (updates.containsKey("password") && updates.get("password") != null && !updates.get("password").isEmpty()) {
-            user.setPassword(encoder.encode(updates.get("password")));
+            user.setPassword(passwordWorkExecutor.execute("encode", () -> encoder.encode(updates.get("password"))));
         }
 
         userRepository.save(user);
+        // 個人資料或密碼變更後清除該帳號的 UserDetails 快取
+        userDetailsService.evict(user.getEmail());
         return AppResponse.success(userToMap(user));
     }
 
+    /**
+     * [輔助工具] 登記認證結果並簽發 JWT
+     */
+    private AppResponse<?> issueToken(Authentication authentication) {
+        // 1. 登記在案
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        
+        // 2. 簽發 JWT
+        String jwt = jwtUtils.generateJwtToken(authentication);
+
+        Map<String, String> response = new HashMap<>();
+        response.put("token", jwt);
+
+        return AppResponse.success(response);
+    }
+
     private Map<String, Object> userToMap(User user) {
         Map<String, Object> userInfo = new HashMap<>();
         userInfo.put("id", user.getId());
@@ -0,0 +1,313 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.dto.NumericStatsDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * [教學說明] 數值題的串流統計摘要 (Numeric Sketch)
+ * -----------------------------------------------------------------------------
+ * 【設計意圖】
+ * 分位數若以「收集全部數值再排序」計算，記憶體與作答數成正比。這裡逐筆更新一個固定大小的摘要：
+ *   - 筆數、平均、變異數 : Welford 演算法，合併時以 Chan 公式結合；
+ *   - 小範圍整數值域     : 評分、NPS、年齡等每個值一個計數器，分位數與直方圖為精確值；
+ *   - 其他數值           : KLL sketch。每一層 (compactor) 滿了就排序、隨機取一半的項目
+ *                          以兩倍權重升到上一層；越低層容量越小，總項目數不超過約 3k。
+ * 兩個摘要可以合併 (merge)，例如欄式快照的每個檔案各自計算後再合併。
+ * KLL 的分位數為近似值，k = 200 時排名誤差約 1.5%。
+ * 非執行緒安全：每次統計時建立，只在單一執行緒中使用。
+ */
+public final class NumericSketch {
+
+    static final int DEFAULT_K = 200;
+    private static final double LEVEL_RATIO = 2.0 / 3.0;
+    // 值域不超過此數量時，直方圖每個值一格；否則均分為 HISTOGRAM_BINS 格
+    private static final int HISTOGRAM_BINS = 10;
+
+    private final int k;
+
+    // ---- 動差 ----
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    // ---- 精確計數 (exact 為 null 表示不限值域) ----
+    private final int domainLow;
+    private final long[] exact;
+    private long outside; // 不在值域內或不是整數的筆數；大於 0 時分位數改用 KLL
+    private final boolean nps;
+
+    // ---- KLL ----
+    private double[][] levels;
+    private int[] sizes;
+    private int items;
+    private long random = 0x9E3779B97F4A7C15L;
+
+    /**
+     * 不限值域的數值 (只使用 KLL)
+     */
+    public NumericSketch() {
+        this(DEFAULT_K, 0, -1, false);
+    }
+
+    /**
+     * @param k         KLL 最上層的容量 (越大越精確)
+     * @param domainLow 精確計數的值域下限
+     * @param domainHigh 精確計數的值域上限 (小於下限表示不做精確計數)
+     * @param nps       是否另外計算 NPS 分數 (值域須為 0..10)
+     */
+    public NumericSketch(int k, int domainLow, int domainHigh, boolean nps) {
+        this.k = k;
+        this.domainLow = domainLow;
+        this.exact = domainHigh >= domainLow ? new long[domainHigh - domainLow + 1] : null;
+        this.nps = nps;
+        this.levels = new double[][]{new double[k]};
+        this.sizes = new int[1];
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * [功能] 加入一個數值 (NaN 與無限大忽略)
+     */
+    public void update(double x) {
+        if (!Double.isFinite(x)) return;
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+        if (x < min) min = x;
+        if (x > max) max = x;
+        if (exact != null) {
+            long slot = (long) x - domainLow;
+            if (x == Math.rint(x) && slot >= 0 && slot < exact.length) exact[(int) slot]++;
+            else outside++;
+        }
+        append(0, x);
+        if (items > totalCapacity()) compress();
+    }
+
+    /**
+     * [功能] 合併另一個摘要 (k 與值域必須相同)
+     */
+    public void merge(NumericSketch other) {
+        if (other.k != k || other.domainLow != domainLow
+                || (other.exact == null ? exact != null : exact == null || other.exact.length != exact.length)) {
+            throw new IllegalArgumentException("摘要設定不同，無法合併");
+        }
+        if (other.count == 0) return;
+        long n = count + other.count;
+        double delta = other.mean - mean;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / n);
+        mean += delta * other.count / n;
+        count = n;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        if (exact != null) {
+            for (int i = 0; i < exact.length; i++) exact[i] += other.exact[i];
+            outside += other.outside;
+        }
+        for (int h = 0; h < other.sizes.length; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) append(h, other.levels[h][i]);
+        }
+        while (items > totalCapacity()) compress();
+    }
+
+    /**
+     * [功能] 分位數 (nearest-rank：累計筆數第一次達到 q * count 的值)；沒有資料時回傳 NaN
+     */
+    public double quantile(double q) {
+        if (count == 0) return Double.NaN;
+        long target = Math.max(1, (long) Math.ceil(q * count));
+        if (isExact()) {
+            long cumulative = 0;
+            for (int i = 0; i < exact.length; i++) {
+                cumulative += exact[i];
+                if (cumulative >= target) return domainLow + i;
+            }
+            return max;
+        }
+        double[] values = new double[items];
+        long[] weights = new long[items];
+        sortedItems(values, weights);
+        long cumulative = 0;
+        for (int i = 0; i < values.length; i++) {
+            cumulative += weights[i];
+            if (cumulative >= target) return values[i];
+        }
+        return max;
+    }
+
+    /**
+     * [功能] 產生統計結果；平均與變異數 (樣本變異數) 四捨五入至小數第二位
+     */
+    public NumericStatsDTO summarize() {
+        if (count == 0) return new NumericStatsDTO(0, null, null, null, null, null, null, null, null, List.of(), null);
+        double variance = count > 1 ? m2 / (count - 1) : 0;
+        return new NumericStatsDTO(count, round2(mean), round2(variance), min, max,
+                quantile(0.25), quantile(0.5), quantile(0.75), quantile(0.9), histogram(), npsScore());
+    }
+
+    // =========================================================================
+    // 直方圖與 NPS
+    // =========================================================================
+
+    private List<NumericStatsDTO.Bucket> histogram() {
+        List<NumericStatsDTO.Bucket> buckets = new ArrayList<>();
+        if (isExact() && exact.length <= HISTOGRAM_BINS + 1) {
+            for (int i = 0; i < exact.length; i++) {
+                buckets.add(new NumericStatsDTO.Bucket(domainLow + i, domainLow + i + 1, exact[i]));
+            }
+            return buckets;
+        }
+        if (min == max) {
+            buckets.add(new NumericStatsDTO.Bucket(min, max, count));
+            return buckets;
+        }
+        // 均分 [min, max]；整數資料的格寬取整數，避免某些格子永遠是 0
+        boolean integral = isExact() || (min == Math.rint(min) && max == Math.rint(max) && allItemsIntegral());
+        double width = integral ? Math.ceil((max - min + 1) / HISTOGRAM_BINS) : (max - min) / HISTOGRAM_BINS;
+        double[] values = isExact() ? null : new double[items];
+        long[] weights = isExact() ? null : new long[items];
+        if (!isExact()) sortedItems(values, weights);
+        for (int b = 0; b < HISTOGRAM_BINS; b++) {
+            double from = min + b * width;
+            if (from > max) break;
+            boolean last = b == HISTOGRAM_BINS - 1 || from + width > max;
+            double to = last ? (integral ? max + 1 : max) : min + (b + 1) * width;
+            long n = isExact() ? exactBetween(from, to) : weightBetween(values, weights, from, to, last && !integral);
+            buckets.add(new NumericStatsDTO.Bucket(from, to, n));
+            if (last) break;
+        }
+        return buckets;
+    }
+
+    private Double npsScore() {
+        if (!nps || exact == null || exact.length != 11 || domainLow != 0) return null;
+        long detractors = 0;
+        for (int i = 0; i <= 6; i++) detractors += exact[i];
+        long promoters = exact[9] + exact[10];
+        return Math.round((promoters - detractors) * 1000.0 / count) / 10.0;
+    }
+
+    private long exactBetween(double from, double to) {
+        long n = 0;
+        for (int i = 0; i < exact.length; i++) {
+            double v = domainLow + i;
+            if (v >= from && v < to) n += exact[i];
+        }
+        return n;
+    }
+
+    // KLL 的估計值：權重和即為該區間的近似筆數；最後一格包含上界
+    private static long weightBetween(double[] values, long[] weights, double from, double to, boolean inclusive) {
+        long n = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] >= from && (values[i] < to || (inclusive && values[i] == to))) n += weights[i];
+        }
+        return n;
+    }
+
+    private boolean allItemsIntegral() {
+        for (int h = 0; h < sizes.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                if (levels[h][i] != Math.rint(levels[h][i])) return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isExact() {
+        return exact != null && outside == 0;
+    }
+
+    // =========================================================================
+    // KLL
+    // =========================================================================
+
+    private int capacity(int level) {
+        int depth = sizes.length - level - 1;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(LEVEL_RATIO, depth)));
+    }
+
+    private int totalCapacity() {
+        int total = 0;
+        for (int h = 0; h < sizes.length; h++) total += capacity(h);
+        return total;
+    }
+
+    private void append(int level, double x) {
+        while (level >= sizes.length) {
+            levels = Arrays.copyOf(levels, sizes.length + 1);
+            levels[sizes.length] = new double[2];
+            sizes = Arrays.copyOf(sizes, sizes.length + 1);
+        }
+        if (sizes[level] == levels[level].length) levels[level] = Arrays.copyOf(levels[level], sizes[level] * 2);
+        levels[level][sizes[level]++] = x;
+        items++;
+    }
+
+    /**
+     * 壓縮最低一個超過容量的層：排序後隨機取奇數或偶數位置的項目升到上一層 (權重加倍)，
+     * 個數為奇數時留下最後一個，總權重不變
+     */
+    private void compress() {
+        for (int h = 0; h < sizes.length; h++) {
+            if (sizes[h] < capacity(h)) continue;
+            double[] level = levels[h];
+            int n = sizes[h];
+            Arrays.sort(level, 0, n);
+            int pairs = n / 2;
+            int offset = nextBit();
+            double leftover = level[n - 1];
+            sizes[h] = 0;
+            items -= n;
+            for (int i = 0; i < pairs; i++) append(h + 1, level[2 * i + offset]);
+            if ((n & 1) == 1) append(h, leftover);
+            // 下層的容量會隨層數增加而變小，釋放多餘的陣列空間
+            if (level.length > 2 * capacity(h) && levels[h] == level) {
+                levels[h] = Arrays.copyOf(level, Math.max(2, capacity(h)));
+            }
+            return;
+        }
+    }
+
+    private int nextBit() {
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return (int) (random & 1);
+    }
+
+    // 全部項目依數值排序，權重為 2^層數
+    private void sortedItems(double[] values, long[] weights) {
+        int n = 0;
+        Integer[] order = new Integer[items];
+        for (int h = 0; h < sizes.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                values[n] = levels[h][i];
+                weights[n] = 1L << h;
+                order[n] = n;
+                n++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        double[] v = values.clone();
+        long[] w = weights.clone();
+        for (int i = 0; i < n; i++) {
+            values[i] = v[order[i]];
+            weights[i] = w[order[i]];
+        }
+    }
+
+    // 超過 1e15 的值已沒有小數位數可保留 (也避免 Math.round 超出 long 範圍)
+    private static double round2(double v) {
+        return Math.abs(v) >= 1e15 ? v : Math.round(v * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.dto.AnswerDTO;
+import com.example.dynamicsurvey.dto.QuestionDTO;
+import com.example.dynamicsurvey.entity.Question;
+import com.example.dynamicsurvey.entity.Survey;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * [教學說明] 題目類型 (Question Types)
+ * -----------------------------------------------------------------------------
+ * - SINGLE / MULTI : 選擇題，作答為選項 ID
+ * - TEXT           : 簡答題，作答為文字
+ * - NUMBER         : 數值題，可設定 minValue / maxValue (皆可空白)，最多 6 位小數
+ * - RATING         : 評分題，整數 minValue ~ maxValue (預設 1 ~ 5，最多 11 級)
+ * - NPS            : 淨推薦值，固定為整數 0 ~ 10
+ * 數值題的答案以正規化後的字串存放在 answerText ("3.50" -> "3.5")，統計見 NumericSketch。
+ */
+public final class QuestionTypes {
+
+    public static final String SINGLE = "SINGLE";
+    public static final String MULTI = "MULTI";
+    public static final String TEXT = "TEXT";
+    public static final String NUMBER = "NUMBER";
+    public static final String RATING = "RATING";
+    public static final String NPS = "NPS";
+
+    private static final Set<String> ALL = Set.of(SINGLE, MULTI, TEXT, NUMBER, RATING, NPS);
+
+    private static final int DEFAULT_RATING_MIN = 1;
+    private static final int DEFAULT_RATING_MAX = 5;
+    private static final int MAX_RATING_LEVELS = 11;
+    private static final int MAX_DECIMALS = 6;
+    // 整數位數上限 (超過時轉為 double 會失去精確度)
+    private static final int MAX_INTEGER_DIGITS = 15;
+    // 數值題的範圍都是整數且不超過此寬度時，統計改用精確計數
+    private static final int MAX_EXACT_SPAN = 1000;
+    // 作答者年齡的精確計數範圍
+    private static final int MAX_AGE = 150;
+
+    private QuestionTypes() {
+    }
+
+    public static boolean isChoice(String type) {
+        return SINGLE.equals(type) || MULTI.equals(type);
+    }
+
+    public static boolean isNumeric(String type) {
+        return NUMBER.equals(type) || RATING.equals(type) || NPS.equals(type);
+    }
+
+    /**
+     * [功能] 儲存問卷前驗證題目類型與數值範圍；通過時回傳 null，否則回傳錯誤訊息
+     */
+    public static String validate(QuestionDTO q) {
+        String title = "「" + q.getTitle() + "」";
+        if (!ALL.contains(q.getType())) return title + "的題目類型無效";
+        boolean hasRange = q.getMinValue() != null || q.getMaxValue() != null;
+        if (!isNumeric(q.getType())) return hasRange ? title + "不是數值題，不可設定範圍" : null;
+        if (q.getOptions() != null && !q.getOptions().isEmpty()) return title + "為數值題，不可設定選項";
+        Double min = q.getMinValue();
+        Double max = q.getMaxValue();
+        if ((min != null && !Double.isFinite(min)) || (max != null && !Double.isFinite(max))) return title + "的範圍無效";
+        switch (q.getType()) {
+            case NPS:
+                if (hasRange) return title + "為 NPS 題，分數固定為 0 ~ 10";
+                break;
+            case RATING:
+                if ((min != null && min != Math.rint(min)) || (max != null && max != Math.rint(max))) {
+                    return title + "的評分範圍必須是整數";
+                }
+                int[] scale = ratingScale(min, max);
+                if (scale[1] <= scale[0] || scale[1] - scale[0] + 1 > MAX_RATING_LEVELS) {
+                    return title + "的評分需為 2 ~ " + MAX_RATING_LEVELS + " 個等級";
+                }
+                break;
+            default:
+                if (min != null && max != null && min > max) return title + "的最小值不可大於最大值";
+        }
+        return null;
+    }
+
+    /**
+     * [功能] 提交時驗證數值題的答案，並將 answerText 改寫為正規化的數字；通過時回傳 null
+     * 空白的答案視為未作答 (是否為必填由 SkipLogicPlan 判斷)。需在交易內呼叫 (題目為延遲載入)。
+     */
+    public static String checkAnswers(Survey survey, List<AnswerDTO> answers) {
+        if (answers == null || answers.isEmpty()) return null;
+        Map<Long, Question> numeric = null;
+        for (Question q : survey.getQuestions()) {
+            if (!isNumeric(q.getType())) continue;
+            if (numeric == null) numeric = new HashMap<>();
+            numeric.put(q.getId(), q);
+        }
+        if (numeric == null) return null;
+        for (AnswerDTO a : answers) {
+            Question q = a.getQuestionId() != null ? numeric.get(a.getQuestionId()) : null;
+            if (q == null) continue;
+            a.setOptionIds(null);
+            if (a.getAnswerText() == null || a.getAnswerText().isBlank()) {
+                a.setAnswerText(null);
+                continue;
+            }
+            String title = "「" + q.getTitle() + "」";
+            BigDecimal value;
+            try {
+                value = new BigDecimal(a.getAnswerText().trim()).stripTrailingZeros();
+            } catch (NumberFormatException e) {
+                return title + "請輸入數字";
+            }
+            if (value.scale() > MAX_DECIMALS) return title + "最多 " + MAX_DECIMALS + " 位小數";
+            if (value.precision() - value.scale() > MAX_INTEGER_DIGITS) return title + "的數值過大";
+            double v = value.doubleValue();
+            double[] range = range(q.getType(), q.getMinValue(), q.getMaxValue());
+            if (!NUMBER.equals(q.getType()) && value.scale() > 0) return title + "請輸入整數";
+            if (v < range[0] || v > range[1]) {
+                if (range[0] == Double.NEGATIVE_INFINITY) return title + "不可大於 " + format(range[1]);
+                if (range[1] == Double.POSITIVE_INFINITY) return title + "不可小於 " + format(range[0]);
+                return title + "需介於 " + format(range[0]) + " ~ " + format(range[1]);
+            }
+            a.setAnswerText(value.signum() == 0 ? "0" : value.toPlainString());
+        }
+        return null;
+    }
+
+    /**
+     * [功能] 建立題目的統計摘要：評分、NPS 與範圍不大的整數題使用精確計數
+     */
+    public static NumericSketch newSketch(String type, Double minValue, Double maxValue) {
+        if (NPS.equals(type)) return new NumericSketch(NumericSketch.DEFAULT_K, 0, 10, true);
+        if (RATING.equals(type)) {
+            int[] scale = ratingScale(minValue, maxValue);
+            return new NumericSketch(NumericSketch.DEFAULT_K, scale[0], scale[1], false);
+        }
+        if (minValue != null && maxValue != null && minValue == Math.rint(minValue) && maxValue == Math.rint(maxValue)
+                && maxValue - minValue <= MAX_EXACT_SPAN && Math.abs(minValue) < 1e9 && Math.abs(maxValue) < 1e9) {
+            return new NumericSketch(NumericSketch.DEFAULT_K, minValue.intValue(), maxValue.intValue(), false);
+        }
+        return new NumericSketch();
+    }
+
+    /**
+     * [功能] 作答者年齡的統計摘要 (0 ~ 150 歲精確計數)
+     */
+    public static NumericSketch newAgeSketch() {
+        return new NumericSketch(NumericSketch.DEFAULT_K, 0, MAX_AGE, false);
+    }
+
+    private static int[] ratingScale(Double min, Double max) {
+        return new int[]{min != null ? min.intValue() : DEFAULT_RATING_MIN, max != null ? max.intValue() : DEFAULT_RATING_MAX};
+    }
+
+    private static double[] range(String type, Double min, Double max) {
+        if (NPS.equals(type)) return new double[]{0, 10};
+        if (RATING.equals(type)) {
+            int[] scale = ratingScale(min, max);
+            return new double[]{scale[0], scale[1]};
+        }
+        return new double[]{min != null ? min : Double.NEGATIVE_INFINITY, max != null ? max : Double.POSITIVE_INFINITY};
+    }
+
+    private static String format(double v) {
+        return BigDecimal.valueOf(v).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.dynamicsurvey.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * [教學說明] 分段的名額計數器 (Striped Quota Counter)
+ * -----------------------------------------------------------------------------
+ * 【設計意圖】
+ * 熱門問卷的每筆提交都要檢查名額；若以 COUNT(*) 或單一 AtomicLong 實作，所有提交都會搶同一個資源。
+ * 這裡把「剩餘名額」分散在多個分段 (各自位於不同的 cache line)：
+ *   - tryReserve : 從自己執行緒對應的分段以 CAS 扣 1，分段用完才依序向其他分段借；
+ *   - commit     : 交易提交後記錄已使用 (名額在預留時已扣除)；
+ *   - release    : 交易回滾時歸還名額。
+ * 分段總和永遠不大於實際剩餘名額，因此不會超收；只有第 0 段可能為負數 (對帳後的欠額)，
+ * 歸還一律加回第 0 段，先償還欠額。
+ *
+ * 【對帳】
+ * 其他節點的作答、或手動刪除的作答只能從資料庫得知。對帳時以
+ *   偏差 = 資料庫筆數 - 本節點已提交筆數
+ * 與上次套用的偏差比較，差額從分段中扣除 (或加回)。
+ * 呼叫端須先取 committed() 再查資料庫：兩者之間剛提交的作答只會被多扣，下一次對帳自動補回。
+ */
+public final class QuotaCounter {
+
+    // 每個分段佔 16 個 long (128 bytes)，避免相鄰分段落在同一條 cache line 造成 false sharing
+    private static final int PAD = 16;
+
+    private final long limit;
+    private final int mask;
+    private final AtomicLongArray cells;
+    private final LongAdder committed = new LongAdder();
+    private long appliedDrift; // 由 reconcile 的 synchronized 保護
+
+    /**
+     * @param limit   名額上限
+     * @param used    資料庫中目前已使用的筆數
+     * @param stripes 分段數 (會調整為 2 的次方)
+     */
+    public QuotaCounter(long limit, long used, int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.limit = limit;
+        this.mask = size - 1;
+        this.cells = new AtomicLongArray(size * PAD);
+        this.appliedDrift = used;
+        long remaining = limit - used;
+        if (remaining <= 0) {
+            cells.set(0, remaining);
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            cells.set(i * PAD, remaining / size + (i < remaining % size ? 1 : 0));
+        }
+    }
+
+    public long limit() {
+        return limit;
+    }
+
+    /**
+     * [功能] 預留一個名額；已額滿時回傳 false
+     */
+    public boolean tryReserve() {
+        int home = stripeOfCurrentThread();
+        for (int i = 0; i <= mask; i++) {
+            int index = ((home + i) & mask) * PAD;
+            long v;
+            while ((v = cells.get(index)) > 0) {
+                if (cells.compareAndSet(index, v, v - 1)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * [功能] 預留的名額已寫入資料庫 (交易已提交)
+     */
+    public void commit() {
+        committed.increment();
+    }
+
+    /**
+     * [功能] 歸還預留的名額 (交易回滾)
+     */
+    public void release() {
+        cells.getAndIncrement(0);
+    }
+
+    /**
+     * 目前剩餘名額 (各分段的總和，併發時為近似值)
+     */
+    public long remaining() {
+        long total = 0;
+        for (int i = 0; i <= mask; i++) total += cells.get(i * PAD);
+        return total;
+    }
+
+    public boolean isFull() {
+        return remaining() <= 0;
+    }
+
+    /**
+     * 本節點已提交的筆數 (對帳時須在查詢資料庫之前取得)
+     */
+    public long committed() {
+        return committed.sum();
+    }
+
+    /**
+     * [功能] 依資料庫筆數校正剩餘名額
+     * @param committedBefore 查詢資料庫之前取得的 committed()
+     * @param used            資料庫中已使用的筆數
+     */
+    public synchronized void reconcile(long committedBefore, long used) {
+        long drift = used - committedBefore;
+        long delta = drift - appliedDrift;
+        appliedDrift = drift;
+        if (delta < 0) {
+            cells.addAndGet(0, -delta);
+        } else if (delta > 0) {
+            take(delta);
+        }
+    }
+
+    // 先從其他分段扣除，剩下的記在第 0 段 (可為負數)
+    private void take(long amount) {
+        long need = amount;
+        for (int i = 1; i <= mask && need > 0; i++) {
+            int index = i * PAD;
+            long v;
+            while (need > 0 && (v = cells.get(index)) > 0) {
+                long n = Math.min(v, need);
+                if (cells.compareAndSet(index, v, v - n)) need -= n;
+            }
+        }
+        if (need > 0) cells.addAndGet(0, -need);
+    }
+
+    private int stripeOfCurrentThread() {
+        long id = Thread.currentThread().threadId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+}
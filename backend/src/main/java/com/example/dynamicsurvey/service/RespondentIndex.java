@@ -0,0 +1,457 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.dto.RespondentPageDTO;
+import com.example.dynamicsurvey.dto.ResponseSummaryDTO;
+import com.example.dynamicsurvey.repository.RespondentRepository.Respondent;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+/**
+ * [教學說明] 單一問卷的作答者前綴索引 (Respondent Prefix Index)
+ * -----------------------------------------------------------------------------
+ * 【資料結構】
+ * 每位作答者一列，三個搜尋欄位各自正規化後以 UTF-8 存放在一個大的 byte[] (另記每列的結束位置)：
+ *   - 姓名、Email : NFKC + 小寫 (與 SurveySearchIndex 相同)
+ *   - 電話        : 只保留數字 ("0912-345-678" -> "0912345678")
+ * 每個欄位另有「依該欄位排序的列號」陣列。UTF-8 以無號位元組比較的順序與 code point 順序相同，
+ * 前綴查詢 = 二分搜尋下界 + 往後掃描到不再相符為止，不建立任何 String。
+ * 每列約 100 bytes (視姓名、Email 長度而定)，一百萬筆作答約 100 MB。
+ *
+ * 【新增作答】
+ * 新作答先插入一段小的已排序尾段 (長度上限隨總筆數成長)，查詢時與主段一起合併掃描；
+ * 尾段超過上限才與主段線性合併，避免每次提交都重新排序整個索引。
+ * 本節點的提交由 add 直接加入；其他節點的提交由 catchUp 依回覆 ID 往後增量讀取，
+ * 兩條路徑可能讀到同一筆，載入後加入的 ID 另記一份以去重。
+ *
+ * 【併發】
+ * 寫入 (add) 以 synchronized 串行化；查詢讀取 volatile 的唯讀快照 (View)，完全不加鎖。
+ * 資料陣列只往後附加，快照只讀取自己建立時的筆數範圍，寫入端之後的附加不影響已取得的快照。
+ */
+public final class RespondentIndex {
+
+    static final int NAME = 0;
+    static final int EMAIL = 1;
+    static final int PHONE = 2;
+    private static final int FIELDS = 3;
+
+    // 尾段長度下限；上限為總筆數的 1/64 (合併成本攤提到每筆新增約為常數)
+    private static final int MIN_TAIL = 1024;
+
+    private final Object loadLock = new Object();
+    private final long createdAt = System.nanoTime();
+    private volatile boolean loaded;
+    // 上次由資料庫載入或補入的時間 (System.nanoTime)
+    private volatile long syncedAt;
+    private volatile View view = View.EMPTY;
+
+    // ---- 寫入端狀態 (由 synchronized 保護；載入期間只有載入執行緒存取) ----
+    private long[] ids = new long[16];
+    private long[] times = new long[16];
+    // 搜尋用的正規化內容 (姓名、Email、電話)
+    private final Column[] keys = {new Column(), new Column(), new Column()};
+    // 顯示用的原始姓名、Email；與正規化內容相同時留空以節省空間
+    private final Column[] raws = {new Column(), new Column()};
+    private int size;
+    private int[][] base = {new int[0], new int[0], new int[0]};
+    private int[][] tail = {new int[0], new int[0], new int[0]};
+    // 載入期間提交的作答，載入完成後補入
+    private List<Respondent> pending = new ArrayList<>();
+    // 已由資料庫讀到的最大回覆 ID (增量補入由此往後讀)
+    private long cursor;
+    // 載入後加入的回覆 ID；每次補入時清掉上次補入前的部分
+    private final Set<Long> recent = new HashSet<>();
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 建立時間 (System.nanoTime)，快取據此限制索引的最長使用時間
+     */
+    public long createdAt() {
+        return createdAt;
+    }
+
+    /**
+     * 索引中的作答筆數
+     */
+    public int size() {
+        return view.size;
+    }
+
+    /**
+     * [功能] 由資料庫載入全部作答並建立排序 (同時只有一個執行緒載入，其他呼叫端等待)
+     * @param batchAfter 傳入上一批最後的回覆 ID，回傳下一批 (依 ID 遞增)；空清單表示結束
+     * @return 是否由本次呼叫完成載入 (false 表示已由其他執行緒載入)
+     */
+    public boolean load(LongFunction<List<Respondent>> batchAfter) {
+        synchronized (loadLock) {
+            if (loaded) return false;
+            long after = 0;
+            List<Respondent> batch;
+            try {
+                while (!(batch = batchAfter.apply(after)).isEmpty()) {
+                    for (Respondent r : batch) append(r);
+                    after = batch.get(batch.size() - 1).id();
+                }
+            } catch (RuntimeException e) {
+                // 讀取失敗：清空已附加的列，讓等待中的呼叫端從頭重新載入
+                size = 0;
+                throw e;
+            }
+            synchronized (this) {
+                for (int f = 0; f < FIELDS; f++) base[f] = sortRows(keys[f], size);
+                int loadedRows = size;
+                loaded = true;
+                // 載入期間提交的作答可能已被載入的查詢讀到 (已載入的列依 ID 遞增，可二分搜尋)
+                for (Respondent r : pending) {
+                    if (Arrays.binarySearch(ids, 0, loadedRows, r.id()) < 0 && recent.add(r.id())) insert(r);
+                }
+                pending = null;
+                cursor = after;
+                publish();
+            }
+            syncedAt = System.nanoTime();
+            return true;
+        }
+    }
+
+    /**
+     * [功能] 加入一筆新提交的作答
+     * @return 是否觸發了尾段合併 (呼叫端可據此重新計算快取權重)
+     */
+    public synchronized boolean add(Respondent r) {
+        if (!loaded) {
+            pending.add(r);
+            return false;
+        }
+        // 已由 catchUp 從資料庫讀到
+        if (!recent.add(r.id())) return false;
+        boolean merged = insert(r);
+        publish();
+        return merged;
+    }
+
+    /**
+     * [功能] 由資料庫補入上次讀取之後的作答 (其他節點的提交)；距上次讀取未滿 intervalNanos 時不做任何事
+     * 只讀取 ID 大於已讀到最大 ID 的作答。回覆 ID 不保證依提交順序遞增 (分片時各節點取用不同 ID 區段)，
+     * 較小的 ID 較晚提交時這裡讀不到，要等索引到期重建才會出現。
+     * @param batchAfter 同 load
+     * @return 是否加入了作答 (呼叫端可據此重新計算快取權重)
+     */
+    public boolean catchUp(LongFunction<List<Respondent>> batchAfter, long intervalNanos) {
+        synchronized (loadLock) {
+            if (!loaded || System.nanoTime() - syncedAt < intervalNanos) return false;
+            long previous = cursor;
+            boolean added = false;
+            try {
+                List<Respondent> batch;
+                while (!(batch = batchAfter.apply(cursor)).isEmpty()) {
+                    synchronized (this) {
+                        for (Respondent r : batch) {
+                            if (!recent.add(r.id())) continue;
+                            insert(r);
+                            added = true;
+                        }
+                        cursor = batch.get(batch.size() - 1).id();
+                        publish();
+                    }
+                }
+                synchronized (this) {
+                    // 上次補入前的 ID 已隔一整個間隔，本節點提交後的 add 早已執行過
+                    recent.removeIf(id -> id <= previous);
+                }
+            } finally {
+                // 讀取失敗時同樣等下一個間隔再試，不讓每次搜尋都打到資料庫
+                syncedAt = System.nanoTime();
+            }
+            return added;
+        }
+    }
+
+    /**
+     * [功能] 以姓名、Email 或電話的開頭搜尋作答者
+     * @param query  搜尋字串 (大小寫、全形半形不拘；電話可含 + - ( ) 空白)
+     * @param offset 略過的筆數
+     * @param limit  回傳筆數上限
+     */
+    public RespondentPageDTO search(String query, int offset, int limit) {
+        View v = view;
+        byte[][] q = queryKeys(query);
+        // 先求各欄位的起點；沒有任何相符的欄位不必參與去重檢查 (省下隨機存取)
+        int[][] from = new int[FIELDS][];
+        for (int f = 0; f < FIELDS; f++) {
+            if (q[f] == null) continue;
+            int i = lowerBound(v.keyData[f], v.keyEnds[f], v.base[f], q[f]);
+            int j = lowerBound(v.keyData[f], v.keyEnds[f], v.tail[f], q[f]);
+            boolean any = (i < v.base[f].length && startsWith(v.keyData[f], v.keyEnds[f], v.base[f][i], q[f]))
+                    || (j < v.tail[f].length && startsWith(v.keyData[f], v.keyEnds[f], v.tail[f][j], q[f]));
+            if (any) from[f] = new int[]{i, j};
+        }
+        List<ResponseSummaryDTO> items = new ArrayList<>(Math.min(limit, 64));
+        int skip = offset;
+        for (int f = 0; f < FIELDS; f++) {
+            if (from[f] == null) continue;
+            byte[] data = v.keyData[f];
+            int[] ends = v.keyEnds[f];
+            int[] a = v.base[f];
+            int[] b = v.tail[f];
+            int i = from[f][0];
+            int j = from[f][1];
+            while (true) {
+                boolean inA = i < a.length && startsWith(data, ends, a[i], q[f]);
+                boolean inB = j < b.length && startsWith(data, ends, b[j], q[f]);
+                if (!inA && !inB) break;
+                int row = inA && (!inB || compareRows(data, ends, a[i], b[j]) <= 0) ? a[i++] : b[j++];
+                // 同一位作答者在較前面的欄位已列出過
+                if (matchedBefore(v, row, f, q, from)) continue;
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                if (items.size() == limit) return new RespondentPageDTO(items, true);
+                items.add(summary(v, row));
+            }
+        }
+        return new RespondentPageDTO(items, false);
+    }
+
+    // =========================================================================
+    // 寫入
+    // =========================================================================
+
+    private void append(Respondent r) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            times = Arrays.copyOf(times, size * 2);
+        }
+        ids[size] = r.id();
+        LocalDateTime at = r.submittedAt();
+        times[size] = at.toEpochSecond(ZoneOffset.UTC) * 1000 + at.getNano() / 1_000_000;
+        String name = nullToEmpty(r.name());
+        String email = nullToEmpty(r.email());
+        String nameKey = SurveySearchIndex.normalize(name);
+        String emailKey = SurveySearchIndex.normalize(email);
+        keys[NAME].append(size, utf8(nameKey));
+        keys[EMAIL].append(size, utf8(emailKey));
+        keys[PHONE].append(size, utf8(digits(Normalizer.normalize(nullToEmpty(r.phone()), Normalizer.Form.NFKC))));
+        raws[NAME].append(size, name.equals(nameKey) ? new byte[0] : utf8(name));
+        raws[EMAIL].append(size, email.equals(emailKey) ? new byte[0] : utf8(email));
+        size++;
+    }
+
+    // 附加一列並插入尾段；尾段超過上限時併入主段
+    private boolean insert(Respondent r) {
+        append(r);
+        int row = size - 1;
+        boolean merge = tail[0].length + 1 > Math.max(MIN_TAIL, size >>> 6);
+        for (int f = 0; f < FIELDS; f++) {
+            int[] t = insertSorted(keys[f], tail[f], row);
+            if (merge) {
+                base[f] = mergeRuns(keys[f], base[f], t);
+                tail[f] = new int[0];
+            } else {
+                tail[f] = t;
+            }
+        }
+        return merge;
+    }
+
+    private void publish() {
+        byte[][] keyData = new byte[FIELDS][];
+        int[][] keyEnds = new int[FIELDS][];
+        for (int f = 0; f < FIELDS; f++) {
+            keyData[f] = keys[f].data;
+            keyEnds[f] = keys[f].ends;
+        }
+        byte[][] rawData = {raws[NAME].data, raws[EMAIL].data};
+        int[][] rawEnds = {raws[NAME].ends, raws[EMAIL].ends};
+        view = new View(size, ids, times, keyData, keyEnds, rawData, rawEnds, base.clone(), tail.clone());
+    }
+
+    private static int[] insertSorted(Column c, int[] run, int row) {
+        int lo = 0, hi = run.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            // 相同內容時新列排在後面，與主段 (依 ID 穩定排序) 一致
+            if (compareRows(c.data, c.ends, run[mid], row) <= 0) lo = mid + 1;
+            else hi = mid;
+        }
+        int[] out = new int[run.length + 1];
+        System.arraycopy(run, 0, out, 0, lo);
+        out[lo] = row;
+        System.arraycopy(run, lo, out, lo + 1, run.length - lo);
+        return out;
+    }
+
+    private static int[] mergeRuns(Column c, int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            out[k++] = compareRows(c.data, c.ends, a[i], b[j]) <= 0 ? a[i++] : b[j++];
+        }
+        while (i < a.length) out[k++] = a[i++];
+        while (j < b.length) out[k++] = b[j++];
+        return out;
+    }
+
+    /**
+     * 由下而上的合併排序 (穩定，相同內容依列號也就是 ID 遞增)；直接排序 int 列號，不需裝箱
+     */
+    private static int[] sortRows(Column c, int n) {
+        int[] src = new int[n];
+        for (int i = 0; i < n; i++) src[i] = i;
+        int[] dst = new int[n];
+        for (int width = 1; width < n; width <<= 1) {
+            for (int lo = 0; lo < n; lo += width << 1) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + (width << 1), n);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    dst[k++] = compareRows(c.data, c.ends, src[i], src[j]) <= 0 ? src[i++] : src[j++];
+                }
+                while (i < mid) dst[k++] = src[i++];
+                while (j < hi) dst[k++] = src[j++];
+            }
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+        return src;
+    }
+
+    // =========================================================================
+    // 查詢
+    // =========================================================================
+
+    /**
+     * 各欄位的查詢內容；不適用的欄位為 null (例如含字母的查詢不比對電話)
+     */
+    static byte[][] queryKeys(String query) {
+        byte[][] q = new byte[FIELDS][];
+        String text = SurveySearchIndex.normalize(query);
+        if (text.isEmpty()) return q;
+        q[NAME] = utf8(text);
+        q[EMAIL] = q[NAME];
+        if (looksLikePhone(text)) {
+            String d = digits(text);
+            if (!d.isEmpty()) q[PHONE] = utf8(d);
+        }
+        return q;
+    }
+
+    private static boolean looksLikePhone(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (!(ch >= '0' && ch <= '9') && "+-() .".indexOf(ch) < 0) return false;
+        }
+        return true;
+    }
+
+    private static boolean matchedBefore(View v, int row, int field, byte[][] q, int[][] from) {
+        for (int g = 0; g < field; g++) {
+            if (from[g] != null && startsWith(v.keyData[g], v.keyEnds[g], row, q[g])) return true;
+        }
+        return false;
+    }
+
+    private static ResponseSummaryDTO summary(View v, int row) {
+        long t = v.times[row];
+        LocalDateTime at = LocalDateTime.ofEpochSecond(Math.floorDiv(t, 1000), Math.floorMod(t, 1000) * 1_000_000, ZoneOffset.UTC);
+        return new ResponseSummaryDTO(v.ids[row], display(v, NAME, row), display(v, EMAIL, row), at);
+    }
+
+    private static String display(View v, int field, int row) {
+        byte[] data = v.rawData[field];
+        int[] ends = v.rawEnds[field];
+        int start = start(ends, row);
+        if (ends[row] == start) {
+            data = v.keyData[field];
+            ends = v.keyEnds[field];
+            start = start(ends, row);
+        }
+        return new String(data, start, ends[row] - start, StandardCharsets.UTF_8);
+    }
+
+    private static int lowerBound(byte[] data, int[] ends, int[] run, byte[] q) {
+        int lo = 0, hi = run.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int row = run[mid];
+            if (Arrays.compareUnsigned(data, start(ends, row), ends[row], q, 0, q.length) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static boolean startsWith(byte[] data, int[] ends, int row, byte[] q) {
+        int start = start(ends, row);
+        return ends[row] - start >= q.length && Arrays.equals(data, start, start + q.length, q, 0, q.length);
+    }
+
+    private static int compareRows(byte[] data, int[] ends, int r1, int r2) {
+        return Arrays.compareUnsigned(data, start(ends, r1), ends[r1], data, start(ends, r2), ends[r2]);
+    }
+
+    private static int start(int[] ends, int row) {
+        return row == 0 ? 0 : ends[row - 1];
+    }
+
+    private static String digits(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch >= '0' && ch <= '9') sb.append(ch);
+        }
+        return sb.toString();
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    // =========================================================================
+    // 儲存結構
+    // =========================================================================
+
+    /**
+     * 一個欄位的全部內容：連續的 UTF-8 位元組，ends[row] 為第 row 列的結束位置
+     */
+    private static final class Column {
+        byte[] data = new byte[256];
+        int[] ends = new int[16];
+
+        void append(int row, byte[] value) {
+            int start = start(ends, row);
+            if (start + value.length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, start + value.length));
+            }
+            if (row == ends.length) ends = Arrays.copyOf(ends, row * 2);
+            System.arraycopy(value, 0, data, start, value.length);
+            ends[row] = start + value.length;
+        }
+    }
+
+    /**
+     * 查詢用的唯讀快照 (只讀取 [0, size) 範圍內的列)
+     */
+    private record View(int size, long[] ids, long[] times, byte[][] keyData, int[][] keyEnds,
+                        byte[][] rawData, int[][] rawEnds, int[][] base, int[][] tail) {
+        static final View EMPTY = new View(0, new long[0], new long[0],
+                new byte[FIELDS][0], new int[FIELDS][0], new byte[2][0], new int[2][0],
+                new int[FIELDS][0], new int[FIELDS][0]);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.dto.RespondentPageDTO;
+import com.example.dynamicsurvey.repository.RespondentRepository;
+import com.example.dynamicsurvey.repository.RespondentRepository.Respondent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * [教學說明] 後台作答者搜尋 (Respondent Search)
+ * -----------------------------------------------------------------------------
+ * 【設計意圖】
+ * 客服要找某位作答者時，原本只能在前端捲動整份作答列表。這裡為每份問卷在記憶體中建立
+ * 姓名 / Email / 電話的前綴索引 (RespondentIndex)，查詢不經過資料庫。
+ *
+ * 【生命週期】
+ * - 第一次搜尋某份問卷時才由資料庫分批載入 (重新啟動後同樣延遲重建)；
+ * - 本節點的提交在交易提交後加入索引 (SurveyService.doSubmitResponse)；
+ * - 其他節點的提交：搜尋前若距上次讀取超過 catch-up-ms，先由資料庫增量補入 (RespondentIndex.catchUp)；
+ * - 以作答筆數為權重限制全部索引的總筆數 (max-rows)，超過時淘汰最少使用的問卷，
+ *   閒置超過 idle-seconds 也會淘汰，下次搜尋再重建；
+ * - 持續被搜尋的索引建立滿 max-age-seconds 後同樣淘汰重建，
+ *   增量補入漏掉的作答 (回覆 ID 較小但較晚提交) 最晚在此時出現。
+ */
+@Service
+public class RespondentSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RespondentSearchService.class);
+
+    @Autowired
+    RespondentRepository respondentRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    // 全部索引合計的作答筆數上限 (每筆約 100 bytes)
+    @Value("${survey.respondent-index.max-rows:2000000}")
+    private long maxRows;
+
+    // 閒置多久後淘汰 (秒)
+    @Value("${survey.respondent-index.idle-seconds:1800}")
+    private long idleSeconds;
+
+    // 索引建立後最長使用多久 (秒)
+    @Value("${survey.respondent-index.max-age-seconds:3600}")
+    private long maxAgeSeconds;
+
+    // 搜尋前由資料庫補入其他節點提交的最短間隔 (毫秒)
+    @Value("${survey.respondent-index.catch-up-ms:2000}")
+    private long catchUpMs;
+
+    @Value("${survey.respondent-index.batch-size:5000}")
+    private int batchSize;
+
+    private Cache<Long, RespondentIndex> indexes;
+
+    @PostConstruct
+    void init() {
+        indexes = Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((Long id, RespondentIndex index) -> index.size() + 1)
+                .expireAfter(new Expiry<Long, RespondentIndex>() {
+                    // 閒置 idle-seconds 淘汰，但不超過建立後 max-age-seconds (重新放入計算權重時不重設)
+                    @Override
+                    public long expireAfterCreate(Long key, RespondentIndex index, long currentTime) {
+                        return remaining(index, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long key, RespondentIndex index, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long key, RespondentIndex index, long currentTime, long currentDuration) {
+                        return remaining(index, currentTime);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "respondentIndexes");
+    }
+
+    private long remaining(RespondentIndex index, long now) {
+        long untilMaxAge = index.createdAt() + TimeUnit.SECONDS.toNanos(maxAgeSeconds) - now;
+        return Math.max(0, Math.min(TimeUnit.SECONDS.toNanos(idleSeconds), untilMaxAge));
+    }
+
+    /**
+     * 此問卷的索引是否已在記憶體中 (呼叫端據此決定是否需要先確認問卷存在)
+     */
+    public boolean isIndexed(Long surveyId) {
+        return indexes.getIfPresent(surveyId) != null;
+    }
+
+    /**
+     * [功能] 以姓名、Email 或電話的開頭搜尋作答者 (含封存區)
+     */
+    public RespondentPageDTO search(Long surveyId, String query, int offset, int limit) {
+        RespondentIndex index = indexes.get(surveyId, id -> new RespondentIndex());
+        if (!index.isLoaded()) load(surveyId, index);
+        else catchUp(surveyId, index);
+        return index.search(query, offset, limit);
+    }
+
+    /**
+     * [功能] 交易提交後加入新作答；索引尚未建立時不需處理 (建立時會從資料庫讀到)
+     */
+    public void onSubmitted(Long surveyId, Respondent respondent) {
+        RespondentIndex index = indexes.getIfPresent(surveyId);
+        if (index != null && index.add(respondent)) {
+            // 尾段合併後重新放入，讓快取依新的筆數計算權重
+            indexes.asMap().replace(surveyId, index, index);
+        }
+    }
+
+    public void invalidate(Long surveyId) {
+        indexes.invalidate(surveyId);
+    }
+
+    private void load(Long surveyId, RespondentIndex index) {
+        long start = System.nanoTime();
+        try {
+            if (!index.load(after -> respondentRepository.findAfter(surveyId, after, batchSize))) return;
+        } catch (RuntimeException e) {
+            // 載入失敗：丟棄這個索引，下次搜尋重新建立
+            indexes.asMap().remove(surveyId, index);
+            throw e;
+        }
+        indexes.asMap().replace(surveyId, index, index);
+        logger.info("問卷 {} 作答者索引建立完成：{} 筆，耗時 {} ms", surveyId, index.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void catchUp(Long surveyId, RespondentIndex index) {
+        try {
+            if (index.catchUp(after -> respondentRepository.findAfter(surveyId, after, batchSize),
+                    TimeUnit.MILLISECONDS.toNanos(catchUpMs))) {
+                indexes.asMap().replace(surveyId, index, index);
+            }
+        } catch (RuntimeException e) {
+            // 補入失敗不影響搜尋，沿用目前的索引，下一個間隔再試
+            logger.warn("問卷 {} 作答者索引補入失敗", surveyId, e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.dto.AnswerDTO;
+import com.example.dynamicsurvey.entity.Option;
+import com.example.dynamicsurvey.entity.Question;
+import com.example.dynamicsurvey.entity.Survey;
+import com.example.dynamicsurvey.repository.ResponseStore;
+import com.example.dynamicsurvey.repository.SurveyRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * [教學說明] 作答名額 (Response Quotas)
+ * -----------------------------------------------------------------------------
+ * 【規則】
+ * - Survey.maxResponses : 問卷 (版本) 的作答總數上限；
+ * - Option.quota        : 選取該選項的作答數上限 (例如以單選題分年齡層，每層 500 人)。
+ * 名額以版本為單位 (與統計相同)。總名額額滿，或某個必填單選 / 多選題 (沒有顯示條件) 的選項全部額滿時，
+ * 問卷視為已額滿，立即從前台問卷列表消失。
+ *
+ * 【設計意圖】
+ * 提交時不查 COUNT(*)，而是向記憶體中的 QuotaCounter 預留名額：
+ *   提交前 reserve -> 交易提交後 commit / 回滾時 release (見 SurveyService.doSubmitResponse)。
+ * 計數器在第一次用到時以資料庫筆數初始化，之後定期與資料庫對帳，
+ * 修正其他節點的作答與手動刪除造成的偏差。
+ * 多節點部署時各節點獨立預留，兩次對帳之間可能略為超收；需要精確名額時請縮短對帳間隔。
+ */
+@Service
+public class ResponseQuotaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseQuotaService.class);
+
+    @Autowired
+    SurveyRepository surveyRepository;
+
+    @Autowired
+    ResponseStore responseStore;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    // 分段數 (0 表示 CPU 核心數)
+    @Value("${survey.quota.stripes:0}")
+    private int stripes;
+
+    private TransactionTemplate primaryTx;
+
+    // 問卷 ID -> 名額狀態 (沒有設定名額的問卷也記錄一筆不限名額的狀態，避免重複檢查)
+    private final Map<Long, SurveyQuota> quotas = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        if (stripes <= 0) stripes = Runtime.getRuntime().availableProcessors();
+        // 計數一律在獨立的讀寫交易中查詢，確保讀到主庫 (唯讀交易可能被路由到有延遲的 replica)
+        primaryTx = new TransactionTemplate(transactionManager);
+        primaryTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 一次提交所預留的名額；交易結束後必須呼叫 commit 或 release 其中之一
+     */
+    public static final class Reservation {
+        static final Reservation NONE = new Reservation(List.of());
+
+        private final List<QuotaCounter> counters;
+
+        private Reservation(List<QuotaCounter> counters) {
+            this.counters = counters;
+        }
+
+        public void commit() {
+            for (QuotaCounter c : counters) c.commit();
+        }
+
+        public void release() {
+            for (QuotaCounter c : counters) c.release();
+        }
+    }
+
+    /**
+     * [功能] 為一筆提交預留名額 (需在交易內呼叫，題目與選項為延遲載入)
+     * 任一名額已滿時回傳 null，已預留的部分全數歸還。
+     */
+    public Reservation reserve(Survey survey, List<AnswerDTO> answers) {
+        SurveyQuota quota = quotaFor(survey);
+        if (quota.isUnlimited()) return Reservation.NONE;
+        List<QuotaCounter> taken = new ArrayList<>(4);
+        if (quota.total() != null) {
+            if (!quota.total().tryReserve()) return null;
+            taken.add(quota.total());
+        }
+        if (!quota.options().isEmpty() && answers != null) {
+            for (AnswerDTO a : answers) {
+                if (a.getOptionIds() == null) continue;
+                for (Long optionId : a.getOptionIds()) {
+                    QuotaCounter counter = optionId != null ? quota.options().get(optionId) : null;
+                    // 只計入屬於該題的選項 (與 SurveyMapper.addAnswers 的對應方式相同)，同一選項只預留一次
+                    if (counter == null || !Objects.equals(quota.questionOf().get(optionId), a.getQuestionId())
+                            || taken.contains(counter)) {
+                        continue;
+                    }
+                    if (!counter.tryReserve()) {
+                        new Reservation(taken).release();
+                        return null;
+                    }
+                    taken.add(counter);
+                }
+            }
+        }
+        return new Reservation(taken);
+    }
+
+    /**
+     * [功能] 問卷是否已額滿 (前台列表使用；需在交易內呼叫)
+     */
+    public boolean isFull(Long surveyId) {
+        SurveyQuota quota = quotas.get(surveyId);
+        if (quota == null) {
+            Survey survey = surveyRepository.findById(surveyId).orElse(null);
+            if (survey == null) return false;
+            quota = quotaFor(survey);
+        }
+        return quota.isFull();
+    }
+
+    /**
+     * [功能] 名額設定變更或問卷刪除後丟棄計數器，下次使用時重新由資料庫初始化
+     */
+    public void invalidate(Long surveyId) {
+        quotas.remove(surveyId);
+    }
+
+    /**
+     * [排程] 與資料庫對帳；已結束的問卷不再收件，直接移除
+     */
+    @Scheduled(fixedDelayString = "${survey.quota.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        LocalDate today = LocalDate.now();
+        for (Map.Entry<Long, SurveyQuota> e : quotas.entrySet()) {
+            SurveyQuota quota = e.getValue();
+            if (quota.endDate().isBefore(today)) {
+                quotas.remove(e.getKey(), quota);
+                continue;
+            }
+            if (quota.isUnlimited()) continue;
+            try {
+                reconcile(e.getKey(), quota);
+            } catch (Exception ex) {
+                logger.warn("問卷 {} 名額對帳失敗: {}", e.getKey(), ex.getMessage());
+            }
+        }
+    }
+
+    private void reconcile(Long surveyId, SurveyQuota quota) {
+        long totalCommitted = quota.total() != null ? quota.total().committed() : 0;
+        Map<Long, Long> optionCommitted = new HashMap<>(quota.options().size() * 2);
+        quota.options().forEach((id, c) -> optionCommitted.put(id, c.committed()));
+        Usage usage = countUsage(surveyId, quota.total() != null, quota.options().keySet());
+        if (quota.total() != null) quota.total().reconcile(totalCommitted, usage.responses());
+        quota.options().forEach((id, c) -> c.reconcile(optionCommitted.get(id), usage.selections().getOrDefault(id, 0L)));
+    }
+
+    // =========================================================================
+    // 名額狀態
+    // =========================================================================
+
+    private record Usage(long responses, Map<Long, Long> selections) {
+    }
+
+    private Usage countUsage(Long surveyId, boolean countResponses, Set<Long> optionIds) {
+        return primaryTx.execute(status -> new Usage(
+                countResponses ? responseStore.countBySurveyId(surveyId) : 0,
+                optionIds.isEmpty() ? Map.of() : responseStore.countSelectionsByOption(surveyId, optionIds)));
+    }
+
+    private SurveyQuota quotaFor(Survey survey) {
+        SurveyQuota quota = quotas.get(survey.getId());
+        if (quota != null) return quota;
+        quota = load(survey);
+        SurveyQuota existing = quotas.putIfAbsent(survey.getId(), quota);
+        return existing != null ? existing : quota;
+    }
+
+    private SurveyQuota load(Survey survey) {
+        Map<Long, Integer> optionLimits = new HashMap<>();
+        Map<Long, Long> questionOf = new HashMap<>();
+        List<Long[]> closing = new ArrayList<>();
+        for (Question q : survey.getQuestions()) {
+            boolean allLimited = !q.getOptions().isEmpty();
+            for (Option o : q.getOptions()) {
+                if (o.getQuota() == null) {
+                    allLimited = false;
+                    continue;
+                }
+                optionLimits.put(o.getId(), o.getQuota());
+                questionOf.put(o.getId(), q.getId());
+            }
+            if (allLimited && q.isRequired() && q.getShowIf() == null) {
+                closing.add(q.getOptions().stream().map(Option::getId).toArray(Long[]::new));
+            }
+        }
+        if (survey.getMaxResponses() == null && optionLimits.isEmpty()) {
+            return new SurveyQuota(survey.getEndDate(), null, Map.of(), Map.of(), List.of());
+        }
+
+        Usage usage = countUsage(survey.getId(), survey.getMaxResponses() != null, optionLimits.keySet());
+        QuotaCounter total = survey.getMaxResponses() != null
+                ? new QuotaCounter(survey.getMaxResponses(), usage.responses(), stripes) : null;
+        Map<Long, QuotaCounter> options = new HashMap<>(optionLimits.size() * 2);
+        optionLimits.forEach((id, limit) -> options.put(id, new QuotaCounter(limit, usage.selections().getOrDefault(id, 0L), stripes)));
+        List<QuotaCounter[]> closingGroups = new ArrayList<>(closing.size());
+        for (Long[] ids : closing) {
+            closingGroups.add(Arrays.stream(ids).map(options::get).toArray(QuotaCounter[]::new));
+        }
+        return new SurveyQuota(survey.getEndDate(), total, options, questionOf, closingGroups);
+    }
+
+    /**
+     * 單一問卷的名額狀態 (建立後不再變動，設定變更時整份丟棄)
+     */
+    private record SurveyQuota(LocalDate endDate, QuotaCounter total, Map<Long, QuotaCounter> options,
+                               Map<Long, Long> questionOf, List<QuotaCounter[]> closingGroups) {
+
+        boolean isUnlimited() {
+            return total == null && options.isEmpty();
+        }
+
+        boolean isFull() {
+            if (total != null && total.isFull()) return true;
+            for (QuotaCounter[] group : closingGroups) {
+                boolean allFull = true;
+                for (QuotaCounter c : group) allFull &= c.isFull();
+                if (allFull) return true;
+            }
+            return false;
+        }
+    }
+}
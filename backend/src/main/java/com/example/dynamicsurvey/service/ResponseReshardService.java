@@ -0,0 +1,213 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.config.ResponseShardProperties;
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.config.ResponseShardRouter.Shard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * [教學說明] 線上重新分片 (Online Resharding)
+ * -----------------------------------------------------------------------------
+ * 【設計意圖】
+ * 新增分片 (或調整權重) 後，雜湊環會把部分問卷分配到新的分片，但既有作答仍在原分片，
+ * 路由依 response_placements 紀錄繼續讀寫原處；本服務負責把這些問卷搬到雜湊環的位置。
+ *
+ * 【單一問卷的搬移流程】(服務不中斷)
+ * 1. 固定位置：確保 response_placements 指向來源分片，搬移期間所有節點都寫入來源。
+ * 2. 複製：依 ID 分批將線上與封存作答複製到目標分片 (來源資料保留)。
+ * 3. 切換：位置改為目標分片；各節點在位置快取到期後改讀寫目標分片。
+ * 4. 等待快取秒數 + 緩衝秒數，再複製切換前後仍寫入來源的作答 (尚未複製的 ID)。
+ * 5. 只刪除來源中「已複製」的作答；若仍有殘留 (極少數晚到的交易) 重複 4、5。
+ * 目標分片已存在的 ID 會略過，中途失敗後重新執行同一個搬移即可接續。
+ * 切換後到第 4 步完成前，極少數剛寫入來源的作答在目標分片暫時查不到。
+ * 封存排程會搬動同一問卷的作答，請避免對正在封存的問卷執行搬移。
+ */
+@Service
+@ConditionalOnProperty(name = "app.datasource.shards.enabled", havingValue = "true")
+public class ResponseReshardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseReshardService.class);
+
+    private static final List<String> TABLE_PREFIXES = List.of("", "archived_");
+    private static final int MAX_SWEEPS = 3;
+
+    @Autowired
+    ResponseShardRouter router;
+
+    @Autowired
+    ResponseShardProperties properties;
+
+    /**
+     * 一筆搬移計畫
+     */
+    public record Move(Long surveyId, String from, String to) {
+    }
+
+    /**
+     * [功能] 列出目前位置與雜湊環不一致、需要搬移的問卷
+     */
+    public List<Move> plan() {
+        Map<Long, String> current = new TreeMap<>(router.placements());
+        // 分片啟用前寫入主資料庫、尚未有位置紀錄的問卷
+        for (Long surveyId : legacySurveyIds()) current.putIfAbsent(surveyId, ResponseShardRouter.CATALOG);
+        List<Move> moves = new ArrayList<>();
+        current.forEach((surveyId, shard) -> {
+            String target = router.ringShardFor(surveyId);
+            if (!shard.equals(target)) moves.add(new Move(surveyId, shard, target));
+        });
+        return moves;
+    }
+
+    /**
+     * [功能] 依 plan() 逐一搬移，回傳搬移的回覆筆數
+     */
+    public long rebalance() {
+        long total = 0;
+        for (Move move : plan()) total += move(move.surveyId(), move.to());
+        return total;
+    }
+
+    /**
+     * [功能] 將一份問卷的全部作答 (含封存區) 搬到指定分片，回傳搬移的回覆筆數
+     */
+    public long move(Long surveyId, String target) {
+        Shard to = router.shard(target);
+        String fromName = router.currentShard(surveyId);
+        if (fromName.equals(target)) {
+            logger.info("問卷 {} 已在分片 {}，不需搬移", surveyId, target);
+            return 0;
+        }
+        Shard from = router.shard(fromName);
+        logger.info("問卷 {} 開始搬移：{} -> {}", surveyId, fromName, target);
+
+        router.place(surveyId, fromName);
+        Map<String, Set<Long>> copied = new HashMap<>();
+        TABLE_PREFIXES.forEach(p -> copied.put(p, new HashSet<>()));
+        copy(from, to, surveyId, copied);
+
+        router.place(surveyId, target);
+        long moved = 0;
+        for (int sweep = 1; sweep <= MAX_SWEEPS; sweep++) {
+            sleep(router.placementTtl().toMillis() + properties.getCutoverMarginSeconds() * 1000L);
+            copy(from, to, surveyId, copied);
+            moved += delete(from, copied);
+            if (!ResponseShardRouter.hasResponses(from, surveyId)) {
+                logger.info("問卷 {} 搬移完成：{} -> {}，共 {} 筆", surveyId, fromName, target, moved);
+                return moved;
+            }
+        }
+        logger.warn("問卷 {} 在分片 {} 仍有殘留作答，請再執行一次搬移", surveyId, fromName);
+        return moved;
+    }
+
+    // =========================================================================
+    // 複製與刪除
+    // =========================================================================
+
+    /**
+     * 複製來源中尚未複製過的回覆 (線上與封存區分開記錄)
+     */
+    private void copy(Shard from, Shard to, Long surveyId, Map<String, Set<Long>> copied) {
+        int batchSize = properties.getReshardBatchSize();
+        for (String p : TABLE_PREFIXES) {
+            Set<Long> done = copied.get(p);
+            long after = 0;
+            while (true) {
+                List<Long> ids = from.jdbc().queryForList("SELECT id FROM " + p + "survey_responses " +
+                                "WHERE survey_id = :surveyId AND id > :after ORDER BY id LIMIT :limit",
+                        new MapSqlParameterSource("surveyId", surveyId).addValue("after", after).addValue("limit", batchSize),
+                        Long.class);
+                if (ids.isEmpty()) break;
+                after = ids.get(ids.size() - 1);
+                List<Long> pending = ids.stream().filter(id -> !done.contains(id)).toList();
+                if (!pending.isEmpty()) copyBatch(from, to, p, pending);
+                done.addAll(pending);
+            }
+        }
+    }
+
+    private void copyBatch(Shard from, Shard to, String p, List<Long> responseIds) {
+        // 前一次搬移中斷時已寫入目標的回覆直接略過
+        Set<Long> existing = new HashSet<>(to.jdbc().queryForList("SELECT id FROM " + p + "survey_responses WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", responseIds), Long.class));
+        List<Long> ids = responseIds.stream().filter(id -> !existing.contains(id)).toList();
+        if (ids.isEmpty()) return;
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+
+        MapSqlParameterSource[] responses = rows(from, "SELECT id, survey_id, name, phone, email, age, submitted_at, user_id " +
+                "FROM " + p + "survey_responses WHERE id IN (:ids)", params,
+                "id", "survey_id", "name", "phone", "email", "age", "submitted_at", "user_id");
+        MapSqlParameterSource[] answers = rows(from, "SELECT id, response_id, question_id, answer_text " +
+                "FROM " + p + "response_answers WHERE response_id IN (:ids)", params,
+                "id", "response_id", "question_id", "answer_text");
+        MapSqlParameterSource[] selected = rows(from, "SELECT o.answer_id, o.option_id FROM " + p + "answer_selected_options o " +
+                "JOIN " + p + "response_answers a ON a.id = o.answer_id WHERE a.response_id IN (:ids)", params,
+                "answer_id", "option_id");
+
+        to.tx().executeWithoutResult(status -> {
+            to.jdbc().batchUpdate("INSERT INTO " + p + "survey_responses (id, survey_id, name, phone, email, age, submitted_at, user_id) " +
+                    "VALUES (:id, :survey_id, :name, :phone, :email, :age, :submitted_at, :user_id)", responses);
+            if (answers.length > 0) {
+                to.jdbc().batchUpdate("INSERT INTO " + p + "response_answers (id, response_id, question_id, answer_text) " +
+                        "VALUES (:id, :response_id, :question_id, :answer_text)", answers);
+            }
+            if (selected.length > 0) {
+                to.jdbc().batchUpdate("INSERT INTO " + p + "answer_selected_options (answer_id, option_id) " +
+                        "VALUES (:answer_id, :option_id)", selected);
+            }
+        });
+    }
+
+    /**
+     * 自來源刪除已複製的回覆，回傳刪除筆數 (線上與封存區合計)
+     */
+    private long delete(Shard from, Map<String, Set<Long>> copied) {
+        int batchSize = properties.getReshardBatchSize();
+        long deleted = 0;
+        for (String p : TABLE_PREFIXES) {
+            List<Long> ids = new ArrayList<>(copied.get(p));
+            for (int i = 0; i < ids.size(); i += batchSize) {
+                MapSqlParameterSource params = new MapSqlParameterSource("ids", ids.subList(i, Math.min(i + batchSize, ids.size())));
+                deleted += from.tx().execute(status -> {
+                    from.jdbc().update("DELETE FROM " + p + "answer_selected_options WHERE answer_id IN " +
+                            "(SELECT id FROM " + p + "response_answers WHERE response_id IN (:ids))", params);
+                    from.jdbc().update("DELETE FROM " + p + "response_answers WHERE response_id IN (:ids)", params);
+                    return from.jdbc().update("DELETE FROM " + p + "survey_responses WHERE id IN (:ids)", params);
+                });
+            }
+            copied.get(p).clear();
+        }
+        return deleted;
+    }
+
+    private static MapSqlParameterSource[] rows(Shard shard, String sql, MapSqlParameterSource params, String... columns) {
+        return shard.jdbc().query(sql, params, (rs, i) -> {
+            MapSqlParameterSource row = new MapSqlParameterSource();
+            for (String c : columns) row.addValue(c, rs.getObject(c));
+            return row;
+        }).toArray(MapSqlParameterSource[]::new);
+    }
+
+    private List<Long> legacySurveyIds() {
+        return router.shard(ResponseShardRouter.CATALOG).jdbc().queryForList(
+                "SELECT survey_id FROM survey_responses GROUP BY survey_id " +
+                "UNION SELECT survey_id FROM archived_survey_responses GROUP BY survey_id",
+                new MapSqlParameterSource(), Long.class);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("重新分片被中斷", e);
+        }
+    }
+}
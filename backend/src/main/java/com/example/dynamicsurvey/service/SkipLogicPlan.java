@@ -0,0 +1,391 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.dto.AnswerDTO;
+import com.example.dynamicsurvey.dto.OptionDTO;
+import com.example.dynamicsurvey.dto.QuestionDTO;
+import com.example.dynamicsurvey.dto.ShowConditionDTO;
+import com.example.dynamicsurvey.dto.SurveyDTO;
+import com.example.dynamicsurvey.entity.Option;
+import com.example.dynamicsurvey.entity.Question;
+import com.example.dynamicsurvey.entity.Survey;
+
+import java.util.*;
+
+/**
+ * [教學說明] 題目顯示條件的編譯結果 (Skip Logic Plan)
+ * -----------------------------------------------------------------------------
+ * 【規則】
+ * 每題可設定多條顯示條件 (Question.showIf)，全部成立才顯示；
+ * 一條條件為「來源題選了其中任一個選項」，來源題本身被隱藏時條件不成立。
+ *
+ * 【設計意圖】
+ * 規則在儲存問卷時驗證 (引用不存在的題目 / 選項、循環引用)，每個版本只編譯一次：
+ *   - 題目依拓撲順序編號 (來源題一定排在前面)，由前往後掃一次即可算出全部的顯示狀態；
+ *   - 每個選項對應一個位元，同一題的選項位元連續；條件編譯為 long[] 遮罩，
+ *     判斷「選了其中任一個」只需幾次 AND；
+ *   - 條件以 CSR 方式攤平為陣列 (conditionStart / conditionSource / conditionMask)。
+ * 判斷作答時只使用呼叫端提供的 state 陣列 (可重複使用)，不配置任何物件。
+ */
+public final class SkipLogicPlan {
+
+    private final int size;
+    private final String[] titles;          // 以題目編號 (即拓撲順序) 索引
+    private final boolean[] required;
+    private final boolean[] text;
+    private final int[] displayOrder;       // 依畫面順序排列的題目編號
+    private final int[] optionStart;        // 題目的選項位元範圍 [start, end)
+    private final int[] optionEnd;
+    private final Map<Long, Integer> slotOf;
+    private final Map<Long, Integer> bitOf;
+    private final int optionWords;
+    private final int slotWords;
+    private final int[] conditionStart;     // 題目 s 的條件為 conditionStart[s] .. conditionStart[s + 1] - 1
+    private final int[] conditionSource;
+    private final long[] conditionMask;     // 條件 c 的遮罩位於 c * optionWords 起的 optionWords 個 long
+
+    private SkipLogicPlan(int size, String[] titles, boolean[] required, boolean[] text,
+                          int[] displayOrder, int[] optionStart, int[] optionEnd,
+                          Map<Long, Integer> slotOf, Map<Long, Integer> bitOf, int optionWords,
+                          int[] conditionStart, int[] conditionSource, long[] conditionMask) {
+        this.size = size;
+        this.titles = titles;
+        this.required = required;
+        this.text = text;
+        this.displayOrder = displayOrder;
+        this.optionStart = optionStart;
+        this.optionEnd = optionEnd;
+        this.slotOf = slotOf;
+        this.bitOf = bitOf;
+        this.optionWords = optionWords;
+        this.slotWords = (size + 63) >>> 6;
+        this.conditionStart = conditionStart;
+        this.conditionSource = conditionSource;
+        this.conditionMask = conditionMask;
+    }
+
+    // =========================================================================
+    // 規則字串 (Question.showIf)："來源題:選項,選項;來源題:選項"，數字皆為 orderIndex
+    // =========================================================================
+
+    public static List<ShowConditionDTO> parse(String showIf) {
+        if (showIf == null || showIf.isBlank()) return List.of();
+        List<ShowConditionDTO> conditions = new ArrayList<>();
+        try {
+            for (String part : showIf.split(";")) {
+                int colon = part.indexOf(':');
+                if (colon < 0) throw new IllegalArgumentException("顯示條件格式錯誤: " + showIf);
+                ShowConditionDTO c = new ShowConditionDTO();
+                c.setQuestionOrderIndex(Integer.parseInt(part.substring(0, colon).trim()));
+                List<Integer> options = new ArrayList<>();
+                for (String o : part.substring(colon + 1).split(",")) options.add(Integer.parseInt(o.trim()));
+                c.setOptionOrderIndexes(options);
+                conditions.add(c);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("顯示條件格式錯誤: " + showIf);
+        }
+        return conditions;
+    }
+
+    /**
+     * 轉為保存用的字串 (選項排序並去除重複，同樣的規則一定得到同樣的字串)；沒有條件時回傳 null
+     */
+    public static String format(List<ShowConditionDTO> conditions) {
+        if (conditions == null || conditions.isEmpty()) return null;
+        StringJoiner joiner = new StringJoiner(";");
+        for (ShowConditionDTO c : conditions) {
+            StringJoiner options = new StringJoiner(",");
+            List<Integer> indexes = c.getOptionOrderIndexes() != null ? c.getOptionOrderIndexes() : List.of();
+            for (Integer o : new TreeSet<>(indexes)) options.add(String.valueOf(o));
+            joiner.add(c.getQuestionOrderIndex() + ":" + options);
+        }
+        return joiner.toString();
+    }
+
+    // =========================================================================
+    // 編譯與驗證
+    // =========================================================================
+
+    private record Node(Long id, int orderIndex, String title, boolean required, boolean text,
+                        List<Long> optionIds, List<Integer> optionOrders, List<ShowConditionDTO> conditions) {
+    }
+
+    /**
+     * [功能] 編譯問卷的顯示條件 (需在交易內呼叫，題目與選項為延遲載入)
+     * @throws IllegalArgumentException 規則無效 (正常情況下儲存時已被 validate 擋下)
+     */
+    public static SkipLogicPlan compile(Survey survey) {
+        List<Node> nodes = new ArrayList<>(survey.getQuestions().size());
+        for (Question q : survey.getQuestions()) {
+            List<Option> options = new ArrayList<>(q.getOptions());
+            options.sort(Comparator.comparingInt(Option::getOrderIndex));
+            List<Long> optionIds = new ArrayList<>(options.size());
+            List<Integer> optionOrders = new ArrayList<>(options.size());
+            for (Option o : options) {
+                optionIds.add(o.getId());
+                optionOrders.add(o.getOrderIndex());
+            }
+            nodes.add(new Node(q.getId(), q.getOrderIndex(), q.getTitle(), q.isRequired(), !QuestionTypes.isChoice(q.getType()),
+                    optionIds, optionOrders, parse(q.getShowIf())));
+        }
+        return compile(nodes);
+    }
+
+    /**
+     * [功能] 儲存問卷前驗證顯示條件；通過時回傳 null，否則回傳錯誤訊息
+     */
+    public static String validate(SurveyDTO dto) {
+        if (dto.getQuestions() == null) return null;
+        List<Node> nodes = new ArrayList<>(dto.getQuestions().size());
+        for (QuestionDTO q : dto.getQuestions()) {
+            List<OptionDTO> options = new ArrayList<>(q.getOptions() != null ? q.getOptions() : List.of());
+            options.sort(Comparator.comparingInt(OptionDTO::getOrderIndex));
+            List<Integer> optionOrders = new ArrayList<>(options.size());
+            for (OptionDTO o : options) optionOrders.add(o.getOrderIndex());
+            List<ShowConditionDTO> conditions = q.getShowIf() != null ? q.getShowIf() : List.of();
+            for (ShowConditionDTO c : conditions) {
+                if (c.getOptionOrderIndexes() == null || c.getOptionOrderIndexes().isEmpty()) {
+                    return "「" + q.getTitle() + "」的顯示條件未選擇任何選項";
+                }
+            }
+            String formatted = format(conditions);
+            if (formatted != null && formatted.length() > 1000) return "「" + q.getTitle() + "」的顯示條件過多";
+            nodes.add(new Node(null, q.getOrderIndex(), q.getTitle(), q.isRequired(), !QuestionTypes.isChoice(q.getType()),
+                    Collections.nCopies(options.size(), null), optionOrders, conditions));
+        }
+        try {
+            compile(nodes);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static SkipLogicPlan compile(List<Node> input) {
+        List<Node> display = new ArrayList<>(input);
+        display.sort(Comparator.comparingInt(Node::orderIndex));
+        int n = display.size();
+
+        // orderIndex -> 畫面位置 (重複的 orderIndex 記為 -1，被引用時才視為錯誤)
+        Map<Integer, Integer> byOrder = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            if (byOrder.putIfAbsent(display.get(i).orderIndex(), i) != null) byOrder.put(display.get(i).orderIndex(), -1);
+        }
+
+        // 解析每條條件的來源題與選項位置
+        int[][] sources = new int[n][];
+        int[][][] optionPositions = new int[n][][];
+        List<List<Integer>> dependents = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) dependents.add(new ArrayList<>());
+        int[] indegree = new int[n];
+        for (int i = 0; i < n; i++) {
+            Node node = display.get(i);
+            sources[i] = new int[node.conditions().size()];
+            optionPositions[i] = new int[node.conditions().size()][];
+            for (int c = 0; c < node.conditions().size(); c++) {
+                ShowConditionDTO cond = node.conditions().get(c);
+                Integer src = byOrder.get(cond.getQuestionOrderIndex());
+                if (src == null) throw new IllegalArgumentException("「" + node.title() + "」的顯示條件引用了不存在的題目");
+                if (src < 0) throw new IllegalArgumentException("「" + node.title() + "」的顯示條件引用的題目順序重複");
+                Node source = display.get(src);
+                if (source.text()) throw new IllegalArgumentException("「" + node.title() + "」的顯示條件只能引用選擇題");
+                List<Integer> orders = cond.getOptionOrderIndexes() != null ? cond.getOptionOrderIndexes() : List.of();
+                int[] positions = new int[orders.size()];
+                for (int k = 0; k < orders.size(); k++) {
+                    positions[k] = source.optionOrders().indexOf(orders.get(k));
+                    if (positions[k] < 0) throw new IllegalArgumentException("「" + node.title() + "」的顯示條件引用了不存在的選項");
+                }
+                sources[i][c] = src;
+                optionPositions[i][c] = positions;
+                dependents.get(src).add(i);
+                indegree[i]++;
+            }
+        }
+
+        // Kahn 拓撲排序：同時可排的題目依畫面順序，沒有條件的問卷排序結果與畫面順序相同
+        int[] slotOfPosition = new int[n];
+        int[] positionOfSlot = new int[n];
+        int[] remaining = indegree.clone();
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < n; i++) {
+            if (remaining[i] == 0) ready.add(i);
+        }
+        int sorted = 0;
+        while (!ready.isEmpty()) {
+            int i = ready.poll();
+            slotOfPosition[i] = sorted;
+            positionOfSlot[sorted++] = i;
+            for (int d : dependents.get(i)) {
+                if (--remaining[d] == 0) ready.add(d);
+            }
+        }
+        if (sorted < n) throw new IllegalArgumentException("顯示條件形成循環: " + cycleTitles(display, sources, remaining));
+
+        // 配置選項位元 (依拓撲順序，同一題連續)
+        String[] titles = new String[n];
+        boolean[] required = new boolean[n];
+        boolean[] text = new boolean[n];
+        int[] optionStart = new int[n];
+        int[] optionEnd = new int[n];
+        Map<Long, Integer> slotOf = new HashMap<>(n * 2);
+        Map<Long, Integer> bitOf = new HashMap<>();
+        int bits = 0;
+        int conditionCount = 0;
+        for (int s = 0; s < n; s++) {
+            Node node = display.get(positionOfSlot[s]);
+            titles[s] = node.title();
+            required[s] = node.required();
+            text[s] = node.text();
+            if (node.id() != null) slotOf.put(node.id(), s);
+            optionStart[s] = bits;
+            if (!node.text()) {
+                for (Long optionId : node.optionIds()) {
+                    if (optionId != null) bitOf.put(optionId, bits);
+                    bits++;
+                }
+            }
+            optionEnd[s] = bits;
+            conditionCount += sources[positionOfSlot[s]].length;
+        }
+        int optionWords = Math.max(1, (bits + 63) >>> 6);
+
+        // 條件攤平 (CSR)
+        int[] conditionStart = new int[n + 1];
+        int[] conditionSource = new int[conditionCount];
+        long[] conditionMask = new long[conditionCount * optionWords];
+        int c = 0;
+        for (int s = 0; s < n; s++) {
+            int i = positionOfSlot[s];
+            conditionStart[s] = c;
+            for (int k = 0; k < sources[i].length; k++, c++) {
+                int src = slotOfPosition[sources[i][k]];
+                conditionSource[c] = src;
+                for (int pos : optionPositions[i][k]) {
+                    int bit = optionStart[src] + pos;
+                    conditionMask[c * optionWords + (bit >>> 6)] |= 1L << bit;
+                }
+            }
+        }
+        conditionStart[n] = c;
+
+        int[] displayOrder = new int[n];
+        for (int i = 0; i < n; i++) displayOrder[i] = slotOfPosition[i];
+        return new SkipLogicPlan(n, titles, required, text, displayOrder, optionStart, optionEnd,
+                slotOf, bitOf, optionWords, conditionStart, conditionSource, conditionMask);
+    }
+
+    /**
+     * 拓撲排序剩下的題目包含循環本身與循環的下游；反覆剔除「不被剩餘題目引用」的題目，只留下循環上的題目
+     */
+    private static String cycleTitles(List<Node> display, int[][] sources, int[] remaining) {
+        int n = display.size();
+        boolean[] left = new boolean[n];
+        for (int i = 0; i < n; i++) left[i] = remaining[i] > 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            boolean[] referenced = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                if (!left[i]) continue;
+                for (int src : sources[i]) referenced[src] = true;
+            }
+            for (int i = 0; i < n; i++) {
+                if (left[i] && !referenced[i]) {
+                    left[i] = false;
+                    changed = true;
+                }
+            }
+        }
+        StringJoiner titles = new StringJoiner("、");
+        for (int i = 0; i < n; i++) {
+            if (left[i]) titles.add("「" + display.get(i).title() + "」");
+        }
+        return titles.toString();
+    }
+
+    // =========================================================================
+    // 判斷作答 (不配置物件)
+    // =========================================================================
+
+    public boolean hasConditions() {
+        return conditionStart[size] > 0;
+    }
+
+    /**
+     * 判斷所需的 state 長度；呼叫端可配置一次後重複使用
+     */
+    public int stateLength() {
+        return optionWords + 2 * slotWords;
+    }
+
+    /**
+     * [功能] 依作答計算每題是否顯示 (結果寫入 state)
+     * 回傳第一個「顯示中但未作答」的必填題標題，全部通過時回傳 null。
+     * 不在問卷中的題目、不屬於該題的選項一律忽略；簡答題與數值題內容為空白視為未作答。
+     * @param state 長度至少為 stateLength()，內容會被覆寫
+     */
+    public String evaluate(List<AnswerDTO> answers, long[] state) {
+        int visibleBase = optionWords;
+        int answeredBase = optionWords + slotWords;
+        Arrays.fill(state, 0, stateLength(), 0L);
+        for (int i = 0, m = answers.size(); i < m; i++) {
+            AnswerDTO a = answers.get(i);
+            Integer slot = a.getQuestionId() != null ? slotOf.get(a.getQuestionId()) : null;
+            if (slot == null) continue;
+            int s = slot;
+            if (text[s]) {
+                if (a.getAnswerText() != null && !a.getAnswerText().isBlank()) setBit(state, answeredBase, s);
+                continue;
+            }
+            List<Long> chosen = a.getOptionIds();
+            if (chosen == null) continue;
+            for (int k = 0, count = chosen.size(); k < count; k++) {
+                Integer bit = bitOf.get(chosen.get(k));
+                if (bit == null || bit < optionStart[s] || bit >= optionEnd[s]) continue;
+                setBit(state, 0, bit);
+                setBit(state, answeredBase, s);
+            }
+        }
+
+        // 拓撲順序：來源題的顯示狀態一定已經算好
+        for (int s = 0; s < size; s++) {
+            boolean visible = true;
+            for (int c = conditionStart[s], end = conditionStart[s + 1]; c < end && visible; c++) {
+                int src = conditionSource[c];
+                visible = getBit(state, visibleBase, src) && intersects(state, c, src);
+            }
+            if (visible) setBit(state, visibleBase, s);
+        }
+
+        for (int s : displayOrder) {
+            if (required[s] && getBit(state, visibleBase, s) && !getBit(state, answeredBase, s)) return titles[s];
+        }
+        return null;
+    }
+
+    /**
+     * [功能] 題目在最近一次 evaluate 的結果中是否顯示 (不在問卷中的題目回傳 false)
+     */
+    public boolean isVisible(long[] state, Long questionId) {
+        Integer slot = questionId != null ? slotOf.get(questionId) : null;
+        return slot != null && getBit(state, optionWords, slot);
+    }
+
+    // 遮罩只可能落在來源題的選項位元範圍內，只需比對那幾個 long
+    private boolean intersects(long[] state, int condition, int source) {
+        if (optionStart[source] == optionEnd[source]) return false;
+        int base = condition * optionWords;
+        for (int w = optionStart[source] >>> 6, last = (optionEnd[source] - 1) >>> 6; w <= last; w++) {
+            if ((state[w] & conditionMask[base + w]) != 0) return true;
+        }
+        return false;
+    }
+
+    private static void setBit(long[] state, int base, int bit) {
+        state[base + (bit >>> 6)] |= 1L << bit;
+    }
+
+    private static boolean getBit(long[] state, int base, int bit) {
+        return (state[base + (bit >>> 6)] & (1L << bit)) != 0;
+    }
+}
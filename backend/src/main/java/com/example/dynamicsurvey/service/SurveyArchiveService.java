@@ -0,0 +1,138 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.config.ResponseShardRouter.Shard;
+import com.example.dynamicsurvey.dto.SurveyStatsDTO;
+import com.example.dynamicsurvey.entity.Survey;
+import com.example.dynamicsurvey.repository.ResponseArchiveRepository;
+import com.example.dynamicsurvey.repository.ResponseStore;
+import com.example.dynamicsurvey.repository.SurveyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * [教學說明] 已結束問卷的作答封存 (Survey Archive Service)
+ * -----------------------------------------------------------------------------
+ * 【設計意圖】
+ * 問卷結束後作答就不會再變動，卻仍佔用 survey_responses 等熱資料表與其索引。
+ * 每日排程會挑出「結束日期已超過寬限天數」的問卷：
+ * 1. 先計算最終統計並寫入 survey_stats_snapshots (凍結結果)。
+ * 2. 再以固定批次大小，每批一個 (作答所在分片的) 交易，將作答搬移到同一分片的 archived_* 資料表。
+ * 3. 全部搬完後將快照標記為 completed。
+ * getSurveyStats / getSurveyResponses / getResponseDetail 會透明讀取封存資料。
+ * 中途失敗可安全重跑：已寫入快照的問卷只會繼續搬移剩下的批次。
+ */
+@Service
+public class SurveyArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SurveyArchiveService.class);
+
+    @Autowired
+    SurveyRepository surveyRepository;
+
+    @Autowired
+    ResponseStore responseStore;
+
+    @Autowired
+    ResponseShardRouter router;
+
+    @Autowired
+    ResponseArchiveRepository archiveRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${survey.archive.grace-days:7}")
+    private int graceDays;
+
+    @Value("${survey.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${survey.stats.batch-size:1000}")
+    private int statsBatchSize;
+
+    private final TransactionTemplate tx;
+
+    public SurveyArchiveService(PlatformTransactionManager transactionManager) {
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * [排程] 封存所有已結束超過寬限期的問卷
+     */
+    @Scheduled(cron = "${survey.archive.cron:0 30 3 * * *}")
+    public void archiveClosedSurveys() {
+        List<Long> surveyIds = archiveRepository.findSurveysToArchive(LocalDate.now().minusDays(graceDays));
+        for (Long surveyId : surveyIds) {
+            try {
+                archiveSurvey(surveyId);
+            } catch (Exception e) {
+                logger.error("問卷 {} 封存失敗: {}", surveyId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * [功能] 封存單一問卷：寫入統計快照後分批搬移作答
+     */
+    public void archiveSurvey(Long surveyId) {
+        // 先前中斷過的問卷已有快照，直接續搬剩下的作答
+        if (archiveRepository.findSnapshotJson(surveyId).isEmpty()) tx.executeWithoutResult(status -> {
+            Survey survey = surveyRepository.findById(surveyId).orElseThrow();
+            SurveyStatsAggregator aggregator = new SurveyStatsAggregator(survey);
+            responseStore.forEachBySurveyId(surveyId, statsBatchSize, aggregator::add);
+            SurveyStatsDTO stats = aggregator.result();
+            archiveRepository.saveSnapshot(surveyId, stats.totalResponses(), toJson(stats));
+        });
+        int moved = moveRemaining(surveyId);
+        archiveRepository.markCompleted(surveyId);
+        logger.info("問卷 {} 已封存，共搬移 {} 筆作答", surveyId, moved);
+    }
+
+    /**
+     * [功能] 讀取已封存問卷的凍結統計
+     */
+    public Optional<SurveyStatsDTO> findSnapshot(Long surveyId) {
+        return archiveRepository.findSnapshotJson(surveyId).map(json -> {
+            try {
+                return objectMapper.readValue(json, SurveyStatsDTO.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("統計快照格式錯誤: " + surveyId, e);
+            }
+        });
+    }
+
+    private int moveRemaining(Long surveyId) {
+        Shard shard = router.forRead(surveyId);
+        int moved = 0;
+        while (true) {
+            Integer count = shard.tx().execute(status -> {
+                List<Long> ids = archiveRepository.findLiveResponseIds(shard, surveyId, batchSize);
+                if (!ids.isEmpty()) archiveRepository.moveBatch(shard, ids);
+                return ids.size();
+            });
+            if (count == null || count == 0) return moved;
+            moved += count;
+        }
+    }
+
+    private String toJson(SurveyStatsDTO stats) {
+        try {
+            return objectMapper.writeValueAsString(stats);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
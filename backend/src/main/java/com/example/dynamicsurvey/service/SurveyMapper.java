@@ -0,0 +1,295 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.dto.AnswerDTO;
+import com.example.dynamicsurvey.dto.OptionDTO;
+import com.example.dynamicsurvey.dto.QuestionDTO;
+import com.example.dynamicsurvey.dto.ShowConditionDTO;
+import com.example.dynamicsurvey.dto.SurveyDTO;
+import com.example.dynamicsurvey.entity.*;
+
+import java.util.*;
+
+/**
+ * [教學說明] 問卷實體與 DTO 的轉換 (Survey Mapper)
+ * -----------------------------------------------------------------------------
+ * 【設計意圖】
+ * 問卷詳情轉換 (convertToDTO) 與作答對應題目 (submitResponse) 是每次作答都會經過的熱路徑。
+ * 抽成不依賴 Spring / 資料庫的純函式，SurveyService 與 JMH 基準測試共用同一份實作。
+ *
+ * 作答對應：原本每個答案都以 stream 掃描全部題目 (題數 x 答案數)，
+ * 這裡先建立「題目 ID -> 題目」索引，每個答案只需一次查表。
+ *
+ * 問卷更新 (merge)：原本 saveSurvey 會清空題目後全部重建，透過 orphanRemoval
+ * 每次編輯都刪除並重新新增整棵樹，既有作答的外鍵也會因此失效。
+ * 這裡改以 ID 比對新舊題目 / 選項：
+ *   - 相同 ID 的節點就地更新欄位 (值未變動時 Hibernate 不會產生 UPDATE)；
+ *   - 沒有 ID 或 ID 不屬於此問卷的節點視為新增；
+ *   - 送來的資料中不存在的節點自集合移除，由 orphanRemoval 刪除。
+ * 只有成員或順序真的改變時才重排集合，避免無謂地讓二級快取中的集合失效。
+ *
+ * 版本判斷 (sameDefinition)：已發佈的問卷內容凍結，儲存時先判斷送來的內容是否與目前版本相同；
+ * 只有狀態不同時就地更新狀態，內容不同時由 SurveyService 另建新版本。
+ * 作答名額 (maxResponses、選項 quota) 不屬於凍結內容，不列入比較，由 applyQuotas 就地更新。
+ *
+ * 顯示條件 (showIf)：以 orderIndex 引用來源題與選項，保存為 SkipLogicPlan.format 的字串；
+ * 轉為 DTO 時另外填入來源題與選項的 ID，前台可直接與作答比對。
+ */
+public final class SurveyMapper {
+
+    private SurveyMapper() {
+    }
+
+    /**
+     * [功能] 問卷實體轉為前端使用的 DTO (含題目與選項)
+     */
+    public static SurveyDTO toDTO(Survey s) {
+        SurveyDTO dto = new SurveyDTO();
+        dto.setId(s.getId()); dto.setTitle(s.getTitle()); dto.setDescription(s.getDescription());
+        dto.setStartDate(s.getStartDate()); dto.setEndDate(s.getEndDate()); dto.setStatus(s.getStatus());
+        dto.setRootId(s.getRootId()); dto.setVersionNo(s.getVersionNo()); dto.setMaxResponses(s.getMaxResponses());
+        Map<Integer, Question> byOrder = null;
+        List<QuestionDTO> questions = new ArrayList<>(s.getQuestions().size());
+        for (Question q : s.getQuestions()) {
+            QuestionDTO qDto = new QuestionDTO();
+            qDto.setId(q.getId()); qDto.setTitle(q.getTitle()); qDto.setType(q.getType());
+            qDto.setRequired(q.isRequired()); qDto.setOrderIndex(q.getOrderIndex());
+            qDto.setMinValue(q.getMinValue()); qDto.setMaxValue(q.getMaxValue());
+            if (q.getShowIf() != null) {
+                // 大多數問卷沒有顯示條件，有用到時才建立索引
+                if (byOrder == null) {
+                    byOrder = new HashMap<>(s.getQuestions().size() * 2);
+                    for (Question other : s.getQuestions()) byOrder.putIfAbsent(other.getOrderIndex(), other);
+                }
+                qDto.setShowIf(toConditionDTOs(q.getShowIf(), byOrder));
+            }
+            List<OptionDTO> options = new ArrayList<>(q.getOptions().size());
+            for (Option o : q.getOptions()) {
+                OptionDTO oDto = new OptionDTO();
+                oDto.setId(o.getId()); oDto.setOptionText(o.getOptionText()); oDto.setOrderIndex(o.getOrderIndex());
+                oDto.setQuota(o.getQuota());
+                options.add(oDto);
+            }
+            qDto.setOptions(options);
+            questions.add(qDto);
+        }
+        dto.setQuestions(questions);
+        return dto;
+    }
+
+    private static List<ShowConditionDTO> toConditionDTOs(String showIf, Map<Integer, Question> byOrder) {
+        List<ShowConditionDTO> conditions = SkipLogicPlan.parse(showIf);
+        for (ShowConditionDTO c : conditions) {
+            Question source = byOrder.get(c.getQuestionOrderIndex());
+            if (source == null) continue;
+            c.setQuestionId(source.getId());
+            List<Long> optionIds = new ArrayList<>(c.getOptionOrderIndexes().size());
+            for (Option o : source.getOptions()) {
+                if (c.getOptionOrderIndexes().contains(o.getOrderIndex())) optionIds.add(o.getId());
+            }
+            c.setOptionIds(optionIds);
+        }
+        return conditions;
+    }
+
+    /**
+     * [功能] 判斷 dto 的內容 (標題、說明、日期、題目與選項) 是否與 survey 完全相同 (狀態不列入比較)
+     * 新增的節點 (沒有 ID 或 ID 不屬於此問卷) 一律視為不同。
+     */
+    public static boolean sameDefinition(Survey survey, SurveyDTO dto) {
+        if (!Objects.equals(survey.getTitle(), dto.getTitle())
+                || !Objects.equals(survey.getDescription(), dto.getDescription())
+                || !Objects.equals(survey.getStartDate(), dto.getStartDate())
+                || !Objects.equals(survey.getEndDate(), dto.getEndDate())
+                || survey.getQuestions().size() != dto.getQuestions().size()) {
+            return false;
+        }
+        Map<Long, Question> byId = new HashMap<>(survey.getQuestions().size() * 2);
+        for (Question q : survey.getQuestions()) byId.put(q.getId(), q);
+        for (QuestionDTO qDto : dto.getQuestions()) {
+            Question q = qDto.getId() != null ? byId.remove(qDto.getId()) : null;
+            if (q == null
+                    || !Objects.equals(q.getTitle(), qDto.getTitle())
+                    || !Objects.equals(q.getType(), qDto.getType())
+                    || q.isRequired() != qDto.isRequired()
+                    || q.getOrderIndex() != qDto.getOrderIndex()
+                    || !Objects.equals(q.getMinValue(), qDto.getMinValue())
+                    || !Objects.equals(q.getMaxValue(), qDto.getMaxValue())
+                    || !Objects.equals(q.getShowIf(), SkipLogicPlan.format(qDto.getShowIf()))
+                    || !sameOptions(q, qDto.getOptions() != null ? qDto.getOptions() : List.of())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameOptions(Question question, List<OptionDTO> options) {
+        if (question.getOptions().size() != options.size()) return false;
+        Map<Long, Option> byId = new HashMap<>(options.size() * 2);
+        for (Option o : question.getOptions()) byId.put(o.getId(), o);
+        for (OptionDTO oDto : options) {
+            Option o = oDto.getId() != null ? byId.remove(oDto.getId()) : null;
+            if (o == null
+                    || !Objects.equals(o.getOptionText(), oDto.getOptionText())
+                    || o.getOrderIndex() != oDto.getOrderIndex()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 更新時將被刪除的題目與選項 ID (呼叫端據此檢查是否已有作答)
+     */
+    public record Removed(Set<Long> questionIds, Set<Long> optionIds) {
+        public boolean isEmpty() {
+            return questionIds.isEmpty() && optionIds.isEmpty();
+        }
+    }
+
+    /**
+     * [功能] 計算將 dto 套用到 survey 後會被刪除的題目與選項 (不修改實體)
+     * 被刪除題目底下的選項一併列入。
+     */
+    public static Removed removedNodes(Survey survey, SurveyDTO dto) {
+        Map<Long, QuestionDTO> incoming = new HashMap<>();
+        for (QuestionDTO qDto : dto.getQuestions()) {
+            if (qDto.getId() != null) incoming.put(qDto.getId(), qDto);
+        }
+        Set<Long> questionIds = new HashSet<>();
+        Set<Long> optionIds = new HashSet<>();
+        for (Question q : survey.getQuestions()) {
+            QuestionDTO qDto = incoming.get(q.getId());
+            if (qDto == null) questionIds.add(q.getId());
+            Set<Long> keptOptions = new HashSet<>();
+            if (qDto != null && qDto.getOptions() != null) {
+                for (OptionDTO oDto : qDto.getOptions()) {
+                    if (oDto.getId() != null) keptOptions.add(oDto.getId());
+                }
+            }
+            for (Option o : q.getOptions()) {
+                if (!keptOptions.contains(o.getId())) optionIds.add(o.getId());
+            }
+        }
+        return new Removed(questionIds, optionIds);
+    }
+
+    /**
+     * [功能] 將 dto 的內容以差異方式套用到 survey (新問卷則全部新增)
+     */
+    public static void merge(Survey survey, SurveyDTO dto) {
+        survey.setTitle(dto.getTitle());
+        survey.setDescription(dto.getDescription());
+        survey.setStartDate(dto.getStartDate());
+        survey.setEndDate(dto.getEndDate());
+        survey.setStatus(dto.getStatus());
+        survey.setMaxResponses(dto.getMaxResponses());
+
+        Map<Long, Question> existing = new HashMap<>(survey.getQuestions().size() * 2);
+        for (Question q : survey.getQuestions()) existing.put(q.getId(), q);
+
+        List<Question> merged = new ArrayList<>(dto.getQuestions().size());
+        for (QuestionDTO qDto : dto.getQuestions()) {
+            Question q = qDto.getId() != null ? existing.remove(qDto.getId()) : null;
+            if (q == null) {
+                q = new Question();
+                q.setSurvey(survey);
+            }
+            q.setTitle(qDto.getTitle());
+            q.setType(qDto.getType());
+            q.setRequired(qDto.isRequired());
+            q.setOrderIndex(qDto.getOrderIndex());
+            q.setMinValue(qDto.getMinValue());
+            q.setMaxValue(qDto.getMaxValue());
+            q.setShowIf(SkipLogicPlan.format(qDto.getShowIf()));
+            mergeOptions(q, qDto.getOptions() != null ? qDto.getOptions() : List.of());
+            merged.add(q);
+        }
+        merged.sort(Comparator.comparingInt(Question::getOrderIndex));
+        replaceIfChanged(survey.getQuestions(), merged);
+    }
+
+    private static void mergeOptions(Question question, List<OptionDTO> options) {
+        Map<Long, Option> existing = new HashMap<>(question.getOptions().size() * 2);
+        for (Option o : question.getOptions()) existing.put(o.getId(), o);
+
+        List<Option> merged = new ArrayList<>(options.size());
+        for (OptionDTO oDto : options) {
+            Option o = oDto.getId() != null ? existing.remove(oDto.getId()) : null;
+            if (o == null) {
+                o = new Option();
+                o.setQuestion(question);
+            }
+            o.setOptionText(oDto.getOptionText());
+            o.setOrderIndex(oDto.getOrderIndex());
+            o.setQuota(oDto.getQuota());
+            merged.add(o);
+        }
+        merged.sort(Comparator.comparingInt(Option::getOrderIndex));
+        replaceIfChanged(question.getOptions(), merged);
+    }
+
+    /**
+     * [功能] 只套用作答名額 (已凍結且內容相同的版本使用；選項以 ID 對應)
+     */
+    public static void applyQuotas(Survey survey, SurveyDTO dto) {
+        survey.setMaxResponses(dto.getMaxResponses());
+        Map<Long, Integer> quotas = new HashMap<>();
+        for (QuestionDTO qDto : dto.getQuestions()) {
+            if (qDto.getOptions() == null) continue;
+            for (OptionDTO oDto : qDto.getOptions()) {
+                if (oDto.getId() != null) quotas.put(oDto.getId(), oDto.getQuota());
+            }
+        }
+        for (Question q : survey.getQuestions()) {
+            for (Option o : q.getOptions()) o.setQuota(quotas.get(o.getId()));
+        }
+    }
+
+    /**
+     * 成員與順序都相同時不動集合；否則就地替換內容 (保留 Hibernate 的 PersistentBag)
+     */
+    private static <T> void replaceIfChanged(List<T> current, List<T> merged) {
+        if (current.size() == merged.size()) {
+            boolean same = true;
+            for (int i = 0; i < current.size() && same; i++) same = current.get(i) == merged.get(i);
+            if (same) return;
+        }
+        current.clear();
+        current.addAll(merged);
+    }
+
+    /**
+     * [功能] 將提交的答案對應到問卷題目，加入 response.getAnswers()
+     * 找不到題目的答案 (例如題目已被刪除) 直接略過。
+     */
+    public static void addAnswers(SurveyResponse response, Survey survey, List<AnswerDTO> answers) {
+        Map<Long, Question> byId = new HashMap<>(survey.getQuestions().size() * 2);
+        for (Question q : survey.getQuestions()) byId.put(q.getId(), q);
+
+        for (AnswerDTO aDto : answers) {
+            Question question = byId.get(aDto.getQuestionId());
+            if (question == null) continue;
+            ResponseAnswer answer = new ResponseAnswer();
+            answer.setSurveyResponse(response);
+            answer.setQuestion(question);
+            if (!QuestionTypes.isChoice(question.getType())) {
+                // 簡答題與數值題 (數值已由 QuestionTypes.checkAnswers 正規化)
+                answer.setAnswerText(aDto.getAnswerText());
+            } else {
+                List<Long> chosen = aDto.getOptionIds() != null ? aDto.getOptionIds() : List.of();
+                // 依題目中的選項順序保留被選取的選項
+                List<Option> selected = new ArrayList<>(chosen.size());
+                StringJoiner text = new StringJoiner(";");
+                for (Option o : question.getOptions()) {
+                    if (chosen.contains(o.getId())) {
+                        selected.add(o);
+                        text.add(o.getOptionText());
+                    }
+                }
+                answer.setSelectedOptions(selected);
+                answer.setAnswerText(text.toString());
+            }
+            response.getAnswers().add(answer);
+        }
+    }
+}
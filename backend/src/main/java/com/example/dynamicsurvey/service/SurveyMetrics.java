@@ -0,0 +1,144 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.vo.AppResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpSessionAttributeListener;
+import jakarta.servlet.http.HttpSessionBindingEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * [教學說明] 問卷熱路徑指標 (Survey Metrics)
+ * -----------------------------------------------------------------------------
+ * 【設計意圖】
+ * 集中建立 SurveyService 使用的 Micrometer 指標，業務程式只需一行包起來：
+ *   - survey.operation     : 計時器，標籤 operation (submitResponse / getSurveyStats ...) 與 outcome
+ *   - survey.response.duplicate_email : 同一 Email 重複填寫被拒絕的次數
+ *   - survey.response.quota_full      : 名額已滿而被拒絕的提交次數
+ *   - survey.draft.sessions : 目前 Session 中暫存的作答 / 後台編輯草稿數量
+ * Repository 呼叫 (spring.data.repository.invocations)、HTTP 端點 (http.server.requests)
+ * 與 Hikari 連線池 (hikaricp.connections.*) 由 Spring Boot 自動量測，不在此重複。
+ *
+ * 【低負擔】
+ * 每組 operation + outcome 的 Timer 只建立一次並保存在本地 Map，熱路徑上不重複查找 registry；
+ * 直方圖預設關閉，需要時以 management.metrics.distribution.percentiles-histogram.survey.operation=true 開啟。
+ */
+@Component
+public class SurveyMetrics implements HttpSessionAttributeListener {
+
+    // outcome 標籤值：與 HTTP 指標相同的分類，避免以錯誤訊息當標籤造成高基數
+    static final String SUCCESS = "SUCCESS";
+    static final String CLIENT_ERROR = "CLIENT_ERROR";
+    static final String SERVER_ERROR = "SERVER_ERROR";
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private Counter duplicateEmail;
+    private Counter quotaFull;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger responseDrafts = new AtomicInteger();
+    private final AtomicInteger adminDrafts = new AtomicInteger();
+
+    @PostConstruct
+    void init() {
+        duplicateEmail = Counter.builder("survey.response.duplicate_email")
+                .description("同一 Email 重複填寫同一份問卷而被拒絕的次數")
+                .register(meterRegistry);
+        quotaFull = Counter.builder("survey.response.quota_full")
+                .description("作答名額已滿而被拒絕的提交次數")
+                .register(meterRegistry);
+        Gauge.builder("survey.draft.sessions", responseDrafts, AtomicInteger::get)
+                .tag("kind", "response").description("Session 中暫存、尚未正式提交的作答數")
+                .register(meterRegistry);
+        Gauge.builder("survey.draft.sessions", adminDrafts, AtomicInteger::get)
+                .tag("kind", "admin").description("Session 中暫存、尚未儲存的後台問卷編輯數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * [功能] 計時一個回傳 AppResponse 的業務操作，outcome 依回應代碼分類
+     */
+    public <T extends AppResponse<?>> T record(String operation, Supplier<T> work) {
+        long start = System.nanoTime();
+        String outcome = SERVER_ERROR;
+        try {
+            T response = work.get();
+            outcome = outcomeOf(response.getCode());
+            return response;
+        } finally {
+            timer(operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * [功能] 計時純運算 (例如 convertToDTO)，只區分成功或拋出例外
+     */
+    public <T> T time(String operation, Supplier<T> work) {
+        long start = System.nanoTime();
+        String outcome = SERVER_ERROR;
+        try {
+            T result = work.get();
+            outcome = SUCCESS;
+            return result;
+        } finally {
+            timer(operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void duplicateEmailRejected() {
+        duplicateEmail.increment();
+    }
+
+    public void quotaRejected() {
+        quotaFull.increment();
+    }
+
+    // =========================================================================
+    // Session 草稿計數 (Spring Boot 會自動註冊實作 Servlet 監聽介面的 Bean)
+    // Session 失效或逾時時，容器會對每個屬性觸發 attributeRemoved，計數因此能正確遞減。
+    // =========================================================================
+
+    @Override
+    public void attributeAdded(HttpSessionBindingEvent event) {
+        AtomicInteger counter = counterFor(event.getName());
+        if (counter != null) counter.incrementAndGet();
+    }
+
+    @Override
+    public void attributeRemoved(HttpSessionBindingEvent event) {
+        AtomicInteger counter = counterFor(event.getName());
+        if (counter != null) counter.decrementAndGet();
+    }
+
+    private AtomicInteger counterFor(String attribute) {
+        if (SurveyService.SURVEY_SESSION_KEY.equals(attribute)) return responseDrafts;
+        if (SurveyService.ADMIN_EDIT_SESSION_KEY.equals(attribute)) return adminDrafts;
+        return null;
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return timers.computeIfAbsent(operation + '|' + outcome, k -> Timer.builder("survey.operation")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    static String outcomeOf(int code) {
+        if (code < 400) return SUCCESS;
+        if (code < 500) return CLIENT_ERROR;
+        return SERVER_ERROR;
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.entity.Survey;
+import com.example.dynamicsurvey.repository.SurveyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * [教學說明] 問卷標題 N-gram 倒排索引 (Survey Search Index)
+ * -----------------------------------------------------------------------------
+ * 【設計意圖】
+ * 資料庫的 LIKE '%關鍵字%' 無法使用索引，每次搜尋都會掃描整張 surveys 表。
+ * 這裡在記憶體中為「標題 + 說明」建立三字元 (trigram) 倒排索引：
+ *   gram -> 含有該 gram 的問卷 ID (已排序的 long 陣列)
+ *
+ * 【查詢流程】
+ * 1. 將關鍵字正規化 (NFKC + 小寫)，拆成 trigram，取各 posting 的交集得到候選。
+ * 2. 候選再以實際字串比對確認 (trigram 交集可能誤判)，並套用日期區間篩選。
+ * 3. 關鍵字不足三個字時 (中文常見兩字詞)，直接掃描記憶體中的標題，仍不需查資料庫。
+ *
+ * 以 Unicode code point 切字，中日韓文字與表情符號都能正確處理。
+ *
+ * 【多節點】
+ * 本節點的儲存 / 刪除在交易提交後直接更新索引 (SurveyService)；其他節點的變更由 catchUp 定期補入：
+ *   - 讀取 updated_at 晚於「已讀到的最大修改時間 - overlap」的問卷重新放入
+ *     (overlap 涵蓋較晚提交的交易與節點間的時鐘誤差，內容沒變的問卷不會重建)；
+ *   - 資料庫筆數與索引筆數不同時，才讀取全部問卷 ID 找出已被刪除的問卷。
+ */
+@Component
+public class SurveySearchIndex {
+
+    private static final int GRAM = 3;
+
+    private static final Logger logger = LoggerFactory.getLogger(SurveySearchIndex.class);
+
+    @Autowired
+    SurveyRepository surveyRepository;
+
+    // 補入時往前多讀的秒數
+    @Value("${survey.search-index.catch-up-overlap-seconds:60}")
+    private long overlapSeconds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 問卷 ID -> 索引用的正規化內容 (重建時整個替換，由 lock 保護)
+    private Map<Long, Entry> entries = new HashMap<>();
+
+    // trigram -> 問卷 ID 清單
+    private Map<String, Postings> postings = new HashMap<>();
+
+    // 已由資料庫讀到的最大修改時間；null 表示尚未載入
+    private volatile LocalDateTime watermark;
+
+    /**
+     * [功能] 啟動完成後由資料庫載入全部問卷建立索引 (含已被新版本取代的舊版本，後台仍需搜尋得到)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        List<Survey> surveys = surveyRepository.findAll();
+        rebuild(surveys);
+        // 沒有任何問卷時從現在開始補入 (時鐘誤差由 overlap 涵蓋)
+        LocalDateTime max = latest(surveys, null);
+        watermark = max != null ? max : LocalDateTime.now();
+    }
+
+    /**
+     * [排程] 補入其他節點新增、修改與刪除的問卷
+     */
+    @Scheduled(fixedDelayString = "${survey.search-index.catch-up-ms:10000}",
+            initialDelayString = "${survey.search-index.catch-up-ms:10000}")
+    public void catchUp() {
+        LocalDateTime since = watermark;
+        if (since == null) return;
+        try {
+            Set<Long> known = ids();
+            List<Survey> changed = surveyRepository.findUpdatedAfter(since.minusSeconds(overlapSeconds));
+            changed.forEach(this::put);
+            watermark = latest(changed, since);
+            if (surveyRepository.count() != size()) {
+                // 只移除讀取前就在索引中的問卷：讀取後才由本節點加入的問卷可能不在 existing 中
+                Set<Long> existing = new HashSet<>(surveyRepository.findAllIds());
+                for (Long id : known) {
+                    if (!existing.contains(id)) remove(id);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("問卷搜尋索引補入失敗: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * [功能] 新增或更新一份問卷的索引 (內容沒有變化時不做任何事)
+     */
+    public void put(Survey survey) {
+        Entry entry = entryOf(survey);
+        lock.writeLock().lock();
+        try {
+            if (entry.equals(entries.get(entry.id))) return;
+            removeInternal(survey.getId());
+            entries.put(entry.id, entry);
+            for (String g : grams(entry)) {
+                postings.computeIfAbsent(g, k -> new Postings()).add(entry.id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * [功能] 移除一份問卷的索引
+     */
+    public void remove(Long surveyId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(surveyId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * [功能] 以整批資料重建索引 (啟動時使用)
+     * 新的索引在鎖外建立完成後才替換，重建期間的查詢仍使用舊索引，不會看到空的或部分的結果。
+     * 建立期間其他執行緒的 put / remove 會被覆蓋，由下一次 catchUp 補回。
+     */
+    public void rebuild(Collection<Survey> surveys) {
+        TreeMap<Long, Entry> sorted = new TreeMap<>();
+        for (Survey s : surveys) sorted.put(s.getId(), entryOf(s));
+        Map<Long, Entry> newEntries = new HashMap<>(sorted);
+        Map<String, Postings> newPostings = new HashMap<>();
+        // 依 ID 遞增加入，posting 一律附加在尾端
+        for (Entry e : sorted.values()) {
+            for (String g : grams(e)) newPostings.computeIfAbsent(g, k -> new Postings()).add(e.id);
+        }
+        lock.writeLock().lock();
+        try {
+            entries = newEntries;
+            postings = newPostings;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * [功能] 搜尋問卷 ID
+     * @param keyword 關鍵字
+     * @param prefix  true: 標題前綴比對；false: 標題或說明包含關鍵字
+     * @param start   開始日期下限 (可為 null)
+     * @param end     結束日期上限 (可為 null)
+     * @param limit   最多回傳筆數
+     * @return 依 ID 由新到舊排序的問卷 ID
+     */
+    public List<Long> search(String keyword, boolean prefix, LocalDate start, LocalDate end, int limit) {
+        String q = normalize(keyword);
+        lock.readLock().lock();
+        try {
+            Collection<Long> candidates = candidates(q);
+            List<Long> result = new ArrayList<>();
+            for (Long id : candidates) {
+                Entry e = entries.get(id);
+                if (e == null || !e.matches(q, prefix) || !e.within(start, end)) continue;
+                result.add(id);
+                if (result.size() >= limit) break;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<Long> ids() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(entries.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Entry entryOf(Survey survey) {
+        return new Entry(survey.getId(), normalize(survey.getTitle()), normalize(survey.getDescription()),
+                survey.getStartDate(), survey.getEndDate());
+    }
+
+    // surveys 與 since 中最晚的修改時間
+    private static LocalDateTime latest(Collection<Survey> surveys, LocalDateTime since) {
+        LocalDateTime max = since;
+        for (Survey s : surveys) {
+            if (s.getUpdatedAt() != null && (max == null || s.getUpdatedAt().isAfter(max))) max = s.getUpdatedAt();
+        }
+        return max;
+    }
+
+    /**
+     * 取得候選問卷 (由新到舊)；關鍵字過短時退回全部問卷，再交給字串比對過濾
+     */
+    private Collection<Long> candidates(String q) {
+        int[] cps = q.codePoints().toArray();
+        if (cps.length < GRAM) {
+            List<Long> all = new ArrayList<>(entries.keySet());
+            all.sort(Comparator.reverseOrder());
+            return all;
+        }
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= cps.length; i++) {
+            Postings p = postings.get(new String(cps, i, GRAM));
+            if (p == null) return Collections.emptyList();
+            lists.add(p);
+        }
+        // 由最短的清單開始求交集，交集大小只會越來越小
+        lists.sort(Comparator.comparingInt(p -> p.size));
+        long[] acc = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int accSize = acc.length;
+        for (int i = 1; i < lists.size() && accSize > 0; i++) {
+            accSize = lists.get(i).retainInto(acc, accSize);
+        }
+        List<Long> result = new ArrayList<>(accSize);
+        for (int i = accSize - 1; i >= 0; i--) result.add(acc[i]);
+        return result;
+    }
+
+    private void removeInternal(Long surveyId) {
+        Entry old = entries.remove(surveyId);
+        if (old == null) return;
+        for (String g : grams(old)) {
+            Postings p = postings.get(g);
+            if (p != null && p.remove(surveyId) && p.size == 0) postings.remove(g);
+        }
+    }
+
+    private static Set<String> grams(Entry e) {
+        Set<String> set = new HashSet<>();
+        addGrams(e.title, set);
+        addGrams(e.description, set);
+        return set;
+    }
+
+    private static void addGrams(String text, Set<String> out) {
+        int[] cps = text.codePoints().toArray();
+        for (int i = 0; i + GRAM <= cps.length; i++) {
+            out.add(new String(cps, i, GRAM));
+        }
+    }
+
+    /**
+     * 正規化：全形轉半形 (NFKC) 並轉小寫，讓「ＡＢＣ」與「abc」視為相同
+     */
+    static String normalize(String text) {
+        if (text == null) return "";
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim();
+    }
+
+    /**
+     * 索引中的單筆問卷資料
+     */
+    private record Entry(Long id, String title, String description, LocalDate startDate, LocalDate endDate) {
+
+        boolean matches(String q, boolean prefix) {
+            if (prefix) return title.startsWith(q);
+            return title.contains(q) || description.contains(q);
+        }
+
+        boolean within(LocalDate start, LocalDate end) {
+            if (start != null && (startDate == null || startDate.isBefore(start))) return false;
+            if (end != null && (endDate == null || endDate.isAfter(end))) return false;
+            return true;
+        }
+    }
+
+    /**
+     * 已排序的問卷 ID 陣列；相較 HashSet<Long> 每筆只佔 8 bytes
+     */
+    private static final class Postings {
+        long[] ids = new long[4];
+        int size;
+
+        void add(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) return;
+            pos = -pos - 1;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) return false;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * 將 acc[0..accSize) 與本清單求交集，結果寫回 acc，回傳新的長度
+         */
+        int retainInto(long[] acc, int accSize) {
+            int i = 0, j = 0, k = 0;
+            while (i < accSize && j < size) {
+                if (acc[i] < ids[j]) i++;
+                else if (acc[i] > ids[j]) j++;
+                else { acc[k++] = acc[i]; i++; j++; }
+            }
+            return k;
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package com.example.dynamicsurvey.service;
 
+import com.example.dynamicsurvey.config.ResponseShardRouter;
 import com.example.dynamicsurvey.dto.*;
 import com.example.dynamicsurvey.entity.*;
 import com.example.dynamicsurvey.repository.*;
 import com.example.dynamicsurvey.security.UserDetailsImpl;
 import com.example.dynamicsurvey.vo.AppResponse;
 import com.example.dynamicsurvey.vo.RspCode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -21,6 +30,29 @@ import java.util.stream.Collectors;
 
 /**
  * [教學說明] 問卷核心業務邏輯層 (Survey Service)
+ * -----------------------------------------------------------------------------
+ * 【問卷版本】
+ * 問卷第一次發佈時記錄 publishedAt，之後內容即凍結 (作答引用的題目與選項永遠不變)：
+ *   - 只改狀態 (例如下架) 時就地更新；
+ *   - 內容有變動時另建新版本 (copy-on-write)，沿用同一份問卷尚未發佈的草稿版本；
+ *   - 新版本「發佈」時，同一份問卷先前發佈過的版本才改為 SUPERSEDED (不再收件、不可編輯)；
+ *     只儲存新版本草稿不影響舊版本。被取代的版本仍列在後台 (依 lineageId 分組)，作答、統計與作答者搜尋照常可查。
+ * 統計與作答都以版本 (surveys 的一筆資料列) 為單位，題目不會在收件期間被改動。
+ *
+ * 【顯示條件】
+ * 儲存問卷時驗證題目的顯示條件 (見 SkipLogicPlan)；暫存作答 (下一步) 與正式提交時再於後端判斷一次：
+ * 被隱藏題目的答案直接捨棄，被隱藏的必填題不檢查。已凍結版本的編譯結果快取，草稿每次重新編譯。
+ *
+ * 【數值題】
+ * 儲存問卷時驗證題目類型與數值範圍，暫存與提交作答時驗證並正規化數值答案 (見 QuestionTypes)。
+ *
+ * 【作答名額】
+ * 提交時向 ResponseQuotaService 預留名額，交易提交後確認、回滾時歸還；額滿的問卷不出現在前台列表。
+ * 名額設定不屬於凍結內容，已發佈的版本可直接調整。
+ *
+ * 【作答者搜尋】
+ * 後台以姓名 / Email / 電話開頭搜尋作答者，查詢記憶體中的前綴索引 (RespondentSearchService)；
+ * 提交的作答在交易提交後加入索引。
  */
 @Service
 public class SurveyService {
@@ -32,28 +64,126 @@ public class SurveyService {
     UserRepository userRepository;
     
     @Autowired
-    SurveyResponseRepository responseRepository;
+    ResponseStore responseStore;
 
-    // 前台作答 Session Key
-    private static final String SURVEY_SESSION_KEY = "TEMP_SURVEY_RESPONSE";
+    @Autowired
+    ResponseShardRouter shardRouter;
+
+    @Autowired
+    SurveySearchIndex searchIndex;
+
+    @Autowired
+    SurveyArchiveService archiveService;
+
+    @Autowired
+    ResponseArchiveRepository archiveRepository;
+
+    @Autowired
+    ResponseQuotaService quotaService;
+
+    @Autowired
+    RespondentSearchService respondentSearch;
+
+    @Autowired
+    SurveyMetrics metrics;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    // 前台作答 Session Key (SurveyMetrics 依此計算草稿數)
+    static final String SURVEY_SESSION_KEY = "TEMP_SURVEY_RESPONSE";
     // 後台編輯 Session Key
-    private static final String ADMIN_EDIT_SESSION_KEY = "TEMP_ADMIN_SURVEY";
+    static final String ADMIN_EDIT_SESSION_KEY = "TEMP_ADMIN_SURVEY";
+    // 作答歷史單頁筆數上限
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    // 作答者搜尋單頁筆數上限，以及可翻到的最大範圍 (再往後請輸入更精確的關鍵字)
+    private static final int MAX_RESPONDENT_PAGE_SIZE = 100;
+    private static final int MAX_RESPONDENT_SEARCH_WINDOW = 10_000;
+
+    // 後台標題搜尋最多回傳筆數
+    @Value("${survey.search.max-results:500}")
+    private int maxSearchResults;
+
+    // 統計時每批讀取的作答筆數 (記憶體用量只與此值有關，TEXT 題的文字答案除外)
+    @Value("${survey.stats.batch-size:1000}")
+    private int statsBatchSize;
+
+    // 已凍結版本的內容不會再改變，快取只需容量上限，不需要過期時間
+    @Value("${survey.version-cache.max-size:2000}")
+    private long versionCacheSize;
+
+    private Cache<Long, SurveyDTO> versionCache;
+
+    private Cache<Long, SkipLogicPlan> skipLogicPlans;
+
+    // 顯示條件判斷用的暫存陣列，每個執行緒重複使用 (長度不足時才重新配置)
+    private final ThreadLocal<long[]> skipLogicState = ThreadLocal.withInitial(() -> new long[16]);
+
+    @PostConstruct
+    void init() {
+        versionCache = Caffeine.newBuilder()
+                .maximumSize(versionCacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versionCache, "surveyVersions");
+        skipLogicPlans = Caffeine.newBuilder()
+                .maximumSize(versionCacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, skipLogicPlans, "skipLogicPlans");
+    }
 
     // =========================================================================
     // 第一部分：前台作答流程 (略，維持不變)
     // =========================================================================
 
-    public AppResponse<List<SurveyDTO>> getActiveSurveys() {
-        List<Survey> surveys = surveyRepository.findActiveSurveys();
-        return AppResponse.success(surveys.stream().map(this::convertToDTO).collect(Collectors.toList()));
+    /**
+     * [功能] 前台問卷列表 (僅摘要，不含題目)
+     */
+    @Transactional(readOnly = true)
+    public AppResponse<List<SurveySummaryDTO>> getActiveSurveys() {
+        // 查詢結果在查詢快取中；額滿與否由記憶體中的名額計數器即時判斷
+        return AppResponse.success(surveyRepository.findActiveSurveys(LocalDate.now()).stream()
+                .filter(s -> !quotaService.isFull(s.getId()))
+                .collect(Collectors.toList()));
     }
 
+    @Transactional(readOnly = true)
     public AppResponse<SurveyDTO> getSurveyDetails(Long id) {
         return surveyRepository.findById(id).map(s -> AppResponse.success(convertToDTO(s))).orElse(AppResponse.error(RspCode.NOT_FOUND));
     }
 
+    /**
+     * [功能] 取得已凍結 (發佈過) 的問卷版本
+     * 內容永不改變，可由 HTTP 快取長期保存；狀態與名額設定之後仍可能改變，因此不回傳。
+     * 從未發佈的草稿回傳 NOT_FOUND。
+     */
+    @Transactional(readOnly = true)
+    public AppResponse<SurveyDTO> getSurveyVersion(Long id) {
+        SurveyDTO cached = versionCache.getIfPresent(id);
+        if (cached != null) return AppResponse.success(cached);
+        Survey survey = surveyRepository.findById(id).orElse(null);
+        if (survey == null || !survey.isFrozen()) return AppResponse.error(RspCode.NOT_FOUND);
+        SurveyDTO dto = convertToDTO(survey);
+        dto.setStatus(null);
+        // 名額設定可就地調整，不屬於不可變的內容
+        dto.setMaxResponses(null);
+        dto.getQuestions().forEach(q -> q.getOptions().forEach(o -> o.setQuota(null)));
+        versionCache.put(id, dto);
+        return AppResponse.success(dto);
+    }
+
+    @Transactional(readOnly = true)
     public AppResponse<?> saveToSession(ResponseDTO submission, HttpSession session) {
-        if (responseRepository.existsBySurveyIdAndEmail(submission.getSurveyId(), submission.getEmail())) {
+        Survey survey = surveyRepository.findById(submission.getSurveyId()).orElse(null);
+        if (survey == null) return AppResponse.error(RspCode.NOT_FOUND);
+        if (quotaService.isFull(survey.getId())) return AppResponse.error(RspCode.PARAM_ERROR, "名額已滿");
+        String skipLogicError = applySkipLogic(survey, submission);
+        if (skipLogicError != null) return AppResponse.error(RspCode.PARAM_ERROR, skipLogicError);
+        String answerError = QuestionTypes.checkAnswers(survey, submission.getAnswers());
+        if (answerError != null) return AppResponse.error(RspCode.PARAM_ERROR, answerError);
+        if (isDuplicateEmail(submission.getSurveyId(), submission.getEmail())) {
+            metrics.duplicateEmailRejected();
             return AppResponse.error(RspCode.DUPLICATE_ERROR, "此 Email 已填寫過本問卷。");
         }
         session.setAttribute(SURVEY_SESSION_KEY, submission);
@@ -66,19 +196,47 @@ public class SurveyService {
         return AppResponse.success(data);
     }
 
+    /**
+     * 同一份問卷的所有版本共用「每個 Email 只能填一次」的規則
+     */
+    private boolean isDuplicateEmail(Long surveyId, String email) {
+        Long rootId = surveyRepository.findById(surveyId).map(Survey::lineageId).orElse(surveyId);
+        return responseStore.existsByEmail(surveyRepository.findIdsInLineage(rootId), email);
+    }
+
     @Transactional
     public AppResponse<?> commitFromSession(HttpSession session) {
-        ResponseDTO submission = (ResponseDTO) session.getAttribute(SURVEY_SESSION_KEY);
-        if (submission == null) return AppResponse.error(RspCode.NOT_FOUND);
-        AppResponse<?> response = submitResponse(submission.getSurveyId(), submission);
-        if (response.getCode() == 200) session.removeAttribute(SURVEY_SESSION_KEY);
-        return response;
+        return metrics.record("commitFromSession", () -> {
+            ResponseDTO submission = (ResponseDTO) session.getAttribute(SURVEY_SESSION_KEY);
+            if (submission == null) return AppResponse.error(RspCode.NOT_FOUND);
+            AppResponse<?> response = submitResponse(submission.getSurveyId(), submission);
+            if (response.getCode() == 200) session.removeAttribute(SURVEY_SESSION_KEY);
+            return response;
+        });
     }
 
     @Transactional
     public AppResponse<?> submitResponse(Long surveyId, ResponseDTO submission) {
+        return metrics.record("submitResponse", () -> doSubmitResponse(surveyId, submission));
+    }
+
+    private AppResponse<?> doSubmitResponse(Long surveyId, ResponseDTO submission) {
         Survey survey = surveyRepository.findById(surveyId).orElse(null);
         if (survey == null) return AppResponse.error(RspCode.NOT_FOUND);
+        // 已結束的問卷不再收件 (結束後的作答會被封存並凍結統計)
+        if (survey.getEndDate() != null && survey.getEndDate().isBefore(LocalDate.now())) {
+            return AppResponse.error(RspCode.PARAM_ERROR, "問卷已結束");
+        }
+        String skipLogicError = applySkipLogic(survey, submission);
+        if (skipLogicError != null) return AppResponse.error(RspCode.PARAM_ERROR, skipLogicError);
+        String answerError = QuestionTypes.checkAnswers(survey, submission.getAnswers());
+        if (answerError != null) return AppResponse.error(RspCode.PARAM_ERROR, answerError);
+        ResponseQuotaService.Reservation reservation = quotaService.reserve(survey, submission.getAnswers());
+        if (reservation == null) {
+            metrics.quotaRejected();
+            return AppResponse.error(RspCode.PARAM_ERROR, "名額已滿");
+        }
+        settleAfterCompletion(reservation);
         SurveyResponse response = new SurveyResponse();
         response.setSurvey(survey);
         response.setSubmittedAt(LocalDateTime.now());
@@ -89,41 +247,66 @@ public class SurveyService {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)) {
             UserDetailsImpl userDetails = (UserDetailsImpl) auth.getPrincipal();
-            User user = userRepository.findById(userDetails.getId()).orElse(null);
-            response.setUser(user);
+            // 只需外鍵關聯，使用參考代理即可，不必再查一次 users
+            response.setUser(userRepository.getReferenceById(userDetails.getId()));
         }
-        for (AnswerDTO aDto : submission.getAnswers()) {
-            ResponseAnswer answer = new ResponseAnswer();
-            answer.setSurveyResponse(response);
-            Question question = survey.getQuestions().stream().filter(q -> q.getId().equals(aDto.getQuestionId())).findFirst().orElse(null);
-            if (question == null) continue;
-            answer.setQuestion(question);
-            if (question.getType().equals("TEXT")) {
-                answer.setAnswerText(aDto.getAnswerText());
-            } else {
-                List<Option> selected = question.getOptions().stream().filter(o -> aDto.getOptionIds().contains(o.getId())).collect(Collectors.toList());
-                answer.setSelectedOptions(selected);
-                answer.setAnswerText(selected.stream().map(Option::getOptionText).collect(Collectors.joining(";")));
-            }
-            response.getAnswers().add(answer);
-        }
-        responseRepository.save(response);
+        SurveyMapper.addAnswers(response, survey, submission.getAnswers());
+        responseStore.save(response);
+        RespondentRepository.Respondent respondent = new RespondentRepository.Respondent(response.getId(),
+                response.getName(), response.getEmail(), response.getPhone(), response.getSubmittedAt());
+        afterCommit(() -> respondentSearch.onSubmitted(surveyId, respondent));
         return AppResponse.success(null);
     }
 
-    public AppResponse<?> getUserHistory() {
+    /**
+     * [輔助工具] 套用顯示條件：捨棄被隱藏題目的答案，並檢查顯示中的必填題
+     * @return 不通過時的錯誤訊息；通過時回傳 null
+     */
+    private String applySkipLogic(Survey survey, ResponseDTO submission) {
+        SkipLogicPlan plan = survey.isFrozen()
+                ? skipLogicPlans.get(survey.getId(), id -> SkipLogicPlan.compile(survey))
+                : SkipLogicPlan.compile(survey);
+        List<AnswerDTO> answers = submission.getAnswers() != null ? submission.getAnswers() : List.of();
+        long[] state = skipLogicState.get();
+        if (state.length < plan.stateLength()) {
+            state = new long[plan.stateLength()];
+            skipLogicState.set(state);
+        }
+        String missing = plan.evaluate(answers, state);
+        if (missing != null) return "「" + missing + "」為必填";
+        if (!plan.hasConditions()) return null;
+        List<AnswerDTO> shown = null;
+        for (int i = 0; i < answers.size(); i++) {
+            boolean visible = plan.isVisible(state, answers.get(i).getQuestionId());
+            if (!visible && shown == null) shown = new ArrayList<>(answers.subList(0, i));
+            if (visible && shown != null) shown.add(answers.get(i));
+        }
+        if (shown != null) submission.setAnswers(shown);
+        return null;
+    }
+
+    /**
+     * [功能] 取得目前登入者的作答歷史 (keyset 分頁)
+     * 直接以 JWT 身分中的使用者 ID 查詢，不再重新載入 User。
+     * 已封存問卷的作答在封存區：兩邊以相同的 keyset 條件各取一頁，合併排序後再切出這一頁。
+     * @param beforeAt 上一頁最後一筆的提交時間 (第一頁為 null)
+     * @param beforeId 上一頁最後一筆的回覆 ID (第一頁為 null)
+     */
+    @Transactional(readOnly = true)
+    public AppResponse<?> getUserHistory(LocalDateTime beforeAt, Long beforeId, int size) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) return AppResponse.error(RspCode.UNAUTHORIZED);
         UserDetailsImpl userDetails = (UserDetailsImpl) auth.getPrincipal();
-        User user = userRepository.findById(userDetails.getId()).orElse(null);
-        List<SurveyResponse> history = responseRepository.findByUserOrderBySubmittedAtDesc(user);
-        return AppResponse.success(history.stream().map(r -> {
-            Map<String, Object> map = new HashMap<>();
-            map.put("surveyId", r.getSurvey().getId());
-            map.put("surveyTitle", r.getSurvey().getTitle());
-            map.put("submittedAt", r.getSubmittedAt());
-            return map;
-        }).collect(Collectors.toList()));
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        // 多取一筆用來判斷是否還有下一頁
+        List<HistoryItemDTO> rows = new ArrayList<>(responseStore.findHistory(userDetails.getId(), beforeAt, beforeId, pageSize + 1));
+        rows.addAll(archiveRepository.findHistory(userDetails.getId(), beforeAt, beforeId, pageSize + 1));
+        rows.sort(HistoryItemDTO.NEWEST_FIRST);
+        boolean hasMore = rows.size() > pageSize;
+        List<HistoryItemDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        HistoryItemDTO last = items.isEmpty() ? null : items.get(items.size() - 1);
+        return AppResponse.success(new HistoryPageDTO(new ArrayList<>(items), hasMore,
+                hasMore ? last.getSubmittedAt() : null, hasMore ? last.getResponseId() : null));
     }
 
     // =========================================================================
@@ -166,145 +349,207 @@ public class SurveyService {
         return response;
     }
 
-    // 原有的查詢與儲存核心邏輯
-    public AppResponse<List<SurveyDTO>> getSurveysByAdmin(String title, LocalDate start, LocalDate end) {
-        List<Survey> surveys = surveyRepository.findByFilters(title, start, end);
-        return AppResponse.success(surveys.stream().map(s -> {
-            SurveyDTO dto = convertToDTO(s);
-            dto.setHasResponses(responseRepository.existsBySurveyId(s.getId()));
-            return dto;
-        }).collect(Collectors.toList()));
+    // 原有的查詢與儲存核心邏輯 (列表僅回傳摘要，題目結構由 getSurveyDetails 提供)
+    @Transactional(readOnly = true)
+    public AppResponse<List<SurveySummaryDTO>> getSurveysByAdmin(String title, LocalDate start, LocalDate end, boolean prefix, Integer limit) {
+        List<SurveySummaryDTO> surveys;
+        if (title != null && !title.isBlank()) {
+            // 關鍵字先由 N-gram 索引找出符合的 ID (已套用日期區間)，再批次查出摘要
+            int max = (limit == null || limit <= 0) ? maxSearchResults : Math.min(limit, maxSearchResults);
+            List<Long> ids = searchIndex.search(title, prefix, start, end, max);
+            Map<Long, SurveySummaryDTO> byId = ids.isEmpty() ? Collections.emptyMap()
+                    : surveyRepository.findSummariesByIdIn(ids).stream().collect(Collectors.toMap(SurveySummaryDTO::getId, s -> s));
+            surveys = ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+        } else {
+            surveys = surveyRepository.findByDateRange(start, end);
+        }
+        // 以單一分組查詢取得「已有作答」的問卷，避免每份問卷各查一次
+        if (!surveys.isEmpty()) {
+            List<Long> ids = surveys.stream().map(SurveySummaryDTO::getId).collect(Collectors.toList());
+            Set<Long> answered = new HashSet<>(responseStore.findSurveyIdsWithResponses(ids));
+            answered.addAll(archiveRepository.findSurveyIdsWithArchivedResponses(ids));
+            surveys.forEach(s -> s.setHasResponses(answered.contains(s.getId())));
+        }
+        return AppResponse.success(surveys);
     }
 
+    /**
+     * [功能] 新增或更新問卷
+     * 草稿：以 ID 比對題目與選項，只新增 / 修改 / 刪除有變動的部分 (見 SurveyMapper.merge)，
+     *       既有作答引用的題目與選項 ID 因此保持不變；已被作答的題目或選項不可刪除。
+     * 已發佈過的版本：內容凍結，只能改狀態；內容有變動時改寫到新版本 (見類別說明)。
+     */
     @Transactional
     public AppResponse<SurveyDTO> saveSurvey(SurveyDTO dto) {
+        if (dto.getQuestions() != null) {
+            for (QuestionDTO q : dto.getQuestions()) {
+                String typeError = QuestionTypes.validate(q);
+                if (typeError != null) return AppResponse.error(RspCode.PARAM_ERROR, typeError);
+            }
+        }
+        String skipLogicError = SkipLogicPlan.validate(dto);
+        if (skipLogicError != null) return AppResponse.error(RspCode.PARAM_ERROR, skipLogicError);
         Survey survey = (dto.getId() != null) ? surveyRepository.findById(dto.getId()).orElse(new Survey()) : new Survey();
-        survey.setTitle(dto.getTitle());
-        survey.setDescription(dto.getDescription());
-        survey.setStartDate(dto.getStartDate());
-        survey.setEndDate(dto.getEndDate());
-        survey.setStatus(dto.getStatus());
-        survey.getQuestions().clear();
-        for (QuestionDTO qDto : dto.getQuestions()) {
-            Question q = new Question();
-            q.setSurvey(survey);
-            q.setTitle(qDto.getTitle());
-            q.setType(qDto.getType());
-            q.setRequired(qDto.isRequired());
-            q.setOrderIndex(qDto.getOrderIndex());
-            if (qDto.getOptions() != null) {
-                for (OptionDTO oDto : qDto.getOptions()) {
-                    Option o = new Option();
-                    o.setQuestion(q);
-                    o.setOptionText(oDto.getOptionText());
-                    o.setOrderIndex(oDto.getOrderIndex());
-                    q.getOptions().add(o);
+        if ("SUPERSEDED".equals(survey.getStatus())) {
+            return AppResponse.error(RspCode.PARAM_ERROR, "此版本已被新版本取代，請編輯最新版本");
+        }
+        if (survey.isFrozen()) {
+            if (SurveyMapper.sameDefinition(survey, dto)) {
+                survey.setStatus(dto.getStatus());
+                SurveyMapper.applyQuotas(survey, dto);
+            } else {
+                // 舊版本維持原狀，直到新版本真正發佈時才被取代
+                survey = nextVersion(survey);
+            }
+        }
+        if (!survey.isFrozen()) {
+            if (survey.getId() != null) {
+                SurveyMapper.Removed removed = SurveyMapper.removedNodes(survey, dto);
+                if (!removed.isEmpty() && isAnswered(survey.getId(), removed)) {
+                    return AppResponse.error(RspCode.PARAM_ERROR, "已有作答的題目或選項不可刪除");
                 }
             }
-            survey.getQuestions().add(q);
+            SurveyMapper.merge(survey, dto);
+        }
+        if ("PUBLISHED".equals(survey.getStatus()) && survey.getPublishedAt() == null) {
+            survey.setPublishedAt(LocalDateTime.now());
         }
-        return AppResponse.success(convertToDTO(surveyRepository.save(survey)));
+        Survey saved = surveyRepository.save(survey);
+        if ("PUBLISHED".equals(saved.getStatus())) {
+            for (Survey other : surveyRepository.findReplaceableInLineage(saved.lineageId())) {
+                if (!other.getId().equals(saved.getId())) other.setStatus("SUPERSEDED");
+            }
+        }
+        afterCommit(() -> {
+            searchIndex.put(saved);
+            quotaService.invalidate(saved.getId());
+        });
+        return AppResponse.success(convertToDTO(saved));
+    }
+
+    /**
+     * 編輯已凍結的版本時要寫入的新版本：沿用同一份問卷尚未發佈的草稿，沒有時建立新的一筆
+     * 新版本的題目與選項全部重新建立 (merge 會把不屬於此版本的 ID 視為新增)。
+     */
+    private Survey nextVersion(Survey current) {
+        Long rootId = current.lineageId();
+        List<Survey> drafts = surveyRepository.findPendingDraftsInLineage(rootId);
+        if (!drafts.isEmpty()) return drafts.get(0);
+        Survey next = new Survey();
+        next.setRootId(rootId);
+        next.setVersionNo(surveyRepository.findMaxVersionNo(rootId) + 1);
+        return next;
+    }
+
+    private boolean isAnswered(Long surveyId, SurveyMapper.Removed removed) {
+        if (!removed.questionIds().isEmpty() && responseStore.existsAnswerForQuestions(surveyId, removed.questionIds())) return true;
+        if (!removed.optionIds().isEmpty() && responseStore.existsAnswerForOptions(surveyId, removed.optionIds())) return true;
+        return archiveRepository.referencesQuestionsOrOptions(surveyId, removed.questionIds(), removed.optionIds());
     }
 
     @Transactional
     public AppResponse<?> deleteSurvey(Long id) {
-        if (responseRepository.existsBySurveyId(id)) return AppResponse.error(RspCode.PARAM_ERROR, "已有作答紀錄");
+        if (responseStore.existsBySurveyId(id) || !archiveRepository.findSurveyIdsWithArchivedResponses(List.of(id)).isEmpty()) {
+            return AppResponse.error(RspCode.PARAM_ERROR, "已有作答紀錄");
+        }
         surveyRepository.deleteById(id);
+        afterCommit(() -> {
+            searchIndex.remove(id);
+            versionCache.invalidate(id);
+            skipLogicPlans.invalidate(id);
+            quotaService.invalidate(id);
+            respondentSearch.invalidate(id);
+            shardRouter.forget(id);
+        });
         return AppResponse.success(null);
     }
 
-    public AppResponse<?> getSurveyResponses(Long id) {
-        List<SurveyResponse> responses = responseRepository.findBySurveyIdOrderByIdDesc(id);
-        return AppResponse.success(responses.stream().map(r -> {
-            Map<String, Object> map = new HashMap<>();
-            map.put("responseId", r.getId());
-            map.put("userName", r.getName());
-            map.put("userEmail", r.getEmail());
-            map.put("submittedAt", r.getSubmittedAt());
-            return map;
-        }).collect(Collectors.toList()));
+    @Transactional(readOnly = true)
+    public AppResponse<List<ResponseSummaryDTO>> getSurveyResponses(Long id) {
+        List<ResponseSummaryDTO> responses = new ArrayList<>(responseStore.findSummariesBySurveyId(id));
+        // 合併已封存的作答 (封存資料的 ID 較舊，接在線上資料之後)
+        responses.addAll(archiveRepository.findSummariesBySurveyId(id));
+        return AppResponse.success(responses);
+    }
+
+    /**
+     * [功能] 依姓名、Email 或電話開頭搜尋作答者 (含封存區，分頁)
+     * 不在交易中執行：索引已建立時完全不查資料庫，建立索引時由 RespondentRepository 自行開啟交易。
+     */
+    public AppResponse<RespondentPageDTO> searchRespondents(Long id, String query, int page, int size) {
+        if (query == null || query.isBlank()) return AppResponse.error(RspCode.PARAM_ERROR, "請輸入搜尋關鍵字");
+        if (page < 0) return AppResponse.error(RspCode.PARAM_ERROR);
+        int pageSize = Math.max(1, Math.min(size, MAX_RESPONDENT_PAGE_SIZE));
+        if ((long) (page + 1) * pageSize > MAX_RESPONDENT_SEARCH_WINDOW) {
+            return AppResponse.error(RspCode.PARAM_ERROR, "結果過多，請輸入更完整的關鍵字");
+        }
+        if (!respondentSearch.isIndexed(id) && !surveyRepository.existsById(id)) return AppResponse.error(RspCode.NOT_FOUND);
+        return AppResponse.success(respondentSearch.search(id, query, page * pageSize, pageSize));
+    }
+
+    @Transactional(readOnly = true)
+    public AppResponse<ResponseDetailDTO> getResponseDetail(Long responseId) {
+        // 線上資料表找不到時改查封存區
+        return responseStore.findDetailById(responseId)
+                .or(() -> archiveRepository.findDetailById(responseId))
+                .map(AppResponse::success)
+                .orElse(AppResponse.error(RspCode.NOT_FOUND));
     }
 
-    public AppResponse<?> getResponseDetail(Long responseId) {
-        SurveyResponse response = responseRepository.findById(responseId).orElse(null);
-        if (response == null) return AppResponse.error(RspCode.NOT_FOUND);
-        Map<String, Object> result = new HashMap<>();
-        result.put("responseId", response.getId());
-        result.put("userName", response.getName());
-        result.put("submittedAt", response.getSubmittedAt());
-        result.put("surveyTitle", response.getSurvey().getTitle());
-        List<Map<String, Object>> details = response.getAnswers().stream().map(a -> {
-            Map<String, Object> aMap = new HashMap<>();
-            aMap.put("questionTitle", a.getQuestion().getTitle());
-            aMap.put("type", a.getQuestion().getType());
-            aMap.put("answer", a.getAnswerText());
-            return aMap;
-        }).collect(Collectors.toList());
-        result.put("details", details);
-        return AppResponse.success(result);
+    @Transactional(readOnly = true)
+    public AppResponse<SurveyStatsDTO> getSurveyStats(Long id) {
+        return metrics.record("getSurveyStats", () -> doGetSurveyStats(id));
     }
 
-    public AppResponse<?> getSurveyStats(Long id) {
+    private AppResponse<SurveyStatsDTO> doGetSurveyStats(Long id) {
+        // 已封存的問卷直接回傳凍結的統計快照
+        Optional<SurveyStatsDTO> snapshot = archiveService.findSnapshot(id);
+        if (snapshot.isPresent()) return AppResponse.success(snapshot.get());
         Survey survey = surveyRepository.findById(id).orElse(null);
         if (survey == null) return AppResponse.error(RspCode.NOT_FOUND);
-        List<SurveyResponse> responses = responseRepository.findBySurveyId(id);
-        int totalResponses = responses.size();
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("surveyId", survey.getId());
-        stats.put("surveyTitle", survey.getTitle());
-        stats.put("totalResponses", totalResponses);
-        List<Map<String, Object>> qStatsList = new ArrayList<>();
-        for (Question q : survey.getQuestions()) {
-            Map<String, Object> qMap = new HashMap<>();
-            qMap.put("questionId", q.getId());
-            qMap.put("questionTitle", q.getTitle());
-            qMap.put("type", q.getType());
-            if (q.getType().equals("TEXT")) {
-                qMap.put("textAnswers", responses.stream().flatMap(r -> r.getAnswers().stream())
-                        .filter(a -> a.getQuestion().getId().equals(q.getId())).map(ResponseAnswer::getAnswerText)
-                        .filter(Objects::nonNull).collect(Collectors.toList()));
-            } else {
-                Map<Long, Map<String, Object>> optMap = new HashMap<>();
-                for (Option o : q.getOptions()) {
-                    Map<String, Object> oData = new HashMap<>();
-                    oData.put("optionText", o.getOptionText());
-                    oData.put("count", 0);
-                    optMap.put(o.getId(), oData);
+        // 依回覆 ID 分批累加，不一次載入全部作答
+        SurveyStatsAggregator aggregator = new SurveyStatsAggregator(survey);
+        responseStore.forEachBySurveyId(id, statsBatchSize, aggregator::add);
+        return AppResponse.success(aggregator.result());
+    }
+
+    /**
+     * [輔助工具] 交易成功提交後才執行 (例如同步記憶體索引)，避免回滾時索引與資料庫不一致
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
                 }
-                responses.stream().flatMap(r -> r.getAnswers().stream())
-                        .filter(a -> a.getQuestion().getId().equals(q.getId()))
-                        .flatMap(a -> a.getSelectedOptions().stream())
-                        .forEach(o -> {
-                            Map<String, Object> oData = optMap.get(o.getId());
-                            if (oData != null) oData.put("count", (int) oData.get("count") + 1);
-                        });
-                for (Map<String, Object> oData : optMap.values()) {
-                    double pct = totalResponses > 0 ? ((int) oData.get("count") * 100.0 / totalResponses) : 0;
-                    oData.put("percentage", Math.round(pct * 10.0) / 10.0);
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * [輔助工具] 交易提交後確認預留的名額，回滾時歸還
+     */
+    private void settleAfterCompletion(ResponseQuotaService.Reservation reservation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        reservation.commit();
+                    } else {
+                        reservation.release();
+                    }
                 }
-                qMap.put("optionStats", optMap);
-            }
-            qStatsList.add(qMap);
+            });
+        } else {
+            reservation.commit();
         }
-        stats.put("questionStats", qStatsList);
-        return AppResponse.success(stats);
     }
 
     private SurveyDTO convertToDTO(Survey s) {
-        SurveyDTO dto = new SurveyDTO();
-        dto.setId(s.getId()); dto.setTitle(s.getTitle()); dto.setDescription(s.getDescription());
-        dto.setStartDate(s.getStartDate()); dto.setEndDate(s.getEndDate()); dto.setStatus(s.getStatus());
-        dto.setQuestions(s.getQuestions().stream().map(q -> {
-            QuestionDTO qDto = new QuestionDTO();
-            qDto.setId(q.getId()); qDto.setTitle(q.getTitle()); qDto.setType(q.getType());
-            qDto.setRequired(q.isRequired()); qDto.setOrderIndex(q.getOrderIndex());
-            qDto.setOptions(q.getOptions().stream().map(o -> {
-                OptionDTO oDto = new OptionDTO();
-                oDto.setId(o.getId()); oDto.setOptionText(o.getOptionText()); oDto.setOrderIndex(o.getOrderIndex());
-                return oDto;
-            }).collect(Collectors.toList()));
-            return qDto;
-        }).collect(Collectors.toList()));
-        return dto;
+        return metrics.time("convertToDTO", () -> SurveyMapper.toDTO(s));
     }
 }
@@ -0,0 +1,179 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.analytics.ColumnarSnapshotReader;
+import com.example.dynamicsurvey.analytics.ColumnarSnapshotWriter;
+import com.example.dynamicsurvey.analytics.ColumnarSnapshotWriter.SurveySchema;
+import com.example.dynamicsurvey.repository.ResponseExportRepository;
+import com.example.dynamicsurvey.repository.ResponseExportRepository.ExportedAnswer;
+import com.example.dynamicsurvey.repository.ResponseExportRepository.ExportedResponse;
+import com.example.dynamicsurvey.repository.SurveyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * [教學說明] 離線分析用的欄式快照匯出 (Columnar Snapshot Export)
+ * -----------------------------------------------------------------------------
+ * 【設計意圖】
+ * 資料團隊的大量分析若直接查詢線上資料庫，會與填答流量搶連線與 I/O。
+ * 排程將每份問卷的作答匯出為本機的欄式檔案 (格式見 ColumnarSnapshotWriter)，
+ * 分析端以 ColumnarSnapshotReader 讀取，完全不需連線資料庫。
+ *
+ * 【增量匯出】
+ * 以已匯出的最大回覆 ID 為水位線，每次只讀取 ID 更大的作答，寫成新的檔案並更新 manifest。
+ * 回覆 ID 不保證依提交順序出現 (併發交易、分片各自預留 ID 區段)，
+ * 因此每次先比對「ID 不大於水位線的筆數」與已匯出筆數，不一致 (有晚到的作答) 時整份重建；
+ * 檔案數超過 max-parts 時也整份重建，把小檔案合併。
+ * 檔案先寫入暫存檔再原子更名，manifest 最後才更新，讀取端不會看到寫到一半的資料。
+ * 每個節點各自輸出到本機目錄，多節點部署時只需在一個節點啟用排程。
+ */
+@Service
+public class SurveySnapshotExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SurveySnapshotExportService.class);
+
+    @Autowired
+    SurveyRepository surveyRepository;
+
+    @Autowired
+    ResponseExportRepository exportRepository;
+
+    @Value("${survey.columnar.dir:data/columnar}")
+    private String rootDir;
+
+    @Value("${survey.columnar.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${survey.columnar.rows-per-part:1000000}")
+    private int rowsPerPart;
+
+    @Value("${survey.columnar.max-parts:32}")
+    private int maxParts;
+
+    private final TransactionTemplate tx;
+
+    public SurveySnapshotExportService(PlatformTransactionManager transactionManager) {
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setReadOnly(true);
+    }
+
+    /**
+     * [排程] 匯出所有有作答的問卷
+     */
+    @Scheduled(cron = "${survey.columnar.cron:0 0 4 * * *}")
+    public void exportAll() {
+        for (Long surveyId : exportRepository.findSurveyIdsWithResponses()) {
+            try {
+                exportSurvey(surveyId);
+            } catch (Exception e) {
+                logger.error("問卷 {} 欄式快照匯出失敗: {}", surveyId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * [功能] 匯出單一問卷的新作答，回傳本次寫入的筆數
+     */
+    public synchronized int exportSurvey(Long surveyId) {
+        SurveySchema schema = tx.execute(status -> surveyRepository.findById(surveyId).map(SurveySchema::of).orElse(null));
+        if (schema == null) return 0;
+        try {
+            Path dir = ColumnarSnapshotReader.surveyDir(Path.of(rootDir), surveyId);
+            Optional<ColumnarSnapshotReader> current = ColumnarSnapshotReader.open(Path.of(rootDir), surveyId);
+            List<String> keep = current.map(ColumnarSnapshotReader::partFiles).orElse(List.of());
+            long watermark = current.map(ColumnarSnapshotReader::maxResponseId).orElse(0L);
+            boolean rebuild = false;
+            if (!keep.isEmpty() && (keep.size() >= maxParts
+                    || exportRepository.countUpTo(surveyId, watermark) != current.get().rowCount())) {
+                logger.info("問卷 {} 欄式快照重建 (檔案數 {})", surveyId, keep.size());
+                keep = List.of();
+                watermark = 0;
+                rebuild = true;
+            }
+
+            Files.createDirectories(dir);
+            List<String> added = new ArrayList<>();
+            ColumnarSnapshotWriter writer = new ColumnarSnapshotWriter(schema);
+            int written = 0;
+            while (true) {
+                List<ExportedResponse> batch = exportRepository.findAfter(surveyId, watermark, batchSize);
+                if (batch.isEmpty()) break;
+                for (ExportedResponse r : batch) {
+                    writer.addResponse(r.id(), r.submittedAtMillis(), r.age());
+                    for (ExportedAnswer a : r.answers()) writer.addAnswer(a.questionId(), a.text(), a.optionIds());
+                }
+                watermark = batch.get(batch.size() - 1).id();
+                written += batch.size();
+                if (writer.rowCount() >= rowsPerPart) {
+                    added.add(writePart(dir, writer));
+                    writer = new ColumnarSnapshotWriter(schema);
+                }
+            }
+            if (writer.rowCount() > 0) added.add(writePart(dir, writer));
+            if (added.isEmpty() && !rebuild) return 0;
+
+            List<String> manifest = new ArrayList<>(keep);
+            manifest.addAll(added);
+            if (manifest.isEmpty()) {
+                // 重建時已沒有任何作答：移除 manifest，讀取端視為尚未匯出
+                Files.deleteIfExists(dir.resolve(ColumnarSnapshotReader.MANIFEST));
+            } else {
+                Path tmp = dir.resolve(ColumnarSnapshotReader.MANIFEST + ".tmp");
+                Files.write(tmp, manifest, StandardCharsets.UTF_8);
+                Files.move(tmp, dir.resolve(ColumnarSnapshotReader.MANIFEST),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            deleteUnreferenced(dir, manifest);
+            logger.info("問卷 {} 欄式快照匯出 {} 筆作答 ({} 個檔案)", surveyId, written, manifest.size());
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * [功能] 讀取已匯出的欄式快照 (尚未匯出時回傳 empty)
+     */
+    public Optional<ColumnarSnapshotReader> openSnapshot(Long surveyId) {
+        try {
+            return ColumnarSnapshotReader.open(Path.of(rootDir), surveyId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String writePart(Path dir, ColumnarSnapshotWriter writer) throws IOException {
+        String name = "part-" + writer.maxResponseId() + "-" + System.currentTimeMillis() + ".col";
+        Path tmp = dir.resolve(name + ".tmp");
+        writer.writeTo(tmp);
+        Files.move(tmp, dir.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        return name;
+    }
+
+    // 重建後舊檔案已不在 manifest 中；已開啟的讀取端仍持有映射，刪除不影響其讀取
+    // (也一併清除先前中斷留下的暫存檔)
+    private static void deleteUnreferenced(Path dir, List<String> manifest) throws IOException {
+        Set<String> live = new HashSet<>(manifest);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path f : files.toList()) {
+                String name = f.getFileName().toString();
+                boolean stale = name.endsWith(".col.tmp") || (name.endsWith(".col") && !live.contains(name));
+                if (stale) Files.deleteIfExists(f);
+            }
+        }
+    }
+}
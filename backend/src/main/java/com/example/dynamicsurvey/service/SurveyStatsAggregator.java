@@ -0,0 +1,140 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.dto.OptionStatsDTO;
+import com.example.dynamicsurvey.dto.QuestionStatsDTO;
+import com.example.dynamicsurvey.dto.SurveyStatsDTO;
+import com.example.dynamicsurvey.entity.*;
+
+import java.util.*;
+
+/**
+ * [教學說明] 問卷統計彙總 (Survey Stats Aggregator)
+ * -----------------------------------------------------------------------------
+ * 【設計意圖】
+ * 原本的寫法為每個選項建立 HashMap，並以 (int) oData.get("count") + 1 累加，
+ * 每選一次就產生一次裝箱 (boxing)；每一題又重新掃描全部作答 (題數 x 作答數)。
+ * 這裡改為：
+ * 1. 先為每個選項 / 題目分配一個「槽位」(slot)。
+ * 2. 只走訪一次全部作答，以 int[] 原生陣列計數。
+ * 3. 最後才一次性建立不可變的 record 結果。
+ * 數值題與作答者年齡在同一次走訪中逐筆更新 NumericSketch (固定大小)，不收集數值再排序。
+ * 作答可以分批以 add 加入 (見 ResponseStore.forEachBySurveyId)，累加的狀態只有計數陣列與摘要，
+ * 與作答筆數無關；唯一例外是 TEXT 題，全部文字答案本來就會出現在結果中。
+ * 純函式、不依賴資料庫，方便以 JMH 量測。
+ */
+public final class SurveyStatsAggregator {
+
+    private final Survey survey;
+    private final List<Question> questions;
+    private final Map<Long, Integer> questionSlot;
+    private final Map<Long, Integer> optionSlot = new HashMap<>();
+    private final List<List<String>> texts;
+    private final NumericSketch[] sketches;
+    private final int[] counts;
+    private final NumericSketch ages = QuestionTypes.newAgeSketch();
+    private int totalResponses;
+
+    /**
+     * 1. 分配槽位：題目 ID -> 題目序號、選項 ID -> 計數陣列位置
+     * (會走訪全部題目與選項；分批讀取作答前先建立，之後不再需要延遲載入問卷定義)
+     */
+    public SurveyStatsAggregator(Survey survey) {
+        this.survey = survey;
+        this.questions = survey.getQuestions();
+        this.questionSlot = new HashMap<>(questions.size() * 2);
+        this.texts = new ArrayList<>(questions.size());
+        this.sketches = new NumericSketch[questions.size()];
+        for (int i = 0; i < questions.size(); i++) {
+            Question q = questions.get(i);
+            questionSlot.put(q.getId(), i);
+            boolean isText = isText(q);
+            texts.add(isText ? new ArrayList<>() : null);
+            if (QuestionTypes.isNumeric(q.getType())) {
+                sketches[i] = QuestionTypes.newSketch(q.getType(), q.getMinValue(), q.getMaxValue());
+            } else if (!isText) {
+                for (Option o : q.getOptions()) optionSlot.put(o.getId(), optionSlot.size());
+            }
+        }
+        this.counts = new int[optionSlot.size()];
+    }
+
+    public static SurveyStatsDTO aggregate(Survey survey, List<SurveyResponse> responses) {
+        SurveyStatsAggregator aggregator = new SurveyStatsAggregator(survey);
+        for (SurveyResponse r : responses) aggregator.add(r);
+        return aggregator.result();
+    }
+
+    /**
+     * 2. 累加一筆作答
+     */
+    public void add(SurveyResponse r) {
+        totalResponses++;
+        if (r.getAge() != null) ages.update(r.getAge());
+        for (ResponseAnswer a : r.getAnswers()) {
+            Integer qs = questionSlot.get(a.getQuestion().getId());
+            if (qs == null) continue;
+            List<String> textList = texts.get(qs);
+            if (sketches[qs] != null) {
+                updateNumeric(sketches[qs], a.getAnswerText());
+            } else if (textList != null) {
+                if (a.getAnswerText() != null) textList.add(a.getAnswerText());
+            } else {
+                for (Option o : a.getSelectedOptions()) {
+                    Integer slot = optionSlot.get(o.getId());
+                    if (slot != null) counts[slot]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * 3. 建立結果
+     */
+    public SurveyStatsDTO result() {
+        List<QuestionStatsDTO> qStatsList = new ArrayList<>(questions.size());
+        for (int i = 0; i < questions.size(); i++) {
+            Question q = questions.get(i);
+            if (texts.get(i) != null) {
+                qStatsList.add(new QuestionStatsDTO(q.getId(), q.getTitle(), q.getType(), null, List.copyOf(texts.get(i)), null));
+                continue;
+            }
+            if (sketches[i] != null) {
+                qStatsList.add(new QuestionStatsDTO(q.getId(), q.getTitle(), q.getType(), null, null, sketches[i].summarize()));
+                continue;
+            }
+            Map<Long, OptionStatsDTO> optMap = new LinkedHashMap<>(q.getOptions().size() * 2);
+            for (Option o : q.getOptions()) {
+                int count = counts[optionSlot.get(o.getId())];
+                optMap.put(o.getId(), new OptionStatsDTO(o.getOptionText(), count, percentage(count, totalResponses)));
+            }
+            qStatsList.add(new QuestionStatsDTO(q.getId(), q.getTitle(), q.getType(),
+                    Collections.unmodifiableMap(optMap), null, null));
+        }
+        return new SurveyStatsDTO(survey.getId(), survey.getTitle(), totalResponses, List.copyOf(qStatsList),
+                ages.summarize());
+    }
+
+    /**
+     * 數值題的答案已於提交時正規化；早期或無法解析的文字直接略過 (欄式快照的讀取端也使用)
+     */
+    public static void updateNumeric(NumericSketch sketch, String answerText) {
+        if (answerText == null) return;
+        try {
+            sketch.update(Double.parseDouble(answerText));
+        } catch (NumberFormatException ignored) {
+            // 非數字的舊資料不列入統計
+        }
+    }
+
+    /**
+     * 百分比四捨五入至小數第一位 (欄式快照的讀取端也使用，確保結果一致)
+     */
+    public static double percentage(int count, int total) {
+        double pct = total > 0 ? (count * 100.0 / total) : 0;
+        return Math.round(pct * 10.0) / 10.0;
+    }
+
+    private static boolean isText(Question q) {
+        return "TEXT".equals(q.getType());
+    }
+}
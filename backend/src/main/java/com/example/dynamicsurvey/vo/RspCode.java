@@ -17,6 +17,7 @@ public enum RspCode {
     FORBIDDEN(403, "權限不足"),
     NOT_FOUND(404, "資源不存在"),
     DUPLICATE_ERROR(409, "資料重複"),
+    TOO_MANY_REQUESTS(429, "系統忙碌中，請稍後再試"),
     INTERNAL_SERVER_ERROR(500, "系統內部錯誤");
 
     // 存放對應的 HTTP 狀態碼
@@ -0,0 +1,7 @@
+-- =============================================================================
+-- V10: 封存作答的使用者歷史索引
+-- 作答歷史合併線上與封存區 (見 ResponseArchiveRepository.findHistory)，
+-- 與線上表的 idx_response_user_submitted 相同：InnoDB 次要索引隱含主鍵 id，keyset 條件可直接走索引。
+-- =============================================================================
+
+CREATE INDEX idx_archived_response_user_submitted ON archived_survey_responses (user_id, submitted_at);
@@ -0,0 +1,10 @@
+-- =============================================================================
+-- V11: 問卷最後修改時間
+--   surveys.updated_at  每次透過 Hibernate 新增或修改時更新 (Survey.touch)
+--   各節點的標題搜尋索引 (SurveySearchIndex) 依此欄位定期補入其他節點的編輯
+-- =============================================================================
+
+ALTER TABLE surveys
+    ADD COLUMN updated_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
+
+CREATE INDEX idx_survey_updated_at ON surveys (updated_at);
@@ -0,0 +1,10 @@
+-- =============================================================================
+-- V12: 使用者最後修改時間
+--   users.updated_at  透過 Hibernate 新增或修改時更新 (User.touch)；直接以 SQL 修改角色時
+--                     由 ON UPDATE 一併更新
+--   簽發時間早於此欄位的 JWT，其 claims (姓名、角色) 不再採信，改由資料庫載入身分
+--   (既有使用者的值為遷移當下時間，遷移前簽發的 Token 在過期前都會改查資料庫)
+-- =============================================================================
+
+ALTER TABLE users
+    ADD COLUMN updated_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
@@ -0,0 +1,6 @@
+-- =============================================================================
+-- V13: 依使用者修改時間查詢的索引
+--   各節點定期讀取 updated_at 晚於水位線的使用者，清除本機的使用者快取 (UserDetailsServiceImpl.catchUp)
+-- =============================================================================
+
+CREATE INDEX idx_user_updated_at ON users (updated_at);
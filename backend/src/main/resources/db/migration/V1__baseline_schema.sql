@@ -0,0 +1,76 @@
+-- =============================================================================
+-- V1: 基準資料表結構 (原本由 spring.jpa.hibernate.ddl-auto=update 產生)
+-- 使用 IF NOT EXISTS，既有環境 (已由 Hibernate 建表) 執行時不會失敗。
+-- =============================================================================
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT       NOT NULL AUTO_INCREMENT,
+    email    VARCHAR(255) NOT NULL,
+    name     VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    phone    VARCHAR(255),
+    role     VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS surveys (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    title       VARCHAR(50)  NOT NULL,
+    description VARCHAR(300),
+    start_date  DATE         NOT NULL,
+    end_date    DATE         NOT NULL,
+    status      VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS questions (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    survey_id   BIGINT       NOT NULL,
+    title       VARCHAR(75)  NOT NULL,
+    type        VARCHAR(255) NOT NULL,
+    required    BIT          NOT NULL,
+    order_index INTEGER      NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_questions_survey FOREIGN KEY (survey_id) REFERENCES surveys (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS options (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    question_id BIGINT       NOT NULL,
+    option_text VARCHAR(255) NOT NULL,
+    order_index INTEGER      NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_options_question FOREIGN KEY (question_id) REFERENCES questions (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS survey_responses (
+    id           BIGINT       NOT NULL AUTO_INCREMENT,
+    survey_id    BIGINT       NOT NULL,
+    name         VARCHAR(255) NOT NULL,
+    phone        VARCHAR(255) NOT NULL,
+    email        VARCHAR(255) NOT NULL,
+    age          INTEGER,
+    submitted_at DATETIME(6)  NOT NULL,
+    user_id      BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_responses_survey FOREIGN KEY (survey_id) REFERENCES surveys (id),
+    CONSTRAINT fk_responses_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS response_answers (
+    id          BIGINT NOT NULL AUTO_INCREMENT,
+    response_id BIGINT NOT NULL,
+    question_id BIGINT NOT NULL,
+    answer_text TEXT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_answers_response FOREIGN KEY (response_id) REFERENCES survey_responses (id),
+    CONSTRAINT fk_answers_question FOREIGN KEY (question_id) REFERENCES questions (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS answer_selected_options (
+    answer_id BIGINT NOT NULL,
+    option_id BIGINT NOT NULL,
+    CONSTRAINT fk_selected_answer FOREIGN KEY (answer_id) REFERENCES response_answers (id),
+    CONSTRAINT fk_selected_option FOREIGN KEY (option_id) REFERENCES options (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,40 @@
+-- =============================================================================
+-- V2: 熱門查詢所需的複合 / 覆蓋索引 (每個索引註明對應的 Repository 查詢)
+-- =============================================================================
+
+-- SurveyResponseRepository.existsBySurveyIdAndEmail (重複 Email 檢查)
+-- 最左前綴 survey_id 同時支援 existsBySurveyId、findBySurveyId、findSurveyIdsWithResponses
+CREATE INDEX idx_response_survey_email ON survey_responses (survey_id, email);
+
+-- SurveyResponseRepository.findSummariesBySurveyId (WHERE survey_id = ? ORDER BY id DESC)
+-- 覆蓋列表投影的欄位，不需回表
+CREATE INDEX idx_response_survey_list ON survey_responses (survey_id, id, submitted_at, email, name);
+
+-- SurveyResponseRepository.findHistoryByUserId / findHistoryByUserIdBefore
+-- 既有環境可能已由 Hibernate (ddl-auto=update) 建立同名索引，不存在時才建立
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'survey_responses'
+                 AND index_name = 'idx_response_user_submitted') = 0,
+              'CREATE INDEX idx_response_user_submitted ON survey_responses (user_id, submitted_at)',
+              'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- SurveyRepository.findActiveSurveys (status = 'PUBLISHED' AND 日期區間)
+CREATE INDEX idx_survey_status_dates ON surveys (status, start_date, end_date);
+
+-- SurveyRepository.findByDateRange (start_date >= ? AND end_date <= ?)
+CREATE INDEX idx_survey_dates ON surveys (start_date, end_date);
+
+-- Survey.questions / Question.options (@OrderBy orderIndex，含 @BatchSize 的 IN 查詢)
+CREATE INDEX idx_question_survey_order ON questions (survey_id, order_index);
+CREATE INDEX idx_option_question_order ON options (question_id, order_index);
+
+-- SurveyResponse.answers (@BatchSize IN 查詢) 與統計依題目彙總
+CREATE INDEX idx_answer_response ON response_answers (response_id, question_id);
+CREATE INDEX idx_answer_question ON response_answers (question_id);
+
+-- ResponseAnswer.selectedOptions 的 JOIN (兩個方向)
+CREATE INDEX idx_selected_answer_option ON answer_selected_options (answer_id, option_id);
+CREATE INDEX idx_selected_option ON answer_selected_options (option_id);
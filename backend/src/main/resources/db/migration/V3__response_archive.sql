@@ -0,0 +1,44 @@
+-- =============================================================================
+-- V3: 已結束問卷的作答封存區 (Archive Tier)
+-- 結構與線上資料表相同，由 SurveyArchiveService 分批搬移；只保留對問卷的外鍵，
+-- 讓線上熱資料表與其索引維持精簡。
+-- =============================================================================
+
+CREATE TABLE archived_survey_responses (
+    id           BIGINT       NOT NULL,
+    survey_id    BIGINT       NOT NULL,
+    name         VARCHAR(255) NOT NULL,
+    phone        VARCHAR(255) NOT NULL,
+    email        VARCHAR(255) NOT NULL,
+    age          INTEGER,
+    submitted_at DATETIME(6)  NOT NULL,
+    user_id      BIGINT,
+    PRIMARY KEY (id),
+    INDEX idx_archived_response_survey (survey_id, id),
+    CONSTRAINT fk_archived_responses_survey FOREIGN KEY (survey_id) REFERENCES surveys (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE archived_response_answers (
+    id          BIGINT NOT NULL,
+    response_id BIGINT NOT NULL,
+    question_id BIGINT NOT NULL,
+    answer_text TEXT,
+    PRIMARY KEY (id),
+    INDEX idx_archived_answer_response (response_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE archived_answer_selected_options (
+    answer_id BIGINT NOT NULL,
+    option_id BIGINT NOT NULL,
+    INDEX idx_archived_selected_answer (answer_id)
+) ENGINE = InnoDB;
+
+-- 封存時計算的最終統計結果 (SurveyStatsDTO 的 JSON)
+CREATE TABLE survey_stats_snapshots (
+    survey_id       BIGINT      NOT NULL,
+    total_responses INTEGER     NOT NULL,
+    stats_json      LONGTEXT    NOT NULL,
+    archived_at     DATETIME(6) NOT NULL,
+    PRIMARY KEY (survey_id),
+    CONSTRAINT fk_snapshot_survey FOREIGN KEY (survey_id) REFERENCES surveys (id)
+) ENGINE = InnoDB;
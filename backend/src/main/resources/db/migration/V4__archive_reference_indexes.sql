@@ -0,0 +1,7 @@
+-- =============================================================================
+-- V4: 封存作答對題目 / 選項的反查索引
+-- 編輯問卷刪除題目或選項前，需確認封存區沒有作答引用它們 (封存表沒有外鍵)。
+-- =============================================================================
+
+CREATE INDEX idx_archived_answer_question ON archived_response_answers (question_id);
+CREATE INDEX idx_archived_selected_option ON archived_answer_selected_options (option_id);
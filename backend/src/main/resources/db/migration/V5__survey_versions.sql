@@ -0,0 +1,21 @@
+-- =============================================================================
+-- V5: 問卷版本 (發佈後不可變，編輯時另建新版本)
+-- 每個版本是一筆 surveys 資料列：
+--   root_id      同一份問卷各版本共用的識別 (第一版為 NULL，代表自己)
+--   version_no   版本序號 (1, 2, 3 ...)
+--   published_at 第一次發佈的時間；有值即代表內容已凍結
+-- =============================================================================
+
+ALTER TABLE surveys
+    ADD COLUMN root_id      BIGINT      NULL,
+    ADD COLUMN version_no   INT         NOT NULL DEFAULT 1,
+    ADD COLUMN published_at DATETIME(6) NULL;
+
+CREATE INDEX idx_survey_root_version ON surveys (root_id, version_no);
+
+-- 既有已發佈、或已有作答的問卷一律視為已凍結的第一版
+UPDATE surveys s
+SET s.published_at = NOW(6)
+WHERE s.status = 'PUBLISHED'
+   OR EXISTS (SELECT 1 FROM survey_responses r WHERE r.survey_id = s.id)
+   OR EXISTS (SELECT 1 FROM survey_stats_snapshots x WHERE x.survey_id = s.id);
@@ -0,0 +1,29 @@
+-- =============================================================================
+-- V6: 作答分片 (見 ResponseShardConfig)
+-- 以下資料表都在主資料庫 (catalog)；分片本身的資料表結構見 db/shard。
+-- =============================================================================
+
+-- 問卷作答所在的分片 (第一次寫入時建立，重新分片工具搬移後更新)
+CREATE TABLE response_placements (
+    survey_id BIGINT      NOT NULL,
+    shard     VARCHAR(64) NOT NULL,
+    placed_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (survey_id),
+    INDEX idx_placement_shard (shard)
+) ENGINE = InnoDB;
+
+-- 跨分片唯一的作答 ID (ResponseIdAllocator 以區段方式預留)
+CREATE TABLE response_id_blocks (
+    name    VARCHAR(32) NOT NULL,
+    next_id BIGINT      NOT NULL,
+    PRIMARY KEY (name)
+) ENGINE = InnoDB;
+
+INSERT INTO response_id_blocks (name, next_id) VALUES ('response', 1), ('answer', 1);
+
+-- 封存是否已完成 (取代「主資料庫仍有線上作答」的判斷，作答可能在其他分片)
+ALTER TABLE survey_stats_snapshots ADD COLUMN completed BOOLEAN NOT NULL DEFAULT FALSE;
+
+UPDATE survey_stats_snapshots x
+SET x.completed = TRUE
+WHERE NOT EXISTS (SELECT 1 FROM survey_responses r WHERE r.survey_id = x.survey_id);
@@ -0,0 +1,8 @@
+-- =============================================================================
+-- V7: 題目顯示條件 (Skip Logic)
+--   show_if  "來源題 orderIndex:選項 orderIndex,..." 以 ';' 串接多條條件 (全部成立才顯示)
+--            NULL 代表一律顯示；格式見 SkipLogicPlan
+-- =============================================================================
+
+ALTER TABLE questions
+    ADD COLUMN show_if VARCHAR(1000) NULL;
@@ -0,0 +1,11 @@
+-- =============================================================================
+-- V8: 作答名額 (見 ResponseQuotaService)
+--   surveys.max_responses  問卷 (版本) 的作答總數上限，NULL 代表不限
+--   options.quota          選取該選項的作答數上限，NULL 代表不限 (例如每個年齡層的名額)
+-- =============================================================================
+
+ALTER TABLE surveys
+    ADD COLUMN max_responses INT NULL;
+
+ALTER TABLE options
+    ADD COLUMN quota INT NULL;
@@ -0,0 +1,9 @@
+-- =============================================================================
+-- V9: 數值題 (NUMBER / RATING / NPS，見 QuestionTypes)
+--   questions.min_value / max_value  NUMBER 的上下限、RATING 的評分等級；其他類型為 NULL
+--   作答沿用 response_answers.answer_text (正規化後的數字字串)
+-- =============================================================================
+
+ALTER TABLE questions
+    ADD COLUMN min_value DOUBLE NULL,
+    ADD COLUMN max_value DOUBLE NULL;
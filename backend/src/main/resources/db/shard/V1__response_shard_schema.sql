@@ -0,0 +1,69 @@
+-- =============================================================================
+-- 作答分片的資料表結構 (由 ResponseShardConfig 在每個分片上以 Flyway 套用)
+-- 與主資料庫的 V1 ~ V4 相同，但沒有指向 surveys / questions / options / users 的外鍵
+-- (這些資料表只在主資料庫)；ID 由主資料庫統一配發，不使用 AUTO_INCREMENT。
+-- =============================================================================
+
+CREATE TABLE survey_responses (
+    id           BIGINT       NOT NULL,
+    survey_id    BIGINT       NOT NULL,
+    name         VARCHAR(255) NOT NULL,
+    phone        VARCHAR(255) NOT NULL,
+    email        VARCHAR(255) NOT NULL,
+    age          INTEGER,
+    submitted_at DATETIME(6)  NOT NULL,
+    user_id      BIGINT,
+    PRIMARY KEY (id),
+    INDEX idx_response_survey_email (survey_id, email),
+    INDEX idx_response_survey_list (survey_id, id, submitted_at, email, name),
+    INDEX idx_response_user_submitted (user_id, submitted_at)
+) ENGINE = InnoDB;
+
+CREATE TABLE response_answers (
+    id          BIGINT NOT NULL,
+    response_id BIGINT NOT NULL,
+    question_id BIGINT NOT NULL,
+    answer_text TEXT,
+    PRIMARY KEY (id),
+    INDEX idx_answer_response (response_id, question_id),
+    INDEX idx_answer_question (question_id),
+    CONSTRAINT fk_answers_response FOREIGN KEY (response_id) REFERENCES survey_responses (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE answer_selected_options (
+    answer_id BIGINT NOT NULL,
+    option_id BIGINT NOT NULL,
+    INDEX idx_selected_answer_option (answer_id, option_id),
+    INDEX idx_selected_option (option_id),
+    CONSTRAINT fk_selected_answer FOREIGN KEY (answer_id) REFERENCES response_answers (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE archived_survey_responses (
+    id           BIGINT       NOT NULL,
+    survey_id    BIGINT       NOT NULL,
+    name         VARCHAR(255) NOT NULL,
+    phone        VARCHAR(255) NOT NULL,
+    email        VARCHAR(255) NOT NULL,
+    age          INTEGER,
+    submitted_at DATETIME(6)  NOT NULL,
+    user_id      BIGINT,
+    PRIMARY KEY (id),
+    INDEX idx_archived_response_survey (survey_id, id)
+) ENGINE = InnoDB;
+
+CREATE TABLE archived_response_answers (
+    id          BIGINT NOT NULL,
+    response_id BIGINT NOT NULL,
+    question_id BIGINT NOT NULL,
+    answer_text TEXT,
+    PRIMARY KEY (id),
+    INDEX idx_archived_answer_response (response_id),
+    INDEX idx_archived_answer_question (question_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE archived_answer_selected_options (
+    answer_id BIGINT NOT NULL,
+    option_id BIGINT NOT NULL,
+    INDEX idx_archived_selected_answer (answer_id),
+    INDEX idx_archived_selected_option (option_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,5 @@
+-- =============================================================================
+-- 分片 V2: 封存作答的使用者歷史索引 (與 catalog 的 V10 相同)
+-- =============================================================================
+
+CREATE INDEX idx_archived_response_user_submitted ON archived_survey_responses (user_id, submitted_at);
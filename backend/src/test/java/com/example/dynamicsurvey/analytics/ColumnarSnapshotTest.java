@@ -0,0 +1,389 @@
+package com.example.dynamicsurvey.analytics;
+
+import com.example.dynamicsurvey.analytics.ColumnCodec.Column;
+import com.example.dynamicsurvey.analytics.ColumnarSnapshotWriter.SurveySchema;
+import com.example.dynamicsurvey.dto.NumericStatsDTO;
+import com.example.dynamicsurvey.dto.SurveyStatsDTO;
+import com.example.dynamicsurvey.entity.Option;
+import com.example.dynamicsurvey.entity.Question;
+import com.example.dynamicsurvey.entity.ResponseAnswer;
+import com.example.dynamicsurvey.entity.Survey;
+import com.example.dynamicsurvey.entity.SurveyResponse;
+import com.example.dynamicsurvey.service.SurveyStatsAggregator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * [測試] 欄式快照的寫入與讀取
+ * -----------------------------------------------------------------------------
+ * - 整數欄位：大量重複時為 RUN_LENGTH、其餘為 BIT_PACKED，可為 null 的欄位解碼後 null 不變
+ * - 寫出再讀回的 stats() 與 SurveyStatsAggregator.aggregate 對同一批作答的結果相同：
+ *   單一檔案、分成多個檔案 (某個檔案中單選題出現複選而改為多選欄、數值題改以文字存放)
+ * - 數值題的定點數換算與 Double.parseDouble 結果相同 (含超過 22 位小數的 BigDecimal 換算)
+ * 數值題每個檔案的作答數都少於 KLL 的容量 k，分位數不經取樣，合併前後結果可直接比較。
+ */
+class ColumnarSnapshotTest {
+
+    private static final long SURVEY_ID = 5L;
+    // 題目 ID
+    private static final int RLE_SINGLE = 1;
+    private static final int PACKED_SINGLE = 2;
+    private static final int PROMOTED = 3;
+    private static final int MULTI = 4;
+    private static final int TEXT = 5;
+    private static final int DECIMAL = 6;
+    private static final int HUGE = 7;
+    private static final int RATING = 8;
+
+    // 第 PROMOTED_ROW 筆回覆在單選題 PROMOTED 選了兩個選項；第 HUGE_ROW 筆的數值超出定點數範圍
+    private static final int PROMOTED_ROW = 120;
+    private static final int HUGE_ROW = 230;
+    private static final String HUGE_VALUE = "12345678901234567000";
+
+    @TempDir
+    Path root;
+
+    // =========================================================================
+    // 欄位編碼
+    // =========================================================================
+
+    @Test
+    void repeatedValuesAreRunLengthEncoded() throws IOException {
+        long[] values = new long[1_000];
+        for (int i = 0; i < values.length; i++) values[i] = i < 990 ? 3 : 7;
+
+        Encoded e = encode(values, null);
+
+        assertThat(e.column.encoding()).isEqualTo(ColumnCodec.RUN_LENGTH);
+        assertThat(e.column.length()).as("兩段").isEqualTo(2 * (Integer.BYTES + Long.BYTES));
+        assertThat(ColumnCodec.decode(e.buf, e.column, values.length, -1)).containsExactly(values);
+        assertThat(ColumnCodec.sum(e.buf, e.column, values.length)).isEqualTo(990 * 3 + 10 * 7);
+        int[] counts = new int[8];
+        ColumnCodec.countInto(e.buf, e.column, values.length, counts);
+        assertThat(counts[3]).isEqualTo(990);
+        assertThat(counts[7]).isEqualTo(10);
+    }
+
+    @Test
+    void varyingValuesAreBitPacked() throws IOException {
+        long[] values = new long[1_000];
+        for (int i = 0; i < values.length; i++) values[i] = 100 + (i * 7) % 13;
+
+        Encoded e = encode(values, null);
+
+        assertThat(e.column.encoding()).isEqualTo(ColumnCodec.BIT_PACKED);
+        assertThat(e.column.min()).isEqualTo(100);
+        assertThat(e.column.width()).as("減去最小值後 0 ~ 12").isEqualTo(4);
+        assertThat(ColumnCodec.decode(e.buf, e.column, values.length, -1)).containsExactly(values);
+        int[] counts = new int[113];
+        ColumnCodec.countInto(e.buf, e.column, values.length, counts);
+        assertThat(counts[100]).isEqualTo(77);
+    }
+
+    @Test
+    void bitColumnSumIsPopcountAndWideValuesSpanWords() throws IOException {
+        long[] bits = new long[1_001];
+        for (int i = 0; i < bits.length; i++) bits[i] = i % 2;
+        Encoded packedBits = encode(bits, null);
+        assertThat(packedBits.column.encoding()).isEqualTo(ColumnCodec.BIT_PACKED);
+        assertThat(packedBits.column.width()).isEqualTo(1);
+        assertThat(ColumnCodec.sum(packedBits.buf, packedBits.column, bits.length)).isEqualTo(500);
+
+        // 寬度 37：部分數值跨越兩個 long
+        long[] wide = new long[200];
+        for (int i = 0; i < wide.length; i++) wide[i] = (i * 0x9E3779B9L) & ((1L << 37) - 1);
+        Encoded packedWide = encode(wide, null);
+        assertThat(packedWide.column.encoding()).isEqualTo(ColumnCodec.BIT_PACKED);
+        assertThat(ColumnCodec.decode(packedWide.buf, packedWide.column, wide.length, -1)).containsExactly(wide);
+    }
+
+    @Test
+    void nullsSurviveBothEncodings() throws IOException {
+        long[] values = new long[500];
+        boolean[] nulls = new boolean[500];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 5;
+            nulls[i] = i % 3 == 0;
+        }
+        Encoded packed = encode(values, nulls);
+        assertThat(packed.column.encoding()).isEqualTo(ColumnCodec.BIT_PACKED);
+        assertThat(packed.column.nullCount()).isEqualTo(167);
+        long[] decoded = ColumnCodec.decode(packed.buf, packed.column, values.length, Long.MIN_VALUE);
+        long expectedSum = 0;
+        for (int i = 0; i < values.length; i++) {
+            assertThat(decoded[i]).isEqualTo(nulls[i] ? Long.MIN_VALUE : values[i]);
+            if (!nulls[i]) expectedSum += values[i];
+        }
+        assertThat(ColumnCodec.sum(packed.buf, packed.column, values.length)).isEqualTo(expectedSum);
+
+        // 前半全部 null、後半全部為 -4
+        boolean[] halfNull = new boolean[500];
+        long[] negative = new long[500];
+        for (int i = 0; i < 500; i++) {
+            halfNull[i] = i < 250;
+            negative[i] = -4;
+        }
+        Encoded rle = encode(negative, halfNull);
+        assertThat(rle.column.encoding()).isEqualTo(ColumnCodec.RUN_LENGTH);
+        long[] rleDecoded = ColumnCodec.decode(rle.buf, rle.column, 500, Long.MIN_VALUE);
+        assertThat(rleDecoded[249]).isEqualTo(Long.MIN_VALUE);
+        assertThat(rleDecoded[250]).isEqualTo(-4);
+        assertThat(ColumnCodec.sum(rle.buf, rle.column, 500)).isEqualTo(-1_000);
+
+        Encoded allNull = encode(new long[10], filled(10));
+        assertThat(allNull.column.nullCount()).isEqualTo(10);
+        assertThat(ColumnCodec.decode(allNull.buf, allNull.column, 10, -1)).containsOnly(-1L);
+    }
+
+    // =========================================================================
+    // 寫出再讀回
+    // =========================================================================
+
+    @Test
+    void singlePartMatchesAggregator() throws IOException {
+        Survey survey = survey();
+        List<SurveyResponse> responses = responses(survey, 1, 240);
+        writeParts(survey, responses, 240);
+
+        ColumnarSnapshotReader reader = ColumnarSnapshotReader.open(root, SURVEY_ID).orElseThrow();
+        SurveyStatsDTO expected = SurveyStatsAggregator.aggregate(survey, responses);
+
+        assertThat(reader.rowCount()).isEqualTo(240);
+        assertThat(reader.maxResponseId()).isEqualTo(240);
+        assertThat(reader.stats()).isEqualTo(expected);
+        // 抽查：單選題中有一筆選了兩個選項，兩個選項都計入
+        assertThat(reader.optionCounts(PROMOTED)).isEqualTo(expectedCounts(expected, PROMOTED));
+        assertThat(reader.numericStats(HUGE).max()).isEqualTo(Double.parseDouble(HUGE_VALUE));
+    }
+
+    @Test
+    void multiplePartsMatchAggregator() throws IOException {
+        Survey survey = survey();
+        List<SurveyResponse> responses = responses(survey, 1, 240);
+        // 1 ~ 100 | 101 ~ 200 (PROMOTED 為多選欄) | 201 ~ 240 (HUGE 以文字存放)
+        writeParts(survey, responses, 100, 200, 240);
+
+        ColumnarSnapshotReader reader = ColumnarSnapshotReader.open(root, SURVEY_ID).orElseThrow();
+
+        assertThat(reader.partFiles()).hasSize(3);
+        assertThat(reader.rowCount()).isEqualTo(240);
+        // 合併摘要時平均與變異數的加總順序不同，只允許最後幾個位元的差異
+        assertThat(reader.stats()).usingRecursiveComparison()
+                .withComparatorForType(ColumnarSnapshotTest::compareRelative, Double.class)
+                .isEqualTo(SurveyStatsAggregator.aggregate(survey, responses));
+    }
+
+    @Test
+    void fixedPointMatchesParseDouble() throws IOException {
+        Survey survey = new Survey();
+        survey.setId(SURVEY_ID);
+        survey.setTitle("精度");
+        Question decimals = question(1L, "NUMBER", 0);
+        Question tiny = question(2L, "NUMBER", 0);
+        survey.getQuestions().addAll(List.of(decimals, tiny));
+        String[] values = {"0.1", "0.2", "0.3", "-2.5", "123456.789012", "0.000001", "9007199254.740993", "100", "abc"};
+        String[] tinyValues = {"0.00000000000000000000001", "0.0000000000000000000000301", "0.0000000000000000000001"};
+        List<SurveyResponse> responses = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            SurveyResponse r = response(i + 1L);
+            r.getAnswers().add(text(decimals, values[i]));
+            if (i < tinyValues.length) r.getAnswers().add(text(tiny, tinyValues[i]));
+            responses.add(r);
+        }
+        writeParts(survey, responses, responses.size());
+
+        ColumnarSnapshotReader reader = ColumnarSnapshotReader.open(root, SURVEY_ID).orElseThrow();
+        NumericStatsDTO stats = reader.numericStats(1L);
+
+        assertThat(reader.stats()).isEqualTo(SurveyStatsAggregator.aggregate(survey, responses));
+        assertThat(stats.count()).as("無法解析的答案不列入").isEqualTo(8);
+        assertThat(stats.min()).isEqualTo(-2.5);
+        assertThat(stats.max()).isEqualTo(9007199254.740993);
+        assertThat(stats.p25()).isEqualTo(0.000001);
+        assertThat(stats.p50()).isEqualTo(0.2);
+        assertThat(reader.numericStats(2L).min()).isEqualTo(Double.parseDouble("1e-23"));
+        assertThat(reader.numericStats(2L).p50()).isEqualTo(Double.parseDouble("3.01e-23"));
+        assertThat(reader.numericStats(2L).max()).isEqualTo(Double.parseDouble("1e-22"));
+    }
+
+    @Test
+    void missingManifestMeansNotExported() throws IOException {
+        assertThat(ColumnarSnapshotReader.open(root, SURVEY_ID)).isEmpty();
+    }
+
+    // =========================================================================
+    // 測試資料
+    // =========================================================================
+
+    /**
+     * 每一題的作答依回覆序號決定；每 7 筆有 1 筆完全未作答且沒有年齡
+     */
+    static List<SurveyResponse> responses(Survey survey, int fromId, int toId) {
+        List<SurveyResponse> responses = new ArrayList<>();
+        for (int id = fromId; id <= toId; id++) {
+            SurveyResponse r = response(id);
+            responses.add(r);
+            if (id % 7 == 0) {
+                r.setAge(null);
+                continue;
+            }
+            for (Question q : survey.getQuestions()) {
+                List<Option> o = q.getOptions();
+                switch (q.getId().intValue()) {
+                    case RLE_SINGLE -> r.getAnswers().add(choice(q, o.get(id % 50 == 0 ? 1 : 0)));
+                    case PACKED_SINGLE -> r.getAnswers().add(choice(q, o.get(id % o.size())));
+                    case PROMOTED -> r.getAnswers().add(id == PROMOTED_ROW
+                            ? choice(q, o.get(0), o.get(1)) : choice(q, o.get(id % 2)));
+                    case MULTI -> r.getAnswers().add(id % 3 == 0 ? choice(q, o.get(0), o.get(2)) : choice(q, o.get(id % 3)));
+                    case TEXT -> {
+                        if (id % 4 != 0) r.getAnswers().add(text(q, id % 4 == 1 ? "很好 👍 #" + id : "ok " + id));
+                    }
+                    case DECIMAL -> {
+                        if (id % 2 == 0) r.getAnswers().add(text(q, decimal(id)));
+                    }
+                    case HUGE -> {
+                        if (id == HUGE_ROW) r.getAnswers().add(text(q, HUGE_VALUE));
+                        else if (id % 5 == 0) r.getAnswers().add(text(q, String.valueOf(id * 1000)));
+                    }
+                    case RATING -> r.getAnswers().add(text(q, String.valueOf(1 + id % 5)));
+                    default -> {
+                    }
+                }
+            }
+        }
+        return responses;
+    }
+
+    static Survey survey() {
+        Survey survey = new Survey();
+        survey.setId(SURVEY_ID);
+        survey.setTitle("員工滿意度調查");
+        survey.getQuestions().addAll(List.of(
+                question(RLE_SINGLE, "SINGLE", 3),
+                question(PACKED_SINGLE, "SINGLE", 5),
+                question(PROMOTED, "SINGLE", 2),
+                question(MULTI, "MULTI", 3),
+                question(TEXT, "TEXT", 0),
+                question(DECIMAL, "NUMBER", 0),
+                question(HUGE, "NUMBER", 0),
+                question(RATING, "RATING", 0)));
+        return survey;
+    }
+
+    /**
+     * 依 cuts 將作答分成多個檔案 (每個值為該檔案的最後一筆序號，不含)，並寫出 manifest
+     */
+    void writeParts(Survey survey, List<SurveyResponse> responses, int... cuts) throws IOException {
+        Path dir = ColumnarSnapshotReader.surveyDir(root, SURVEY_ID);
+        Files.createDirectories(dir);
+        SurveySchema schema = SurveySchema.of(survey);
+        List<String> manifest = new ArrayList<>();
+        int from = 0;
+        for (int cut : cuts) {
+            ColumnarSnapshotWriter writer = new ColumnarSnapshotWriter(schema);
+            for (SurveyResponse r : responses.subList(from, cut)) {
+                writer.addResponse(r.getId(), r.getSubmittedAt().toInstant(ZoneOffset.UTC).toEpochMilli(), r.getAge());
+                for (ResponseAnswer a : r.getAnswers()) {
+                    writer.addAnswer(a.getQuestion().getId(), a.getAnswerText(),
+                            a.getSelectedOptions().stream().map(Option::getId).toList());
+                }
+            }
+            String name = "part-" + cut + ".col";
+            writer.writeTo(dir.resolve(name));
+            manifest.add(name);
+            from = cut;
+        }
+        Files.write(dir.resolve(ColumnarSnapshotReader.MANIFEST), manifest, StandardCharsets.UTF_8);
+    }
+
+    private static Map<Long, Integer> expectedCounts(SurveyStatsDTO stats, long questionId) {
+        Map<Long, Integer> counts = new HashMap<>();
+        stats.questionStats().stream().filter(q -> q.questionId() == questionId).findFirst().orElseThrow()
+                .optionStats().forEach((id, o) -> counts.put(id, o.count()));
+        return counts;
+    }
+
+    private static Question question(long id, String type, int options) {
+        Question q = new Question();
+        q.setId(id);
+        q.setTitle("Q" + id);
+        q.setType(type);
+        q.setOrderIndex((int) id);
+        for (int i = 0; i < options; i++) {
+            Option o = new Option();
+            o.setId(id * 100 + i);
+            o.setOptionText("選項 " + i);
+            o.setOrderIndex(i);
+            q.getOptions().add(o);
+        }
+        return q;
+    }
+
+    private static SurveyResponse response(long id) {
+        SurveyResponse r = new SurveyResponse();
+        r.setId(id);
+        r.setSubmittedAt(LocalDateTime.of(2024, 5, 1, 9, 0).plusMinutes(id));
+        r.setAge((int) (18 + id % 50));
+        return r;
+    }
+
+    private static ResponseAnswer choice(Question q, Option... options) {
+        ResponseAnswer a = new ResponseAnswer();
+        a.setQuestion(q);
+        a.getSelectedOptions().addAll(List.of(options));
+        return a;
+    }
+
+    private static ResponseAnswer text(Question q, String value) {
+        ResponseAnswer a = new ResponseAnswer();
+        a.setQuestion(q);
+        a.setAnswerText(value);
+        return a;
+    }
+
+    private static int compareRelative(Double a, Double b) {
+        if (Math.abs(a - b) <= 1e-12 * Math.max(Math.abs(a), Math.abs(b))) return 0;
+        return Double.compare(a, b);
+    }
+
+    private static boolean[] filled(int n) {
+        boolean[] b = new boolean[n];
+        Arrays.fill(b, true);
+        return b;
+    }
+
+    private static Encoded encode(long[] values, boolean[] nulls) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        Column column = ColumnCodec.write(out, values, nulls, values.length);
+        out.flush();
+        return new Encoded(column, ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    private record Encoded(Column column, ByteBuffer buf) {
+    }
+
+    // 小數位數不同的正規化數值 (1.5、-0.25、-1.125 ...)，最多 3 位小數
+    private static String decimal(int id) {
+        return BigDecimal.valueOf(id % 11).subtract(BigDecimal.valueOf(id).divide(BigDecimal.valueOf(id % 3 == 0 ? 8 : 4)))
+                .stripTrailingZeros().toPlainString();
+    }
+}
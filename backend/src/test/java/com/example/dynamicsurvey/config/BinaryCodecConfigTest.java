@@ -0,0 +1,100 @@
+package com.example.dynamicsurvey.config;
+
+import com.example.dynamicsurvey.dto.HistoryItemDTO;
+import com.example.dynamicsurvey.dto.HistoryPageDTO;
+import com.example.dynamicsurvey.dto.SurveyDTO;
+import com.example.dynamicsurvey.vo.AppResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * [測試] 二進位格式的轉換器選擇與日期欄位
+ * -----------------------------------------------------------------------------
+ * 以正式的 application.properties 建立 Spring MVC，從 RequestMappingHandlerAdapter 實際使用的清單中
+ * 找出第一個能寫出該格式的轉換器 (與 MVC 內容協商的選法相同)：
+ *   - 必須是 BinaryCodecConfig 提供的 Bean，而非 Spring MVC 預設的版本
+ *   - LocalDate / LocalDateTime 以 ISO 字串編碼 (與 JSON 一致)，解回 DTO 後值不變
+ */
+class BinaryCodecConfigTest {
+
+    private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+            .withInitializer(new ConfigDataApplicationContextInitializer())
+            .withConfiguration(AutoConfigurations.of(JacksonAutoConfiguration.class,
+                    HttpMessageConvertersAutoConfiguration.class, WebMvcAutoConfiguration.class))
+            .withUserConfiguration(BinaryCodecConfig.class);
+
+    @ParameterizedTest
+    @ValueSource(strings = {"application/cbor", "application/x-jackson-smile"})
+    void binaryFormatsUseBootConfiguredMapperAndRoundTripDates(String type) {
+        MediaType mediaType = MediaType.parseMediaType(type);
+        contextRunner.run(context -> {
+            List<HttpMessageConverter<?>> converters = context.getBean(RequestMappingHandlerAdapter.class).getMessageConverters();
+            HttpMessageConverter<Object> converter = firstWriter(converters, mediaType);
+
+            SurveyDTO survey = new SurveyDTO();
+            survey.setTitle("日期");
+            survey.setStartDate(LocalDate.of(2026, 3, 1));
+            survey.setEndDate(LocalDate.of(2026, 12, 31));
+            LocalDateTime submittedAt = LocalDateTime.of(2026, 3, 2, 14, 5, 9, 123_000_000);
+            HistoryPageDTO history = new HistoryPageDTO(List.of(new HistoryItemDTO(7L, 3L, "日期", submittedAt)),
+                    true, submittedAt, 7L);
+
+            ObjectMapper reader = new ObjectMapper(mediaType.getSubtype().equals("cbor") ? new CBORFactory() : new SmileFactory());
+            JsonNode surveyTree = reader.readTree(write(converter, AppResponse.success(survey), mediaType));
+            assertThat(surveyTree.at("/data/startDate").asText()).isEqualTo("2026-03-01");
+            JsonNode historyTree = reader.readTree(write(converter, history, mediaType));
+            assertThat(historyTree.at("/items/0/submittedAt").asText()).isEqualTo("2026-03-02T14:05:09.123");
+
+            SurveyDTO surveyBack = (SurveyDTO) read(converter, SurveyDTO.class, write(converter, survey, mediaType), mediaType);
+            assertThat(surveyBack.getStartDate()).isEqualTo(survey.getStartDate());
+            assertThat(surveyBack.getEndDate()).isEqualTo(survey.getEndDate());
+            HistoryPageDTO historyBack = (HistoryPageDTO) read(converter, HistoryPageDTO.class, write(converter, history, mediaType), mediaType);
+            assertThat(historyBack).isEqualTo(history);
+
+            assertThat(converter).isSameAs(context.getBean(converter.getClass()));
+            assertThat(firstWriter(converters, MediaType.ALL)).as("未指定格式時仍為 JSON")
+                    .isNotInstanceOf(converter.getClass());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpMessageConverter<Object> firstWriter(List<HttpMessageConverter<?>> converters, MediaType mediaType) {
+        return (HttpMessageConverter<Object>) converters.stream()
+                .filter(c -> c.canWrite(SurveyDTO.class, mediaType))
+                .findFirst().orElseThrow();
+    }
+
+    private static byte[] write(HttpMessageConverter<Object> converter, Object value, MediaType mediaType) throws Exception {
+        MockHttpOutputMessage out = new MockHttpOutputMessage();
+        converter.write(value, mediaType, out);
+        return out.getBodyAsBytes();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object read(HttpMessageConverter<Object> converter, Class<?> type, byte[] body, MediaType mediaType) throws Exception {
+        MockHttpInputMessage in = new MockHttpInputMessage(body);
+        in.getHeaders().setContentType(mediaType);
+        return converter.read((Class<Object>) type, in);
+    }
+}
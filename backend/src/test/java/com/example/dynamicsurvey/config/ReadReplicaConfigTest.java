@@ -0,0 +1,174 @@
+package com.example.dynamicsurvey.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.assertj.AssertableApplicationContext;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * [測試] 讀寫分離 (主庫與 replica 各一個 H2 記憶體資料庫)
+ * -----------------------------------------------------------------------------
+ * 兩個資料庫各有一張 marker 資料表記錄自己的名稱，以此判斷查詢實際走哪一邊：
+ * - 唯讀交易走 replica，讀寫交易與無交易的查詢走主庫
+ * - 延遲查詢超過上限、查無資料列或值為 NULL 時回到主庫，延遲恢復後切回 replica
+ * - replica 無法連線 (啟動時或執行中) 時請求改用主庫，不會失敗
+ */
+class ReadReplicaConfigTest {
+
+    private String primaryUrl;
+    private String replicaUrl;
+    private JdbcTemplate replicaAdmin;
+
+    @Configuration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().replace("-", "");
+        primaryUrl = "jdbc:h2:mem:primary" + suffix + ";DB_CLOSE_DELAY=-1";
+        replicaUrl = "jdbc:h2:mem:replica" + suffix + ";DB_CLOSE_DELAY=-1";
+        for (String[] db : new String[][]{{primaryUrl, "primary"}, {replicaUrl, "replica"}}) {
+            JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(db[0], "sa", ""));
+            jdbc.execute("CREATE TABLE marker (name VARCHAR(20))");
+            jdbc.update("INSERT INTO marker (name) VALUES (?)", db[1]);
+        }
+        replicaAdmin = new JdbcTemplate(new DriverManagerDataSource(replicaUrl, "sa", ""));
+        replicaAdmin.execute("CREATE TABLE heartbeat (ts TIMESTAMP)");
+        replicaAdmin.update("INSERT INTO heartbeat (ts) VALUES (CURRENT_TIMESTAMP)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String url : new String[]{primaryUrl, replicaUrl}) {
+            try {
+                new JdbcTemplate(new DriverManagerDataSource(url + ";IFEXISTS=TRUE", "sa", "")).execute("SHUTDOWN");
+            } catch (RuntimeException ignored) {
+                // 測試中已關閉
+            }
+        }
+    }
+
+    private ApplicationContextRunner runner(String replicaJdbcUrl, String lagQuery) {
+        return new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+                .withUserConfiguration(ReadReplicaConfig.class, Metrics.class)
+                .withPropertyValues(
+                        "spring.datasource.url=" + primaryUrl,
+                        "spring.datasource.username=sa",
+                        "app.datasource.replica.enabled=true",
+                        "app.datasource.replica.jdbc-url=" + replicaJdbcUrl,
+                        "app.datasource.replica.username=sa",
+                        "app.datasource.replica.connection-timeout=250",
+                        "app.datasource.replica.lag-query=" + lagQuery,
+                        "app.datasource.replica.max-lag-seconds=10");
+    }
+
+    private ApplicationContextRunner runner() {
+        return runner(replicaUrl, "SELECT DATEDIFF('SECOND', MAX(ts), CURRENT_TIMESTAMP) FROM heartbeat");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        runner().run(context -> {
+            assertThat(context).hasSingleBean(ReplicaHealthMonitor.class);
+            assertThat(marker(context, true)).isEqualTo("replica");
+            assertThat(marker(context, false)).isEqualTo("primary");
+            assertThat(new JdbcTemplate(context.getBean(DataSource.class)).queryForObject("SELECT name FROM marker", String.class))
+                    .as("沒有交易").isEqualTo("primary");
+        });
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimaryUntilItCatchesUp() {
+        runner().run(context -> {
+            ReplicaHealthMonitor monitor = context.getBean(ReplicaHealthMonitor.class);
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+
+            replicaAdmin.update("UPDATE heartbeat SET ts = DATEADD('SECOND', -60, CURRENT_TIMESTAMP)");
+            monitor.check();
+            assertThat(monitor.isHealthy()).isFalse();
+            assertThat(registry.get("datasource.replica.healthy").gauge().value()).isZero();
+            assertThat(marker(context, true)).isEqualTo("primary");
+
+            replicaAdmin.update("UPDATE heartbeat SET ts = CURRENT_TIMESTAMP");
+            monitor.check();
+            assertThat(monitor.isHealthy()).isTrue();
+            assertThat(registry.get("datasource.replica.healthy").gauge().value()).isOne();
+            assertThat(marker(context, true)).isEqualTo("replica");
+        });
+    }
+
+    @Test
+    void unknownLagCountsAsUnhealthy() {
+        // MAX() 在沒有 heartbeat 時回傳 NULL
+        runner().run(context -> {
+            ReplicaHealthMonitor monitor = context.getBean(ReplicaHealthMonitor.class);
+            replicaAdmin.update("DELETE FROM heartbeat");
+            monitor.check();
+            assertThat(monitor.isHealthy()).isFalse();
+            assertThat(marker(context, true)).isEqualTo("primary");
+        });
+        // 延遲查詢沒有回傳任何資料列
+        runner(replicaUrl, "SELECT DATEDIFF('SECOND', ts, CURRENT_TIMESTAMP) FROM heartbeat").run(context -> {
+            ReplicaHealthMonitor monitor = context.getBean(ReplicaHealthMonitor.class);
+            monitor.check();
+            assertThat(monitor.isHealthy()).isFalse();
+        });
+    }
+
+    @Test
+    void replicaOutageFallsBackToPrimary() {
+        // IFEXISTS：關閉後無法再以同一個 URL 建立新的空資料庫
+        runner(replicaUrl + ";IFEXISTS=TRUE", "").run(context -> {
+            ReplicaHealthMonitor monitor = context.getBean(ReplicaHealthMonitor.class);
+            assertThat(marker(context, true)).isEqualTo("replica");
+
+            // 關閉 replica 後淘汰連線池中已失效的閒置連線 (Hikari 借出前不一定會驗證)
+            replicaAdmin.execute("SHUTDOWN");
+            context.getBean("replicaDataSource", HikariDataSource.class).getHikariPoolMXBean().softEvictConnections();
+
+            assertThat(marker(context, true)).as("取得 replica 連線失敗時改用主庫").isEqualTo("primary");
+            assertThat(monitor.isHealthy()).isFalse();
+            monitor.check();
+            assertThat(monitor.isHealthy()).isFalse();
+        });
+    }
+
+    @Test
+    void replicaUnreachableAtStartupDoesNotBreakReads() {
+        runner("jdbc:h2:mem:missing" + UUID.randomUUID().toString().replace("-", "") + ";IFEXISTS=TRUE", "").run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(marker(context, true)).isEqualTo("primary");
+            assertThat(context.getBean(ReplicaHealthMonitor.class).isHealthy()).isFalse();
+        });
+    }
+
+    private static String marker(AssertableApplicationContext context, boolean readOnly) {
+        DataSource dataSource = context.getBean(DataSource.class);
+        TransactionTemplate tx = new TransactionTemplate(new JdbcTransactionManager(dataSource));
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> new JdbcTemplate(dataSource).queryForObject("SELECT name FROM marker", String.class));
+    }
+}
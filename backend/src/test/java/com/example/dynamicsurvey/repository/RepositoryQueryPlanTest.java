@@ -0,0 +1,316 @@
+package com.example.dynamicsurvey.repository;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.example.dynamicsurvey.config.ResponseShardConfig;
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.entity.Survey;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * [測試] 每個 Repository 查詢的執行計畫 (內嵌 MariaDB)
+ * -----------------------------------------------------------------------------
+ * 1. 以 MariaDB4j 啟動真正的 MySQL 相容資料庫，由 Flyway 套用 db/migration 全部版本，
+ *    再以 ddl-auto=validate 啟動 Hibernate：遷移與實體對應不一致時容器無法啟動。
+ * 2. 寫入足量的測試資料並 ANALYZE，讓最佳化器依資料分布選擇執行計畫 (空表一律全表掃描，無參考價值)。
+ * 3. 逐一呼叫每個 Repository 方法，從 general_log 取出實際送出的 SQL (含參數值)，
+ *    對每一句執行 EXPLAIN：任何資料表出現 type=ALL (全表掃描) 即失敗。
+ * 新增 Repository 方法時必須在 queries() 補上對應的呼叫，否則 everyRepositoryMethodHasAQueryPlanCheck 失敗。
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Import({ResponseShardConfig.class, ResponseArchiveRepository.class, RespondentRepository.class,
+        ResponseExportRepository.class, RepositoryQueryPlanTest.Metrics.class})
+class RepositoryQueryPlanTest {
+
+    private static final String DATABASE = "dynamic_survey";
+    private static final LocalDate FIRST_START = LocalDate.of(2024, 1, 1);
+    private static final int SURVEYS = 300;
+    private static final int LIVE_SURVEYS = 150;      // 1 ~ 150 有線上作答
+    private static final int ARCHIVED_SURVEYS = 200;  // 151 ~ 200 的作答已封存
+    private static final int RESPONSES_PER_SURVEY = 20;
+    private static final int USERS = 200;
+
+    // 代表性的查詢參數
+    private static final long SURVEY = 42;
+    private static final long ARCHIVED_SURVEY = 170;
+    private static final long USER = 17;
+
+    private static final Pattern STATEMENT = Pattern.compile("^\\s*\\(?\\s*(select|insert|update|delete)\\b", Pattern.CASE_INSENSITIVE);
+    // INSERT ... VALUES 不讀取任何資料表，不需檢查執行計畫
+    private static final Pattern INSERT_VALUES = Pattern.compile("^\\s*insert\\b(?!.*\\bselect\\b)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static DB db;
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @DynamicPropertySource
+    static void mariaDb(DynamicPropertyRegistry registry) throws ManagedProcessException {
+        if (db == null) {
+            DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+            config.setPort(0);
+            config.addArg("--character-set-server=utf8mb4");
+            config.addArg("--general-log=1");
+            config.addArg("--log-output=TABLE");
+            if ("root".equals(System.getProperty("user.name"))) config.addArg("--user=root");
+            db = DB.newEmbeddedDB(config.build());
+            db.start();
+            db.createDB(DATABASE);
+        }
+        int port = db.getConfiguration().getPort();
+        registry.add("spring.datasource.url", () -> "jdbc:mysql://localhost:" + port + "/" + DATABASE +
+                "?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true");
+        registry.add("spring.datasource.username", () -> "root");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.datasource.driver-class-name", () -> "com.mysql.cj.jdbc.Driver");
+        // 與正式環境相同：Flyway 建立資料表，Hibernate 只驗證
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.MySQLDialect");
+    }
+
+    @Autowired SurveyRepository surveyRepository;
+    @Autowired SurveyResponseRepository responseRepository;
+    @Autowired UserRepository userRepository;
+    @Autowired ResponseArchiveRepository archiveRepository;
+    @Autowired RespondentRepository respondentRepository;
+    @Autowired ResponseExportRepository exportRepository;
+    @Autowired ResponseShardRouter router;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    void seed() {
+        List<Object[]> surveys = new ArrayList<>(), questions = new ArrayList<>(), options = new ArrayList<>();
+        for (long s = 1; s <= SURVEYS; s++) {
+            LocalDate start = FIRST_START.plusDays(s * 3);
+            String status = s % 10 == 0 ? "DRAFT" : s % 10 == 1 ? "SUPERSEDED" : "PUBLISHED";
+            long root = s - (s - 1) % 3; // 每三份為同一份問卷的三個版本
+            surveys.add(new Object[]{s, "問卷 " + s, start, start.plusDays(30), status,
+                    root == s ? null : root, (s - 1) % 3 + 1, "DRAFT".equals(status) ? null : start.atStartOfDay()});
+            for (int q = 1; q <= 2; q++) {
+                long questionId = s * 10 + q;
+                questions.add(new Object[]{questionId, s, "題目 " + q, "SINGLE", true, q - 1});
+                for (int o = 1; o <= 3; o++) options.add(new Object[]{questionId * 10 + o, questionId, "選項 " + o, o - 1});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO surveys (id, title, start_date, end_date, status, root_id, version_no, published_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", surveys);
+        jdbc.batchUpdate("INSERT INTO questions (id, survey_id, title, type, required, order_index) VALUES (?, ?, ?, ?, ?, ?)", questions);
+        jdbc.batchUpdate("INSERT INTO options (id, question_id, option_text, order_index) VALUES (?, ?, ?, ?)", options);
+
+        List<Object[]> users = new ArrayList<>();
+        for (long u = 1; u <= USERS; u++) users.add(new Object[]{u, "user" + u + "@example.com", "使用者 " + u, "x", "USER"});
+        jdbc.batchUpdate("INSERT INTO users (id, email, name, password, role) VALUES (?, ?, ?, ?, ?)", users);
+
+        for (String p : List.of("", "archived_")) {
+            List<Object[]> responses = new ArrayList<>(), answers = new ArrayList<>(), selected = new ArrayList<>();
+            long from = p.isEmpty() ? 1 : LIVE_SURVEYS + 1, to = p.isEmpty() ? LIVE_SURVEYS : ARCHIVED_SURVEYS;
+            for (long s = from; s <= to; s++) {
+                for (int i = 0; i < RESPONSES_PER_SURVEY; i++) {
+                    long id = (s - 1) * RESPONSES_PER_SURVEY + i + 1;
+                    responses.add(new Object[]{id, s, "作答者 " + id, "0900000000", "r" + id + "@example.com", 30,
+                            FIRST_START.plusDays(s * 3).atTime(9, 0).plusHours(i), id % USERS + 1});
+                    answers.add(new Object[]{id, id, s * 10 + 1});
+                    selected.add(new Object[]{id, (s * 10 + 1) * 10 + id % 3 + 1});
+                }
+            }
+            jdbc.batchUpdate("INSERT INTO " + p + "survey_responses (id, survey_id, name, phone, email, age, submitted_at, user_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", responses);
+            jdbc.batchUpdate("INSERT INTO " + p + "response_answers (id, response_id, question_id) VALUES (?, ?, ?)", answers);
+            jdbc.batchUpdate("INSERT INTO " + p + "answer_selected_options (answer_id, option_id) VALUES (?, ?)", selected);
+        }
+        List<Object[]> snapshots = new ArrayList<>();
+        for (long s = LIVE_SURVEYS + 1; s <= ARCHIVED_SURVEYS; s++) {
+            snapshots.add(new Object[]{s, RESPONSES_PER_SURVEY, "{}", LocalDateTime.now(), true});
+        }
+        jdbc.batchUpdate("INSERT INTO survey_stats_snapshots (survey_id, total_responses, stats_json, archived_at, completed) " +
+                "VALUES (?, ?, ?, ?, ?)", snapshots);
+
+        jdbc.execute("ANALYZE TABLE surveys, questions, options, users, survey_responses, response_answers, answer_selected_options, " +
+                "archived_survey_responses, archived_response_answers, archived_answer_selected_options, survey_stats_snapshots");
+    }
+
+    /**
+     * 每個 Repository 方法以代表性的參數呼叫一次 (寫入類的方法在回滾的交易中執行)
+     */
+    private Map<String, Runnable> queries() {
+        LocalDate today = FIRST_START.plusDays(SURVEY * 3 + 10);
+        List<Long> surveyIds = List.of(SURVEY, SURVEY + 1, ARCHIVED_SURVEY);
+        List<Long> questionIds = List.of(SURVEY * 10 + 1, SURVEY * 10 + 2);
+        List<Long> optionIds = List.of((SURVEY * 10 + 1) * 10 + 1, (SURVEY * 10 + 1) * 10 + 2);
+        long liveResponse = (SURVEY - 1) * RESPONSES_PER_SURVEY + 5;
+        long archivedResponse = (ARCHIVED_SURVEY - 1) * RESPONSES_PER_SURVEY + 5;
+        LocalDateTime cursorAt = FIRST_START.plusDays(SURVEY * 3).atTime(12, 0);
+        ResponseShardRouter.Shard shard = router.forRead(SURVEY);
+
+        Map<String, Runnable> q = new LinkedHashMap<>();
+        // SurveyRepository
+        q.put("SurveyRepository.findById", () -> inTransaction(() -> {
+            Survey survey = surveyRepository.findById(SURVEY).orElseThrow();
+            survey.getQuestions().forEach(question -> question.getOptions().size());
+        }));
+        q.put("SurveyRepository.findActiveSurveys", () -> surveyRepository.findActiveSurveys(today));
+        q.put("SurveyRepository.findByDateRange", () -> surveyRepository.findByDateRange(today, today.plusDays(20)));
+        q.put("SurveyRepository.findSummariesByIdIn", () -> surveyRepository.findSummariesByIdIn(surveyIds));
+        q.put("SurveyRepository.findMaxVersionNo", () -> surveyRepository.findMaxVersionNo(40L));
+        q.put("SurveyRepository.findIdsInLineage", () -> surveyRepository.findIdsInLineage(40L));
+        q.put("SurveyRepository.findReplaceableInLineage", () -> surveyRepository.findReplaceableInLineage(40L));
+        q.put("SurveyRepository.findPendingDraftsInLineage", () -> surveyRepository.findPendingDraftsInLineage(40L));
+        // 種子資料的 updated_at 都是載入時間；以之後的時間模擬「只有少數幾筆剛修改」
+        q.put("SurveyRepository.findUpdatedAfter", () -> surveyRepository.findUpdatedAfter(LocalDateTime.now().plusDays(1)));
+        q.put("SurveyRepository.findAllIds", () -> surveyRepository.findAllIds());
+        // SurveyResponseRepository
+        q.put("SurveyResponseRepository.findHistoryByUserId", () -> responseRepository.findHistoryByUserId(USER, PageRequest.of(0, 20)));
+        q.put("SurveyResponseRepository.findHistoryByUserIdBefore",
+                () -> responseRepository.findHistoryByUserIdBefore(USER, cursorAt, liveResponse, PageRequest.of(0, 20)));
+        long firstResponse = (SURVEY - 1) * RESPONSES_PER_SURVEY + 1;
+        q.put("SurveyResponseRepository.findIdsBySurveyIdAfter",
+                () -> responseRepository.findIdsBySurveyIdAfter(SURVEY, firstResponse, PageRequest.of(0, 10)));
+        q.put("SurveyResponseRepository.findWithAnswersByIdIn", () -> inTransaction(() ->
+                responseRepository.findWithAnswersByIdIn(List.of(firstResponse, firstResponse + 1))
+                        .forEach(r -> r.getAnswers().forEach(a -> a.getSelectedOptions().size()))));
+        q.put("SurveyResponseRepository.findSummariesBySurveyId", () -> responseRepository.findSummariesBySurveyId(SURVEY));
+        q.put("SurveyResponseRepository.existsBySurveyId", () -> responseRepository.existsBySurveyId(SURVEY));
+        q.put("SurveyResponseRepository.countBySurveyId", () -> responseRepository.countBySurveyId(SURVEY));
+        q.put("SurveyResponseRepository.existsBySurveyIdAndEmail", () -> responseRepository.existsBySurveyIdAndEmail(SURVEY, "r830@example.com"));
+        q.put("SurveyResponseRepository.existsBySurveyIdInAndEmail",
+                () -> responseRepository.existsBySurveyIdInAndEmail(surveyIds, "r830@example.com"));
+        q.put("SurveyResponseRepository.findSurveyIdsWithResponses", () -> responseRepository.findSurveyIdsWithResponses(surveyIds));
+        q.put("SurveyResponseRepository.existsAnswerForQuestions", () -> responseRepository.existsAnswerForQuestions(questionIds));
+        q.put("SurveyResponseRepository.existsAnswerForOptions", () -> responseRepository.existsAnswerForOptions(optionIds));
+        q.put("SurveyResponseRepository.countSelectionsByOption", () -> responseRepository.countSelectionsByOption(optionIds));
+        q.put("SurveyResponseRepository.findDetailById", () -> responseRepository.findDetailById(liveResponse));
+        // UserRepository
+        q.put("UserRepository.findByEmail", () -> userRepository.findByEmail("user17@example.com"));
+        q.put("UserRepository.existsByEmail", () -> userRepository.existsByEmail("user17@example.com"));
+        q.put("UserRepository.findUpdatedAtByEmail", () -> userRepository.findUpdatedAtByEmail("user17@example.com"));
+        q.put("UserRepository.findChangedAfter", () -> userRepository.findChangedAfter(LocalDateTime.now().plusDays(1)));
+        // ResponseArchiveRepository
+        q.put("ResponseArchiveRepository.findSurveysToArchive", () -> archiveRepository.findSurveysToArchive(today.minusDays(30)));
+        q.put("ResponseArchiveRepository.saveSnapshot", () -> rolledBack(() -> archiveRepository.saveSnapshot(SURVEY, 20, "{}")));
+        q.put("ResponseArchiveRepository.markCompleted", () -> rolledBack(() -> archiveRepository.markCompleted(ARCHIVED_SURVEY)));
+        q.put("ResponseArchiveRepository.findLiveResponseIds", () -> archiveRepository.findLiveResponseIds(shard, SURVEY, 100));
+        q.put("ResponseArchiveRepository.moveBatch", () -> rolledBack(() ->
+                archiveRepository.moveBatch(shard, archiveRepository.findLiveResponseIds(shard, SURVEY, 10))));
+        q.put("ResponseArchiveRepository.findSnapshotJson", () -> archiveRepository.findSnapshotJson(ARCHIVED_SURVEY));
+        q.put("ResponseArchiveRepository.findSurveyIdsWithArchivedResponses",
+                () -> archiveRepository.findSurveyIdsWithArchivedResponses(surveyIds));
+        q.put("ResponseArchiveRepository.referencesQuestionsOrOptions", () -> archiveRepository.referencesQuestionsOrOptions(
+                ARCHIVED_SURVEY, List.of(ARCHIVED_SURVEY * 10 + 1), List.of((ARCHIVED_SURVEY * 10 + 1) * 10 + 1)));
+        q.put("ResponseArchiveRepository.findSummariesBySurveyId", () -> archiveRepository.findSummariesBySurveyId(ARCHIVED_SURVEY));
+        q.put("ResponseArchiveRepository.findHistory", () -> {
+            archiveRepository.findHistory(USER, null, null, 20);
+            archiveRepository.findHistory(USER, FIRST_START.plusDays(ARCHIVED_SURVEY * 3).atTime(12, 0), archivedResponse, 20);
+        });
+        q.put("ResponseArchiveRepository.findDetailById", () -> archiveRepository.findDetailById(archivedResponse));
+        // RespondentRepository
+        q.put("RespondentRepository.findAfter", () -> respondentRepository.findAfter(SURVEY, liveResponse, 100));
+        // ResponseExportRepository
+        q.put("ResponseExportRepository.findSurveyIdsWithResponses", () -> exportRepository.findSurveyIdsWithResponses());
+        q.put("ResponseExportRepository.countUpTo", () -> exportRepository.countUpTo(SURVEY, liveResponse));
+        q.put("ResponseExportRepository.findAfter", () -> exportRepository.findAfter(SURVEY, liveResponse, 100));
+        return q;
+    }
+
+    @Test
+    void everyRepositoryMethodHasAQueryPlanCheck() {
+        Set<String> declared = new TreeSet<>();
+        for (Class<?> type : List.of(SurveyRepository.class, SurveyResponseRepository.class, UserRepository.class,
+                ResponseArchiveRepository.class, RespondentRepository.class, ResponseExportRepository.class)) {
+            for (Method m : type.getDeclaredMethods()) {
+                if (Modifier.isPublic(m.getModifiers()) && !Modifier.isStatic(m.getModifiers()) && !m.isSynthetic()) {
+                    declared.add(type.getSimpleName() + "." + m.getName());
+                }
+            }
+        }
+        assertThat(queries().keySet()).containsAll(declared);
+    }
+
+    @TestFactory
+    Stream<DynamicTest> noRepositoryQueryScansAWholeTable() {
+        return queries().entrySet().stream().map(e -> DynamicTest.dynamicTest(e.getKey(), () -> {
+            jdbc.execute("TRUNCATE TABLE mysql.general_log");
+            e.getValue().run();
+            List<String> statements = executedStatements();
+            assertThat(statements).as("%s 沒有送出任何查詢", e.getKey()).isNotEmpty();
+
+            List<String> fullScans = new ArrayList<>();
+            for (String sql : statements) {
+                if (INSERT_VALUES.matcher(sql).find()) continue;
+                for (Map<String, Object> row : jdbc.queryForList("EXPLAIN " + sql)) {
+                    String table = String.valueOf(row.get("table"));
+                    if ("ALL".equals(row.get("type")) && !table.startsWith("<")) {
+                        fullScans.add(table + " (rows=" + row.get("rows") + ") <- " + sql);
+                    }
+                }
+            }
+            assertThat(fullScans).as("%s 的全表掃描", e.getKey()).isEmpty();
+        }));
+    }
+
+    /**
+     * general_log 中由受測方法送出的 DML 語句 (排除驅動程式的 @@ 變數查詢與 general_log 本身)
+     */
+    private List<String> executedStatements() {
+        return jdbc.queryForList("SELECT CONVERT(argument USING utf8mb4) FROM mysql.general_log " +
+                        "WHERE command_type IN ('Query', 'Execute') ORDER BY event_time", String.class).stream()
+                .filter(sql -> STATEMENT.matcher(sql).find())
+                .filter(sql -> !sql.contains("@@") && !sql.contains("general_log"))
+                .distinct()
+                .toList();
+    }
+
+    private void inTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+
+    private void rolledBack(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            action.run();
+            status.setRollbackOnly();
+        });
+    }
+}
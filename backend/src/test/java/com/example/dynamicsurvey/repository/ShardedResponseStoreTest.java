@@ -0,0 +1,371 @@
+package com.example.dynamicsurvey.repository;
+
+import com.example.dynamicsurvey.config.ResponseShardConfig;
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.dto.HistoryItemDTO;
+import com.example.dynamicsurvey.entity.*;
+import com.example.dynamicsurvey.service.ResponseReshardService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * [測試] 作答分片 (三個 H2 記憶體分片 + 主資料庫)
+ * -----------------------------------------------------------------------------
+ * 每個節點是一個獨立的 Spring 容器 (ResponseShardConfig、ShardedResponseStore、ResponseReshardService)，
+ * 兩個節點共用同一組資料庫，用來模擬多台應用程式同時寫入：
+ * - 寫入依雜湊環路由並記錄位置；兩個節點同時寫入新問卷時 (DuplicateKeyException) 以先寫入的位置為準
+ * - 使用者歷史跨分片合併後的順序與單一資料庫相同
+ * - 統計依回覆 ID 分批讀取，同一分片上其他問卷的作答不會混入
+ * - 線上搬移：切換後仍依快取寫入來源分片的作答也會被搬到目標分片
+ * - 主資料庫交易未提交時，分片上不留下作答
+ */
+class ShardedResponseStoreTest {
+
+    private static final List<String> SHARDS = List.of("shard1", "shard2", "shard3");
+    private static final long USER_ID = 7L;
+
+    private String prefix;
+    private final List<AnnotationConfigApplicationContext> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        prefix = "sharding" + UUID.randomUUID().toString().replace("-", "");
+        ResourceDatabasePopulator catalogSchema = new ResourceDatabasePopulator(
+                new ClassPathResource("db/shard/V1__response_shard_schema.sql"),
+                new ClassPathResource("db/shard/V2__archived_history_index.sql"),
+                new ClassPathResource("sharding/catalog-schema.sql"));
+        catalogSchema.execute(new DriverManagerDataSource(url("catalog")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(AnnotationConfigApplicationContext::close);
+        for (String db : List.of("catalog", "shard1", "shard2", "shard3")) {
+            new NamedParameterJdbcTemplate(new DriverManagerDataSource(url(db))).update("SHUTDOWN", new MapSqlParameterSource());
+        }
+    }
+
+    @Test
+    void writesGoToTheRingShardAndRecordThePlacement() {
+        AnnotationConfigApplicationContext node = node(5);
+        ResponseShardRouter router = node.getBean(ResponseShardRouter.class);
+        Set<String> used = new HashSet<>();
+        for (long surveyId = 1; surveyId <= 30; surveyId++) {
+            long responseId = save(node, surveyId, LocalDateTime.now());
+            String expected = router.ringShardFor(surveyId);
+            used.add(expected);
+
+            assertThat(shardsHolding(responseId)).as("問卷 %d", surveyId).containsExactly(expected);
+            assertThat(router.placements()).containsEntry(surveyId, expected);
+            assertThat(node.getBean(ResponseStore.class).countBySurveyId(surveyId)).isEqualTo(1);
+        }
+        assertThat(used).as("30 份問卷應分散到全部分片").containsExactlyInAnyOrderElementsOf(SHARDS);
+    }
+
+    @Test
+    void placementRaceFollowsTheFirstWriter() {
+        AnnotationConfigApplicationContext nodeA = node(5);
+        AnnotationConfigApplicationContext nodeB = node(5);
+        long surveyId = 42;
+        String ringShard = nodeB.getBean(ResponseShardRouter.class).ringShardFor(surveyId);
+        String other = SHARDS.stream().filter(s -> !s.equals(ringShard)).findFirst().orElseThrow();
+
+        // B 已解析出 (尚未寫入的) 雜湊環位置，A 的位置紀錄先寫入 (例如 A 的雜湊環設定不同)
+        assertThat(nodeB.getBean(ResponseShardRouter.class).forRead(surveyId).name()).isEqualTo(ringShard);
+        nodeA.getBean(ResponseShardRouter.class).place(surveyId, other);
+
+        long responseId = save(nodeB, surveyId, LocalDateTime.now());
+
+        assertThat(shardsHolding(responseId)).containsExactly(other);
+        assertThat(nodeB.getBean(ResponseShardRouter.class).placements()).containsEntry(surveyId, other);
+    }
+
+    @Test
+    void concurrentFirstWritesFromTwoNodesLandOnOneShard() throws Exception {
+        List<AnnotationConfigApplicationContext> both = List.of(node(5), node(5));
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (long surveyId = 100; surveyId < 110; surveyId++) {
+                long id = surveyId;
+                CyclicBarrier start = new CyclicBarrier(threads);
+                List<Future<Long>> writes = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    AnnotationConfigApplicationContext node = both.get(t % 2);
+                    writes.add(pool.submit(() -> {
+                        start.await();
+                        return save(node, id, LocalDateTime.now());
+                    }));
+                }
+                Set<String> holding = new HashSet<>();
+                for (Future<Long> w : writes) holding.addAll(shardsHolding(w.get(30, TimeUnit.SECONDS)));
+
+                assertThat(holding).as("問卷 %d", id).hasSize(1);
+                assertThat(both.get(0).getBean(ResponseShardRouter.class).placements()).containsEntry(id, holding.iterator().next());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void historyIsMergedAcrossShardsInKeysetOrder() {
+        AnnotationConfigApplicationContext node = node(5);
+        ResponseShardRouter router = node.getBean(ResponseShardRouter.class);
+        for (long surveyId = 1; surveyId <= 6; surveyId++) router.place(surveyId, SHARDS.get((int) (surveyId % SHARDS.size())));
+
+        // 作答時間在各分片間交錯，並有跨分片的相同時間點
+        LocalDateTime base = LocalDateTime.of(2026, 5, 1, 8, 0);
+        List<HistoryItemDTO> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            long surveyId = 1 + (i * 5L) % 6;
+            LocalDateTime at = base.plusMinutes(i / 3);
+            expected.add(new HistoryItemDTO(save(node, surveyId, at), surveyId, null, at));
+        }
+        expected.sort(HistoryItemDTO.NEWEST_FIRST);
+
+        ResponseStore store = node.getBean(ResponseStore.class);
+        List<HistoryItemDTO> seen = new ArrayList<>();
+        LocalDateTime beforeAt = null;
+        Long beforeId = null;
+        while (true) {
+            List<HistoryItemDTO> page = store.findHistory(USER_ID, beforeAt, beforeId, 4);
+            seen.addAll(page);
+            if (page.size() < 4) break;
+            beforeAt = page.get(page.size() - 1).getSubmittedAt();
+            beforeId = page.get(page.size() - 1).getResponseId();
+        }
+
+        assertThat(seen).extracting(HistoryItemDTO::getResponseId)
+                .containsExactlyElementsOf(expected.stream().map(HistoryItemDTO::getResponseId).toList());
+        assertThat(seen).extracting(HistoryItemDTO::getSurveyId)
+                .containsExactlyElementsOf(expected.stream().map(HistoryItemDTO::getSurveyId).toList());
+    }
+
+    @Test
+    void statsReadEverySurveyResponseInIdBatches() {
+        AnnotationConfigApplicationContext node = node(5);
+        ResponseShardRouter router = node.getBean(ResponseShardRouter.class);
+        router.place(11L, SHARDS.get(0));
+        router.place(12L, SHARDS.get(0));
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            expected.add(save(node, 11L, LocalDateTime.now()));
+            save(node, 12L, LocalDateTime.now());
+        }
+
+        List<SurveyResponse> seen = new ArrayList<>();
+        node.getBean(ResponseStore.class).forEachBySurveyId(11L, 5, seen::add);
+
+        assertThat(seen).extracting(SurveyResponse::getId).containsExactlyElementsOf(expected);
+        assertThat(seen).allSatisfy(r -> assertThat(r.getAnswers()).singleElement()
+                .satisfies(a -> assertThat(a.getSelectedOptions()).extracting(Option::getId).containsExactly(1100L)));
+    }
+
+    @Test
+    void moveCopiesWritesThatArriveDuringCutover() throws Exception {
+        AnnotationConfigApplicationContext mover = node(2);
+        AnnotationConfigApplicationContext writer = node(2);
+        long surveyId = 7;
+        ResponseShardRouter writerRouter = writer.getBean(ResponseShardRouter.class);
+        String from = writerRouter.ringShardFor(surveyId);
+        String to = SHARDS.stream().filter(s -> !s.equals(from)).findFirst().orElseThrow();
+
+        List<Long> written = new ArrayList<>();
+        for (int i = 0; i < 5; i++) written.add(save(writer, surveyId, LocalDateTime.now()));
+        // 寫入節點的位置快取 (2 秒) 仍指向來源分片
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> move = pool.submit(() -> mover.getBean(ResponseReshardService.class).move(surveyId, to));
+            long deadline = System.currentTimeMillis() + 1_000;
+            while (!writerRouter.currentShard(surveyId).equals(to)) {
+                assertThat(System.currentTimeMillis()).as("切換位置").isLessThan(deadline);
+                Thread.sleep(5);
+            }
+            assertThat(writerRouter.forWrite(surveyId).name()).as("切換後快取仍指向來源").isEqualTo(from);
+            long lateWrite = save(writer, surveyId, LocalDateTime.now());
+            assertThat(shardsHolding(lateWrite)).containsExactly(from);
+            written.add(lateWrite);
+
+            assertThat(move.get(30, TimeUnit.SECONDS)).isEqualTo(written.size());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (Long id : written) assertThat(shardsHolding(id)).as("回覆 %d", id).containsExactly(to);
+        assertThat(ResponseShardRouter.hasResponses(writerRouter.shard(from), surveyId)).isFalse();
+        assertThat(writerRouter.currentShard(surveyId)).isEqualTo(to);
+        assertThat(answerCount(to, written)).isEqualTo(written.size());
+    }
+
+    @Test
+    void shardWriteIsUndoneWhenTheCatalogTransactionDoesNotCommit() {
+        AnnotationConfigApplicationContext node = node(5);
+        TransactionTemplate tx = new TransactionTemplate(node.getBean(PlatformTransactionManager.class));
+        long surveyId = 3;
+
+        // 提交前回滾：分片寫入尚未執行
+        long[] rolledBack = new long[1];
+        tx.executeWithoutResult(status -> {
+            rolledBack[0] = save(node, surveyId, LocalDateTime.now());
+            status.setRollbackOnly();
+        });
+        assertThat(shardsHolding(rolledBack[0])).isEmpty();
+
+        // 分片已寫入，之後的提交前步驟失敗：補償刪除
+        long[] failed = new long[1];
+        assertThatThrownBy(() -> tx.executeWithoutResult(status -> {
+            failed[0] = save(node, surveyId, LocalDateTime.now());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    assertThat(shardsHolding(failed[0])).as("分片已在主資料庫提交前寫入").hasSize(1);
+                    throw new IllegalStateException("catalog commit failed");
+                }
+            });
+        })).hasMessage("catalog commit failed");
+        assertThat(shardsHolding(failed[0])).isEmpty();
+
+        long committed = tx.execute(status -> save(node, surveyId, LocalDateTime.now()));
+        assertThat(shardsHolding(committed)).containsExactly(node.getBean(ResponseShardRouter.class).ringShardFor(surveyId));
+        assertThat(answerCount(shardsHolding(committed).get(0), List.of(committed))).isEqualTo(1);
+    }
+
+    // =========================================================================
+    // 測試環境
+    // =========================================================================
+
+    /**
+     * 主資料庫相關的 Bean (問卷定義不在本測試範圍，SurveyRepository 以 mock 代替)
+     */
+    @Configuration
+    static class Catalog {
+        @Bean
+        DataSource dataSource(@Value("${test.catalog-url}") String url) {
+            return new DriverManagerDataSource(url);
+        }
+
+        @Bean
+        NamedParameterJdbcTemplate namedParameterJdbcTemplate(DataSource dataSource) {
+            return new NamedParameterJdbcTemplate(dataSource);
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new JdbcTransactionManager(dataSource);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        SurveyRepository surveyRepository() {
+            return mock(SurveyRepository.class);
+        }
+    }
+
+    private AnnotationConfigApplicationContext node(int placementCacheSeconds) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        TestPropertyValues values = TestPropertyValues.of(
+                "test.catalog-url=" + url("catalog"),
+                "app.datasource.shards.enabled=true",
+                "app.datasource.shards.id-block-size=10",
+                "app.datasource.shards.placement-cache-seconds=" + placementCacheSeconds,
+                "app.datasource.shards.cutover-margin-seconds=0",
+                "app.datasource.shards.reshard-batch-size=2");
+        for (String shard : SHARDS) {
+            values = values.and("app.datasource.shards.nodes." + shard + ".jdbc-url=" + url(shard),
+                    "app.datasource.shards.nodes." + shard + ".maximum-pool-size=4");
+        }
+        values.applyTo(context);
+        context.register(Catalog.class, ResponseShardConfig.class, ShardedResponseStore.class, ResponseReshardService.class);
+        context.refresh();
+        nodes.add(context);
+        return context;
+    }
+
+    private String url(String db) {
+        return "jdbc:h2:mem:" + prefix + db + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+
+    /**
+     * 寫入一筆含單選答案的作答，回傳配發的回覆 ID
+     */
+    private static long save(AnnotationConfigApplicationContext node, long surveyId, LocalDateTime submittedAt) {
+        Survey survey = new Survey();
+        survey.setId(surveyId);
+        Question question = new Question();
+        question.setId(surveyId * 10);
+        Option option = new Option();
+        option.setId(surveyId * 100);
+        User user = new User();
+        user.setId(USER_ID);
+
+        SurveyResponse response = new SurveyResponse();
+        response.setSurvey(survey);
+        response.setUser(user);
+        response.setName("作答者");
+        response.setPhone("0900000000");
+        response.setEmail("r" + UUID.randomUUID() + "@example.com");
+        response.setSubmittedAt(submittedAt);
+        ResponseAnswer answer = new ResponseAnswer();
+        answer.setSurveyResponse(response);
+        answer.setQuestion(question);
+        answer.getSelectedOptions().add(option);
+        response.getAnswers().add(answer);
+
+        node.getBean(ResponseStore.class).save(response);
+        return response.getId();
+    }
+
+    private List<String> shardsHolding(long responseId) {
+        List<String> result = new ArrayList<>();
+        for (String shard : SHARDS) {
+            if (!jdbc(shard).queryForList("SELECT id FROM survey_responses WHERE id = :id",
+                    new MapSqlParameterSource("id", responseId), Long.class).isEmpty()) {
+                result.add(shard);
+            }
+        }
+        return result;
+    }
+
+    private int answerCount(String shard, Collection<Long> responseIds) {
+        return jdbc(shard).queryForObject("SELECT COUNT(*) FROM answer_selected_options o " +
+                        "JOIN response_answers a ON a.id = o.answer_id WHERE a.response_id IN (:ids)",
+                new MapSqlParameterSource("ids", responseIds), Integer.class);
+    }
+
+    private NamedParameterJdbcTemplate jdbc(String db) {
+        return new NamedParameterJdbcTemplate(new DriverManagerDataSource(url(db)));
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.dynamicsurvey.security;
+
+import com.example.dynamicsurvey.entity.User;
+import com.example.dynamicsurvey.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * [測試] JWT claims 的時效
+ * -----------------------------------------------------------------------------
+ * 使用者資料以 users 變數模擬，Token 簽發時 claims 的角色為 ADMIN：
+ * - 簽發後沒有異動：直接採信 claims，不查詢使用者
+ * - 簽發後降為 USER：改由資料庫載入目前的角色 (outcome=stale)
+ * - 與簽發同一秒內的異動 (註冊後立即簽發) 仍採信 claims
+ * - 修改時間有短期快取；本節點的 evict 立即生效；查無帳號時不設定身分
+ * - 其他節點的異動由 catchUp 依 updated_at 清除 (使用者快取與修改時間)，重複讀到的異動不再清除
+ */
+class AuthTokenFilterTest {
+
+    private static final String EMAIL = "ming@example.com";
+    private static final String SECRET = "vW9mK2v6yB?E(G+KbPeShVmYq3t6w9z$C&E)H@McQfTjWnZr4u7x!A%D*G-KaPdS";
+
+    private final Map<String, User> users = new HashMap<>();
+    private UserRepository userRepository;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JwtUtils jwtUtils;
+    private UserDetailsServiceImpl userDetailsService;
+    private AuthTokenFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(anyString())).thenAnswer(inv -> Optional.ofNullable(users.get(inv.<String>getArgument(0))));
+        when(userRepository.findUpdatedAtByEmail(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(users.get(inv.<String>getArgument(0))).map(User::getUpdatedAt));
+        when(userRepository.findChangedAfter(any())).thenAnswer(inv -> {
+            LocalDateTime since = inv.getArgument(0);
+            return users.values().stream().filter(u -> u.getUpdatedAt().isAfter(since))
+                    .map(u -> new Object[]{u.getEmail(), u.getUpdatedAt()}).toList();
+        });
+
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86_400_000);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheTtlSeconds", 60L);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxSize", 100L);
+        jwtUtils.init();
+
+        userDetailsService = new UserDetailsServiceImpl();
+        userDetailsService.userRepository = userRepository;
+        userDetailsService.meterRegistry = meterRegistry;
+        ReflectionTestUtils.setField(userDetailsService, "maxSize", 100L);
+        ReflectionTestUtils.setField(userDetailsService, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(userDetailsService, "stampTtlSeconds", 30L);
+        ReflectionTestUtils.setField(userDetailsService, "overlapSeconds", 60L);
+        userDetailsService.init();
+
+        filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void unchangedUserIsTakenFromTheClaims() throws Exception {
+        store("ADMIN", LocalDateTime.now().minusHours(1));
+        String token = issue();
+
+        assertThat(roleOf(authenticate(token))).isEqualTo("ROLE_ADMIN");
+        assertThat(outcome("claims")).isEqualTo(1);
+    }
+
+    @Test
+    void roleChangedAfterIssuanceIsLoadedFromTheDatabase() throws Exception {
+        store("ADMIN", LocalDateTime.now().minusHours(1));
+        String token = issue();
+        store("USER", LocalDateTime.now().plusSeconds(2));
+        userDetailsService.evict(EMAIL);
+
+        assertThat(roleOf(authenticate(token))).isEqualTo("ROLE_USER");
+        assertThat(outcome("stale")).isEqualTo(1);
+
+        // 重新登入取得的新 Token 再次採信 claims
+        String renewed = issueAt(LocalDateTime.now().plusSeconds(3));
+        assertThat(roleOf(authenticate(renewed))).isEqualTo("ROLE_USER");
+        assertThat(outcome("claims")).isEqualTo(1);
+    }
+
+    @Test
+    void changeInTheSecondOfIssuanceKeepsTheClaims() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        store("ADMIN", now);
+        String token = issueAt(now.withNano(0));
+
+        assertThat(roleOf(authenticate(token))).isEqualTo("ROLE_ADMIN");
+        assertThat(outcome("claims")).isEqualTo(1);
+    }
+
+    @Test
+    void stampIsCachedUntilEvicted() throws Exception {
+        store("ADMIN", LocalDateTime.now().minusHours(1));
+        String token = issue();
+        assertThat(roleOf(authenticate(token))).isEqualTo("ROLE_ADMIN");
+
+        // 其他節點的異動：快取期間仍採信 claims
+        store("USER", LocalDateTime.now().plusSeconds(2));
+        assertThat(roleOf(authenticate(token))).isEqualTo("ROLE_ADMIN");
+
+        userDetailsService.evict(EMAIL);
+        assertThat(roleOf(authenticate(token))).isEqualTo("ROLE_USER");
+    }
+
+    @Test
+    void catchUpEvictsChangesFromOtherNodes() throws Exception {
+        store("ADMIN", LocalDateTime.now().minusHours(1));
+        String token = issue();
+        assertThat(roleOf(authenticate(token))).isEqualTo("ROLE_ADMIN");
+        assertThat(userDetailsService.loadUserByUsername(EMAIL).getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_ADMIN");
+
+        // 其他節點降為 USER (本節點沒有呼叫 evict)
+        store("USER", LocalDateTime.now().plusSeconds(2));
+        userDetailsService.catchUp();
+
+        assertThat(roleOf(authenticate(token))).isEqualTo("ROLE_USER");
+        assertThat(outcome("stale")).isEqualTo(1);
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+
+        // overlap 內再次讀到同一筆異動：不再清除
+        userDetailsService.catchUp();
+        assertThat(userDetailsService.loadUserByUsername(EMAIL).getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER");
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void failedCatchUpKeepsTheCache() {
+        store("ADMIN", LocalDateTime.now().minusHours(1));
+        userDetailsService.loadUserByUsername(EMAIL);
+        doThrow(new IllegalStateException("資料庫無法連線")).when(userRepository).findChangedAfter(any());
+
+        userDetailsService.catchUp();
+
+        assertThat(userDetailsService.loadUserByUsername(EMAIL).getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_ADMIN");
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void deletedUserIsNotAuthenticated() throws Exception {
+        store("ADMIN", LocalDateTime.now().minusHours(1));
+        String token = issue();
+        users.clear();
+
+        assertThat(authenticate(token)).isNull();
+        assertThat(outcome("error")).isEqualTo(1);
+    }
+
+    // =========================================================================
+    // 測試資料
+    // =========================================================================
+
+    private void store(String role, LocalDateTime updatedAt) {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail(EMAIL);
+        user.setName("王小明");
+        user.setPassword("x");
+        user.setRole(role);
+        user.setUpdatedAt(updatedAt);
+        users.put(EMAIL, user);
+    }
+
+    /**
+     * 以 users 中目前的資料簽發 Token (簽發時間為現在)
+     */
+    private String issue() {
+        UserDetailsImpl details = UserDetailsImpl.build(users.get(EMAIL));
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities()));
+    }
+
+    /**
+     * 等到 issuedAt 所在的秒數才簽發 (JWT 的簽發時間只到秒)
+     */
+    private String issueAt(LocalDateTime issuedAt) throws InterruptedException {
+        while (LocalDateTime.now().withNano(0).isBefore(issuedAt.withNano(0))) Thread.sleep(50);
+        return issue();
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static String roleOf(Authentication authentication) {
+        assertThat(authentication).as("已設定身分").isNotNull();
+        return authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).findFirst().orElse(null);
+    }
+
+    private long outcome(String outcome) {
+        return meterRegistry.timer("auth.jwt.filter", "outcome", outcome).count();
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.dto.NumericStatsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * [測試] 數值題的串流統計摘要
+ * -----------------------------------------------------------------------------
+ * 資料為 0 .. n-1 各一次，值 v 的真實排名即為 v + 1，可直接換算 KLL 分位數的排名誤差：
+ * - 亂序與遞增輸入、分成多份再合併，排名誤差都在 k = 200 的預期範圍內 (約 1.5%，此處允許 2.5%)
+ * - 合併後的筆數、平均、變異數與逐筆加入相同；設定不同的摘要不可合併
+ * - 小範圍整數值域為精確計數；出現值域外的數值後改用 KLL
+ */
+class NumericSketchTest {
+
+    private static final int N = 100_000;
+    private static final double MAX_RANK_ERROR = 0.025;
+
+    @Test
+    void shuffledInputStaysWithinRankErrorBound() {
+        NumericSketch sketch = new NumericSketch();
+        for (double v : shuffled(N, 42)) sketch.update(v);
+
+        assertThat(sketch.count()).isEqualTo(N);
+        assertRankError(sketch, N);
+    }
+
+    @Test
+    void sortedInputStaysWithinRankErrorBound() {
+        NumericSketch sketch = new NumericSketch();
+        for (int i = 0; i < N; i++) sketch.update(i);
+
+        assertRankError(sketch, N);
+        // 最小、最大值另外記錄，不受 KLL 取樣影響
+        assertThat(sketch.summarize().min()).isEqualTo(0);
+        assertThat(sketch.summarize().max()).isEqualTo(N - 1);
+        assertThat(sketch.quantile(1)).isLessThanOrEqualTo(N - 1);
+    }
+
+    @Test
+    void mergedPartsMatchSinglePass() {
+        List<Double> values = shuffled(N, 7);
+        NumericSketch single = new NumericSketch();
+        NumericSketch[] parts = {new NumericSketch(), new NumericSketch(), new NumericSketch(), new NumericSketch()};
+        for (int i = 0; i < values.size(); i++) {
+            single.update(values.get(i));
+            // 各份大小不同
+            parts[i % 7 < 4 ? i % 7 : 0].update(values.get(i));
+        }
+        NumericSketch merged = new NumericSketch();
+        for (NumericSketch part : parts) merged.merge(part);
+        merged.merge(new NumericSketch());
+
+        assertThat(merged.count()).isEqualTo(N);
+        assertRankError(merged, N);
+        NumericStatsDTO a = single.summarize();
+        NumericStatsDTO b = merged.summarize();
+        assertThat(b.mean()).isEqualTo(a.mean());
+        assertThat(b.variance()).isCloseTo(a.variance(), within(0.01));
+        assertThat(b.min()).isEqualTo(0);
+        assertThat(b.max()).isEqualTo(N - 1);
+    }
+
+    @Test
+    void mergeRejectsDifferentSettings() {
+        assertThatThrownBy(() -> new NumericSketch().merge(new NumericSketch(NumericSketch.DEFAULT_K, 1, 5, false)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new NumericSketch(NumericSketch.DEFAULT_K, 1, 5, false)
+                .merge(new NumericSketch(NumericSketch.DEFAULT_K, 1, 7, false)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new NumericSketch().merge(new NumericSketch(100, 0, -1, false)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void smallIntegerDomainIsExact() {
+        NumericSketch rating = QuestionTypes.newSketch(QuestionTypes.RATING, null, null);
+        // 1 x10, 2 x20, 3 x30, 4 x25, 5 x15
+        int[] counts = {10, 20, 30, 25, 15};
+        for (int v = 1; v <= 5; v++) {
+            for (int i = 0; i < counts[v - 1]; i++) rating.update(v);
+        }
+
+        NumericStatsDTO stats = rating.summarize();
+        assertThat(stats.count()).isEqualTo(100);
+        assertThat(stats.mean()).isEqualTo(3.15);
+        assertThat(stats.p25()).isEqualTo(2);
+        assertThat(stats.p50()).isEqualTo(3);
+        assertThat(stats.p75()).isEqualTo(4);
+        assertThat(stats.p90()).isEqualTo(5);
+        assertThat(stats.histogram()).extracting(NumericStatsDTO.Bucket::count).containsExactly(10L, 20L, 30L, 25L, 15L);
+    }
+
+    @Test
+    void valueOutsideTheDomainFallsBackToKll() {
+        NumericSketch sketch = new NumericSketch(NumericSketch.DEFAULT_K, 0, 10, false);
+        for (int i = 0; i < 99; i++) sketch.update(i % 11);
+        sketch.update(2.5);
+
+        assertThat(sketch.count()).isEqualTo(100);
+        assertThat(sketch.quantile(0.5)).isBetween(4.0, 6.0);
+        assertThat(sketch.summarize().max()).isEqualTo(10);
+    }
+
+    @Test
+    void npsScore() {
+        NumericSketch nps = QuestionTypes.newSketch(QuestionTypes.NPS, null, null);
+        // 推薦者 (9, 10) 5 人、中立 (7, 8) 3 人、批評者 (0 ~ 6) 2 人
+        for (double v : new double[]{10, 10, 9, 9, 9, 8, 7, 7, 6, 0}) nps.update(v);
+
+        assertThat(nps.summarize().npsScore()).isEqualTo(30.0);
+        assertThat(QuestionTypes.newSketch(QuestionTypes.RATING, 0.0, 10.0).summarize().npsScore()).isNull();
+    }
+
+    @Test
+    void ignoresNonFiniteValuesAndHandlesEmpty() {
+        NumericSketch sketch = new NumericSketch();
+        assertThat(sketch.quantile(0.5)).isNaN();
+        assertThat(sketch.summarize().count()).isZero();
+
+        sketch.update(Double.NaN);
+        sketch.update(Double.POSITIVE_INFINITY);
+        sketch.update(1.5);
+        assertThat(sketch.count()).isEqualTo(1);
+        NumericStatsDTO stats = sketch.summarize();
+        assertThat(stats.p50()).isEqualTo(1.5);
+        assertThat(stats.variance()).isZero();
+    }
+
+    // 0 .. n-1 的分位數估計值 v，其真實排名為 v + 1
+    private static void assertRankError(NumericSketch sketch, int n) {
+        for (int p = 1; p < 100; p++) {
+            double q = p / 100.0;
+            double estimate = sketch.quantile(q);
+            double error = Math.abs((estimate + 1) - q * n) / n;
+            assertThat(error).as("q = %s, estimate = %s", q, estimate).isLessThanOrEqualTo(MAX_RANK_ERROR);
+        }
+    }
+
+    private static List<Double> shuffled(int n, long seed) {
+        List<Double> values = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) values.add((double) i);
+        Collections.shuffle(values, new Random(seed));
+        return values;
+    }
+}
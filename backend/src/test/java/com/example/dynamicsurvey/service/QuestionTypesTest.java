@@ -0,0 +1,131 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.dto.AnswerDTO;
+import com.example.dynamicsurvey.dto.QuestionDTO;
+import com.example.dynamicsurvey.entity.Question;
+import com.example.dynamicsurvey.entity.Survey;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * [測試] 數值題答案的驗證與正規化
+ * -----------------------------------------------------------------------------
+ * - 通過的答案改寫為正規化的數字字串 (去除多餘的 0、指數表示法展開、-0 為 0)，選項 ID 清除
+ * - 空白答案視為未作答；非數值題的答案不處理
+ * - 錯誤訊息：非數字、小數位數 / 整數位數過多、評分與 NPS 須為整數、超出範圍
+ */
+class QuestionTypesTest {
+
+    private static final long NUMBER_ID = 1L;
+    private static final long RATING_ID = 2L;
+    private static final long NPS_ID = 3L;
+    private static final long TEXT_ID = 4L;
+    private static final long MIN_ONLY_ID = 5L;
+
+    private final Survey survey = survey(
+            question(NUMBER_ID, "身高", QuestionTypes.NUMBER, -10.0, 300.0),
+            question(RATING_ID, "滿意度", QuestionTypes.RATING, null, null),
+            question(NPS_ID, "推薦", QuestionTypes.NPS, null, null),
+            question(TEXT_ID, "意見", QuestionTypes.TEXT, null, null),
+            question(MIN_ONLY_ID, "金額", QuestionTypes.NUMBER, 0.0, null));
+
+    @Test
+    void normalisesAcceptedNumbers() {
+        assertThat(normalise(NUMBER_ID, "3.50")).isEqualTo("3.5");
+        assertThat(normalise(NUMBER_ID, " 007 ")).isEqualTo("7");
+        assertThat(normalise(NUMBER_ID, "-0.000")).isEqualTo("0");
+        assertThat(normalise(NUMBER_ID, "1.5e2")).isEqualTo("150");
+        assertThat(normalise(NUMBER_ID, "1E-3")).isEqualTo("0.001");
+        assertThat(normalise(NUMBER_ID, "300")).isEqualTo("300");
+        assertThat(normalise(RATING_ID, "4.0")).as("評分 4.0 等於整數 4").isEqualTo("4");
+        assertThat(normalise(NPS_ID, "10.00")).isEqualTo("10");
+        assertThat(normalise(MIN_ONLY_ID, "123456789012345")).isEqualTo("123456789012345");
+    }
+
+    @Test
+    void clearsOptionIdsAndBlankAnswers() {
+        AnswerDTO a = answer(NUMBER_ID, "  ");
+        a.setOptionIds(List.of(9L));
+        AnswerDTO text = answer(TEXT_ID, " 0.50 ");
+
+        assertThat(QuestionTypes.checkAnswers(survey, List.of(a, text))).isNull();
+        assertThat(a.getAnswerText()).isNull();
+        assertThat(a.getOptionIds()).isNull();
+        assertThat(text.getAnswerText()).as("簡答題不處理").isEqualTo(" 0.50 ");
+    }
+
+    @Test
+    void rejectsInvalidNumbers() {
+        assertThat(check(NUMBER_ID, "abc")).isEqualTo("「身高」請輸入數字");
+        assertThat(check(NUMBER_ID, "1,5")).isEqualTo("「身高」請輸入數字");
+        assertThat(check(NUMBER_ID, "0.1234567")).isEqualTo("「身高」最多 6 位小數");
+        assertThat(check(NUMBER_ID, "0.1234560")).as("尾端的 0 不算").isNull();
+        assertThat(check(MIN_ONLY_ID, "1234567890123456")).isEqualTo("「金額」的數值過大");
+        assertThat(check(RATING_ID, "3.5")).isEqualTo("「滿意度」請輸入整數");
+    }
+
+    @Test
+    void rejectsValuesOutOfRange() {
+        assertThat(check(NUMBER_ID, "300.5")).isEqualTo("「身高」需介於 -10 ~ 300");
+        assertThat(check(NUMBER_ID, "-10.01")).isEqualTo("「身高」需介於 -10 ~ 300");
+        assertThat(check(MIN_ONLY_ID, "-1")).isEqualTo("「金額」不可小於 0");
+        assertThat(check(RATING_ID, "6")).isEqualTo("「滿意度」需介於 1 ~ 5");
+        assertThat(check(RATING_ID, "0")).isEqualTo("「滿意度」需介於 1 ~ 5");
+        assertThat(check(NPS_ID, "11")).isEqualTo("「推薦」需介於 0 ~ 10");
+    }
+
+    @Test
+    void validatesRanges() {
+        assertThat(QuestionTypes.validate(questionDto(QuestionTypes.RATING, 1.0, 11.0))).isNull();
+        assertThat(QuestionTypes.validate(questionDto(QuestionTypes.RATING, 0.0, 11.0))).contains("2 ~ 11 個等級");
+        assertThat(QuestionTypes.validate(questionDto(QuestionTypes.RATING, 1.5, 5.0))).contains("必須是整數");
+        assertThat(QuestionTypes.validate(questionDto(QuestionTypes.NPS, 0.0, 10.0))).contains("固定為 0 ~ 10");
+        assertThat(QuestionTypes.validate(questionDto(QuestionTypes.NUMBER, 5.0, 1.0))).contains("最小值不可大於最大值");
+        assertThat(QuestionTypes.validate(questionDto(QuestionTypes.TEXT, 1.0, null))).contains("不是數值題");
+    }
+
+    private String normalise(long questionId, String text) {
+        AnswerDTO a = answer(questionId, text);
+        assertThat(QuestionTypes.checkAnswers(survey, List.of(a))).as(text).isNull();
+        return a.getAnswerText();
+    }
+
+    private String check(long questionId, String text) {
+        return QuestionTypes.checkAnswers(survey, List.of(answer(questionId, text)));
+    }
+
+    private static AnswerDTO answer(Long questionId, String text) {
+        AnswerDTO a = new AnswerDTO();
+        a.setQuestionId(questionId);
+        a.setAnswerText(text);
+        return a;
+    }
+
+    private static Survey survey(Question... questions) {
+        Survey survey = new Survey();
+        survey.getQuestions().addAll(List.of(questions));
+        return survey;
+    }
+
+    private static Question question(Long id, String title, String type, Double min, Double max) {
+        Question q = new Question();
+        q.setId(id);
+        q.setTitle(title);
+        q.setType(type);
+        q.setMinValue(min);
+        q.setMaxValue(max);
+        return q;
+    }
+
+    private static QuestionDTO questionDto(String type, Double min, Double max) {
+        QuestionDTO q = new QuestionDTO();
+        q.setTitle("Q");
+        q.setType(type);
+        q.setMinValue(min);
+        q.setMaxValue(max);
+        return q;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.dynamicsurvey.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * [測試] 分段名額計數器
+ * -----------------------------------------------------------------------------
+ * - 多執行緒同時預留 / 提交 / 歸還時，持有中的名額 (已預留未結束 + 已提交) 任何時刻都不超過上限，
+ *   結束後已提交 + 剩餘 = 上限
+ * - 對帳依「資料庫筆數 - 本節點已提交」的偏差變化扣除或加回名額，重複對帳不會重複扣
+ */
+class QuotaCounterTest {
+
+    @Test
+    void concurrentReservationsNeverExceedTheLimit() throws Exception {
+        int limit = 1_000;
+        int threads = 16;
+        QuotaCounter counter = new QuotaCounter(limit, 0, 8);
+        AtomicLong held = new AtomicLong();
+        AtomicLong maxHeld = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    // 持續嘗試到名額全部提交為止 (其他執行緒回滾時會再出現可預留的名額)
+                    while (counter.committed() < limit) {
+                        if (!counter.tryReserve()) continue;
+                        maxHeld.accumulateAndGet(held.incrementAndGet(), Math::max);
+                        // 約三成的交易回滾，歸還的名額會被其他執行緒再次預留
+                        if (ThreadLocalRandom.current().nextInt(10) < 3) {
+                            held.decrementAndGet();
+                            counter.release();
+                        } else {
+                            counter.commit();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) f.get();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(maxHeld.get()).isLessThanOrEqualTo(limit);
+        assertThat(counter.committed()).isEqualTo(held.get()).isEqualTo(limit);
+        assertThat(counter.remaining()).isZero();
+        assertThat(counter.isFull()).isTrue();
+        assertThat(counter.tryReserve()).isFalse();
+    }
+
+    @Test
+    void remainingIsSpreadOverStripesAndBorrowedWhenOneRunsOut() {
+        QuotaCounter counter = new QuotaCounter(10, 3, 3);
+        assertThat(counter.remaining()).isEqualTo(7);
+
+        // 單一執行緒也能用完全部分段
+        for (int i = 0; i < 7; i++) assertThat(counter.tryReserve()).isTrue();
+        assertThat(counter.tryReserve()).isFalse();
+        counter.release();
+        assertThat(counter.tryReserve()).isTrue();
+    }
+
+    @Test
+    void overusedAtStartIsFull() {
+        QuotaCounter counter = new QuotaCounter(5, 8, 4);
+        assertThat(counter.remaining()).isEqualTo(-3);
+        assertThat(counter.tryReserve()).isFalse();
+    }
+
+    @Test
+    void reconcileAppliesOnlyTheChangeInDrift() {
+        QuotaCounter counter = new QuotaCounter(20, 2, 4);
+        reserveAndCommit(counter, 3);
+        assertThat(counter.remaining()).isEqualTo(15);
+
+        // 其他節點提交 2 筆：資料庫 2 + 3 + 2
+        counter.reconcile(counter.committed(), 7);
+        assertThat(counter.remaining()).isEqualTo(13);
+        counter.reconcile(counter.committed(), 7);
+        assertThat(counter.remaining()).as("重複對帳").isEqualTo(13);
+
+        // 手動刪除 4 筆
+        counter.reconcile(counter.committed(), 3);
+        assertThat(counter.remaining()).isEqualTo(17);
+    }
+
+    @Test
+    void commitBetweenSnapshotAndCountIsCorrectedNextTime() {
+        QuotaCounter counter = new QuotaCounter(20, 0, 4);
+        reserveAndCommit(counter, 3);
+
+        long before = counter.committed();
+        reserveAndCommit(counter, 1);
+        // 資料庫已包含剛提交的那一筆：這次多扣 1
+        counter.reconcile(before, 4);
+        assertThat(counter.remaining()).isEqualTo(15);
+
+        counter.reconcile(counter.committed(), 4);
+        assertThat(counter.remaining()).isEqualTo(16);
+    }
+
+    @Test
+    void driftBeyondTheLimitIsOwedAndRepaidByReleases() {
+        QuotaCounter counter = new QuotaCounter(10, 0, 4);
+        assertThat(counter.tryReserve()).isTrue();
+        assertThat(counter.tryReserve()).isTrue();
+
+        // 其他節點已收 11 筆：剩餘 8 全數扣除，另欠 3
+        counter.reconcile(counter.committed(), 11);
+        assertThat(counter.remaining()).isEqualTo(-3);
+        assertThat(counter.tryReserve()).isFalse();
+
+        // 本節點兩筆預留都回滾：先償還欠額，仍為額滿
+        counter.release();
+        counter.release();
+        assertThat(counter.remaining()).isEqualTo(-1);
+        assertThat(counter.tryReserve()).isFalse();
+
+        // 其他節點的作答被刪除
+        counter.reconcile(counter.committed(), 8);
+        assertThat(counter.remaining()).isEqualTo(2);
+        assertThat(counter.tryReserve()).isTrue();
+    }
+
+    private static void reserveAndCommit(QuotaCounter counter, int n) {
+        for (int i = 0; i < n; i++) {
+            assertThat(counter.tryReserve()).isTrue();
+            counter.commit();
+        }
+    }
+}
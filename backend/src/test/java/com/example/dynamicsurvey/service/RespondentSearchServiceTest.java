@@ -0,0 +1,130 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.dto.ResponseSummaryDTO;
+import com.example.dynamicsurvey.repository.RespondentRepository;
+import com.example.dynamicsurvey.repository.RespondentRepository.Respondent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.assertj.AssertableApplicationContext;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * [測試] 作答者索引看得到其他節點的提交
+ * -----------------------------------------------------------------------------
+ * 資料庫以清單模擬 (findAfter 與實際 SQL 相同：ID 大於游標、依 ID 遞增取 limit 筆)，
+ * 其他節點的提交只寫入清單，本節點的提交另呼叫 onSubmitted：
+ * - 持續被搜尋的索引在 catch-up 間隔後補入其他節點的提交，且同一筆不會出現兩次
+ * - ID 較小但較晚提交的作答補入時讀不到，索引到達 max-age 重建後出現
+ */
+class RespondentSearchServiceTest {
+
+    private static final long SURVEY_ID = 7L;
+
+    private final List<Respondent> database = new CopyOnWriteArrayList<>();
+
+    @Configuration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    private ApplicationContextRunner runner(String... properties) {
+        RespondentRepository repository = mock(RespondentRepository.class);
+        when(repository.findAfter(eq(SURVEY_ID), anyLong(), anyInt())).thenAnswer(inv -> {
+            long after = inv.getArgument(1);
+            int limit = inv.getArgument(2);
+            return database.stream()
+                    .filter(r -> r.id() > after)
+                    .sorted((a, b) -> Long.compare(a.id(), b.id()))
+                    .limit(limit)
+                    .toList();
+        });
+        return new ApplicationContextRunner()
+                .withUserConfiguration(RespondentSearchService.class, Metrics.class)
+                .withBean(RespondentRepository.class, () -> repository)
+                // mock 仍會被注入 RespondentRepository 的欄位
+                .withBean(ResponseShardRouter.class, () -> mock(ResponseShardRouter.class))
+                .withPropertyValues("survey.respondent-index.batch-size=2")
+                .withPropertyValues(properties);
+    }
+
+    @Test
+    void searchedIndexCatchesUpWithOtherNodes() {
+        runner("survey.respondent-index.catch-up-ms=0").run(context -> {
+            RespondentSearchService service = context.getBean(RespondentSearchService.class);
+            database.add(respondent(1, "王小明"));
+            database.add(respondent(2, "王大同"));
+            assertThat(ids(context, "王")).containsExactly(2L, 1L);
+
+            // 本節點的提交：先寫入資料庫再於交易提交後加入索引
+            Respondent local = respondent(10, "王美麗");
+            database.add(local);
+            service.onSubmitted(SURVEY_ID, local);
+            // 其他節點的提交只在資料庫
+            database.add(respondent(11, "王建國"));
+            database.add(respondent(12, "陳怡君"));
+            database.add(respondent(13, "王志明"));
+
+            assertThat(ids(context, "王")).containsExactlyInAnyOrder(1L, 2L, 10L, 11L, 13L);
+            assertThat(ids(context, "陳")).containsExactly(12L);
+            assertThat(service.isIndexed(SURVEY_ID)).isTrue();
+        });
+    }
+
+    @Test
+    void catchUpWaitsForTheInterval() {
+        runner("survey.respondent-index.catch-up-ms=600000").run(context -> {
+            database.add(respondent(1, "王小明"));
+            assertThat(ids(context, "王")).containsExactly(1L);
+
+            database.add(respondent(2, "王大同"));
+            assertThat(ids(context, "王")).as("間隔內不查資料庫").containsExactly(1L);
+        });
+    }
+
+    @Test
+    void indexIsRebuiltAfterMaxAgeEvenWhenSearchedConstantly() throws InterruptedException {
+        runner("survey.respondent-index.catch-up-ms=0", "survey.respondent-index.max-age-seconds=1").run(context -> {
+            database.add(respondent(1, "王小明"));
+            database.add(respondent(20, "王大同"));
+            assertThat(ids(context, "王")).containsExactlyInAnyOrder(1L, 20L);
+
+            // 另一個節點以較前面的 ID 區段較晚提交：已越過游標，增量補入讀不到
+            database.add(respondent(5, "王美麗"));
+            assertThat(ids(context, "王")).containsExactlyInAnyOrder(1L, 20L);
+
+            long deadline = System.currentTimeMillis() + 1500;
+            while (System.currentTimeMillis() < deadline) {
+                ids(context, "王");
+                Thread.sleep(100);
+            }
+            assertThat(ids(context, "王")).containsExactlyInAnyOrder(1L, 5L, 20L);
+        });
+    }
+
+    private static List<Long> ids(AssertableApplicationContext context, String query) {
+        return context.getBean(RespondentSearchService.class).search(SURVEY_ID, query, 0, 100)
+                .getItems().stream().map(ResponseSummaryDTO::responseId).toList();
+    }
+
+    private static Respondent respondent(long id, String name) {
+        return new Respondent(id, name, "user" + id + "@example.com", "0912" + id, LocalDateTime.of(2026, 1, 1, 9, 0).plusMinutes(id));
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.dto.AnswerDTO;
+import com.example.dynamicsurvey.entity.Option;
+import com.example.dynamicsurvey.entity.Question;
+import com.example.dynamicsurvey.entity.Survey;
+import com.example.dynamicsurvey.repository.ResponseStore;
+import com.example.dynamicsurvey.repository.SurveyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * [測試] 作答名額的預留與對帳
+ * -----------------------------------------------------------------------------
+ * 資料庫筆數以變數模擬 (responses / selections)，其他節點的提交只改變這些變數：
+ * - 總名額與選項名額一起預留，任一額滿時已預留的部分全數歸還
+ * - 必填單選題的選項全部額滿時問卷視為額滿
+ * - 對帳把其他節點的提交與刪除反映到剩餘名額；已結束的問卷不再對帳
+ */
+class ResponseQuotaServiceTest {
+
+    private static final long SURVEY_ID = 1L;
+    private static final long QUESTION_ID = 10L;
+    private static final long OPTION_A = 100L;
+    private static final long OPTION_B = 101L;
+
+    private final AtomicLong responses = new AtomicLong();
+    private final Map<Long, Long> selections = new HashMap<>();
+    private ResponseQuotaService service;
+    private Survey survey;
+
+    @BeforeEach
+    void setUp() {
+        ResponseStore responseStore = mock(ResponseStore.class);
+        when(responseStore.countBySurveyId(SURVEY_ID)).thenAnswer(inv -> responses.get());
+        when(responseStore.countSelectionsByOption(anyLong(), any())).thenAnswer(inv -> new HashMap<>(selections));
+        survey = survey(5, 2, 3);
+        SurveyRepository surveyRepository = mock(SurveyRepository.class);
+        when(surveyRepository.findById(SURVEY_ID)).thenAnswer(inv -> Optional.of(survey));
+
+        service = new ResponseQuotaService();
+        service.responseStore = responseStore;
+        service.surveyRepository = surveyRepository;
+        service.transactionManager = mock(PlatformTransactionManager.class);
+        service.init();
+    }
+
+    @Test
+    void optionFullReleasesTheTotalReservation() {
+        // 選項 A 名額 2
+        assertThat(submit(OPTION_A)).isTrue();
+        assertThat(submit(OPTION_A)).isTrue();
+        assertThat(service.reserve(survey, List.of(answer(QUESTION_ID, OPTION_A)))).isNull();
+
+        // 被拒絕的那一筆沒有佔用總名額：總名額 5 還剩 3，其中 B 可收 3
+        assertThat(submit(OPTION_B)).isTrue();
+        assertThat(submit(OPTION_B)).isTrue();
+        assertThat(submit(OPTION_B)).isTrue();
+        assertThat(service.isFull(SURVEY_ID)).isTrue();
+        assertThat(service.reserve(survey, List.of(answer(QUESTION_ID, OPTION_B)))).isNull();
+    }
+
+    @Test
+    void rolledBackReservationIsReturned() {
+        for (int i = 0; i < 2; i++) {
+            ResponseQuotaService.Reservation r = service.reserve(survey, List.of(answer(QUESTION_ID, OPTION_A)));
+            assertThat(r).isNotNull();
+            r.release();
+        }
+        assertThat(submit(OPTION_A)).isTrue();
+        assertThat(submit(OPTION_A)).isTrue();
+        assertThat(submit(OPTION_A)).isFalse();
+    }
+
+    @Test
+    void optionOfAnotherQuestionIsNotCounted() {
+        assertThat(submit(OPTION_A)).isTrue();
+        assertThat(submit(OPTION_A)).isTrue();
+        // 同一個選項 ID 掛在其他題目底下：不計入 (也不被擋)
+        assertThat(service.reserve(survey, List.of(answer(99L, OPTION_A)))).isNotNull();
+    }
+
+    @Test
+    void allOptionsOfRequiredQuestionFullClosesTheSurvey() {
+        survey = survey(null, 1, 1);
+        assertThat(service.isFull(SURVEY_ID)).isFalse();
+        assertThat(submit(OPTION_A)).isTrue();
+        assertThat(service.isFull(SURVEY_ID)).as("B 還有名額").isFalse();
+        assertThat(submit(OPTION_B)).isTrue();
+        assertThat(service.isFull(SURVEY_ID)).isTrue();
+    }
+
+    @Test
+    void reconcileAppliesOtherNodesSubmissionsAndDeletions() {
+        assertThat(submit(OPTION_A)).isTrue();
+
+        // 其他節點收了 1 筆 A、3 筆 B：總數 5 已滿
+        record(OPTION_A);
+        record(OPTION_B);
+        record(OPTION_B);
+        record(OPTION_B);
+        service.reconcile();
+        assertThat(service.isFull(SURVEY_ID)).isTrue();
+        assertThat(service.reserve(survey, List.of(answer(QUESTION_ID, OPTION_B)))).isNull();
+        service.reconcile();
+        assertThat(service.isFull(SURVEY_ID)).as("重複對帳").isTrue();
+
+        // 後台刪除 2 筆 B
+        responses.addAndGet(-2);
+        selections.merge(OPTION_B, -2L, Long::sum);
+        service.reconcile();
+        assertThat(service.isFull(SURVEY_ID)).isFalse();
+        assertThat(service.reserve(survey, List.of(answer(QUESTION_ID, OPTION_A)))).as("A 已滿 (本節點 1 + 其他節點 1)").isNull();
+        assertThat(submit(OPTION_B)).isTrue();
+        assertThat(submit(OPTION_B)).isTrue();
+        assertThat(submit(OPTION_B)).isFalse();
+    }
+
+    @Test
+    void endedSurveyIsDroppedInsteadOfReconciled() {
+        assertThat(submit(OPTION_A)).isTrue();
+        survey.setEndDate(LocalDate.now().minusDays(1));
+        service.invalidate(SURVEY_ID);
+        assertThat(service.isFull(SURVEY_ID)).isFalse();
+
+        // 已結束：對帳直接移除計數器，之後用到時重新由資料庫初始化
+        record(OPTION_B);
+        service.reconcile();
+        responses.set(1_000);
+        survey.setEndDate(LocalDate.now().plusDays(1));
+        assertThat(service.isFull(SURVEY_ID)).as("重新以資料庫筆數初始化").isTrue();
+    }
+
+    // 預留並提交 (同時寫入模擬的資料庫筆數)
+    private boolean submit(long optionId) {
+        ResponseQuotaService.Reservation r = service.reserve(survey, List.of(answer(QUESTION_ID, optionId)));
+        if (r == null) return false;
+        record(optionId);
+        r.commit();
+        return true;
+    }
+
+    private void record(long optionId) {
+        responses.incrementAndGet();
+        selections.merge(optionId, 1L, Long::sum);
+    }
+
+    private static AnswerDTO answer(Long questionId, Long optionId) {
+        AnswerDTO a = new AnswerDTO();
+        a.setQuestionId(questionId);
+        a.setOptionIds(List.of(optionId));
+        return a;
+    }
+
+    private static Survey survey(Integer maxResponses, int quotaA, int quotaB) {
+        Survey survey = new Survey();
+        survey.setId(SURVEY_ID);
+        survey.setEndDate(LocalDate.now().plusDays(7));
+        survey.setMaxResponses(maxResponses);
+        Question q = new Question();
+        q.setId(QUESTION_ID);
+        q.setTitle("年齡層");
+        q.setType("SINGLE");
+        q.setRequired(true);
+        Option a = new Option();
+        a.setId(OPTION_A);
+        a.setQuota(quotaA);
+        Option b = new Option();
+        b.setId(OPTION_B);
+        b.setOrderIndex(1);
+        b.setQuota(quotaB);
+        q.getOptions().addAll(List.of(a, b));
+        survey.getQuestions().add(q);
+        return survey;
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.dto.AnswerDTO;
+import com.example.dynamicsurvey.dto.OptionDTO;
+import com.example.dynamicsurvey.dto.QuestionDTO;
+import com.example.dynamicsurvey.dto.ShowConditionDTO;
+import com.example.dynamicsurvey.dto.SurveyDTO;
+import com.example.dynamicsurvey.entity.Option;
+import com.example.dynamicsurvey.entity.Question;
+import com.example.dynamicsurvey.entity.Survey;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * [測試] 題目顯示條件的驗證與判斷
+ * -----------------------------------------------------------------------------
+ * - 儲存時擋下循環引用 (錯誤訊息只列出循環上的題目)、不存在的題目 / 選項、引用非選擇題
+ * - 被隱藏的必填題不要求作答；來源題被隱藏時，依賴它的題目同樣隱藏 (即使送來了它的答案)
+ * - 來源題排在畫面後面、選項超過 64 個 (遮罩跨多個 long) 時結果相同
+ */
+class SkipLogicPlanTest {
+
+    // =========================================================================
+    // 儲存時驗證
+    // =========================================================================
+
+    @Test
+    void rejectsCycleAndNamesOnlyTheQuestionsOnIt() {
+        SurveyDTO dto = surveyDto(
+                questionDto("Q0", 0, "SINGLE", 2, "1:0"),
+                questionDto("Q1", 1, "SINGLE", 2, "2:1"),
+                questionDto("Q2", 2, "SINGLE", 2, "0:0"),
+                // 循環的下游，本身不在循環上
+                questionDto("Q3", 3, "SINGLE", 2, "2:0"),
+                questionDto("Q4", 4, "TEXT", 0, null));
+
+        String error = SkipLogicPlan.validate(dto);
+
+        assertThat(error).startsWith("顯示條件形成循環").contains("「Q0」", "「Q1」", "「Q2」").doesNotContain("Q3", "Q4");
+    }
+
+    @Test
+    void rejectsQuestionDependingOnItself() {
+        SurveyDTO dto = surveyDto(
+                questionDto("Q0", 0, "SINGLE", 2, null),
+                questionDto("自己", 1, "MULTI", 2, "0:0;1:1"));
+
+        assertThat(SkipLogicPlan.validate(dto)).startsWith("顯示條件形成循環").contains("「自己」").doesNotContain("Q0");
+    }
+
+    @Test
+    void rejectsInvalidReferences() {
+        assertThat(SkipLogicPlan.validate(surveyDto(
+                questionDto("Q0", 0, "SINGLE", 2, null),
+                questionDto("Q1", 1, "SINGLE", 2, "5:0"))))
+                .contains("引用了不存在的題目");
+        assertThat(SkipLogicPlan.validate(surveyDto(
+                questionDto("Q0", 0, "SINGLE", 2, null),
+                questionDto("Q1", 1, "SINGLE", 2, "0:7"))))
+                .contains("引用了不存在的選項");
+        assertThat(SkipLogicPlan.validate(surveyDto(
+                questionDto("Q0", 0, "TEXT", 0, null),
+                questionDto("Q1", 1, "SINGLE", 2, "0:0"))))
+                .contains("只能引用選擇題");
+        assertThat(SkipLogicPlan.validate(surveyDto(
+                questionDto("Q0", 0, "SINGLE", 2, null),
+                questionDto("Q0b", 0, "SINGLE", 2, null),
+                questionDto("Q1", 1, "SINGLE", 2, "0:0"))))
+                .contains("題目順序重複");
+    }
+
+    @Test
+    void acceptsValidRulesAndFormatsThemCanonically() {
+        assertThat(SkipLogicPlan.validate(surveyDto(
+                questionDto("Q0", 0, "SINGLE", 3, null),
+                questionDto("Q1", 1, "MULTI", 2, "0:2,0,2")))).isNull();
+        assertThat(SkipLogicPlan.format(SkipLogicPlan.parse("0:2,0,2;3:1"))).isEqualTo("0:0,2;3:1");
+    }
+
+    // =========================================================================
+    // 判斷作答
+    // =========================================================================
+
+    @Test
+    void hiddenRequiredQuestionIsNotRequired() {
+        // Q0 選第一個選項 (id 100) 才顯示必填的 Q1
+        SkipLogicPlan plan = SkipLogicPlan.compile(survey(
+                question(1L, "Q0", 0, "SINGLE", true, null, 100L, 101L),
+                question(2L, "Q1", 1, "TEXT", true, "0:0")));
+        long[] state = new long[plan.stateLength()];
+
+        assertThat(plan.evaluate(List.of(choice(1L, 101L)), state)).isNull();
+        assertThat(plan.isVisible(state, 2L)).isFalse();
+
+        assertThat(plan.evaluate(List.of(choice(1L, 100L)), state)).isEqualTo("Q1");
+        assertThat(plan.evaluate(List.of(choice(1L, 100L), text(2L, "  ")), state)).as("空白視為未作答").isEqualTo("Q1");
+        assertThat(plan.evaluate(List.of(choice(1L, 100L), text(2L, "有")), state)).isNull();
+        assertThat(plan.isVisible(state, 2L)).isTrue();
+
+        assertThat(plan.evaluate(List.of(), state)).as("Q0 本身必填").isEqualTo("Q0");
+    }
+
+    @Test
+    void hiddenSourceHidesItsDependentsEvenIfAnswered() {
+        // Q0(A=100) -> Q1(C=110) -> Q2 必填
+        SkipLogicPlan plan = SkipLogicPlan.compile(survey(
+                question(1L, "Q0", 0, "SINGLE", false, null, 100L, 101L),
+                question(2L, "Q1", 1, "SINGLE", false, "0:0", 110L, 111L),
+                question(3L, "Q2", 2, "TEXT", true, "1:0")));
+        long[] state = new long[plan.stateLength()];
+
+        // Q1 被隱藏，送來的 Q1 答案不能讓 Q2 顯示
+        assertThat(plan.evaluate(List.of(choice(1L, 101L), choice(2L, 110L)), state)).isNull();
+        assertThat(plan.isVisible(state, 2L)).isFalse();
+        assertThat(plan.isVisible(state, 3L)).isFalse();
+
+        assertThat(plan.evaluate(List.of(choice(1L, 100L), choice(2L, 110L)), state)).isEqualTo("Q2");
+    }
+
+    @Test
+    void ignoresOptionsOfOtherQuestionsAndUnknownQuestions() {
+        SkipLogicPlan plan = SkipLogicPlan.compile(survey(
+                question(1L, "Q0", 0, "SINGLE", false, null, 100L, 101L),
+                question(2L, "Q1", 1, "MULTI", false, null, 110L),
+                question(3L, "Q2", 2, "TEXT", true, "0:0")));
+        long[] state = new long[plan.stateLength()];
+
+        // 100 是 Q0 的選項，掛在 Q1 底下送來不算 Q0 的作答
+        assertThat(plan.evaluate(List.of(choice(2L, 100L), choice(99L, 100L)), state)).isNull();
+        assertThat(plan.isVisible(state, 3L)).isFalse();
+        assertThat(plan.isVisible(state, 99L)).isFalse();
+    }
+
+    @Test
+    void sourceAfterDependentAndWideMasks() {
+        // 畫面順序：Q0 依賴排在最後、有 70 個選項的 Q2；條件選第 0 與第 69 個選項
+        long[] many = new long[70];
+        for (int i = 0; i < many.length; i++) many[i] = 1000L + i;
+        SkipLogicPlan plan = SkipLogicPlan.compile(survey(
+                question(1L, "Q0", 0, "TEXT", true, "2:0,69"),
+                question(2L, "Q1", 1, "MULTI", false, null, 100L, 101L, 102L),
+                question(3L, "Q2", 2, "SINGLE", false, null, many)));
+        long[] state = new long[plan.stateLength()];
+
+        assertThat(plan.evaluate(List.of(choice(3L, 1068L)), state)).isNull();
+        assertThat(plan.isVisible(state, 1L)).isFalse();
+        assertThat(plan.evaluate(List.of(choice(3L, 1069L)), state)).isEqualTo("Q0");
+        assertThat(plan.evaluate(List.of(choice(3L, 1000L)), state)).isEqualTo("Q0");
+        assertThat(plan.evaluate(List.of(choice(3L, 1000L), text(1L, "x")), state)).isNull();
+    }
+
+    @Test
+    void reportsFirstMissingQuestionInDisplayOrder() {
+        // 拓撲順序為 Q1、Q0，但錯誤依畫面順序回報 Q0
+        SkipLogicPlan plan = SkipLogicPlan.compile(survey(
+                question(1L, "Q0", 0, "TEXT", true, "1:0"),
+                question(2L, "Q1", 1, "SINGLE", true, null, 100L),
+                question(3L, "Q2", 2, "TEXT", true, null)));
+        long[] state = new long[plan.stateLength()];
+
+        assertThat(plan.evaluate(List.of(choice(2L, 100L)), state)).isEqualTo("Q0");
+        assertThat(plan.evaluate(List.of(), state)).isEqualTo("Q1");
+    }
+
+    // =========================================================================
+    // 測試資料
+    // =========================================================================
+
+    private static Survey survey(Question... questions) {
+        Survey survey = new Survey();
+        survey.setQuestions(new ArrayList<>(List.of(questions)));
+        return survey;
+    }
+
+    private static Question question(Long id, String title, int order, String type, boolean required, String showIf, long... optionIds) {
+        Question q = new Question();
+        q.setId(id);
+        q.setTitle(title);
+        q.setOrderIndex(order);
+        q.setType(type);
+        q.setRequired(required);
+        q.setShowIf(showIf);
+        for (int i = 0; i < optionIds.length; i++) {
+            Option o = new Option();
+            o.setId(optionIds[i]);
+            o.setOptionText("O" + i);
+            o.setOrderIndex(i);
+            q.getOptions().add(o);
+        }
+        return q;
+    }
+
+    private static SurveyDTO surveyDto(QuestionDTO... questions) {
+        SurveyDTO dto = new SurveyDTO();
+        dto.setQuestions(new ArrayList<>(List.of(questions)));
+        return dto;
+    }
+
+    private static QuestionDTO questionDto(String title, int order, String type, int options, String showIf) {
+        QuestionDTO q = new QuestionDTO();
+        q.setTitle(title);
+        q.setOrderIndex(order);
+        q.setType(type);
+        List<OptionDTO> list = new ArrayList<>();
+        for (int i = 0; i < options; i++) {
+            OptionDTO o = new OptionDTO();
+            o.setOptionText("O" + i);
+            o.setOrderIndex(i);
+            list.add(o);
+        }
+        q.setOptions(list);
+        List<ShowConditionDTO> conditions = SkipLogicPlan.parse(showIf);
+        q.setShowIf(conditions.isEmpty() ? null : conditions);
+        return q;
+    }
+
+    private static AnswerDTO choice(Long questionId, Long... optionIds) {
+        AnswerDTO a = new AnswerDTO();
+        a.setQuestionId(questionId);
+        a.setOptionIds(List.of(optionIds));
+        return a;
+    }
+
+    private static AnswerDTO text(Long questionId, String value) {
+        AnswerDTO a = new AnswerDTO();
+        a.setQuestionId(questionId);
+        a.setAnswerText(value);
+        return a;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.dto.OptionDTO;
+import com.example.dynamicsurvey.dto.QuestionDTO;
+import com.example.dynamicsurvey.dto.SurveyDTO;
+import com.example.dynamicsurvey.repository.ResponseArchiveRepository;
+import com.example.dynamicsurvey.repository.ResponseStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * [測試] 編輯問卷時送出的 SQL 數量
+ * -----------------------------------------------------------------------------
+ * SurveyMapper.merge 以 ID 就地更新題目與選項，只修改一個選項的文字時：
+ *   - 只產生一句 UPDATE，沒有任何 INSERT / DELETE，也不重排題目或選項集合
+ *   - 2 題 x 2 選項與 40 題 x 10 選項的問卷送出的 SQL 句數相同 (選項以 @BatchSize 一次載入)
+ * 每次量測前清空二級快取，量到的是未命中快取時的句數。
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SurveyService.class, SurveyMetrics.class, SurveyEditStatementCountTest.Metrics.class})
+class SurveyEditStatementCountTest {
+
+    // 讀取問卷、題目、選項 + 一句 UPDATE
+    private static final long MAX_STATEMENTS = 4;
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean ResponseStore responseStore;
+    @MockBean ResponseShardRouter shardRouter;
+    @MockBean SurveySearchIndex searchIndex;
+    @MockBean SurveyArchiveService archiveService;
+    @MockBean ResponseArchiveRepository archiveRepository;
+    @MockBean ResponseQuotaService quotaService;
+    @MockBean RespondentSearchService respondentSearch;
+
+    @Autowired
+    SurveyService surveyService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+    }
+
+    @Test
+    void editingOneOptionIssuesTheSameFewStatementsRegardlessOfSize() {
+        long small = statementsToEditOneOption(2, 2);
+        long large = statementsToEditOneOption(40, 10);
+
+        assertThat(small).isLessThanOrEqualTo(MAX_STATEMENTS);
+        assertThat(large).isEqualTo(small);
+    }
+
+    private long statementsToEditOneOption(int questions, int options) {
+        SurveyDTO saved = surveyService.saveSurvey(survey(questions, options)).getData();
+        SurveyDTO edited = surveyService.getSurveyDetails(saved.getId()).getData();
+        QuestionDTO middle = edited.getQuestions().get(questions / 2);
+        middle.getOptions().get(options - 1).setOptionText("已修改");
+
+        sessionFactory.getCache().evictAllRegions();
+        statistics.clear();
+        SurveyDTO result = surveyService.saveSurvey(edited).getData();
+
+        assertThat(result).as("saveSurvey").isNotNull();
+        assertThat(result.getQuestions().get(questions / 2).getOptions().get(options - 1).getOptionText()).isEqualTo("已修改");
+        assertThat(statistics.getEntityUpdateCount()).as("%d 題 x %d 選項：UPDATE", questions, options).isEqualTo(1);
+        assertThat(statistics.getEntityInsertCount()).as("INSERT").isZero();
+        assertThat(statistics.getEntityDeleteCount()).as("DELETE").isZero();
+        assertThat(statistics.getCollectionRecreateCount()).as("集合重建").isZero();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static SurveyDTO survey(int questions, int options) {
+        SurveyDTO dto = new SurveyDTO();
+        dto.setTitle("編輯測試");
+        dto.setStartDate(LocalDate.now().minusDays(1));
+        dto.setEndDate(LocalDate.now().plusDays(30));
+        dto.setStatus("DRAFT");
+        List<QuestionDTO> list = new ArrayList<>();
+        for (int i = 0; i < questions; i++) {
+            QuestionDTO q = new QuestionDTO();
+            q.setTitle("Q" + i);
+            q.setType("SINGLE");
+            q.setOrderIndex(i);
+            List<OptionDTO> opts = new ArrayList<>();
+            for (int k = 0; k < options; k++) {
+                OptionDTO o = new OptionDTO();
+                o.setOptionText("選項 " + k);
+                o.setOrderIndex(k);
+                opts.add(o);
+            }
+            q.setOptions(opts);
+            list.add(q);
+        }
+        dto.setQuestions(list);
+        return dto;
+    }
+}
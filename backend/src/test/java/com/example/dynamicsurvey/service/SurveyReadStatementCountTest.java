@@ -0,0 +1,222 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.dto.OptionDTO;
+import com.example.dynamicsurvey.dto.QuestionDTO;
+import com.example.dynamicsurvey.dto.SurveyDTO;
+import com.example.dynamicsurvey.dto.SurveySummaryDTO;
+import com.example.dynamicsurvey.entity.Question;
+import com.example.dynamicsurvey.entity.ResponseAnswer;
+import com.example.dynamicsurvey.entity.Survey;
+import com.example.dynamicsurvey.entity.SurveyResponse;
+import com.example.dynamicsurvey.repository.JpaResponseStore;
+import com.example.dynamicsurvey.repository.ResponseArchiveRepository;
+import com.example.dynamicsurvey.repository.SurveyRepository;
+import com.example.dynamicsurvey.repository.SurveyResponseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * [測試] 讀取問卷與作答時送出的 SQL 數量不隨資料量增加 (沒有 N+1)
+ * -----------------------------------------------------------------------------
+ * 以 Hibernate Statistics 計算句數，資料增加前後 (或小問卷與大問卷) 的句數必須相同：
+ *   - getSurveysByAdmin / getActiveSurveys：只查摘要，已有作答的問卷以一句分組查詢取得
+ *   - getSurveyDetails：題目一句、全部選項以 @BatchSize 一句
+ *   - getResponseDetail：問卷、作答與題目以一句 JOIN FETCH 取得
+ * 每次量測前清空二級快取與查詢快取，量到的是未命中快取時的句數。
+ * 作答存取使用實際的 JpaResponseStore；封存區為 mock (沒有資料)。
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SurveyService.class, SurveyMetrics.class, JpaResponseStore.class, SurveyReadStatementCountTest.Metrics.class})
+class SurveyReadStatementCountTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean ResponseShardRouter shardRouter;
+    @MockBean SurveySearchIndex searchIndex;
+    @MockBean SurveyArchiveService archiveService;
+    @MockBean ResponseArchiveRepository archiveRepository;
+    @MockBean ResponseQuotaService quotaService;
+    @MockBean RespondentSearchService respondentSearch;
+
+    @Autowired
+    SurveyService surveyService;
+
+    @Autowired
+    SurveyRepository surveyRepository;
+
+    @Autowired
+    SurveyResponseRepository responseRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+    }
+
+    @Test
+    void adminListDoesNotGrowWithSurveysOrResponses() {
+        addSurveysWithResponses(2, 3, 2);
+        long before = count(() -> assertThat(surveyService.getSurveysByAdmin(null, null, null, false, null).getData()).isNotEmpty());
+
+        addSurveysWithResponses(20, 3, 2);
+        long after = count(() -> assertThat(surveyService.getSurveysByAdmin(null, null, null, false, null).getData())
+                .filteredOn(SurveySummaryDTO::isHasResponses).hasSizeGreaterThanOrEqualTo(22));
+
+        assertThat(before).isLessThanOrEqualTo(2);
+        assertThat(after).isEqualTo(before);
+    }
+
+    @Test
+    void activeListDoesNotGrowWithSurveys() {
+        addSurveysWithResponses(2, 2, 0);
+        long before = count(() -> surveyService.getActiveSurveys());
+
+        addSurveysWithResponses(20, 2, 0);
+        long after = count(() -> assertThat(surveyService.getActiveSurveys().getData()).hasSizeGreaterThanOrEqualTo(22));
+
+        assertThat(before).isEqualTo(1);
+        assertThat(after).isEqualTo(before);
+    }
+
+    @Test
+    void surveyDetailsDoNotGrowWithQuestionsOrOptions() {
+        Long small = save(survey(1, 1)).getId();
+        Long large = save(survey(40, 8)).getId();
+
+        long smallCount = count(() -> surveyService.getSurveyDetails(small));
+        long largeCount = count(() -> assertThat(surveyService.getSurveyDetails(large).getData().getQuestions())
+                .hasSize(40).allMatch(q -> q.getOptions().size() == 8));
+
+        assertThat(smallCount).isLessThanOrEqualTo(3);
+        assertThat(largeCount).isEqualTo(smallCount);
+    }
+
+    @Test
+    void responseDetailDoesNotGrowWithAnswers() {
+        Long small = respond(save(survey(1, 2)).getId());
+        Long large = respond(save(survey(40, 4)).getId());
+
+        long smallCount = count(() -> surveyService.getResponseDetail(small));
+        long largeCount = count(() -> assertThat(surveyService.getResponseDetail(large).getData().details()).hasSize(40));
+
+        assertThat(smallCount).isEqualTo(1);
+        assertThat(largeCount).isEqualTo(smallCount);
+    }
+
+    // =========================================================================
+    // 測試資料
+    // =========================================================================
+
+    private long count(Runnable call) {
+        sessionFactory.getCache().evictAllRegions();
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addSurveysWithResponses(int surveys, int questions, int responsesEach) {
+        for (int i = 0; i < surveys; i++) {
+            Long id = save(survey(questions, 3)).getId();
+            for (int r = 0; r < responsesEach; r++) respond(id);
+        }
+    }
+
+    /**
+     * 每一題都作答 (選擇題選第一個選項)
+     */
+    private Long respond(Long surveyId) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Survey survey = surveyRepository.findById(surveyId).orElseThrow();
+            SurveyResponse response = new SurveyResponse();
+            response.setSurvey(survey);
+            response.setName("王小明");
+            response.setPhone("0912345678");
+            response.setEmail("r" + System.nanoTime() + "@example.com");
+            response.setSubmittedAt(LocalDateTime.now());
+            for (Question q : survey.getQuestions()) {
+                ResponseAnswer a = new ResponseAnswer();
+                a.setSurveyResponse(response);
+                a.setQuestion(q);
+                a.getSelectedOptions().add(q.getOptions().get(0));
+                a.setAnswerText(q.getOptions().get(0).getOptionText());
+                response.getAnswers().add(a);
+            }
+            return responseRepository.save(response).getId();
+        });
+    }
+
+    private SurveyDTO save(SurveyDTO dto) {
+        SurveyDTO saved = surveyService.saveSurvey(dto).getData();
+        assertThat(saved).as("saveSurvey").isNotNull();
+        return saved;
+    }
+
+    private static SurveyDTO survey(int questions, int options) {
+        SurveyDTO dto = new SurveyDTO();
+        dto.setTitle("讀取測試");
+        dto.setStartDate(LocalDate.now().minusDays(1));
+        dto.setEndDate(LocalDate.now().plusDays(30));
+        dto.setStatus("PUBLISHED");
+        List<QuestionDTO> list = new ArrayList<>();
+        for (int i = 0; i < questions; i++) {
+            QuestionDTO q = new QuestionDTO();
+            q.setTitle("Q" + i);
+            q.setType("SINGLE");
+            q.setOrderIndex(i);
+            List<OptionDTO> opts = new ArrayList<>();
+            for (int k = 0; k < options; k++) {
+                OptionDTO o = new OptionDTO();
+                o.setOptionText("選項 " + k);
+                o.setOrderIndex(k);
+                opts.add(o);
+            }
+            q.setOptions(opts);
+            list.add(q);
+        }
+        dto.setQuestions(list);
+        return dto;
+    }
+}
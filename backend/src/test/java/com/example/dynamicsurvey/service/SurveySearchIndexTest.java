@@ -0,0 +1,198 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.entity.Survey;
+import com.example.dynamicsurvey.repository.SurveyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * [測試] 問卷標題搜尋索引
+ * -----------------------------------------------------------------------------
+ * - 多個 trigram 的清單求交集；刪除與修改後舊內容搜尋不到
+ * - 開頭比對只看標題；少於 3 個字元的關鍵字退回逐筆比對；中文標題與全形字元
+ * - 重建期間的查詢不會看到空的索引
+ * - 其他節點的新增、修改與刪除由 catchUp 依 updated_at 補入 (資料庫以 db 變數模擬)
+ */
+class SurveySearchIndexTest {
+
+    private final Map<Long, Survey> db = new LinkedHashMap<>();
+    private SurveySearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        SurveyRepository surveyRepository = mock(SurveyRepository.class);
+        when(surveyRepository.findAll()).thenAnswer(inv -> new ArrayList<>(db.values()));
+        when(surveyRepository.findUpdatedAfter(any())).thenAnswer(inv -> {
+            LocalDateTime since = inv.getArgument(0);
+            return db.values().stream().filter(s -> s.getUpdatedAt().isAfter(since)).toList();
+        });
+        when(surveyRepository.count()).thenAnswer(inv -> (long) db.size());
+        when(surveyRepository.findAllIds()).thenAnswer(inv -> new ArrayList<>(db.keySet()));
+
+        index = new SurveySearchIndex();
+        index.surveyRepository = surveyRepository;
+    }
+
+    @Test
+    void intersectsPostingsOfEveryTrigram() {
+        index.put(survey(1L, "員工滿意度調查", null));
+        index.put(survey(2L, "顧客滿意度", null));
+        index.put(survey(3L, "員工旅遊調查", null));
+
+        assertThat(search("滿意度")).containsExactly(2L, 1L);
+        assertThat(search("員工滿意")).containsExactly(1L);
+        assertThat(search("工旅遊調")).containsExactly(3L);
+        assertThat(search("員工調查")).as("各 trigram 都存在但不相鄰").isEmpty();
+        assertThat(search("不存在的字")).isEmpty();
+    }
+
+    @Test
+    void matchesDescriptionAndNormalisesFullWidth() {
+        index.put(survey(1L, "ＡＢＣ Survey", "年度 NPS 追蹤"));
+
+        assertThat(search("abc")).containsExactly(1L);
+        assertThat(search("ＳＵＲＶＥＹ")).containsExactly(1L);
+        assertThat(search("nps 追蹤")).containsExactly(1L);
+    }
+
+    @Test
+    void removedAndEditedSurveysAreNoLongerFound() {
+        index.put(survey(1L, "午餐便當調查", null));
+        index.put(survey(2L, "午餐外送調查", null));
+        index.remove(1L);
+        index.put(survey(2L, "晚餐外送調查", null));
+
+        assertThat(search("午餐")).isEmpty();
+        assertThat(search("便當調")).isEmpty();
+        assertThat(search("晚餐外送")).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void prefixModeMatchesOnlyTheStartOfTheTitle() {
+        index.put(survey(1L, "2024 年度調查", null));
+        index.put(survey(2L, "年度調查 2024", "2024 年度"));
+
+        assertThat(index.search("年度調", true, null, null, 10)).containsExactly(2L);
+        assertThat(index.search("2024", true, null, null, 10)).containsExactly(1L);
+        assertThat(search("2024")).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void shortQueriesFallBackToScanningEveryEntry() {
+        index.put(survey(1L, "問卷", null));
+        index.put(survey(2L, "滿意度問卷", null));
+        index.put(survey(3L, "活動報名", null));
+
+        assertThat(search("問卷")).containsExactly(2L, 1L);
+        assertThat(search("報")).containsExactly(3L);
+        // 表情符號佔 2 個 char 但只有 1 個 code point
+        index.put(survey(4L, "😀😀 派對", null));
+        assertThat(search("😀😀")).containsExactly(4L);
+        assertThat(search("😀😀 派")).containsExactly(4L);
+        assertThat(index.search("問", false, null, null, 1)).as("limit").containsExactly(2L);
+    }
+
+    @Test
+    void filtersByDateRange() {
+        Survey early = survey(1L, "春季調查", null);
+        early.setStartDate(LocalDate.of(2024, 3, 1));
+        early.setEndDate(LocalDate.of(2024, 3, 31));
+        Survey late = survey(2L, "秋季調查", null);
+        late.setStartDate(LocalDate.of(2024, 9, 1));
+        late.setEndDate(LocalDate.of(2024, 9, 30));
+        index.put(early);
+        index.put(late);
+
+        assertThat(index.search("季調查", false, LocalDate.of(2024, 6, 1), null, 10)).containsExactly(2L);
+        assertThat(index.search("季調查", false, null, LocalDate.of(2024, 6, 1), 10)).containsExactly(1L);
+    }
+
+    @Test
+    void searchesDuringRebuildNeverSeeAnEmptyIndex() throws Exception {
+        List<Survey> surveys = new ArrayList<>();
+        for (long id = 1; id <= 2_000; id++) surveys.add(survey(id, "問卷 " + id + " 滿意度", null));
+        index.rebuild(surveys);
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger empty = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                if (index.search("滿意度", false, null, null, 1).isEmpty()) empty.incrementAndGet();
+            }
+        });
+        reader.start();
+        try {
+            for (int i = 0; i < 20; i++) index.rebuild(surveys);
+        } finally {
+            done.set(true);
+            reader.join();
+        }
+
+        assertThat(empty.get()).isZero();
+        assertThat(index.size()).isEqualTo(2_000);
+        assertThat(search("問卷 1999 滿")).containsExactly(1999L);
+    }
+
+    @Test
+    void catchUpAppliesOtherNodesEditsAndDeletions() {
+        LocalDateTime loadedAt = LocalDateTime.now().minusHours(1);
+        store(survey(1L, "員工滿意度", null), loadedAt);
+        store(survey(2L, "顧客滿意度", null), loadedAt);
+        index.init();
+        assertThat(search("滿意度")).containsExactly(2L, 1L);
+
+        // 其他節點：新增 3、修改 1、刪除 2
+        store(survey(3L, "供應商滿意度", null), loadedAt.plusMinutes(5));
+        store(survey(1L, "員工福利調查", null), loadedAt.plusMinutes(6));
+        db.remove(2L);
+        index.catchUp();
+
+        assertThat(search("滿意度")).containsExactly(3L);
+        assertThat(search("福利調查")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(2);
+
+        // 再次補入沒有變化
+        index.catchUp();
+        assertThat(search("調查")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void catchUpBeforeInitDoesNothing() {
+        store(survey(1L, "員工滿意度", null), LocalDateTime.now());
+        index.catchUp();
+        assertThat(index.size()).isZero();
+    }
+
+    private List<Long> search(String keyword) {
+        return index.search(keyword, false, null, null, 10);
+    }
+
+    private void store(Survey survey, LocalDateTime updatedAt) {
+        survey.setUpdatedAt(updatedAt);
+        db.put(survey.getId(), survey);
+    }
+
+    private static Survey survey(Long id, String title, String description) {
+        Survey s = new Survey();
+        s.setId(id);
+        s.setTitle(title);
+        s.setDescription(description);
+        return s;
+    }
+}
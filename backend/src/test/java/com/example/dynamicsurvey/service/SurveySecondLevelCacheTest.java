@@ -0,0 +1,161 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.dto.OptionDTO;
+import com.example.dynamicsurvey.dto.QuestionDTO;
+import com.example.dynamicsurvey.dto.SurveyDTO;
+import com.example.dynamicsurvey.entity.Survey;
+import com.example.dynamicsurvey.repository.ResponseArchiveRepository;
+import com.example.dynamicsurvey.repository.ResponseStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * [測試] 問卷結構的 Hibernate 二級快取
+ * -----------------------------------------------------------------------------
+ * 以 Hibernate Statistics 計算實際送出的 SQL：
+ *   - 第二次 getSurveyDetails / getActiveSurveys 完全由快取回應 (0 句 SQL)
+ *   - saveSurvey 修改題目後，Survey.questions 集合快取被移除，下次讀取拿到新的題目
+ * 測試方法本身不開交易，每次呼叫 SurveyService 都是獨立提交的交易 (與線上相同)。
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SurveyService.class, SurveyMetrics.class, SurveySecondLevelCacheTest.Metrics.class})
+class SurveySecondLevelCacheTest {
+
+    private static final String QUESTIONS = Survey.class.getName() + ".questions";
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean ResponseStore responseStore;
+    @MockBean ResponseShardRouter shardRouter;
+    @MockBean SurveySearchIndex searchIndex;
+    @MockBean SurveyArchiveService archiveService;
+    @MockBean ResponseArchiveRepository archiveRepository;
+    @MockBean ResponseQuotaService quotaService;
+    @MockBean RespondentSearchService respondentSearch;
+
+    @Autowired
+    SurveyService surveyService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    @Test
+    void secondGetSurveyDetailsIssuesNoSql() {
+        Long id = save(survey("DRAFT", question("Q1", "A", "B"), question("Q2", "C"))).getId();
+
+        SurveyDTO first = surveyService.getSurveyDetails(id).getData();
+        statistics.clear();
+        SurveyDTO second = surveyService.getSurveyDetails(id).getData();
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheMissCount()).isZero();
+        assertThat(second).isEqualTo(first);
+        assertThat(second.getQuestions()).hasSize(2);
+    }
+
+    @Test
+    void secondFindActiveSurveysIssuesNoSql() {
+        Long id = save(survey("PUBLISHED", question("Q1", "A", "B"))).getId();
+
+        assertThat(surveyService.getActiveSurveys().getData()).extracting("id").contains(id);
+        statistics.clear();
+        assertThat(surveyService.getActiveSurveys().getData()).extracting("id").contains(id);
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void saveSurveyEvictsQuestionCollection() {
+        SurveyDTO dto = save(survey("DRAFT", question("Q1", "A", "B")));
+        Long id = dto.getId();
+        surveyService.getSurveyDetails(id);
+        assertThat(sessionFactory.getCache().containsCollection(QUESTIONS, id)).isTrue();
+
+        SurveyDTO edited = surveyService.getSurveyDetails(id).getData();
+        QuestionDTO added = question("Q2", "C");
+        added.setOrderIndex(1);
+        edited.getQuestions().add(added);
+        save(edited);
+
+        // READ_WRITE 交易提交後留下已解鎖的 lock 項目 (containsCollection 仍為 true)，讀取時視為未命中
+        statistics.clear();
+        SurveyDTO reloaded = surveyService.getSurveyDetails(id).getData();
+        assertThat(reloaded.getQuestions()).extracting(QuestionDTO::getTitle).containsExactly("Q1", "Q2");
+        assertThat(statistics.getCollectionStatistics(QUESTIONS).getCacheMissCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionStatistics(QUESTIONS).getCacheHitCount()).isZero();
+    }
+
+    private SurveyDTO save(SurveyDTO dto) {
+        SurveyDTO saved = surveyService.saveSurvey(dto).getData();
+        assertThat(saved).as("saveSurvey").isNotNull();
+        return saved;
+    }
+
+    private static SurveyDTO survey(String status, QuestionDTO... questions) {
+        SurveyDTO dto = new SurveyDTO();
+        dto.setTitle("快取測試");
+        dto.setStartDate(LocalDate.now().minusDays(1));
+        dto.setEndDate(LocalDate.now().plusDays(30));
+        dto.setStatus(status);
+        dto.setQuestions(new ArrayList<>(List.of(questions)));
+        for (int i = 0; i < questions.length; i++) questions[i].setOrderIndex(i);
+        return dto;
+    }
+
+    private static QuestionDTO question(String title, String... options) {
+        QuestionDTO q = new QuestionDTO();
+        q.setTitle(title);
+        q.setType("SINGLE");
+        List<OptionDTO> list = new ArrayList<>();
+        for (int i = 0; i < options.length; i++) {
+            OptionDTO o = new OptionDTO();
+            o.setOptionText(options[i]);
+            o.setOrderIndex(i);
+            list.add(o);
+        }
+        q.setOptions(list);
+        return q;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.analytics.ColumnarSnapshotReader;
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.entity.Option;
+import com.example.dynamicsurvey.entity.Question;
+import com.example.dynamicsurvey.entity.ResponseAnswer;
+import com.example.dynamicsurvey.entity.Survey;
+import com.example.dynamicsurvey.entity.SurveyResponse;
+import com.example.dynamicsurvey.repository.ResponseExportRepository;
+import com.example.dynamicsurvey.repository.ResponseExportRepository.ExportedAnswer;
+import com.example.dynamicsurvey.repository.ResponseExportRepository.ExportedResponse;
+import com.example.dynamicsurvey.repository.SurveyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * [測試] 欄式快照的增量匯出
+ * -----------------------------------------------------------------------------
+ * 資料庫以 database (回覆 ID -> 作答) 模擬，findAfter / countUpTo 與實際 SQL 相同；
+ * 每次匯出後以 ColumnarSnapshotReader 讀回，與 SurveyStatsAggregator.aggregate 比較：
+ * - 每次只匯出水位線之後的作答，新增一個檔案；沒有新作答時不寫檔
+ * - ID 較小但較晚提交的作答、或已匯出的作答被刪除 (countUpTo 與已匯出筆數不同) 時整份重建
+ * - 檔案數達到 max-parts 時合併重建；作答全部刪除後視為尚未匯出
+ */
+class SurveySnapshotExportServiceTest {
+
+    private static final long SURVEY_ID = 3L;
+
+    @TempDir
+    Path root;
+
+    private final TreeMap<Long, SurveyResponse> database = new TreeMap<>();
+    private final Survey survey = survey();
+
+    private ApplicationContextRunner runner(String... properties) {
+        SurveyRepository surveyRepository = mock(SurveyRepository.class);
+        when(surveyRepository.findById(SURVEY_ID)).thenReturn(Optional.of(survey));
+        ResponseExportRepository exportRepository = mock(ResponseExportRepository.class);
+        when(exportRepository.findAfter(eq(SURVEY_ID), anyLong(), anyInt())).thenAnswer(inv -> {
+            long after = inv.getArgument(1);
+            int limit = inv.getArgument(2);
+            return database.tailMap(after, false).values().stream().limit(limit).map(this::exported).toList();
+        });
+        when(exportRepository.countUpTo(eq(SURVEY_ID), anyLong()))
+                .thenAnswer(inv -> database.headMap(inv.getArgument(1), true).size());
+        return new ApplicationContextRunner()
+                .withUserConfiguration(SurveySnapshotExportService.class)
+                .withBean(SurveyRepository.class, () -> surveyRepository)
+                .withBean(ResponseExportRepository.class, () -> exportRepository)
+                // mock 仍會被注入 ResponseExportRepository 的欄位
+                .withBean(ResponseShardRouter.class, () -> mock(ResponseShardRouter.class))
+                .withBean(PlatformTransactionManager.class, () -> mock(PlatformTransactionManager.class))
+                .withPropertyValues("survey.columnar.dir=" + root, "survey.columnar.batch-size=40")
+                .withPropertyValues(properties);
+    }
+
+    @Test
+    void exportsOnlyResponsesAfterTheWatermark() {
+        runner().run(context -> {
+            SurveySnapshotExportService service = context.getBean(SurveySnapshotExportService.class);
+            add(1, 100);
+            assertThat(service.exportSurvey(SURVEY_ID)).isEqualTo(100);
+            add(101, 150);
+            assertThat(service.exportSurvey(SURVEY_ID)).isEqualTo(50);
+            assertThat(service.exportSurvey(SURVEY_ID)).as("沒有新作答").isZero();
+
+            ColumnarSnapshotReader reader = service.openSnapshot(SURVEY_ID).orElseThrow();
+            assertThat(reader.partFiles()).hasSize(2);
+            assertThat(reader.maxResponseId()).isEqualTo(150);
+            assertMatchesDatabase(reader);
+        });
+    }
+
+    @Test
+    void rowsPerPartSplitsOneExportIntoSeveralFiles() {
+        runner("survey.columnar.rows-per-part=60").run(context -> {
+            SurveySnapshotExportService service = context.getBean(SurveySnapshotExportService.class);
+            add(1, 130);
+            assertThat(service.exportSurvey(SURVEY_ID)).isEqualTo(130);
+
+            // 每批 40 筆，累積達 60 筆即寫出：80 | 50
+            ColumnarSnapshotReader reader = service.openSnapshot(SURVEY_ID).orElseThrow();
+            assertThat(reader.partFiles()).hasSize(2);
+            assertMatchesDatabase(reader);
+        });
+    }
+
+    @Test
+    void lateResponseBelowTheWatermarkRebuilds() {
+        runner().run(context -> {
+            SurveySnapshotExportService service = context.getBean(SurveySnapshotExportService.class);
+            add(1, 100);
+            database.remove(50L);
+            service.exportSurvey(SURVEY_ID);
+            List<String> before = service.openSnapshot(SURVEY_ID).orElseThrow().partFiles();
+
+            // ID 50 較晚提交：countUpTo(100) = 100，已匯出 99 筆
+            add(50, 50);
+            add(101, 110);
+            assertThat(service.exportSurvey(SURVEY_ID)).as("整份重新匯出").isEqualTo(110);
+
+            ColumnarSnapshotReader reader = service.openSnapshot(SURVEY_ID).orElseThrow();
+            assertThat(reader.partFiles()).hasSize(1).doesNotContainAnyElementsOf(before);
+            assertThat(reader.rowCount()).isEqualTo(110);
+            assertMatchesDatabase(reader);
+            assertThat(Files.exists(ColumnarSnapshotReader.surveyDir(root, SURVEY_ID).resolve(before.get(0))))
+                    .as("舊檔案已刪除").isFalse();
+        });
+    }
+
+    @Test
+    void deletedResponsesRebuild() {
+        runner().run(context -> {
+            SurveySnapshotExportService service = context.getBean(SurveySnapshotExportService.class);
+            add(1, 80);
+            service.exportSurvey(SURVEY_ID);
+            for (long id = 10; id < 20; id++) database.remove(id);
+
+            assertThat(service.exportSurvey(SURVEY_ID)).isEqualTo(70);
+            assertMatchesDatabase(service.openSnapshot(SURVEY_ID).orElseThrow());
+
+            database.clear();
+            service.exportSurvey(SURVEY_ID);
+            assertThat(service.openSnapshot(SURVEY_ID)).as("沒有作答時移除 manifest").isEmpty();
+        });
+    }
+
+    @Test
+    void tooManyPartsAreMerged() {
+        runner("survey.columnar.max-parts=3").run(context -> {
+            SurveySnapshotExportService service = context.getBean(SurveySnapshotExportService.class);
+            for (int i = 0; i < 3; i++) {
+                add(i * 10 + 1, i * 10 + 10);
+                service.exportSurvey(SURVEY_ID);
+            }
+            assertThat(service.openSnapshot(SURVEY_ID).orElseThrow().partFiles()).hasSize(3);
+
+            add(31, 35);
+            assertThat(service.exportSurvey(SURVEY_ID)).isEqualTo(35);
+            ColumnarSnapshotReader reader = service.openSnapshot(SURVEY_ID).orElseThrow();
+            assertThat(reader.partFiles()).hasSize(1);
+            assertMatchesDatabase(reader);
+        });
+    }
+
+    // =========================================================================
+    // 測試資料
+    // =========================================================================
+
+    private void assertMatchesDatabase(ColumnarSnapshotReader reader) {
+        assertThat(reader.rowCount()).isEqualTo(database.size());
+        // 合併摘要時平均與變異數的加總順序不同，只允許最後幾個位元的差異
+        assertThat(reader.stats()).usingRecursiveComparison()
+                .withComparatorForType(SurveySnapshotExportServiceTest::compareRelative, Double.class)
+                .isEqualTo(SurveyStatsAggregator.aggregate(survey, List.copyOf(database.values())));
+    }
+
+    private static int compareRelative(Double a, Double b) {
+        if (Math.abs(a - b) <= 1e-12 * Math.max(Math.abs(a), Math.abs(b))) return 0;
+        return Double.compare(a, b);
+    }
+
+    private void add(long fromId, long toId) {
+        List<Question> q = survey.getQuestions();
+        for (long id = fromId; id <= toId; id++) {
+            SurveyResponse r = new SurveyResponse();
+            r.setId(id);
+            r.setSubmittedAt(LocalDateTime.of(2024, 5, 1, 9, 0).plusMinutes(id));
+            r.setAge(id % 6 == 0 ? null : (int) (20 + id % 40));
+            r.getAnswers().add(answer(q.get(0), null, q.get(0).getOptions().get((int) (id % 3))));
+            if (id % 4 != 0) r.getAnswers().add(answer(q.get(1), "意見 " + id));
+            r.getAnswers().add(answer(q.get(2), (id % 9) + "." + (id % 4)));
+            database.put(id, r);
+        }
+    }
+
+    private ExportedResponse exported(SurveyResponse r) {
+        List<ExportedAnswer> answers = r.getAnswers().stream()
+                .map(a -> new ExportedAnswer(a.getQuestion().getId(), a.getAnswerText(),
+                        a.getSelectedOptions().stream().map(Option::getId).toList()))
+                .toList();
+        return new ExportedResponse(r.getId(), r.getSubmittedAt().toInstant(ZoneOffset.UTC).toEpochMilli(), r.getAge(), answers);
+    }
+
+    private static ResponseAnswer answer(Question q, String text, Option... options) {
+        ResponseAnswer a = new ResponseAnswer();
+        a.setQuestion(q);
+        a.setAnswerText(text);
+        a.getSelectedOptions().addAll(List.of(options));
+        return a;
+    }
+
+    private static Survey survey() {
+        Survey survey = new Survey();
+        survey.setId(SURVEY_ID);
+        survey.setTitle("活動回饋");
+        survey.getQuestions().addAll(List.of(question(1L, "SINGLE", 3), question(2L, "TEXT", 0), question(3L, "NUMBER", 0)));
+        return survey;
+    }
+
+    private static Question question(long id, String type, int options) {
+        Question q = new Question();
+        q.setId(id);
+        q.setTitle("Q" + id);
+        q.setType(type);
+        for (int i = 0; i < options; i++) {
+            Option o = new Option();
+            o.setId(id * 10 + i);
+            o.setOptionText("選項 " + i);
+            o.setOrderIndex(i);
+            q.getOptions().add(o);
+        }
+        return q;
+    }
+}
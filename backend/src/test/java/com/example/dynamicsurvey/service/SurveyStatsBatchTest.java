@@ -0,0 +1,214 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.dto.OptionDTO;
+import com.example.dynamicsurvey.dto.OptionStatsDTO;
+import com.example.dynamicsurvey.dto.QuestionDTO;
+import com.example.dynamicsurvey.dto.QuestionStatsDTO;
+import com.example.dynamicsurvey.dto.SurveyDTO;
+import com.example.dynamicsurvey.dto.SurveyStatsDTO;
+import com.example.dynamicsurvey.entity.Question;
+import com.example.dynamicsurvey.entity.ResponseAnswer;
+import com.example.dynamicsurvey.entity.Survey;
+import com.example.dynamicsurvey.entity.SurveyResponse;
+import com.example.dynamicsurvey.repository.JpaResponseStore;
+import com.example.dynamicsurvey.repository.ResponseArchiveRepository;
+import com.example.dynamicsurvey.repository.SurveyRepository;
+import com.example.dynamicsurvey.repository.SurveyResponseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * [測試] 統計依回覆 ID 分批讀取作答
+ * -----------------------------------------------------------------------------
+ * batch-size 設為 10、問卷有 25 筆作答：
+ * - getSurveyStats 的結果與一次讀入全部作答後彙總的結果相同 (邊界剛好整除時也不重複、不遺漏)
+ * - JpaResponseStore 回傳的作答已移出持久化內容，同一個交易中讀過的批次不會累積；
+ *   選取的選項在移出前已載入，移出後仍可讀取
+ */
+@DataJpaTest(properties = "survey.stats.batch-size=10")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SurveyService.class, SurveyMetrics.class, JpaResponseStore.class, SurveyStatsBatchTest.Metrics.class})
+class SurveyStatsBatchTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean ResponseShardRouter shardRouter;
+    @MockBean SurveySearchIndex searchIndex;
+    @MockBean SurveyArchiveService archiveService;
+    @MockBean ResponseArchiveRepository archiveRepository;
+    @MockBean ResponseQuotaService quotaService;
+    @MockBean RespondentSearchService respondentSearch;
+
+    @Autowired
+    SurveyService surveyService;
+
+    @Autowired
+    SurveyRepository surveyRepository;
+
+    @Autowired
+    SurveyResponseRepository responseRepository;
+
+    @Autowired
+    JpaResponseStore responseStore;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    /**
+     * 二級快取 (JCache) 由同一個 JVM 中的測試容器共用，而每個容器都會重建資料表、ID 從頭編號；
+     * 離開前清空，避免之後的測試讀到這裡留下的同 ID 問卷
+     */
+    @AfterEach
+    void evictSecondLevelCache() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    @Test
+    void batchedStatsMatchAggregatingEveryResponseAtOnce() {
+        for (int responses : new int[]{25, 30}) {
+            Long surveyId = surveyService.saveSurvey(survey()).getData().getId();
+            for (int i = 0; i < responses; i++) respond(surveyId, i);
+
+            SurveyStatsDTO stats = surveyService.getSurveyStats(surveyId).getData();
+
+            assertThat(stats.totalResponses()).isEqualTo(responses);
+            assertThat(stats).usingRecursiveComparison().isEqualTo(aggregateAll(surveyId));
+            QuestionStatsDTO choice = stats.questionStats().get(0);
+            assertThat(choice.optionStats().values().stream().mapToInt(OptionStatsDTO::count).sum()).isEqualTo(responses);
+            assertThat(stats.questionStats().get(1).textAnswers()).hasSize(responses);
+            assertThat(stats.questionStats().get(2).numericStats().count()).isEqualTo(responses);
+        }
+    }
+
+    @Test
+    void batchesAreDetachedFromThePersistenceContext() {
+        Long surveyId = surveyService.saveSurvey(survey()).getData().getId();
+        for (int i = 0; i < 25; i++) respond(surveyId, i);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<SurveyResponse> first = responseStore.findBySurveyIdAfter(surveyId, 0, 10);
+            List<SurveyResponse> rest = responseStore.findBySurveyIdAfter(surveyId, first.get(9).getId(), 100);
+
+            assertThat(first).hasSize(10);
+            assertThat(rest).hasSize(15);
+            assertThat(rest.get(0).getId()).isGreaterThan(first.get(9).getId());
+            for (SurveyResponse r : first) {
+                assertThat(entityManager.contains(r)).as("作答 %d", r.getId()).isFalse();
+                r.getAnswers().forEach(a -> assertThat(entityManager.contains(a)).isFalse());
+            }
+            assertThat(first.get(0).getAnswers().get(0).getSelectedOptions()).hasSize(1);
+            assertThat(responseStore.findBySurveyIdAfter(surveyId, rest.get(14).getId(), 10)).isEmpty();
+        });
+    }
+
+    // =========================================================================
+    // 測試資料
+    // =========================================================================
+
+    private SurveyStatsDTO aggregateAll(Long surveyId) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Survey survey = surveyRepository.findById(surveyId).orElseThrow();
+            List<SurveyResponse> all = responseStore.findBySurveyIdAfter(surveyId, 0, Integer.MAX_VALUE);
+            return SurveyStatsAggregator.aggregate(survey, all);
+        });
+    }
+
+    /**
+     * 單選題輪流選三個選項、文字題與數值題都作答；每 4 筆有一筆不填年齡
+     */
+    private void respond(Long surveyId, int i) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Survey survey = surveyRepository.findById(surveyId).orElseThrow();
+            List<Question> q = survey.getQuestions();
+            SurveyResponse response = new SurveyResponse();
+            response.setSurvey(survey);
+            response.setName("王小明");
+            response.setPhone("0912345678");
+            response.setEmail("s" + System.nanoTime() + "@example.com");
+            response.setAge(i % 4 == 0 ? null : 20 + i);
+            response.setSubmittedAt(LocalDateTime.now());
+            response.getAnswers().add(answer(response, q.get(0), null));
+            response.getAnswers().get(0).getSelectedOptions().add(q.get(0).getOptions().get(i % 3));
+            response.getAnswers().add(answer(response, q.get(1), "意見 " + i));
+            response.getAnswers().add(answer(response, q.get(2), String.valueOf(i % 7)));
+            responseRepository.save(response);
+        });
+    }
+
+    private static ResponseAnswer answer(SurveyResponse response, Question q, String text) {
+        ResponseAnswer a = new ResponseAnswer();
+        a.setSurveyResponse(response);
+        a.setQuestion(q);
+        a.setAnswerText(text);
+        return a;
+    }
+
+    private static SurveyDTO survey() {
+        SurveyDTO dto = new SurveyDTO();
+        dto.setTitle("統計分批測試");
+        dto.setStartDate(LocalDate.now().minusDays(1));
+        dto.setEndDate(LocalDate.now().plusDays(30));
+        dto.setStatus("PUBLISHED");
+        List<QuestionDTO> list = new ArrayList<>();
+        list.add(question(0, "SINGLE", 3));
+        list.add(question(1, "TEXT", 0));
+        list.add(question(2, "NUMBER", 0));
+        dto.setQuestions(list);
+        return dto;
+    }
+
+    private static QuestionDTO question(int index, String type, int options) {
+        QuestionDTO q = new QuestionDTO();
+        q.setTitle("Q" + index);
+        q.setType(type);
+        q.setOrderIndex(index);
+        List<OptionDTO> opts = new ArrayList<>();
+        for (int k = 0; k < options; k++) {
+            OptionDTO o = new OptionDTO();
+            o.setOptionText("選項 " + k);
+            o.setOrderIndex(k);
+            opts.add(o);
+        }
+        q.setOptions(opts);
+        return q;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.config.ResponseShardRouter;
+import com.example.dynamicsurvey.dto.OptionDTO;
+import com.example.dynamicsurvey.dto.QuestionDTO;
+import com.example.dynamicsurvey.dto.SurveyDTO;
+import com.example.dynamicsurvey.dto.SurveySummaryDTO;
+import com.example.dynamicsurvey.repository.ResponseArchiveRepository;
+import com.example.dynamicsurvey.repository.ResponseStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * [測試] 問卷版本的取代規則
+ * -----------------------------------------------------------------------------
+ * - 編輯已凍結的版本只會建立新版本草稿，舊版本 (不論是否仍在收件) 維持原狀
+ * - 新版本發佈時，先前發佈過的版本才改為 SUPERSEDED
+ * - 被取代的版本仍出現在後台列表，以 lineageId 與新版本歸為同一組
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SurveyService.class, SurveyMetrics.class, SurveyVersioningTest.Metrics.class})
+class SurveyVersioningTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean ResponseStore responseStore;
+    @MockBean ResponseShardRouter shardRouter;
+    @MockBean SurveySearchIndex searchIndex;
+    @MockBean SurveyArchiveService archiveService;
+    @MockBean ResponseArchiveRepository archiveRepository;
+    @MockBean ResponseQuotaService quotaService;
+    @MockBean RespondentSearchService respondentSearch;
+
+    @Autowired
+    SurveyService surveyService;
+
+    @Test
+    void draftEditOfUnpublishedFrozenVersionKeepsIt() {
+        SurveyDTO v1 = save(survey("PUBLISHED"));
+        SurveyDTO unpublished = details(v1.getId());
+        unpublished.setStatus("DRAFT");
+        save(unpublished);
+
+        SurveyDTO v2 = save(withExtraQuestion(details(v1.getId()), "DRAFT"));
+
+        assertThat(v2.getId()).isNotEqualTo(v1.getId());
+        assertThat(v2.getVersionNo()).isEqualTo(2);
+        assertThat(details(v1.getId()).getStatus()).isEqualTo("DRAFT");
+    }
+
+    @Test
+    void onlyPublishingTheReplacementSupersedes() {
+        SurveyDTO v1 = save(survey("PUBLISHED"));
+
+        SurveyDTO v2 = save(withExtraQuestion(details(v1.getId()), "DRAFT"));
+        assertThat(details(v1.getId()).getStatus()).isEqualTo("PUBLISHED");
+
+        SurveyDTO publish = details(v2.getId());
+        publish.setStatus("PUBLISHED");
+        save(publish);
+        assertThat(details(v1.getId()).getStatus()).isEqualTo("SUPERSEDED");
+        assertThat(details(v2.getId()).getStatus()).isEqualTo("PUBLISHED");
+    }
+
+    @Test
+    void supersededVersionsStayListedUnderTheirLineage() {
+        SurveyDTO v1 = save(survey("PUBLISHED"));
+        SurveyDTO v2 = save(withExtraQuestion(details(v1.getId()), "PUBLISHED"));
+
+        List<SurveySummaryDTO> listed = surveyService.getSurveysByAdmin(null, null, null, false, null).getData();
+
+        SurveySummaryDTO old = listed.stream().filter(s -> s.getId().equals(v1.getId())).findFirst().orElseThrow();
+        SurveySummaryDTO current = listed.stream().filter(s -> s.getId().equals(v2.getId())).findFirst().orElseThrow();
+        assertThat(old.getStatus()).isEqualTo("SUPERSEDED");
+        assertThat(old.getLineageId()).isEqualTo(v1.getId()).isEqualTo(current.getLineageId());
+        assertThat(current.getVersionNo()).isEqualTo(2);
+    }
+
+    private SurveyDTO save(SurveyDTO dto) {
+        SurveyDTO saved = surveyService.saveSurvey(dto).getData();
+        assertThat(saved).as("saveSurvey").isNotNull();
+        return saved;
+    }
+
+    private SurveyDTO details(Long id) {
+        return surveyService.getSurveyDetails(id).getData();
+    }
+
+    private static SurveyDTO withExtraQuestion(SurveyDTO dto, String status) {
+        QuestionDTO q = question("Q" + (dto.getQuestions().size() + 1));
+        q.setOrderIndex(dto.getQuestions().size());
+        dto.getQuestions().add(q);
+        dto.setStatus(status);
+        return dto;
+    }
+
+    private static SurveyDTO survey(String status) {
+        SurveyDTO dto = new SurveyDTO();
+        dto.setTitle("版本測試");
+        dto.setStartDate(LocalDate.now().minusDays(1));
+        dto.setEndDate(LocalDate.now().plusDays(30));
+        dto.setStatus(status);
+        dto.setQuestions(new ArrayList<>(List.of(question("Q1"))));
+        return dto;
+    }
+
+    private static QuestionDTO question(String title) {
+        QuestionDTO q = new QuestionDTO();
+        q.setTitle(title);
+        q.setType("SINGLE");
+        OptionDTO o = new OptionDTO();
+        o.setOptionText("A");
+        q.setOptions(new ArrayList<>(List.of(o)));
+        return q;
+    }
+}
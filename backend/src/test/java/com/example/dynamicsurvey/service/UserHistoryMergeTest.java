@@ -0,0 +1,108 @@
+package com.example.dynamicsurvey.service;
+
+import com.example.dynamicsurvey.dto.HistoryItemDTO;
+import com.example.dynamicsurvey.dto.HistoryPageDTO;
+import com.example.dynamicsurvey.repository.ResponseArchiveRepository;
+import com.example.dynamicsurvey.repository.ResponseStore;
+import com.example.dynamicsurvey.security.UserDetailsImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * [測試] 作答歷史合併線上與封存區
+ * -----------------------------------------------------------------------------
+ * 兩個來源各自依 keyset 條件回傳 (與實際 SQL 相同的語意)，逐頁翻完後：
+ * 每筆都恰好出現一次，整體順序為 submittedAt、responseId 由新到舊 (含同一時間點跨來源的情況)。
+ */
+class UserHistoryMergeTest {
+
+    private static final long USER_ID = 42L;
+
+    private final List<HistoryItemDTO> live = new ArrayList<>();
+    private final List<HistoryItemDTO> archived = new ArrayList<>();
+    private SurveyService service;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 9, 0);
+        // 封存區是較舊的問卷，但時間與線上交錯，並有相同時間點的紀錄
+        for (long id = 1; id <= 23; id++) {
+            HistoryItemDTO item = new HistoryItemDTO(id, id % 5, null, base.plusHours(id / 2));
+            (id % 3 == 0 ? archived : live).add(item);
+        }
+        ResponseStore responseStore = mock(ResponseStore.class);
+        ResponseArchiveRepository archiveRepository = mock(ResponseArchiveRepository.class);
+        when(responseStore.findHistory(eq(USER_ID), any(), any(), anyInt()))
+                .thenAnswer(inv -> keyset(live, inv.getArgument(1), inv.getArgument(2), inv.getArgument(3)));
+        when(archiveRepository.findHistory(eq(USER_ID), any(), any(), anyInt()))
+                .thenAnswer(inv -> keyset(archived, inv.getArgument(1), inv.getArgument(2), inv.getArgument(3)));
+        service = new SurveyService();
+        service.responseStore = responseStore;
+        service.archiveRepository = archiveRepository;
+
+        UserDetailsImpl user = UserDetailsImpl.fromClaims(USER_ID, "user@example.com", "User", "USER");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void pagesThroughLiveAndArchivedInOrder() {
+        List<Long> seen = new ArrayList<>();
+        LocalDateTime beforeAt = null;
+        Long beforeId = null;
+        int pages = 0;
+        while (true) {
+            HistoryPageDTO page = (HistoryPageDTO) service.getUserHistory(beforeAt, beforeId, 5).getData();
+            page.getItems().forEach(h -> seen.add(h.getResponseId()));
+            pages++;
+            if (!page.isHasMore()) break;
+            beforeAt = page.getNextBeforeAt();
+            beforeId = page.getNextBeforeId();
+        }
+
+        List<HistoryItemDTO> all = new ArrayList<>(live);
+        all.addAll(archived);
+        all.sort(HistoryItemDTO.NEWEST_FIRST);
+        assertThat(seen).containsExactlyElementsOf(all.stream().map(HistoryItemDTO::getResponseId).toList());
+        assertThat(pages).isEqualTo(5);
+    }
+
+    @Test
+    void firstPageIncludesNewerArchivedRows() {
+        archived.add(new HistoryItemDTO(100L, 9L, null, LocalDateTime.of(2026, 6, 1, 0, 0)));
+
+        HistoryPageDTO page = (HistoryPageDTO) service.getUserHistory(null, null, 3).getData();
+
+        assertThat(page.getItems()).first().extracting(HistoryItemDTO::getResponseId).isEqualTo(100L);
+        assertThat(page.isHasMore()).isTrue();
+    }
+
+    // 與 findHistory 的 SQL 相同：(submittedAt, id) 小於游標，由新到舊取 limit 筆
+    private static List<HistoryItemDTO> keyset(List<HistoryItemDTO> source, LocalDateTime beforeAt, Long beforeId, int limit) {
+        return source.stream()
+                .filter(h -> beforeAt == null || h.getSubmittedAt().isBefore(beforeAt)
+                        || (h.getSubmittedAt().isEqual(beforeAt) && h.getResponseId() < beforeId))
+                .sorted(HistoryItemDTO.NEWEST_FIRST)
+                .limit(limit)
+                .toList();
+    }
+}
@@ -0,0 +1,15 @@
+-- 分片測試用：主資料庫 (catalog) 中與分片有關的資料表 (與 V6__response_sharding.sql 相同，H2 語法)
+-- 分片啟用前的作答資料表另以 db/shard 的遷移建立
+
+CREATE TABLE response_placements (
+    survey_id BIGINT       NOT NULL PRIMARY KEY,
+    shard     VARCHAR(64)  NOT NULL,
+    placed_at TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX idx_placement_shard ON response_placements (shard);
+
+CREATE TABLE response_id_blocks (
+    name    VARCHAR(32) NOT NULL PRIMARY KEY,
+    next_id BIGINT      NOT NULL
+);
+INSERT INTO response_id_blocks (name, next_id) VALUES ('response', 1), ('answer', 1);
@@ -2,18 +2,44 @@
  * [教學說明] Survey Stats Models
  */
 
+import { QuestionType } from './survey.model';
+
 export interface OptionStats {
   optionText: string;
   count: number;
   percentage: number;
 }
 
+/**
+ * 數值題與年齡的統計；分位數為 nearest-rank (評分、NPS、年齡為精確值，其他為近似值)
+ */
+export interface NumericStats {
+  count: number;
+  mean?: number;
+  variance?: number;
+  min?: number;
+  max?: number;
+  p25?: number;
+  p50?: number;
+  p75?: number;
+  p90?: number;
+  histogram: HistogramBucket[]; // 每格涵蓋 [from, to)
+  npsScore?: number;            // 只有 NPS 題才有
+}
+
+export interface HistogramBucket {
+  from: number;
+  to: number;
+  count: number;
+}
+
 export interface QuestionStats {
   questionId: number;
   questionTitle: string;
-  type: 'SINGLE' | 'MULTI' | 'TEXT';
+  type: QuestionType;
   optionStats?: { [key: number]: OptionStats }; // 選項ID -> 統計
   textAnswers?: string[];
+  numericStats?: NumericStats;
 }
 
 export interface SurveyStats {
@@ -21,4 +47,5 @@ export interface SurveyStats {
   surveyTitle: string;
   totalResponses: number;
   questionStats: QuestionStats[];
+  ageStats?: NumericStats;
 }
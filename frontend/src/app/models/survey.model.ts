@@ -4,13 +4,27 @@
  * 這裡的結構必須與後端的 SurveyDTO 完全對應。
  */
 
-export type SurveyStatus = 'DRAFT' | 'PUBLISHED';
-export type QuestionType = 'SINGLE' | 'MULTI' | 'TEXT';
+// SUPERSEDED：已發佈過、但已被同一份問卷的新版本取代
+export type SurveyStatus = 'DRAFT' | 'PUBLISHED' | 'SUPERSEDED';
+// NUMBER：數值；RATING：評分 (整數，預設 1 ~ 5)；NPS：淨推薦值 (0 ~ 10)。數值題的答案放在 answerText
+export type QuestionType = 'SINGLE' | 'MULTI' | 'TEXT' | 'NUMBER' | 'RATING' | 'NPS';
 
 export interface Option {
   id?: number;
   optionText: string;
   orderIndex: number;
+  quota?: number | null; // 選取此選項的作答名額 (空白代表不限)
+}
+
+/**
+ * 顯示條件：第 questionOrderIndex 題選了 optionOrderIndexes 其中任一個選項時成立
+ * questionId / optionIds 由後端在讀取問卷時填入 (填答頁直接與作答比對)
+ */
+export interface ShowCondition {
+  questionOrderIndex: number;
+  optionOrderIndexes: number[];
+  questionId?: number;
+  optionIds?: number[];
 }
 
 export interface Question {
@@ -20,6 +34,9 @@ export interface Question {
   required: boolean;
   orderIndex: number;
   options: Option[];
+  showIf?: ShowCondition[] | null; // 全部成立才顯示；沒有條件的題目一律顯示
+  minValue?: number | null; // 數值 / 評分題的範圍 (空白代表不限；評分題預設 1 ~ 5)
+  maxValue?: number | null;
 }
 
 export interface Survey {
@@ -30,5 +47,46 @@ export interface Survey {
   endDate: string;   // ISO date string
   status: SurveyStatus;
   hasResponses?: boolean; // 新增欄位
+  rootId?: number;        // 第一版的 ID (第一版本身為空)
+  versionNo?: number;     // 版本序號；已發佈的版本內容不可變，編輯時後端會建立新版本
+  maxResponses?: number | null; // 作答名額上限 (空白代表不限)；額滿後自動停止收件
   questions: Question[];
 }
+
+/**
+ * 列表頁使用的問卷摘要 (不含題目)
+ */
+export interface SurveySummary {
+  id: number;
+  title: string;
+  description?: string;
+  startDate: string;
+  endDate: string;
+  status: SurveyStatus;
+  hasResponses: boolean;
+  versionNo: number;
+  lineageId: number;      // 同一份問卷各版本相同 (第一版的 ID)，列表依此分組
+}
+
+/**
+ * 後台列表的一列：同一份問卷的所有版本 (versionNo 由新到舊)，selected 為目前檢視的版本
+ */
+export interface SurveyLineage {
+  lineageId: number;
+  versions: SurveySummary[];
+  selected: SurveySummary;
+}
+
+export interface HistoryItem {
+  responseId: number;
+  surveyId: number;
+  surveyTitle: string;
+  submittedAt: string;
+}
+
+export interface HistoryPage {
+  items: HistoryItem[];
+  hasMore: boolean;
+  nextBeforeAt?: string;
+  nextBeforeId?: number;
+}
@@ -12,7 +12,7 @@ import { MessageService } from 'primeng/api';
 import { DividerModule } from 'primeng/divider';
 import { ActivatedRoute, Router, RouterLink } from '@angular/router';
 import { SurveyService } from '../../../services/survey.service';
-import { Question, Survey, Option } from '../../../models/survey.model';
+import { Question, Survey, Option, ShowCondition } from '../../../models/survey.model';
 
 @Component({
   selector: 'app-survey-editor',
@@ -42,9 +42,20 @@ export class SurveyEditorComponent implements OnInit {
   questionTypes = [
     { label: '單選', value: 'SINGLE', icon: 'pi pi-circle' },
     { label: '多選', value: 'MULTI', icon: 'pi pi-check-square' },
-    { label: '文字', value: 'TEXT', icon: 'pi pi-align-left' }
+    { label: '文字', value: 'TEXT', icon: 'pi pi-align-left' },
+    { label: '數值', value: 'NUMBER', icon: 'pi pi-hashtag' },
+    { label: '評分', value: 'RATING', icon: 'pi pi-star' },
+    { label: 'NPS', value: 'NPS', icon: 'pi pi-gauge' }
   ];
 
+  isChoice(type: string): boolean {
+    return type === 'SINGLE' || type === 'MULTI';
+  }
+
+  typeLabel(type: string): string {
+    return this.questionTypes.find(t => t.value === type)?.label ?? type;
+  }
+
   constructor() {
     // 建立結構化表單
     this.surveyForm = this.fb.group({
@@ -53,6 +64,7 @@ export class SurveyEditorComponent implements OnInit {
       description: ['', [Validators.maxLength(300)]],
       startDate: [null, Validators.required],
       endDate: [null, Validators.required],
+      maxResponses: [null as number | null, Validators.min(1)], // 作答名額上限 (空白代表不限)
       questions: this.fb.array([]) // 題目 FormArray
     });
   }
@@ -83,6 +95,9 @@ export class SurveyEditorComponent implements OnInit {
       title: ['', Validators.required],
       type: ['SINGLE', Validators.required],
       required: [true],
+      showIf: [[] as ShowCondition[]], // 顯示條件 (以題目 / 選項的順序引用，見 ShowCondition)
+      minValue: [null as number | null], // 數值 / 評分題的範圍
+      maxValue: [null as number | null],
       options: this.fb.array([]) // 選項 FormArray
     });
     this.addOption(qGroup.get('options') as FormArray); // 預設給兩個選項
@@ -91,24 +106,38 @@ export class SurveyEditorComponent implements OnInit {
   }
 
   removeQuestion(index: number) {
+    // 引用被刪除題目的條件一併移除，之後題目的順序往前遞補
+    this.remapConditions(c => c.questionOrderIndex === index ? null
+      : c.questionOrderIndex > index ? { ...c, questionOrderIndex: c.questionOrderIndex - 1 } : c);
     this.questionsArray.removeAt(index);
   }
 
   addOption(optionsArray: FormArray) {
     optionsArray.push(this.fb.group({
       id: [null],
-      optionText: ['', Validators.required]
+      optionText: ['', Validators.required],
+      quota: [null as number | null, Validators.min(1)]
     }));
   }
 
   removeOption(qIndex: number, oIndex: number) {
+    this.remapConditions(c => {
+      if (c.questionOrderIndex !== qIndex) return c;
+      const optionOrderIndexes = c.optionOrderIndexes.filter(o => o !== oIndex).map(o => o > oIndex ? o - 1 : o);
+      return optionOrderIndexes.length ? { ...c, optionOrderIndexes } : null;
+    });
     this.getOptionsArray(qIndex).removeAt(oIndex);
   }
 
   onTypeChange(qIndex: number) {
     const qGroup = this.questionsArray.at(qIndex);
     const options = this.getOptionsArray(qIndex);
-    if (qGroup.get('type')?.value === 'TEXT') {
+    const type = qGroup.get('type')?.value;
+    // 範圍只適用於數值 / 評分題，換類型時清空 (評分題留空即為 1 ~ 5)
+    qGroup.patchValue({ minValue: null, maxValue: null });
+    if (!this.isChoice(type)) {
+      // 簡答與數值題不能作為顯示條件的來源，也沒有選項
+      this.remapConditions(c => c.questionOrderIndex === qIndex ? null : c);
       options.clear();
     } else if (options.length === 0) {
       this.addOption(options);
@@ -116,6 +145,60 @@ export class SurveyEditorComponent implements OnInit {
     }
   }
 
+  // --- 顯示條件 (Skip Logic) ---
+  // 只能引用前面的選擇題，因此編輯器中不會產生循環 (後端儲存時仍會再驗證)
+
+  getConditions(qIndex: number): ShowCondition[] {
+    return this.questionsArray.at(qIndex).get('showIf')?.value ?? [];
+  }
+
+  private setConditions(qIndex: number, conditions: ShowCondition[]) {
+    this.questionsArray.at(qIndex).get('showIf')?.setValue(conditions);
+  }
+
+  /**
+   * 可作為第 qIndex 題條件來源的題目 (前面的選擇題)
+   */
+  conditionSources(qIndex: number): { index: number; title: string }[] {
+    return this.questionsArray.controls
+      .map((q, index) => ({ index, title: q.get('title')?.value || `題目 #${index + 1}`, type: q.get('type')?.value }))
+      .filter(q => q.index < qIndex && this.isChoice(q.type));
+  }
+
+  addCondition(qIndex: number) {
+    const source = this.conditionSources(qIndex)[0];
+    if (!source) return;
+    this.setConditions(qIndex, [...this.getConditions(qIndex), { questionOrderIndex: source.index, optionOrderIndexes: [0] }]);
+  }
+
+  removeCondition(qIndex: number, cIndex: number) {
+    this.setConditions(qIndex, this.getConditions(qIndex).filter((_, i) => i !== cIndex));
+  }
+
+  onConditionSourceChange(qIndex: number, cIndex: number, sourceIndex: number) {
+    this.setConditions(qIndex, this.getConditions(qIndex).map((c, i) =>
+      i === cIndex ? { questionOrderIndex: Number(sourceIndex), optionOrderIndexes: [0] } : c));
+  }
+
+  toggleConditionOption(qIndex: number, cIndex: number, oIndex: number, checked: boolean) {
+    this.setConditions(qIndex, this.getConditions(qIndex).map((c, i) => {
+      if (i !== cIndex) return c;
+      const rest = c.optionOrderIndexes.filter(o => o !== oIndex);
+      return { ...c, optionOrderIndexes: checked ? [...rest, oIndex].sort((a, b) => a - b) : rest };
+    }));
+  }
+
+  /**
+   * 題目或選項被刪除時調整所有條件的引用；回傳 null 代表移除該條件
+   */
+  private remapConditions(fn: (c: ShowCondition) => ShowCondition | null) {
+    this.questionsArray.controls.forEach((_, qIndex) => {
+      const conditions = this.getConditions(qIndex);
+      if (!conditions.length) return;
+      this.setConditions(qIndex, conditions.map(fn).filter((c): c is ShowCondition => c !== null));
+    });
+  }
+
   // --- 流程控制 ---
 
   /**
@@ -165,7 +248,8 @@ export class SurveyEditorComponent implements OnInit {
         title: s.title,
         description: s.description,
         startDate: new Date(s.startDate),
-        endDate: new Date(s.endDate)
+        endDate: new Date(s.endDate),
+        maxResponses: s.maxResponses ?? null
       });
 
       this.questionsArray.clear();
@@ -175,9 +259,13 @@ export class SurveyEditorComponent implements OnInit {
           title: [q.title, Validators.required],
           type: [q.type, Validators.required],
           required: [q.required],
+          showIf: [(q.showIf ?? []).map(c => ({ questionOrderIndex: c.questionOrderIndex, optionOrderIndexes: [...c.optionOrderIndexes] }))],
+          minValue: [q.minValue ?? null],
+          maxValue: [q.maxValue ?? null],
           options: this.fb.array(q.options.map(o => this.fb.group({
             id: [o.id],
-            optionText: [o.optionText, Validators.required]
+            optionText: [o.optionText, Validators.required],
+            quota: [o.quota ?? null, Validators.min(1)]
           })))
         });
         this.questionsArray.push(qGroup);
@@ -1,4 +1,4 @@
-import { Component, inject, OnInit, signal } from '@angular/core';
+import { Component, computed, inject, OnInit, signal } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { MatTableModule } from '@angular/material/table';
 import { MatButtonModule } from '@angular/material/button';
@@ -7,7 +7,8 @@ import { MatChipsModule } from '@angular/material/chips';
 import { MatSnackBar, MatSnackBarModule } from '@angular/material/snack-bar';
 import { Router, RouterLink } from '@angular/router';
 import { SurveyService } from '../../../services/survey.service';
-import { Survey } from '../../../models/survey.model';
+import { SurveyLineage, SurveySummary } from '../../../models/survey.model';
+import { switchMap } from 'rxjs';
 
 /**
  * [教學說明] SurveyListComponent (後台問卷列表)
@@ -15,7 +16,9 @@ import { Survey } from '../../../models/survey.model';
  * 展示了：
  * 1. MatTable: 呈現結構化資料。
  * 2. 資料串接: 在 ngOnInit 中呼叫 Service 取得資料。
- * 3. 狀態顯示: 使用 MatChips 顯示問卷是 DRAFT 還是 PUBLISHED。
+ * 3. 狀態顯示: 使用 MatChips 顯示問卷是 DRAFT、PUBLISHED 還是 SUPERSEDED。
+ * 4. 版本分組: 同一份問卷 (lineageId 相同) 的各版本合併為一列，以版本選單切換；
+ *    被取代的版本不可編輯或發佈，但仍可查看統計與作答。
  */
 @Component({
   selector: 'app-survey-list',
@@ -37,8 +40,28 @@ export class SurveyListComponent implements OnInit {
   private snackBar = inject(MatSnackBar);
   private router = inject(Router);
 
-  // 使用 Signal 管理問卷列表
-  surveys = signal<Survey[]>([]);
+  // 使用 Signal 管理問卷列表 (每個版本一筆)
+  surveys = signal<SurveySummary[]>([]);
+
+  // 各問卷目前檢視的版本 (lineageId -> 版本 ID)；未選擇時為收件中的版本，沒有則為最新版本
+  private pickedVersions = signal<Record<number, number>>({});
+
+  // 依 lineageId 分組，保留後端回傳的順序 (搜尋時為相關度)
+  lineages = computed<SurveyLineage[]>(() => {
+    const groups = new Map<number, SurveySummary[]>();
+    for (const s of this.surveys()) {
+      const key = s.lineageId ?? s.id;
+      groups.set(key, [...(groups.get(key) ?? []), s]);
+    }
+    const picked = this.pickedVersions();
+    return [...groups].map(([lineageId, list]) => {
+      const versions = [...list].sort((a, b) => b.versionNo - a.versionNo);
+      const selected = versions.find(v => v.id === picked[lineageId])
+        ?? versions.find(v => v.status === 'PUBLISHED')
+        ?? versions[0];
+      return { lineageId, versions, selected };
+    });
+  });
   
   // 定義表格要顯示的欄位
   displayedColumns: string[] = ['id', 'title', 'status', 'period', 'actions'];
@@ -54,21 +77,22 @@ export class SurveyListComponent implements OnInit {
     });
   }
 
-  onEdit(survey: Survey) {
+  selectVersion(lineage: SurveyLineage, id: string) {
+    this.pickedVersions.update(picked => ({ ...picked, [lineage.lineageId]: Number(id) }));
+  }
+
+  onEdit(survey: SurveySummary) {
     this.router.navigate(['/admin/edit', survey.id]);
   }
 
-  toggleStatus(survey: Survey) {
+  toggleStatus(survey: SurveySummary) {
     const newStatus = survey.status === 'PUBLISHED' ? 'DRAFT' : 'PUBLISHED';
     const statusText = newStatus === 'PUBLISHED' ? '發布' : '下架為草稿';
     
-    // 建立一個更新用的物件，確保包含必要資訊
-    const updatedSurvey: Survey = {
-      ...survey,
-      status: newStatus
-    };
-
-    this.surveyService.saveSurvey(updatedSurvey).subscribe({
+    // 列表只有摘要，先取得完整問卷 (含題目) 再以新狀態儲存
+    this.surveyService.getAdminSurveyById(survey.id).pipe(
+      switchMap(full => this.surveyService.saveSurvey({ ...full, status: newStatus }))
+    ).subscribe({
       next: () => {
         this.snackBar.open(`問卷已${statusText}`, '關閉', { duration: 2000 });
         this.loadSurveys(); // 刷新列表
@@ -8,7 +8,7 @@ import { ActivatedRoute, RouterLink } from '@angular/router';
 import { BaseChartDirective } from 'ng2-charts';
 import { ChartConfiguration, ChartData, ChartType } from 'chart.js';
 import { SurveyService } from '../../../services/survey.service';
-import { SurveyStats, QuestionStats } from '../../../models/survey-stats.model';
+import { SurveyStats, QuestionStats, NumericStats } from '../../../models/survey-stats.model';
 
 /**
  * [教學說明] SurveyStatsComponent (問卷統計頁面)
@@ -17,6 +17,7 @@ import { SurveyStats, QuestionStats } from '../../../models/survey-stats.model';
  * 1. 數據聚合顯示：總填寫人數。
  * 2. 圖表視覺化：使用 ng2-charts 將選擇題數據轉換為圓餅圖。
  * 3. 列表呈現：顯示簡答題的所有文字回答。
+ * 4. 數值題 (數值 / 評分 / NPS) 與作答者年齡：平均、變異數、分位數與直方圖 (長條圖)。
  */
 @Component({
   selector: 'app-survey-stats',
@@ -72,6 +73,26 @@ export class SurveyStatsComponent implements OnInit {
     };
   }
 
+  /**
+   * 數值統計的直方圖；每格涵蓋 [from, to)，整數格只顯示一個值
+   */
+  getHistogramData(n: NumericStats): ChartData<'bar'> {
+    return {
+      labels: n.histogram.map(b => b.to - b.from === 1 && Number.isInteger(b.from)
+        ? `${b.from}` : `${this.formatBound(b.from)} ~ ${this.formatBound(b.to)}`),
+      datasets: [{ data: n.histogram.map(b => b.count), label: '人數', backgroundColor: '#4F46E5' }]
+    };
+  }
+
+  private formatBound(v: number): string {
+    return v.toLocaleString(undefined, { maximumFractionDigits: 2 });
+  }
+
+  public barChartOptions: ChartConfiguration<'bar'>['options'] = {
+    responsive: true,
+    plugins: { legend: { display: false } }
+  };
+
   public pieChartOptions: ChartConfiguration['options'] = {
     responsive: true,
     plugins: {
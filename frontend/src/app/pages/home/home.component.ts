@@ -5,7 +5,7 @@ import { MatButtonModule } from '@angular/material/button';
 import { MatIconModule } from '@angular/material/icon';
 import { RouterLink } from '@angular/router';
 import { SurveyService } from '../../services/survey.service';
-import { Survey } from '../../models/survey.model';
+import { SurveySummary } from '../../models/survey.model';
 
 /**
  * [教學說明] HomeComponent (前台首頁)
@@ -22,7 +22,7 @@ import { Survey } from '../../models/survey.model';
 export class HomeComponent implements OnInit {
   private surveyService = inject(SurveyService);
   
-  surveys = signal<Survey[]>([]);
+  surveys = signal<SurveySummary[]>([]);
 
   ngOnInit() {
     this.surveyService.getActiveSurveys().subscribe({
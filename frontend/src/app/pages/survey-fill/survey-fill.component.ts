@@ -38,6 +38,7 @@ export class SurveyFillComponent implements OnInit {
   // 狀態控制
   isConfirmPage = signal(false); // 是否處於確認頁狀態
   previewData = signal<any>(null); // 暫存從 Session 拿回來的資料供顯示
+  hiddenIds = signal<Set<number>>(new Set()); // 依顯示條件被隱藏的題目
 
   ngOnInit() {
     const id = this.route.snapshot.paramMap.get('id');
@@ -69,11 +70,68 @@ export class SurveyFillComponent implements OnInit {
     questions.forEach(q => {
       if (q.type === 'MULTI') {
         group[q.id!] = this.fb.array([], q.required ? Validators.required : null);
+      } else if (q.type === 'NUMBER') {
+        // 範圍檢查在前端先擋一次，後端 QuestionTypes 仍會驗證
+        const validators = [];
+        if (q.required) validators.push(Validators.required);
+        if (q.minValue != null) validators.push(Validators.min(q.minValue));
+        if (q.maxValue != null) validators.push(Validators.max(q.maxValue));
+        group[q.id!] = [null, validators];
       } else {
         group[q.id!] = ['', q.required ? Validators.required : null];
       }
     });
     this.fillForm = this.fb.group(group);
+    this.updateVisibility();
+    this.fillForm.valueChanges.subscribe(() => this.updateVisibility());
+  }
+
+  /**
+   * 依目前作答計算顯示條件 (與後端 SkipLogicPlan 規則相同)
+   * 被隱藏的題目停用其欄位：不參與驗證，也不會出現在 form value 中 (不送出答案)。
+   */
+  private updateVisibility() {
+    const questions = this.survey()?.questions ?? [];
+    const byId = new Map(questions.map(q => [q.id!, q]));
+    const memo = new Map<number, boolean>();
+    const isShown = (q: Question): boolean => {
+      if (memo.has(q.id!)) return memo.get(q.id!)!;
+      memo.set(q.id!, false); // 後端已擋下循環引用，這裡只防止無限遞迴
+      const shown = (q.showIf ?? []).every(c => {
+        const source = byId.get(c.questionId!);
+        if (!source || !isShown(source)) return false;
+        const value = this.fillForm.get(source.id!.toString())?.value;
+        const chosen: number[] = Array.isArray(value) ? value : [value];
+        return chosen.some(v => c.optionIds?.includes(v));
+      });
+      memo.set(q.id!, shown);
+      return shown;
+    };
+
+    const hidden = new Set<number>();
+    questions.forEach(q => {
+      const control = this.fillForm.get(q.id!.toString());
+      if (isShown(q)) {
+        if (control?.disabled) control.enable({ emitEvent: false });
+      } else {
+        hidden.add(q.id!);
+        if (control?.enabled) control.disable({ emitEvent: false });
+      }
+    });
+    this.hiddenIds.set(hidden);
+  }
+
+  /**
+   * 評分 / NPS 題可選的分數 (評分題預設 1 ~ 5，NPS 固定 0 ~ 10)
+   */
+  scaleOf(q: Question): number[] {
+    const min = q.type === 'NPS' ? 0 : (q.minValue ?? 1);
+    const max = q.type === 'NPS' ? 10 : (q.maxValue ?? 5);
+    return Array.from({ length: max - min + 1 }, (_, i) => min + i);
+  }
+
+  setScore(questionId: number, score: number) {
+    this.fillForm.get(questionId.toString())?.setValue(score);
   }
 
   onCheckboxChange(questionId: number, optionId: number, checked: boolean) {
@@ -146,15 +204,25 @@ export class SurveyFillComponent implements OnInit {
         .map(qId => {
           const val = formValue[qId];
           const question = surveyData.questions.find(q => q.id === Number(qId))!;
+          const isChoice = question.type === 'SINGLE' || question.type === 'MULTI';
+          // 數值題的答案以文字送出 (後端會正規化並檢查範圍)
+          const text = val === null || val === undefined || val === '' ? null : String(val);
           return {
             questionId: Number(qId),
-            optionIds: question.type === 'TEXT' ? [] : (Array.isArray(val) ? val : [val]),
-            answerText: question.type === 'TEXT' ? val : null
+            optionIds: isChoice ? (Array.isArray(val) ? val : [val]) : [],
+            answerText: isChoice ? null : text
           };
         })
     };
   }
 
+  /**
+   * 取得題目標題 (預覽用；被隱藏的題目沒有答案，不能以順序對應)
+   */
+  getQuestionTitle(qId: number): string {
+    return this.survey()?.questions.find(x => x.id === qId)?.title || '';
+  }
+
   /**
    * 取得選項文字 (預覽用)
    */
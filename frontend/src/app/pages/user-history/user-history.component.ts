@@ -6,6 +6,7 @@ import { MatButtonModule } from '@angular/material/button';
 import { MatIconModule } from '@angular/material/icon';
 import { RouterLink } from '@angular/router';
 import { SurveyService } from '../../services/survey.service';
+import { HistoryItem, HistoryPage } from '../../models/survey.model';
 
 /**
  * [教學說明] UserHistoryComponent (個人填寫紀錄頁面)
@@ -20,12 +21,24 @@ import { SurveyService } from '../../services/survey.service';
 export class UserHistoryComponent implements OnInit {
   private surveyService = inject(SurveyService);
   
-  history = signal<any[]>([]);
+  history = signal<HistoryItem[]>([]);
+  nextPage = signal<HistoryPage | null>(null);
   displayedColumns: string[] = ['index', 'surveyTitle', 'submittedAt', 'actions'];
 
   ngOnInit() {
-    this.surveyService.getUserHistory().subscribe({
-      next: (data) => this.history.set(data),
+    this.loadMore();
+  }
+
+  /**
+   * 依游標載入下一頁並附加到現有列表
+   */
+  loadMore() {
+    const page = this.nextPage();
+    this.surveyService.getUserHistory(page?.nextBeforeAt, page?.nextBeforeId).subscribe({
+      next: (data) => {
+        this.history.update(list => [...list, ...data.items]);
+        this.nextPage.set(data.hasMore ? data : null);
+      },
       error: (err) => console.error('無法載入歷史紀錄', err)
     });
   }
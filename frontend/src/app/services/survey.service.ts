@@ -1,6 +1,6 @@
 import { inject, Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { Survey } from '../models/survey.model';
+import { HistoryPage, Survey, SurveySummary } from '../models/survey.model';
 import { SurveyStats } from '../models/survey-stats.model';
 import { map, Observable } from 'rxjs';
 
@@ -13,11 +13,11 @@ export class SurveyService {
   private readonly ADMIN_API_URL = 'http://localhost:8080/api/admin/surveys';
   private readonly PUBLIC_API_URL = 'http://localhost:8080/api/surveys';
 
-  getActiveSurveys(): Observable<Survey[]> {
+  getActiveSurveys(): Observable<SurveySummary[]> {
     return this.http.get<any>(this.PUBLIC_API_URL).pipe(map(res => res.data));
   }
 
-  getAllSurveys(): Observable<Survey[]> {
+  getAllSurveys(): Observable<SurveySummary[]> {
     return this.http.get<any>(this.ADMIN_API_URL).pipe(map(res => res.data));
   }
 
@@ -67,7 +67,11 @@ export class SurveyService {
     return this.http.get<any>(`${this.ADMIN_API_URL}/${id}/stats`).pipe(map(res => res.data));
   }
 
-  getUserHistory(): Observable<any[]> {
-    return this.http.get<any>(`${this.PUBLIC_API_URL}/history`).pipe(map(res => res.data));
+  /**
+   * 作答歷史採 keyset 分頁：帶入上一頁回傳的 nextBeforeAt / nextBeforeId 取得下一頁
+   */
+  getUserHistory(beforeAt?: string, beforeId?: number): Observable<HistoryPage> {
+    const cursor = beforeAt && beforeId ? `?beforeAt=${encodeURIComponent(beforeAt)}&beforeId=${beforeId}` : '';
+    return this.http.get<any>(`${this.PUBLIC_API_URL}/history${cursor}`).pipe(map(res => res.data));
   }
 }